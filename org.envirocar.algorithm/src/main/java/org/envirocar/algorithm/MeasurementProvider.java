@@ -19,6 +19,7 @@
 package org.envirocar.algorithm;
 
 import org.envirocar.core.entity.Measurement;
+import org.envirocar.obd.events.PropertyEventChannel;
 import org.envirocar.obd.events.PropertyKeyEvent;
 import org.envirocar.obd.events.Timestamped;
 
@@ -27,12 +28,21 @@ import io.reactivex.Observable;
 /**
  * TODO JavaDoc
  */
-public interface MeasurementProvider {
+public interface MeasurementProvider extends PropertyEventChannel.Listener {
 
     Observable<Measurement> measurements(long samplingRate);
 
     void consider(PropertyKeyEvent pke);
 
+    /**
+     * Receives the values of the {@link PropertyEventChannel}. Implementations should override
+     * this to consider the primitive value without wrapping it into an event.
+     */
+    @Override
+    default void onPropertyEvent(Measurement.PropertyKey key, double value, long timestamp) {
+        consider(new PropertyKeyEvent(key, value, timestamp));
+    }
+
     void newPosition(Position pos);
 
     class Position implements Timestamped {
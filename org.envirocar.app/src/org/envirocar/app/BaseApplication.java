@@ -25,6 +25,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.SharedPreferences;
+import android.net.wifi.WifiManager;
 import android.os.Build;
 import android.preference.PreferenceManager;
 
@@ -39,6 +40,7 @@ import org.envirocar.app.handler.userstatistics.UserStatisticsProcessor;
 import org.envirocar.app.notifications.AutomaticUploadNotificationHandler;
 import org.envirocar.app.notifications.NotificationHandler;
 import org.envirocar.app.rxutils.RxBroadcastReceiver;
+import org.envirocar.app.services.WlanConnectionReceiver;
 import org.envirocar.core.injection.InjectApplicationScope;
 import org.envirocar.core.logging.ACRASenderFactory;
 import org.envirocar.core.logging.Logger;
@@ -65,6 +67,7 @@ public class BaseApplication extends Application {
 
     BaseApplicationComponent baseApplicationComponent;
     protected BroadcastReceiver mScreenReceiver;
+    protected BroadcastReceiver mWlanReceiver;
 
     @Inject
     protected UserService userService;
@@ -148,6 +151,10 @@ public class BaseApplication extends Application {
                         })
                         .doOnError(LOG::error)
                         .subscribe());
+
+        // network state changes are no longer delivered to receivers declared in the manifest.
+        mWlanReceiver = new WlanConnectionReceiver();
+        registerReceiver(mWlanReceiver, new IntentFilter(WifiManager.NETWORK_STATE_CHANGED_ACTION));
     }
 
     @Override
@@ -156,6 +163,9 @@ public class BaseApplication extends Application {
         if (mScreenReceiver != null) {
             unregisterReceiver(mScreenReceiver);
         }
+        if (mWlanReceiver != null) {
+            unregisterReceiver(mWlanReceiver);
+        }
 
         if (disposables != null) {
             disposables.clear();
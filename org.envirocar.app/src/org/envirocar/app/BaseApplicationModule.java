@@ -38,6 +38,7 @@ import org.envirocar.app.injection.modules.OBDServiceModule;
 import org.envirocar.core.CacheDirectoryProvider;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.util.Util;
+import org.envirocar.obd.events.PropertyEventChannel;
 import org.envirocar.app.handler.DAOProvider;
 import org.envirocar.remote.injection.modules.RemoteModule;
 import org.envirocar.storage.DatabaseModule;
@@ -116,6 +117,18 @@ public class BaseApplicationModule {
         return mBus;
     }
 
+    /**
+     * Provides the channel for the measurement-rate OBD values, which are too frequent to be
+     * dispatched over the event bus.
+     *
+     * @return the application event channel.
+     */
+    @Provides
+    @Singleton
+    PropertyEventChannel providePropertyEventChannel() {
+        return new PropertyEventChannel();
+    }
+
     /**
      * Provides the DAOProvider fot the application
      *
@@ -51,6 +51,8 @@ public class ApplicationSettings {
     public static final int DEFAULT_TRACK_TRIM_DURATION = 110;
     public static final boolean DEFAULT_DEBUG_LOGGING = false;
     public static final int DEFAULT_SAMPLING_RATE = 5;
+    public static final int DEFAULT_MEASUREMENT_BATCH_SIZE = 10;
+    public static final int DEFAULT_MEASUREMENT_FLUSH_INTERVAL = 15;
 
 //    // General Settings
 //    public static final String PREF_AUTOMATIC_UPLOAD_OF_TRACKS = "pref_automatic_upload_tracks";
@@ -155,6 +157,32 @@ public class ApplicationSettings {
                 .asObservable();
     }
 
+    public static int getMeasurementBatchSize(Context context) {
+        return getSharedPreferences(context).getInt(s(context, R.string.prefkey_measurement_batch_size), DEFAULT_MEASUREMENT_BATCH_SIZE);
+    }
+
+    public static void setMeasurementBatchSize(Context context, int batchSize) {
+        getSharedPreferences(context)
+                .edit()
+                .putInt(s(context, R.string.prefkey_measurement_batch_size), batchSize)
+                .apply();
+    }
+
+    /**
+     * @return the maximum time in seconds a recorded measurement is held back before it is
+     * written to the database.
+     */
+    public static int getMeasurementFlushInterval(Context context) {
+        return getSharedPreferences(context).getInt(s(context, R.string.prefkey_measurement_flush_interval), DEFAULT_MEASUREMENT_FLUSH_INTERVAL);
+    }
+
+    public static void setMeasurementFlushInterval(Context context, int flushInterval) {
+        getSharedPreferences(context)
+                .edit()
+                .putInt(s(context, R.string.prefkey_measurement_flush_interval), flushInterval)
+                .apply();
+    }
+
     public static Observable<Boolean> getDebugLoggingObservable(Context context) {
         return getRxSharedPreferences(context)
                 .getBoolean(s(context, R.string.prefkey_enable_debug_logging), DEFAULT_DEBUG_LOGGING)
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.handler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated ring buffer of timestamped samples with one or more double values per sample.
+ * It is lock free for exactly one writing and one reading thread: the writer only advances the
+ * head, the reader only advances the tail. Samples offered while the buffer is full are dropped.
+ *
+ * @author dewall
+ */
+class InterpolationBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final int width;
+    private final long[] timestamps;
+    private final double[] values;
+
+    // next position to write, only advanced by the writer
+    private final AtomicLong head = new AtomicLong();
+    // next position to read, only advanced by the reader
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    /**
+     * @param capacity the number of samples, rounded up to a power of two.
+     * @param width    the number of values per sample.
+     */
+    InterpolationBuffer(int capacity, int width) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.width = width;
+        this.timestamps = new long[size];
+        this.values = new double[size * width];
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return true if there are no samples to read. Must only be called by the reading thread.
+     */
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * @return the timestamp of the oldest unread sample. Must only be called by the reading
+     * thread if the buffer is not empty.
+     */
+    long getOldestTimestamp() {
+        return timestamps[(int) (tail.get() & mask)];
+    }
+
+    /**
+     * @return the timestamp of the newest unread sample. Must only be called by the reading
+     * thread if the buffer is not empty.
+     */
+    long getNewestTimestamp() {
+        return timestamps[(int) ((head.get() - 1) & mask)];
+    }
+
+    /**
+     * Adds a sample with a single value. Must only be called by the writing thread.
+     *
+     * @return false if the buffer was full and the sample has been dropped.
+     */
+    boolean offer(long timestamp, double value) {
+        long position = head.get();
+        if (position - tail.get() >= capacity) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        int index = (int) (position & mask);
+        timestamps[index] = timestamp;
+        values[index * width] = value;
+        head.lazySet(position + 1);
+        return true;
+    }
+
+    /**
+     * Adds a sample with two values. Must only be called by the writing thread.
+     *
+     * @return false if the buffer was full and the sample has been dropped.
+     */
+    boolean offer(long timestamp, double first, double second) {
+        long position = head.get();
+        if (position - tail.get() >= capacity) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        int index = (int) (position & mask);
+        timestamps[index] = timestamp;
+        values[index * width] = first;
+        values[index * width + 1] = second;
+        head.lazySet(position + 1);
+        return true;
+    }
+
+    /**
+     * Moves all available samples into the given arrays, oldest first. Must only be called by
+     * the reading thread.
+     *
+     * @param timestampsOut array of at least {@link #getCapacity()} entries.
+     * @param valuesOut     array of at least {@link #getCapacity()} times width entries.
+     * @return the number of samples moved.
+     */
+    int drainTo(long[] timestampsOut, double[] valuesOut) {
+        long start = tail.get();
+        int count = (int) (head.get() - start);
+
+        for (int i = 0; i < count; i++) {
+            int index = (int) ((start + i) & mask);
+            timestampsOut[i] = timestamps[index];
+            System.arraycopy(values, index * width, valuesOut, i * width, width);
+        }
+
+        tail.lazySet(start + count);
+        return count;
+    }
+
+    /**
+     * @return the number of samples dropped since the last call.
+     */
+    int getAndResetDropped() {
+        return dropped.getAndSet(0);
+    }
+}
@@ -30,27 +30,47 @@ import org.envirocar.core.events.gps.GpsDOPEvent;
 import org.envirocar.core.events.gps.GpsLocationChangedEvent;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.obd.events.PropertyKeyEvent;
-import org.envirocar.obd.events.Timestamped;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.EnumMap;
 import java.util.Map;
 
 import io.reactivex.Observable;
 
 
 /**
- * TODO JavaDoc
+ * Collects the OBD and GPS values of a sampling window and interpolates them to the middle of
+ * the window.
+ * <p>
+ * The values are kept in preallocated ring buffers per property key. Every property key and the
+ * positions are fed by a single thread (the OBD scheduler or the location thread), and the
+ * buffers are drained by the single sampling thread, so that neither side has to lock.
  */
 public class InterpolationMeasurementProvider extends AbstractMeasurementProvider {
     private static final Logger LOG = Logger.getLogger(InterpolationMeasurementProvider.class);
 
-    private Map<Measurement.PropertyKey, List<PropertyKeyEvent>> bufferedResponses = new
-            HashMap<>();
+    // samples per property key and sampling window
+    private static final int BUFFER_CAPACITY = 64;
+
+    private final Map<Measurement.PropertyKey, InterpolationBuffer> bufferedResponses =
+            new EnumMap<>(Measurement.PropertyKey.class);
+    private final InterpolationBuffer bufferedPositions = new InterpolationBuffer(BUFFER_CAPACITY, 2);
+
+    // scratch arrays and time window of the sampling thread
+    private final long[] drainedTimestamps;
+    private final double[] drainedValues;
     private long firstTimestampToBeConsidered;
     private long lastTimestampToBeConsidered;
 
+    public InterpolationMeasurementProvider() {
+        for (Measurement.PropertyKey pk : Measurement.PropertyKey.values()) {
+            bufferedResponses.put(pk, new InterpolationBuffer(BUFFER_CAPACITY, 1));
+        }
+
+        int capacity = bufferedPositions.getCapacity();
+        this.drainedTimestamps = new long[capacity];
+        this.drainedValues = new double[capacity * 2];
+    }
+
     /*
      * TODO implement listing for GPS DOP Events
      */
@@ -59,25 +79,23 @@ public class InterpolationMeasurementProvider extends AbstractMeasurementProvide
         return Observable.create(emitter -> {
             LOG.info("measurements(): start collecting data");
             while (!emitter.isDisposed()) {
-                synchronized (InterpolationMeasurementProvider.this) {
-                    /**
-                     * wait the sampling rate
-                     */
-                    try {
-                        InterpolationMeasurementProvider.this.wait(samplingRate);
-                    } catch (InterruptedException e) {
-                        if (!emitter.isDisposed())
-                            emitter.onError(e);
-                    }
-
-                    Measurement m = createMeasurement();
-
-                    if (m != null && m.getLatitude() != null && m.getLongitude() != null &&
-                            (m.hasProperty(Measurement.PropertyKey.SPEED) ||
-                                    m.hasProperty(Measurement.PropertyKey.GPS_SPEED))) {
-                        LOG.info("Emitting next measuremnet");
-                        emitter.onNext(m);
-                    }
+                /**
+                 * wait the sampling rate
+                 */
+                try {
+                    Thread.sleep(samplingRate);
+                } catch (InterruptedException e) {
+                    if (!emitter.isDisposed())
+                        emitter.onError(e);
+                }
+
+                Measurement m = createMeasurement();
+
+                if (m != null && m.getLatitude() != null && m.getLongitude() != null &&
+                        (m.hasProperty(Measurement.PropertyKey.SPEED) ||
+                                m.hasProperty(Measurement.PropertyKey.GPS_SPEED))) {
+                    LOG.info("Emitting next measuremnet");
+                    emitter.onNext(m);
                 }
             }
             LOG.info("measurements(): finished the collection of data.");
@@ -85,7 +103,16 @@ public class InterpolationMeasurementProvider extends AbstractMeasurementProvide
         });
     }
 
-    private synchronized Measurement createMeasurement() {
+    private Measurement createMeasurement() {
+        /**
+         * determine the time window of the buffered values
+         */
+        this.firstTimestampToBeConsidered = 0;
+        considerTimeWindow(bufferedPositions);
+        for (InterpolationBuffer buffer : bufferedResponses.values()) {
+            considerTimeWindow(buffer);
+        }
+
         /**
          * use the middle of the time window
          */
@@ -95,103 +122,115 @@ public class InterpolationMeasurementProvider extends AbstractMeasurementProvide
         Measurement m = new MeasurementImpl();
         m.setTime(targetTimestamp);
 
-        for (Measurement.PropertyKey pk : this.bufferedResponses.keySet()) {
-            appendToMeasurement(pk, this.bufferedResponses.get(pk), m);
-            LOG.info("append key " + pk.toString());
-        }
-
         /**
-         * clear the buffer of DataResponses to be considered
+         * drain the buffered values into the measurement
          */
-        clearBuffer();
-        setPosition(m, getAndClearPositionBuffer());
+        int dropped = 0;
+        for (Map.Entry<Measurement.PropertyKey, InterpolationBuffer> entry :
+                bufferedResponses.entrySet()) {
+            int count = entry.getValue().drainTo(drainedTimestamps, drainedValues);
+            if (count > 0) {
+                appendToMeasurement(entry.getKey(), count, m);
+                LOG.info("append key " + entry.getKey().toString());
+            }
+            dropped += entry.getValue().getAndResetDropped();
+        }
+
+        setPosition(m, bufferedPositions.drainTo(drainedTimestamps, drainedValues));
+        dropped += bufferedPositions.getAndResetDropped();
+
+        if (dropped > 0) {
+            LOG.warn(String.format("Dropped %s values of a sampling window.", dropped));
+        }
 
         return m;
     }
 
-    private void setPosition(Measurement m, List<Position> positionBuffer) {
-        if (positionBuffer == null || positionBuffer.isEmpty()) {
+    private void considerTimeWindow(InterpolationBuffer buffer) {
+        if (buffer.isEmpty()) {
             return;
         }
 
-        if (positionBuffer.size() == 1) {
-            Position pos = positionBuffer.get(0);
-            m.setLatitude(pos.getLatitude());
-            m.setLongitude(pos.getLongitude());
+        this.lastTimestampToBeConsidered = Math.max(this.lastTimestampToBeConsidered,
+                buffer.getNewestTimestamp());
+
+        long oldest = buffer.getOldestTimestamp();
+        if (this.firstTimestampToBeConsidered == 0) {
+            this.firstTimestampToBeConsidered = oldest;
         } else {
-            long targetTimestamp = m.getTime();
-
-            /**
-             * find the closest two measurements
-             */
-            int startIndex = findStartIndex(positionBuffer, targetTimestamp);
-            Position start = positionBuffer.get(startIndex);
-            Position end = startIndex + 1 < positionBuffer.size() ? positionBuffer.get(startIndex
-                    + 1) : null;
-
-            double lat = interpolateTwo(start.getLatitude(), end != null ? end.getLatitude() :
-                            null, targetTimestamp, start.getTimestamp(),
-                    end != null ? end.getTimestamp() : 0L);
-            double lon = interpolateTwo(start.getLongitude(), end != null ? end.getLongitude() :
-                            null, targetTimestamp, start.getTimestamp(),
-                    end != null ? end.getTimestamp() : 0L);
-
-            m.setLatitude(lat);
-            m.setLongitude(lon);
+            this.firstTimestampToBeConsidered = Math.min(this.firstTimestampToBeConsidered, oldest);
         }
-
     }
 
-    private void appendToMeasurement(Measurement.PropertyKey pk, List<PropertyKeyEvent>
-            dataResponses, Measurement m) {
-        if (pk == null) {
+    private void setPosition(Measurement m, int count) {
+        if (count == 0) {
             return;
         }
 
+        if (count == 1) {
+            m.setLatitude(drainedValues[0]);
+            m.setLongitude(drainedValues[1]);
+        } else {
+            m.setLatitude(interpolate(count, 2, 0, m.getTime()));
+            m.setLongitude(interpolate(count, 2, 1, m.getTime()));
+        }
+    }
+
+    private void appendToMeasurement(Measurement.PropertyKey pk, int count, Measurement m) {
         switch (pk) {
             case FUEL_SYSTEM_STATUS_CODE:
-                m.setProperty(pk, first(dataResponses));
+                m.setProperty(pk, drainedValues[0]);
                 break;
             default:
-                m.setProperty(pk, interpolate(dataResponses, m.getTime()));
+                m.setProperty(pk, interpolate(count, 1, 0, m.getTime()));
                 break;
         }
-
-    }
-
-    private Double first(List<PropertyKeyEvent> dataResponses) {
-        return dataResponses.isEmpty() ? null : dataResponses.get(0).getValue().doubleValue();
     }
 
-    protected Double interpolate(List<PropertyKeyEvent> dataResponses, long targetTimestamp) {
-        if (dataResponses.size() <= 1) {
-            return first(dataResponses);
+    /**
+     * Interpolates the drained values at the target timestamp.
+     *
+     * @param count           the number of drained samples.
+     * @param width           the number of values per sample.
+     * @param offset          the offset of the value within a sample.
+     * @param targetTimestamp the target timestamp used for interpolation
+     * @return the interpolated value
+     */
+    private double interpolate(int count, int width, int offset, long targetTimestamp) {
+        if (count == 1) {
+            return drainedValues[offset];
         }
 
         /**
          * find the closest two measurements
          */
-        int startIndex = findStartIndex(dataResponses, targetTimestamp);
-        PropertyKeyEvent start = dataResponses.get(startIndex);
-        PropertyKeyEvent end = startIndex + 1 < dataResponses.size() ? dataResponses.get
-                (startIndex + 1) : null;
-
-        return interpolateTwo(start.getValue(), end != null ? end.getValue() : null,
-                targetTimestamp, start.getTimestamp(),
-                end != null ? end.getTimestamp() : 0L);
+        int startIndex = findStartIndex(drainedTimestamps, count, targetTimestamp);
+        return interpolateTwo(drainedValues[startIndex * width + offset],
+                drainedValues[(startIndex + 1) * width + offset], targetTimestamp,
+                drainedTimestamps[startIndex], drainedTimestamps[startIndex + 1]);
     }
 
-    private int findStartIndex(List<? extends Timestamped> dataResponses, long targetTimestamp) {
-        int i = 0;
-        while (i + 1 < dataResponses.size()) {
-            if (dataResponses.get(i).getTimestamp() <= targetTimestamp
-                    && dataResponses.get(i + 1).getTimestamp() >= targetTimestamp) {
-                return i;
+    /**
+     * @return the index of the first pair of samples that brackets the target timestamp, or 0
+     * if there is none.
+     */
+    static int findStartIndex(long[] timestamps, int count, long targetTimestamp) {
+        // binary search for the first sample after the first one that is not before the target
+        int low = 1;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < targetTimestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
-
-            i++;
         }
 
+        int start = low - 1;
+        if (timestamps[start] <= targetTimestamp && timestamps[low] >= targetTimestamp) {
+            return start;
+        }
         return 0;
     }
 
@@ -214,49 +253,44 @@ public class InterpolationMeasurementProvider extends AbstractMeasurementProvide
             return start.doubleValue();
         }
 
+        return interpolateTwo(start.doubleValue(), end.doubleValue(), targetTimestamp,
+                startTimestamp, endTimestamp);
+    }
+
+    private static double interpolateTwo(double start, double end, long targetTimestamp,
+                                         long startTimestamp, long endTimestamp) {
         float duration = (float) (endTimestamp - startTimestamp);
 
         float endWeight = (targetTimestamp - startTimestamp) / duration;
         float startWeight = (endTimestamp - targetTimestamp) / duration;
 
-        return start.doubleValue() * startWeight + end.doubleValue() * endWeight;
-    }
-
-    private void clearBuffer() {
-        for (List<PropertyKeyEvent> drl : this.bufferedResponses.values()) {
-            drl.clear();
-        }
-
-        /**
-         * reset the first timestamp
-         */
-        this.firstTimestampToBeConsidered = 0;
+        return start * startWeight + end * endWeight;
     }
 
     @Override
     @Subscribe
-    public synchronized void consider(PropertyKeyEvent pke) {
-        updateTimestamps(pke);
-
+    public void consider(PropertyKeyEvent pke) {
         Measurement.PropertyKey pk = pke.getPropertyKey();
 
-        if (pk == null) {
+        if (pk == null || pke.getValue() == null) {
             return;
         }
 
-        if (bufferedResponses.containsKey(pk)) {
-            bufferedResponses.get(pk).add(pke);
-        } else {
-            List<PropertyKeyEvent> list = new ArrayList<>();
-            list.add(pke);
-            bufferedResponses.put(pk, list);
-        }
+        consider(pk, pke.getValue().doubleValue(), pke.getTimestamp());
     }
 
     @Override
-    public synchronized void newPosition(Position pos) {
-        super.newPosition(pos);
-        updateTimestamps(pos);
+    public void onPropertyEvent(Measurement.PropertyKey key, double value, long timestamp) {
+        consider(key, value, timestamp);
+    }
+
+    private void consider(Measurement.PropertyKey pk, double value, long timestamp) {
+        bufferedResponses.get(pk).offer(timestamp, value);
+    }
+
+    @Override
+    public void newPosition(Position pos) {
+        bufferedPositions.offer(pos.getTimestamp(), pos.getLatitude(), pos.getLongitude());
     }
 
     @Subscribe
@@ -264,38 +298,22 @@ public class InterpolationMeasurementProvider extends AbstractMeasurementProvide
         Location location = loc.mLocation;
         long now = System.currentTimeMillis();
 
-        newPosition(new Position(now, location.getLatitude(), location.getLongitude()));
+        bufferedPositions.offer(now, location.getLatitude(), location.getLongitude());
 
         if (location.hasAccuracy()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_ACCURACY, location
-                    .getAccuracy(), now));
+            consider(Measurement.PropertyKey.GPS_ACCURACY, location.getAccuracy(), now);
         }
 
         if (location.hasAltitude()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_ALTITUDE, location
-                    .getAltitude(), now));
+            consider(Measurement.PropertyKey.GPS_ALTITUDE, location.getAltitude(), now);
         }
 
         if (location.hasBearing()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_BEARING, location
-                    .getBearing(), now));
+            consider(Measurement.PropertyKey.GPS_BEARING, location.getBearing(), now);
         }
 
         if (location.hasSpeed()) {
-            consider(new PropertyKeyEvent(
-                    Measurement.PropertyKey.GPS_SPEED, location.getSpeed() * 3.6f, now));
-        }
-    }
-
-    private void updateTimestamps(Timestamped dr) {
-        this.lastTimestampToBeConsidered = Math.max(this.lastTimestampToBeConsidered, dr
-                .getTimestamp());
-
-        if (this.firstTimestampToBeConsidered == 0) {
-            this.firstTimestampToBeConsidered = dr.getTimestamp();
-        } else {
-            this.firstTimestampToBeConsidered = Math.min(this.firstTimestampToBeConsidered, dr
-                    .getTimestamp());
+            consider(Measurement.PropertyKey.GPS_SPEED, location.getSpeed() * 3.6f, now);
         }
     }
 
@@ -305,15 +323,15 @@ public class InterpolationMeasurementProvider extends AbstractMeasurementProvide
         long now = System.currentTimeMillis();
 
         if (dop.hasHdop()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_HDOP, dop.getHdop(), now));
+            consider(Measurement.PropertyKey.GPS_HDOP, dop.getHdop(), now);
         }
 
         if (dop.hasVdop()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_VDOP, dop.getVdop(), now));
+            consider(Measurement.PropertyKey.GPS_VDOP, dop.getVdop(), now);
         }
 
         if (dop.hasPdop()) {
-            consider(new PropertyKeyEvent(Measurement.PropertyKey.GPS_PDOP, dop.getPdop(), now));
+            consider(Measurement.PropertyKey.GPS_PDOP, dop.getPdop(), now);
         }
     }
 
@@ -24,7 +24,6 @@ import org.envirocar.core.entity.Track;
 import org.envirocar.core.exception.DataRetrievalFailureException;
 import org.envirocar.core.exception.DataUpdateFailureException;
 import org.envirocar.core.exception.NotConnectedException;
-import org.envirocar.core.exception.TrackSerializationException;
 import org.envirocar.core.exception.UnauthorizedException;
 import org.envirocar.core.injection.InjectApplicationScope;
 import org.envirocar.core.logging.Logger;
@@ -32,8 +31,6 @@ import org.envirocar.core.util.TrackMetadata;
 import org.envirocar.core.util.Util;
 import org.envirocar.core.EnviroCarDB;
 
-import java.util.ArrayList;
-
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -175,27 +172,28 @@ public class TrackDAOHandler {
 
     public Track fetchRemoteTrack(Track remoteTrack) throws NotConnectedException,
             UnauthorizedException, DataRetrievalFailureException {
-        Track downloadedTrack = daoProvider.getTrackDAO().getTrackById(remoteTrack
-                .getRemoteID());
-
-        // Deep copy... TODO improve this.
-        remoteTrack.setName(downloadedTrack.getName());
-        remoteTrack.setDescription(downloadedTrack.getDescription());
-        remoteTrack.setMeasurements(new ArrayList<>(downloadedTrack.getMeasurements()));
-        remoteTrack.setCar(downloadedTrack.getCar());
-        remoteTrack.setTrackStatus(downloadedTrack.getTrackStatus());
-        remoteTrack.setMetadata(downloadedTrack.getMetadata());
-
-        remoteTrack.setStartTime(downloadedTrack.getStartTime());
-        remoteTrack.setEndTime(downloadedTrack.getEndTime());
-        remoteTrack.setDownloadState(Track.DownloadState.DOWNLOADED);
+        // The measurements are stored in batches while they are decoded from the response.
+        daoProvider.getTrackDAO().getTrackById(remoteTrack.getRemoteID(),
+                (downloadedTrack, measurements) -> {
+                    enviroCarDB.insertTrack(downloadedTrack, measurements);
+
+                    // Deep copy... TODO improve this.
+                    remoteTrack.setTrackID(downloadedTrack.getTrackID());
+                    remoteTrack.setName(downloadedTrack.getName());
+                    remoteTrack.setDescription(downloadedTrack.getDescription());
+                    remoteTrack.setCar(downloadedTrack.getCar());
+                    remoteTrack.setTrackStatus(downloadedTrack.getTrackStatus());
+                    remoteTrack.setMetadata(downloadedTrack.getMetadata());
+                    remoteTrack.setSummary(downloadedTrack.getSummary());
+
+                    remoteTrack.setStartTime(downloadedTrack.getStartTime());
+                    remoteTrack.setEndTime(downloadedTrack.getEndTime());
+                    remoteTrack.setDownloadState(Track.DownloadState.DOWNLOADED);
+                });
 
-        try {
-            enviroCarDB.insertTrack(remoteTrack);
-        } catch (TrackSerializationException e) {
-            LOGGER.error(e.getMessage(), e);
-        }
-        //        mDBAdapter.insertTrack(remoteTrack, true);
+        // The measurements are not loaded again. Views stream them from the database by
+        // enviroCarDB.getMeasurements(trackId) when they are needed.
+        remoteTrack.setLazyMeasurements(true);
         return remoteTrack;
     }
 }
@@ -42,10 +42,13 @@ import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.ObservableOperator;
 import io.reactivex.ObservableTransformer;
 import io.reactivex.Observer;
+import io.reactivex.Single;
 import io.reactivex.functions.Function;
 import io.reactivex.observers.DisposableObserver;
 
@@ -58,7 +61,7 @@ import io.reactivex.observers.DisposableObserver;
  * other way.
  */
 @Singleton
-public class TrackUploadHandler {
+public class TrackUploadHandler implements TrackUploadQueue.Uploader {
     private static Logger LOG = Logger.getLogger(TrackUploadHandler.class);
 
     private final Context mContext;
@@ -172,6 +175,22 @@ public class TrackUploadHandler {
     }
 
     private Observable<Track> uploadTrack(Track track) {
+        return prepareForUpload(track)
+                .flatMap(this::createRemoteTrack)
+                // Update the database entry
+                .flatMap(uploadedTrack -> mEnviroCarDB.updateTrackObservable(uploadedTrack))
+                .lift(new UploadExceptionMappingOperator());
+    }
+
+    @Override
+    public Completable assertUploadAllowed() {
+        return Observable.just(true)
+                .compose(AgreementManager.TermsOfUseValidator.create(mAgreementManager, null))
+                .ignoreElements();
+    }
+
+    @Override
+    public Observable<Track> prepareForUpload(Track track) {
         return Observable.just(track)
                 // general validation of the track
                 .map(validateRequirementsForUpload())
@@ -179,14 +198,47 @@ public class TrackUploadHandler {
                 // car and sets the remoteId
                 .compose(validateCarOfTrack())
                 // Update the track metadata.
-                .compose(updateTrackMetadata())
+                .compose(updateTrackMetadata());
+    }
+
+    @Override
+    public Observable<Track> createRemoteTrack(Track track) {
+        if (track.isLazyLoadingMeasurements()) {
+            return createRemoteTrackFromDatabase(track);
+        }
+        return Observable.just(track)
                 // obfuscate the track.
                 .map(asObfuscatedTrackWhenChecked())
                 // Upload the track
-                .flatMap(obfTrack -> mDAOProvider.getTrackDAO().createTrackObservable(obfTrack))
-                // Update the database entry
-                .flatMap(uploadedTrack -> mEnviroCarDB.updateTrackObservable(uploadedTrack))
-                .lift(new UploadExceptionMappingOperator());
+                .flatMap(obfTrack -> mDAOProvider.getTrackDAO().createTrackObservable(obfTrack));
+    }
+
+    /**
+     * Uploads a track whose measurements have not been loaded. The measurements are streamed
+     * from the database into the request body, so uploading a long track takes constant memory.
+     */
+    private Observable<Track> createRemoteTrackFromDatabase(Track track) {
+        Flowable<Measurement> measurements = mEnviroCarDB.getMeasurements(track.getTrackID());
+        Single<Flowable<Measurement>> upload;
+        if (ApplicationSettings.isObfuscationEnabled(mContext)) {
+            LOG.info("obfuscation is enabled. Obfuscating streamed measurements.");
+            // the first and last measurement are looked up by index, not by reading the track.
+            upload = Single.defer(() -> {
+                Measurement first = mEnviroCarDB.getFirstMeasurement(track.getTrackID());
+                Measurement last = mEnviroCarDB.getLastMeasurement(track.getTrackID());
+                if (first == null || last == null) {
+                    return Single.error(new NoMeasurementsException("Track with no measurements!"));
+                }
+                return TrackUtils.getObfuscatedMeasurements(track, first, last, measurements);
+            });
+        } else {
+            LOG.info("obfuscation is disabled.");
+            upload = Single.just(measurements);
+        }
+
+        return upload
+                .map(m -> mDAOProvider.getTrackDAO().createTrack(track, m.blockingIterable()))
+                .toObservable();
     }
 
     private Function<Track, Track> validateRequirementsForUpload() {
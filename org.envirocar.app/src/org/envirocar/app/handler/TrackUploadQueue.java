@@ -0,0 +1,346 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.handler;
+
+import org.envirocar.core.EnviroCarDB;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.UploadQueueEntry;
+import org.envirocar.core.exception.NoMeasurementsException;
+import org.envirocar.core.exception.NotConnectedException;
+import org.envirocar.core.exception.TrackUploadException;
+import org.envirocar.core.exception.UnauthorizedException;
+import org.envirocar.core.logging.Logger;
+import org.envirocar.core.utils.rx.OptionalOrError;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Persistent queue of track uploads. The queue and a checkpoint of every upload are stored in
+ * the database, so that an interrupted upload (e.g., because the connection got lost or the app
+ * has been killed) resumes at its last checkpoint: the remote track of a track that has already
+ * been created is not created a second time. Failed uploads are retried with an exponential
+ * backoff, and up to {@link #MAX_PARALLEL_UPLOADS} tracks are uploaded at the same time. A track
+ * is claimed before its upload, so that it is not uploaded twice when the queue gets processed
+ * by more than one subscriber at the same time.
+ *
+ * @author dewall
+ */
+@Singleton
+public class TrackUploadQueue {
+    private static final Logger LOG = Logger.getLogger(TrackUploadQueue.class);
+
+    // number of tracks that are uploaded at the same time.
+    static final int MAX_PARALLEL_UPLOADS = 3;
+    // delay after the first failed attempt, doubled with every further failed attempt.
+    static final long INITIAL_BACKOFF = TimeUnit.SECONDS.toMillis(30);
+    static final long MAX_BACKOFF = TimeUnit.HOURS.toMillis(1);
+    // number of failed attempts after which an upload is given up.
+    static final int MAX_ATTEMPTS = 10;
+
+    /**
+     * The steps of a track upload.
+     */
+    public interface Uploader {
+
+        /**
+         * Asserts that tracks may be uploaded at all, e.g., that the terms of use have been
+         * accepted. It is checked once before the queue gets processed.
+         */
+        Completable assertUploadAllowed();
+
+        /**
+         * Validates a track and prepares it for the upload, e.g., by registering its car.
+         * The preparations of the queued tracks are executed one after another.
+         */
+        Observable<Track> prepareForUpload(Track track);
+
+        /**
+         * Creates the remote track of a prepared track.
+         *
+         * @return the uploaded track holding its remote id.
+         */
+        Observable<Track> createRemoteTrack(Track track);
+    }
+
+    private final EnviroCarDB enviroCarDB;
+    private final Uploader uploader;
+    private final int parallelism;
+    private final long initialBackoff;
+    private final Scheduler scheduler;
+    // the preparation is not safe to run in parallel, e.g., the same car could be registered twice.
+    private final Scheduler prepareScheduler = Schedulers.from(Executors.newSingleThreadExecutor());
+    // ids of the tracks that are currently uploaded.
+    private final Set<Long> inFlight = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * Constructor.
+     *
+     * @param enviroCarDB   the database holding the tracks and the queue.
+     * @param uploadHandler the handler executing the single steps of an upload.
+     */
+    @Inject
+    public TrackUploadQueue(EnviroCarDB enviroCarDB, TrackUploadHandler uploadHandler) {
+        this(enviroCarDB, uploadHandler, MAX_PARALLEL_UPLOADS, INITIAL_BACKOFF, Schedulers.io());
+    }
+
+    TrackUploadQueue(EnviroCarDB enviroCarDB, Uploader uploader, int parallelism,
+                     long initialBackoff, Scheduler scheduler) {
+        this.enviroCarDB = enviroCarDB;
+        this.uploader = uploader;
+        this.parallelism = parallelism;
+        this.initialBackoff = initialBackoff;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Adds a track to the queue. A track that is already queued keeps its checkpoint, a track
+     * whose upload has failed permanently is queued again.
+     *
+     * @param track the track to upload.
+     */
+    public void enqueue(Track track) {
+        enviroCarDB.enqueueUpload(track.getTrackID());
+    }
+
+    /**
+     * Adds all finished local tracks to the queue.
+     */
+    public Completable enqueueLocalTracks() {
+        return enviroCarDB.getAllLocalTracks(true)
+                .take(1)
+                .flatMapIterable(tracks -> tracks)
+                .filter(track -> track.getTrackStatus() == Track.TrackStatus.FINISHED)
+                .doOnNext(this::enqueue)
+                .ignoreElements();
+    }
+
+    /**
+     * Uploads all queued tracks except the ones whose upload has failed permanently. The queue
+     * is processed in rounds: every round attempts the uploads that are due at the same time and
+     * reschedules the failed ones. Tracks waiting for their next attempt do not occupy any of the
+     * parallel uploads. The observable completes when the queue holds no more uploads to retry.
+     * Tracks that are currently uploaded by another subscriber are left to that subscriber.
+     *
+     * @return an observable emitting the uploaded track or the {@link TrackUploadException} of
+     * every processed queue entry.
+     */
+    public Observable<OptionalOrError<Track>> processQueue() {
+        return uploader.assertUploadAllowed()
+                .andThen(processDueEntries())
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * Attempts every queued upload once, including the ones that wait for their next attempt,
+     * e.g., when the user asks to upload all tracks right now. In contrast to
+     * {@link #processQueue()}, an upload that is retried later is reported as failed, and the
+     * observable completes after this single round. The retries remain scheduled for
+     * {@link #processQueue()}.
+     *
+     * @return an observable emitting the uploaded track or the {@link TrackUploadException} of
+     * every processed queue entry.
+     */
+    public Observable<OptionalOrError<Track>> processQueueOnce() {
+        return uploader.assertUploadAllowed()
+                .andThen(Observable.defer(() -> Observable.fromIterable(enviroCarDB.getUploadQueue())
+                        .filter(entry -> !entry.isFailed())
+                        .flatMap(entry -> process(entry, true), parallelism)))
+                .subscribeOn(scheduler);
+    }
+
+    private Observable<OptionalOrError<Track>> processDueEntries() {
+        return Observable.defer(() -> {
+            long now = System.currentTimeMillis();
+            List<UploadQueueEntry> due = new ArrayList<>();
+            long nextAttempt = Long.MAX_VALUE;
+            for (UploadQueueEntry entry : enviroCarDB.getUploadQueue()) {
+                if (entry.isFailed()) {
+                    continue;
+                }
+                if (inFlight.contains(entry.getTrackId().getId())) {
+                    // uploaded by another subscriber, checked again in case it gets rescheduled.
+                    nextAttempt = Math.min(nextAttempt, now + initialBackoff);
+                } else if (entry.getNextAttempt() <= now) {
+                    due.add(entry);
+                } else {
+                    nextAttempt = Math.min(nextAttempt, entry.getNextAttempt());
+                }
+            }
+
+            if (due.isEmpty()) {
+                if (nextAttempt == Long.MAX_VALUE) {
+                    return Observable.empty();
+                }
+                return Observable.timer(nextAttempt - now, TimeUnit.MILLISECONDS, scheduler)
+                        .flatMap(tick -> processDueEntries());
+            }
+
+            // the entries rescheduled by this round are picked up by the next one.
+            return Observable.fromIterable(due)
+                    .flatMap(entry -> process(entry, false), parallelism)
+                    .concatWith(Observable.defer(this::processDueEntries));
+        });
+    }
+
+    /**
+     * Claims a queued track and attempts its upload. Nothing is emitted if the track is uploaded
+     * by another subscriber or if its entry has changed since it has been read, e.g., because the
+     * track has been uploaded in the meantime.
+     *
+     * @param reportRetries whether a failed upload that is retried later emits its error.
+     */
+    private Observable<OptionalOrError<Track>> process(UploadQueueEntry queued,
+                                                       boolean reportRetries) {
+        return Observable.defer(() -> {
+            long trackId = queued.getTrackId().getId();
+            if (!inFlight.add(trackId)) {
+                return Observable.<OptionalOrError<Track>>empty();
+            }
+
+            // the entry is read again, since the claim of the previous subscriber has ended.
+            UploadQueueEntry entry = enviroCarDB.getUploadQueueEntry(queued.getTrackId());
+            if (entry == null || entry.isFailed() || (!reportRetries
+                    && entry.getNextAttempt() > System.currentTimeMillis())) {
+                inFlight.remove(trackId);
+                return Observable.<OptionalOrError<Track>>empty();
+            }
+
+            return attempt(entry)
+                    .map(track -> OptionalOrError.<Track>create(track))
+                    .onErrorResumeNext((Throwable e) -> {
+                        if (!scheduleRetry(entry, e)) {
+                            return Observable.just(giveUp(entry, e));
+                        }
+                        return reportRetries ?
+                                Observable.just(OptionalOrError.<Track>create(asUploadException(e))) :
+                                Observable.<OptionalOrError<Track>>empty();
+                    })
+                    .doFinally(() -> inFlight.remove(trackId));
+        });
+    }
+
+    private Observable<Track> attempt(UploadQueueEntry entry) {
+        Observable<Track> upload;
+        if (entry.getState() == UploadQueueEntry.State.UPLOADED) {
+            // the remote track already exists, only the local track lacks its remote id.
+            upload = loadTrack(entry)
+                    .map(track -> {
+                        track.setRemoteID(entry.getRemoteId());
+                        return track;
+                    });
+        } else {
+            upload = loadTrack(entry)
+                    .concatMap(track -> uploader.prepareForUpload(track)
+                            .subscribeOn(prepareScheduler)
+                            .observeOn(scheduler))
+                    .concatMap(uploader::createRemoteTrack)
+                    .doOnNext(uploadedTrack -> {
+                        entry.setState(UploadQueueEntry.State.UPLOADED);
+                        entry.setRemoteId(uploadedTrack.getRemoteID());
+                        enviroCarDB.updateUploadQueueEntry(entry);
+                    });
+        }
+        return upload
+                .concatMap(enviroCarDB::updateTrackObservable)
+                .doOnNext(track -> enviroCarDB.removeFromUploadQueue(entry.getTrackId()));
+    }
+
+    private Observable<Track> loadTrack(UploadQueueEntry entry) {
+        // a missing track fails permanently, otherwise its entry would be due forever.
+        return enviroCarDB.getTrack(entry.getTrackId(), true).take(1)
+                .switchIfEmpty(Observable.error(new TrackUploadException(
+                        null, TrackUploadException.Reason.UNKNOWN)));
+    }
+
+    /**
+     * Schedules the next attempt of a failed upload.
+     *
+     * @return false if the upload is not retried.
+     */
+    private boolean scheduleRetry(UploadQueueEntry entry, Throwable e) {
+        if (isPermanent(e) || entry.getAttempts() + 1 >= MAX_ATTEMPTS) {
+            return false;
+        }
+
+        entry.setAttempts(entry.getAttempts() + 1);
+        long backoff = Math.min(initialBackoff << Math.min(entry.getAttempts() - 1, 20), MAX_BACKOFF);
+        entry.setNextAttempt(System.currentTimeMillis() + backoff);
+        entry.setError(e.getMessage());
+        enviroCarDB.updateUploadQueueEntry(entry);
+
+        LOG.warn(String.format("Upload of track %s failed (attempt %s). Retrying in %s ms.",
+                entry.getTrackId(), entry.getAttempts(), backoff), e);
+        return true;
+    }
+
+    private OptionalOrError<Track> giveUp(UploadQueueEntry entry, Throwable e) {
+        TrackUploadException exception = asUploadException(e);
+        if (exception.getReason() == TrackUploadException.Reason.TRACK_ALREADY_UPLOADED) {
+            enviroCarDB.removeFromUploadQueue(entry.getTrackId());
+        } else {
+            // an uploaded track must never be uploaded again.
+            entry.setState(entry.getState() == UploadQueueEntry.State.UPLOADED ?
+                    UploadQueueEntry.State.FAILED_AFTER_UPLOAD : UploadQueueEntry.State.FAILED);
+            entry.setError(e.getMessage());
+            enviroCarDB.updateUploadQueueEntry(entry);
+        }
+
+        LOG.error(String.format("Track %s not uploaded. Reason -> [%s]",
+                entry.getTrackId(), exception.getReason()), e);
+        return OptionalOrError.create(exception);
+    }
+
+    private static boolean isPermanent(Throwable e) {
+        return e instanceof TrackUploadException
+                || e instanceof NoMeasurementsException
+                || e instanceof UnauthorizedException;
+    }
+
+    private static TrackUploadException asUploadException(Throwable e) {
+        if (e instanceof TrackUploadException) {
+            return (TrackUploadException) e;
+        }
+
+        TrackUploadException.Reason reason;
+        if (e instanceof NoMeasurementsException) {
+            reason = TrackUploadException.Reason.NOT_ENOUGH_MEASUREMENTS;
+        } else if (e instanceof NotConnectedException) {
+            reason = TrackUploadException.Reason.NO_NETWORK_CONNECTION;
+        } else if (e instanceof UnauthorizedException) {
+            reason = TrackUploadException.Reason.UNAUTHORIZED;
+        } else {
+            reason = TrackUploadException.Reason.UNKNOWN;
+        }
+        return new TrackUploadException(null, reason, e);
+    }
+}
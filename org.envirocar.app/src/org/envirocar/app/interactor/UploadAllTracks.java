@@ -20,27 +20,21 @@ package org.envirocar.app.interactor;
 
 import android.app.Activity;
 
-import org.envirocar.app.handler.TrackUploadHandler;
+import org.envirocar.app.handler.TrackUploadQueue;
 import org.envirocar.core.EnviroCarDB;
 import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.UploadQueueEntry;
 import org.envirocar.core.exception.TrackUploadException;
 import org.envirocar.core.injection.InjectIOScheduler;
 import org.envirocar.core.injection.InjectUIScheduler;
 import org.envirocar.core.interactor.Interactor;
 import org.envirocar.core.logging.Logger;
-import org.envirocar.core.utils.rx.OptionalOrError;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import io.reactivex.Observable;
-import io.reactivex.ObservableOperator;
 import io.reactivex.Scheduler;
-import io.reactivex.observers.DisposableObserver;
 
 /**
  * @author dewall
@@ -49,7 +43,7 @@ import io.reactivex.observers.DisposableObserver;
 public class UploadAllTracks extends Interactor<UploadAllTracks.Result, Activity> {
     private static final Logger LOG = Logger.getLogger(UploadAllTracks.class);
 
-    private final TrackUploadHandler uploadHandler;
+    private final TrackUploadQueue uploadQueue;
     private final EnviroCarDB enviroCarDB;
 
     /**
@@ -57,35 +51,42 @@ public class UploadAllTracks extends Interactor<UploadAllTracks.Result, Activity
      *
      * @param observeOn
      * @param subscribeOn
-     * @param uploadHandler
+     * @param uploadQueue
      * @param enviroCarDB
      */
     @Inject
-    public UploadAllTracks(@InjectUIScheduler Scheduler observeOn, @InjectIOScheduler Scheduler subscribeOn, TrackUploadHandler uploadHandler, EnviroCarDB enviroCarDB) {
+    public UploadAllTracks(@InjectUIScheduler Scheduler observeOn, @InjectIOScheduler Scheduler subscribeOn, TrackUploadQueue uploadQueue, EnviroCarDB enviroCarDB) {
         super(observeOn, subscribeOn);
-        this.uploadHandler = uploadHandler;
+        this.uploadQueue = uploadQueue;
         this.enviroCarDB = enviroCarDB;
     }
 
     @Override
     protected Observable<Result> buildObservable(Activity activity) {
-        return Observable.create(emitter -> {
-            AtomicInteger numberOfTracks = new AtomicInteger();
-            Observable.defer(() -> enviroCarDB.getAllLocalTracks())
-                    .concatMap(tracks -> {
-                        numberOfTracks.set(tracks.size());
-                        return uploadHandler.uploadTracksObservable(tracks);
-                    })
-                    .subscribe(trackOptionalOrError -> {
-                        if (trackOptionalOrError.isSuccessful()) {
-                            Track track = trackOptionalOrError.getOptional();
-                            emitter.onNext(new Result(numberOfTracks.get(), track, true));
-                        } else {
-                            Track track = ((TrackUploadException) trackOptionalOrError.getE()).getTrack();
-                            emitter.onNext(new Result(numberOfTracks.get(), track, false));
-                        }
-                    }, emitter::onError, emitter::onComplete);
-        });
+        return uploadQueue.enqueueLocalTracks()
+                .andThen(Observable.defer(() -> {
+                    int numberOfTracks = countQueuedTracks();
+                    // a single round, the retries are left to the TrackUploadService.
+                    return uploadQueue.processQueueOnce()
+                            .map(trackOptionalOrError -> {
+                                if (trackOptionalOrError.isSuccessful()) {
+                                    return new Result(numberOfTracks, trackOptionalOrError.getOptional(), true);
+                                } else {
+                                    Track track = ((TrackUploadException) trackOptionalOrError.getE()).getTrack();
+                                    return new Result(numberOfTracks, track, false);
+                                }
+                            });
+                }));
+    }
+
+    private int countQueuedTracks() {
+        int count = 0;
+        for (UploadQueueEntry entry : enviroCarDB.getUploadQueue()) {
+            if (!entry.isFailed()) {
+                count++;
+            }
+        }
+        return count;
     }
 
     public static class Result {
@@ -38,6 +38,7 @@ import org.envirocar.app.recording.strategy.RecordingStrategy;
 import org.envirocar.app.recording.strategy.obd.OBDConnectionHandler;
 import org.envirocar.core.injection.InjectApplicationScope;
 import org.envirocar.core.EnviroCarDB;
+import org.envirocar.obd.events.PropertyEventChannel;
 
 import javax.inject.Singleton;
 
@@ -63,7 +64,9 @@ public class RecordingModule {
     @RecordingScope
     public TrackDatabaseSink provideTrackDatabaseSink(
             @InjectApplicationScope Context context, CarPreferenceHandler carHandler, EnviroCarDB enviroCarDB, Bus eventBus) {
-        return new TrackDatabaseSink(context, carHandler, enviroCarDB, eventBus);
+        return new TrackDatabaseSink(context, carHandler, enviroCarDB, eventBus,
+                ApplicationSettings.getMeasurementBatchSize(context),
+                ApplicationSettings.getMeasurementFlushInterval(context) * 1000L);
     }
 
     @Provides
@@ -100,7 +103,8 @@ public class RecordingModule {
     @Provides
     @RecordingScope
     public RecordingStrategy.Factory provideRecordingStrategyFactory(
-            @InjectApplicationScope Context context, Bus eventBus, SpeechOutput speechOutput, BluetoothHandler bluetoothHandler,
+            @InjectApplicationScope Context context, Bus eventBus, PropertyEventChannel eventChannel,
+            SpeechOutput speechOutput, BluetoothHandler bluetoothHandler,
             OBDConnectionHandler obdConnectionHandler, MeasurementProvider measurementProvider,
             TrackDatabaseSink trackDatabaseSink, LocationProvider locationProvider, CarPreferenceHandler carPreferenceHandler) {
         return () -> {
@@ -108,7 +112,7 @@ public class RecordingModule {
             switch (recordingType) {
                 default:
                 case OBD_ADAPTER_BASED:
-                    return new OBDRecordingStrategy(context, eventBus, speechOutput,
+                    return new OBDRecordingStrategy(context, eventBus, eventChannel, speechOutput,
                             bluetoothHandler, obdConnectionHandler, measurementProvider,
                             trackDatabaseSink, locationProvider, carPreferenceHandler);
                 case ACTIVITY_RECOGNITION_BASED:
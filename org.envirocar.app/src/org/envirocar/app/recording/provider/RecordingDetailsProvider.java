@@ -18,7 +18,6 @@
  */
 package org.envirocar.app.recording.provider;
 
-import android.location.Location;
 import android.os.SystemClock;
 
 import androidx.lifecycle.Lifecycle;
@@ -40,6 +39,7 @@ import org.envirocar.app.views.trackdetails.MapLayer;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.events.recording.RecordingNewMeasurementEvent;
 import org.envirocar.core.logging.Logger;
+import org.envirocar.core.trackprocessing.statistics.TrackStatistics;
 
 import io.reactivex.Scheduler;
 import io.reactivex.android.schedulers.AndroidSchedulers;
@@ -57,14 +57,12 @@ public class RecordingDetailsProvider implements LifecycleObserver {
 
     private int mNumMeasurements;
     private double mDistanceValue;
-    private double mTotalSpeed;
     private int mAvrgSpeed;
     private double GPSSpeed;
 
     private long mStartingBaseTime;
 
-    private Location mLastLocation;
-    private Location mCurrentLocation;
+    private TrackStatistics mStatistics = new TrackStatistics();
 
     private final Bus eventBus;
 
@@ -109,7 +107,7 @@ public class RecordingDetailsProvider implements LifecycleObserver {
 
         // update computed features
         updateDistance(event.mMeasurement);
-        updateAverageSpeed(event.mMeasurement);
+        updateAverageSpeed();
         updatePathOverlay(event.mMeasurement);
         if (RecordingService.RECORDING_STATE == RecordingState.RECORDING_RUNNING
                 && event.mMeasurement.hasProperty(Measurement.PropertyKey.GPS_SPEED)) {
@@ -159,45 +157,23 @@ public class RecordingDetailsProvider implements LifecycleObserver {
      * @param measurement the measurement to compute the distance relative to the last measurement.
      */
     private void updateDistance(Measurement measurement) {
-        if (mLastLocation == null) {
-            mLastLocation = new Location("GPS");
-            mLastLocation.setLatitude(measurement.getLatitude());
-            mLastLocation.setLongitude(measurement.getLongitude());
-        } else {
-            mCurrentLocation = new Location("GPS");
-            mCurrentLocation.setLatitude(measurement.getLatitude());
-            mCurrentLocation.setLongitude(measurement.getLongitude());
-
-            // Compute the distance between the last location and the new location.
-            float[] res = new float[1];
-            Location.distanceBetween(
-                    mLastLocation.getLatitude(),
-                    mLastLocation.getLongitude(),
-                    mCurrentLocation.getLatitude(),
-                    mCurrentLocation.getLongitude(),
-                    res);
-
-            // update the distance value
-            if (res[0] > 0) {
-                mDistanceValue += res[0] / 1000;
-                eventBus.post(provideDistanceValue());
-            }
-            mLastLocation = mCurrentLocation;
-            mCurrentLocation = null;
+        double previousDistance = mStatistics.getDistance();
+        mStatistics.add(measurement);
+
+        // update the distance value
+        if (mStatistics.getDistance() > previousDistance) {
+            mDistanceValue = mStatistics.getDistance();
+            eventBus.post(provideDistanceValue());
         }
     }
 
     /**
-     * @param measurement
+     * Publishes the average speed of the measurements that have been added to the statistics.
      */
-    private void updateAverageSpeed(Measurement measurement) {
-        if (RecordingService.RECORDING_STATE == RecordingState.RECORDING_RUNNING) {
-            double speedValue = measurement.hasProperty(Measurement.PropertyKey.SPEED) ?
-                    measurement.getProperty(Measurement.PropertyKey.SPEED) :
-                    measurement.getProperty(Measurement.PropertyKey.GPS_SPEED);
-
-            mTotalSpeed += speedValue;
-            mAvrgSpeed = (int) mTotalSpeed / mNumMeasurements;
+    private void updateAverageSpeed() {
+        if (RecordingService.RECORDING_STATE == RecordingState.RECORDING_RUNNING
+                && mStatistics.getSpeed().getCount() > 0) {
+            mAvrgSpeed = (int) mStatistics.getSpeed().getMean();
             eventBus.post(provideAverageSpeed());
         }
     }
@@ -207,11 +183,9 @@ public class RecordingDetailsProvider implements LifecycleObserver {
             mTrackMapOverlay.clearPath();
             mNumMeasurements = 0;
             mDistanceValue = 0;
-            mTotalSpeed = 0;
             mAvrgSpeed = 0;
             mStartingBaseTime = 0;
-            mLastLocation = null;
-            mCurrentLocation = null;
+            mStatistics = new TrackStatistics();
         });
     }
 
@@ -32,16 +32,21 @@ import org.envirocar.core.events.recording.RecordingNewMeasurementEvent;
 import org.envirocar.core.exception.MeasurementSerializationException;
 import org.envirocar.core.exception.TrackSerializationException;
 import org.envirocar.core.logging.Logger;
-import org.envirocar.core.utils.LocationUtils;
+import org.envirocar.core.utils.Geodesic;
 import org.envirocar.core.EnviroCarDB;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableOnSubscribe;
 import io.reactivex.ObservableTransformer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * @author dewall
@@ -54,20 +59,32 @@ public class TrackDatabaseSink {
     private final CarPreferenceHandler carHandler;
     private final EnviroCarDB enviroCarDB;
     private final Bus eventBus;
+    private final int batchSize;
+    private final long flushInterval;
     private Track track;
 
+    // measurements that have been recorded but not yet written to the database.
+    private final List<Measurement> pendingMeasurements = new ArrayList<>();
+    private Disposable scheduledFlush;
+
     /**
      * Constructor.
      *
      * @param context
      * @param carHandler
      * @param enviroCarDB
+     * @param batchSize     the number of measurements that are written within one transaction.
+     * @param flushInterval the maximum time in milliseconds a measurement is held back before
+     *                      it gets written.
      */
-    public TrackDatabaseSink(Context context, CarPreferenceHandler carHandler, EnviroCarDB enviroCarDB, Bus eventBus) {
+    public TrackDatabaseSink(Context context, CarPreferenceHandler carHandler, EnviroCarDB enviroCarDB, Bus eventBus,
+                             int batchSize, long flushInterval) {
         this.context = context;
         this.carHandler = carHandler;
         this.enviroCarDB = enviroCarDB;
         this.eventBus = eventBus;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = flushInterval;
     }
 
     /**
@@ -89,24 +106,33 @@ public class TrackDatabaseSink {
             }
 
             try {
-                // inserting measurement
-                measurement.setTrackId(track.getTrackID());
-                enviroCarDB.insertMeasurement(measurement);
-
-                // updating track information
-                track.setEndTime(measurement.getTime());
-
-                // update distance
-                int numOfTracks = track.getMeasurements().size();
-                if (numOfTracks > 0) {
-                    Measurement lastMeasurement = track.getMeasurements().get(numOfTracks - 1);
-                    double distanceToLast = LocationUtils.getDistance(lastMeasurement, measurement);
-                    track.setLength(track.getLength() + distanceToLast);
+                synchronized (this) {
+                    measurement.setTrackId(track.getTrackID());
+
+                    // updating track information
+                    track.setEndTime(measurement.getTime());
+
+                    // update distance
+                    int numOfTracks = track.getMeasurements().size();
+                    if (numOfTracks > 0) {
+                        Measurement lastMeasurement = track.getMeasurements().get(numOfTracks - 1);
+                        double distanceToLast = Geodesic.haversine(
+                                lastMeasurement.getLatitude(), lastMeasurement.getLongitude(),
+                                measurement.getLatitude(), measurement.getLongitude());
+                        track.setLength(track.getLength() + distanceToLast);
+                    }
+                    track.getMeasurements().add(measurement);
+
+                    // queue the measurement and write the batch once it is full.
+                    pendingMeasurements.add(measurement);
+                    if (pendingMeasurements.size() >= batchSize) {
+                        flushPendingMeasurements();
+                    } else if (scheduledFlush == null) {
+                        scheduledFlush = Schedulers.io().scheduleDirect(
+                                this::flushScheduled, flushInterval, TimeUnit.MILLISECONDS);
+                    }
                 }
 
-                // update track in databse
-                track.getMeasurements().add(measurement);
-                enviroCarDB.updateTrack(track);
                 eventBus.post(new RecordingNewMeasurementEvent(measurement));
                 LOG.info("Measurement stored");
             } catch (MeasurementSerializationException e) {
@@ -118,6 +144,33 @@ public class TrackDatabaseSink {
                 .doOnComplete(() -> finishTrack(track));
     }
 
+    /**
+     * Writes all pending measurements together with the updated track within one transaction.
+     * On failure, the measurements stay pending and are retried with the next flush.
+     */
+    private synchronized void flushPendingMeasurements() throws MeasurementSerializationException {
+        if (scheduledFlush != null) {
+            scheduledFlush.dispose();
+            scheduledFlush = null;
+        }
+
+        if (track == null || pendingMeasurements.isEmpty()) {
+            return;
+        }
+
+        enviroCarDB.insertMeasurements(track, pendingMeasurements);
+        pendingMeasurements.clear();
+    }
+
+    private synchronized void flushScheduled() {
+        scheduledFlush = null;
+        try {
+            flushPendingMeasurements();
+        } catch (MeasurementSerializationException e) {
+            LOG.error("Unable to write pending measurements", e);
+        }
+    }
+
     private Track createNewTrack(long startTime) throws TrackSerializationException {
         String date = format.format(new Date());
         Car car = carHandler.getCar();
@@ -133,11 +186,19 @@ public class TrackDatabaseSink {
         return track;
     }
 
-    private void finishTrack(Track track) {
+    private synchronized void finishTrack(Track track) {
         if (track == null)
             return;
         LOG.info(String.format("Finishing current track %s", track.getDescription()));
 
+        try {
+            flushPendingMeasurements();
+        } catch (MeasurementSerializationException e) {
+            LOG.error(String.format("Unable to write %s pending measurements",
+                    pendingMeasurements.size()), e);
+            pendingMeasurements.clear();
+        }
+
         if (track.getMeasurements().size() <= 1) {
             LOG.info("Track had not enough measurements. Deleting track.");
             enviroCarDB.deleteTrack(track);
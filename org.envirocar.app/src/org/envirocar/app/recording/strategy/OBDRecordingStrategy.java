@@ -52,10 +52,11 @@ import org.envirocar.obd.ConnectionListener;
 import org.envirocar.obd.OBDController;
 import org.envirocar.obd.OBDSchedulers;
 import org.envirocar.obd.bluetooth.BluetoothSocketWrapper;
-import org.envirocar.obd.events.SpeedUpdateEvent;
+import org.envirocar.obd.events.PropertyEventChannel;
 import org.envirocar.obd.exception.AllAdaptersFailedException;
 
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
@@ -76,6 +77,7 @@ public class OBDRecordingStrategy implements RecordingStrategy {
 
     protected Context context;
     protected Bus eventBus;
+    protected PropertyEventChannel eventChannel;
     protected SpeechOutput speechOutput;
     protected BluetoothHandler bluetoothHandler;
     protected OBDConnectionHandler obdConnectionHandler;
@@ -102,12 +104,14 @@ public class OBDRecordingStrategy implements RecordingStrategy {
      * Constructor.
      */
     public OBDRecordingStrategy(
-            Context context, Bus eventBus, SpeechOutput speechOutput, BluetoothHandler bluetoothHandler,
+            Context context, Bus eventBus, PropertyEventChannel eventChannel,
+            SpeechOutput speechOutput, BluetoothHandler bluetoothHandler,
             OBDConnectionHandler obdConnectionHandler, MeasurementProvider measurementProvider,
             TrackDatabaseSink trackDatabaseSink, LocationProvider locationProvider,
             CarPreferenceHandler carPreferenceHandler) {
         this.context = context;
         this.eventBus = eventBus;
+        this.eventChannel = eventChannel;
         this.speechOutput = speechOutput;
         this.bluetoothHandler = bluetoothHandler;
         this.obdConnectionHandler = obdConnectionHandler;
@@ -189,6 +193,7 @@ public class OBDRecordingStrategy implements RecordingStrategy {
                 try {
                     recognizer = new OBDConnectionRecognizer();
                     eventBus.register(recognizer);
+                    recognizer.subscribe(eventChannel);
                 } catch (Exception e) {
                     LOG.error(e.getMessage(), e);
                 }
@@ -281,7 +286,7 @@ public class OBDRecordingStrategy implements RecordingStrategy {
                             speechOutput.doTextToSpeech("Connection lost. Trying to reconnect.");
                         }
                     }
-                }, eventBus);
+                }, eventChannel);
 
                 disposables.add(new Disposable() {
                     private boolean isDisposed = false;
@@ -322,6 +327,8 @@ public class OBDRecordingStrategy implements RecordingStrategy {
                 eventBus.register(measurementProvider);
             } catch (Exception e) {
             }
+            disposables.add(eventChannel.subscribe(measurementProvider,
+                    EnumSet.allOf(Measurement.PropertyKey.class)));
             return upstream.flatMap(socket -> measurementProvider.measurements(samplingRate));
         };
     }
@@ -371,7 +378,7 @@ public class OBDRecordingStrategy implements RecordingStrategy {
         }
     }
 
-    private final class OBDConnectionRecognizer {
+    private final class OBDConnectionRecognizer implements PropertyEventChannel.Listener {
         private static final long OBD_INTERVAL = 1000 * 10; // 10 seconds;
         private static final long GPS_INTERVAL = 1000 * 60 * 2; // 2 minutes;
 
@@ -382,6 +389,16 @@ public class OBDRecordingStrategy implements RecordingStrategy {
         private final Scheduler.Worker mBackgroundWorker = Schedulers.newThread().createWorker();
         private Disposable mOBDCheckerSubscription;
         private Disposable mGPSCheckerSubscription;
+        private Disposable mSpeedSubscription;
+
+        /**
+         * Subscribes to the speed values. These are conflated, it is sufficient to restart the
+         * timeout once for a batch of values.
+         */
+        private void subscribe(PropertyEventChannel eventChannel) {
+            mSpeedSubscription = eventChannel.subscribeConflated(this,
+                    EnumSet.of(Measurement.PropertyKey.SPEED), Schedulers.computation());
+        }
 
         private final Runnable gpsConnectionCloser = () -> {
             if (!isRunning)
@@ -415,8 +432,8 @@ public class OBDRecordingStrategy implements RecordingStrategy {
             }
         }
 
-        @Subscribe
-        public void onReceiveSpeedUpdateEvent(SpeedUpdateEvent event) {
+        @Override
+        public void onPropertyEvent(Measurement.PropertyKey key, double value, long timestamp) {
             if (isRunning) {
                 LOG.info("Received speed update, no stop required via OBD Connection Recognizer!");
                 if (mOBDCheckerSubscription != null) {
@@ -434,6 +451,8 @@ public class OBDRecordingStrategy implements RecordingStrategy {
         public void shutDown() {
             LOG.info("shutDown() OBDConnectionRecognizer");
             this.isRunning = false;
+            if (mSpeedSubscription != null)
+                mSpeedSubscription.dispose();
             if (mOBDCheckerSubscription != null)
                 mOBDCheckerSubscription.dispose();
             if (mGPSCheckerSubscription != null)
@@ -35,12 +35,14 @@ import androidx.core.app.TaskStackBuilder;
 import org.envirocar.app.R;
 import org.envirocar.app.handler.TrackRecordingHandler;
 import org.envirocar.app.handler.TrackUploadHandler;
+import org.envirocar.app.handler.TrackUploadQueue;
 import org.envirocar.app.injection.BaseInjectorService;
 import org.envirocar.app.BaseApplicationComponent;
 import org.envirocar.app.views.BaseMainActivity;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.EnviroCarDB;
+import org.envirocar.core.utils.rx.OptionalOrError;
 
 import java.util.List;
 
@@ -50,6 +52,7 @@ import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
 import io.reactivex.ObservableOnSubscribe;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
 import io.reactivex.observers.DisposableObserver;
 import io.reactivex.schedulers.Schedulers;
 
@@ -69,6 +72,10 @@ public class TrackUploadService extends BaseInjectorService {
     protected EnviroCarDB enviroCarDB;
     @Inject
     protected TrackUploadHandler trackUploadHandler;
+    @Inject
+    protected TrackUploadQueue trackUploadQueue;
+
+    private Disposable uploadDisposable;
 
     @Override
     public void onCreate() {
@@ -81,30 +88,20 @@ public class TrackUploadService extends BaseInjectorService {
         super.onStartCommand(intent, flags, startId);
         LOG.info("onStartCommand()");
 
-
-        // TODO change it to clean u
-        List<Track> localTrackList = enviroCarDB.getAllLocalTracks().blockingFirst();
-        if (localTrackList.size() > 0) {
-            LOG.info(String.format("%s local tracks to upload", localTrackList.size()));
-
-//            setNotification("yeae", "oiad");
+        if (uploadDisposable == null || uploadDisposable.isDisposed()) {
             uploadAllLocalTracks();
         } else {
-            LOG.info("No local tracks to upload");
-//            setNotification("yeae", "oiad");
-            try {
-                finalize();
-            } catch (Throwable throwable) {
-                throwable.printStackTrace();
-            }
+            LOG.info("Upload queue is already being processed");
         }
 
-
         return START_NOT_STICKY;
     }
 
     @Override
     public void onDestroy() {
+        if (uploadDisposable != null && !uploadDisposable.isDisposed()) {
+            uploadDisposable.dispose();
+        }
         super.onDestroy();
     }
 
@@ -121,34 +118,38 @@ public class TrackUploadService extends BaseInjectorService {
     }
 
     private void uploadAllLocalTracks() {
-//        Observable.defer(() -> enviroCarDB.getAllLocalTracks())
-//                .subscribeOn(Schedulers.io())
-//                .observeOn(AndroidSchedulers.mainThread())
-//                .singleElement()
-//                .toObservable()
-//                .concatMap(tracks -> getUploadWithNotificationObservable(tracks))
-//                .subscribe(new DisposableObserver<Track>() {
-//
-//                    @Override
-//                    public void onStart() {
-//                        LOG.info("onStart()");
-//                    }
-//
-//                    @Override
-//                    public void onComplete() {
-//                        LOG.info("onCompleted()");
-//                    }
-//
-//                    @Override
-//                    public void onError(Throwable e) {
-//                        LOG.warn(e.getMessage(), e);
-//                    }
-//
-//                    @Override
-//                    public void onNext(Track track) {
-//                        LOG.info("Track has been successfully uploaded -> " + track.getRemoteID());
-//                    }
-//                });
+        uploadDisposable = trackUploadQueue.enqueueLocalTracks()
+                .andThen(trackUploadQueue.processQueue())
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribeWith(new DisposableObserver<OptionalOrError<Track>>() {
+                    @Override
+                    public void onStart() {
+                        LOG.info("onStart()");
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        LOG.info("onCompleted()");
+                        stopSelf();
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        LOG.warn(e.getMessage(), e);
+                        stopSelf();
+                    }
+
+                    @Override
+                    public void onNext(OptionalOrError<Track> result) {
+                        if (result.isSuccessful()) {
+                            LOG.info("Track has been successfully uploaded -> " +
+                                    result.getOptional().getRemoteID());
+                        } else {
+                            LOG.warn("Track has not been uploaded -> " + result.getE().getMessage());
+                        }
+                    }
+                });
     }
 
 //
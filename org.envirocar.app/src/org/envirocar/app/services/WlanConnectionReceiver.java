@@ -56,40 +56,30 @@ public class WlanConnectionReceiver extends BroadcastReceiver {
 
                     // Only start the track upload when the specific settings have been made.
                     if (checkUploadTracks(context)) {
-//                        startUploadTracksService(context);
+                        startUploadTracksService(context);
                     }
                 }
             } else if (!IS_FIRST_CONNECT) {
-//                stopUploadTracksService(context);
+                stopUploadTracksService(context);
                 IS_FIRST_CONNECT = true;
             }
         }
     }
 
     /**
-     * Checks whether the trackupload
+     * Checks whether the automatic upload of tracks within WLAN is enabled. The upload queue
+     * itself knows which of the local tracks still have to be uploaded.
      *
-     * @param context
-     * @return
+     * @param context the context of the current scope.
+     * @return true if the tracks have to be uploaded.
      */
     private boolean checkUploadTracks(Context context) {
         LOG.info("Check whether tracks have to be uploaded.");
-
-        // Check whether the automatic upload of tracks within WLAN is active
-//        boolean autoUploadTracks = ApplicationSettings.getAutomaticUploadOfTracksObservable(context).blockingFirst();
-//        if (autoUploadTracks) {
-//            LOG.info("Automatic track upload is enabled");
-            // Check if there are some local tracks in the databse
-            //            DbAdapter dbAdapter = ((Injector) context.getApplicationContext())
-            // .getObjectGraph().get(DbAdapter.class);
-            //            if (dbAdapter != null && !dbAdapter.getAllLocalTracks(true).isEmpty()) {
-            //                LOG.info("Automatic track upload is checked and " +
-            //                        "there are some local tracks to upload.");
-            //                return true;
-            //            }
-//        }
-
-        return false;
+        boolean autoUploadTracks = ApplicationSettings.getAutomaticUploadObservable(context).blockingFirst();
+        if (autoUploadTracks) {
+            LOG.info("Automatic track upload is enabled");
+        }
+        return autoUploadTracks;
     }
 
     /**
@@ -100,8 +90,13 @@ public class WlanConnectionReceiver extends BroadcastReceiver {
     private void startUploadTracksService(Context context) {
         LOG.info("startUploadTracksService()");
         if (!ServiceUtils.isServiceRunning(context, TrackUploadService.class)) {
-            context.startService(new Intent(context, TrackUploadService.class));
-            LOG.info("Successfully started the track upload remoteService.");
+            try {
+                context.startService(new Intent(context, TrackUploadService.class));
+                LOG.info("Successfully started the track upload remoteService.");
+            } catch (IllegalStateException e) {
+                // background services can not be started while the app is in the background.
+                LOG.warn("Unable to start the track upload remoteService.", e);
+            }
         }
     }
 
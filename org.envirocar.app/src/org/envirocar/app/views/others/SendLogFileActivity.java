@@ -394,6 +394,8 @@ public class SendLogFileActivity extends BaseInjectorActivity {
     }
 
     private List<File> findAllLogFiles() {
+        // write pending log messages before the files are collected.
+        Logger.flush(500);
         File logFile = LocalFileHandler.effectiveFile;
         final String shortName = logFile.getName();
 
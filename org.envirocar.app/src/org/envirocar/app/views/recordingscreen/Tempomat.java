@@ -42,11 +42,9 @@ import android.widget.FrameLayout;
 
 import com.google.common.base.Preconditions;
 import com.squareup.otto.Bus;
-import com.squareup.otto.Subscribe;
 
 import org.envirocar.app.BaseApplication;
 import org.envirocar.app.R;
-import org.envirocar.obd.events.SpeedUpdateEvent;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.app.views.utils.TypefaceEC;
 
@@ -237,29 +235,6 @@ public final class Tempomat extends FrameLayout {
         createBackground();
     }
 
-    /**
-     * Receiver method for the speed update event.
-     *
-     * @param event the SpeedUpdateEvent to receive over the bus.
-     */
-    @Subscribe
-    public void onReceiveSpeedUpdateEvent(SpeedUpdateEvent event) {
-        float degree = 0.0f;
-        if (event.mSpeed <= SCALE_MIN_SPEED) {
-            degree = SCALE_MIN_DEGREE;
-        } else if (event.mSpeed >= SCALE_MAX_SPEED) {
-            degree = SCALE_MAX_DEGREE;
-        } else {
-            degree = (((float) event.mSpeed / SCALE_MAX_SPEED) * SCALE_MAX_DEGREE);
-        }
-
-        mCurrentDegree = degree;
-        mCurrentSpeed = event.mSpeed;
-
-        // Schedule the next rotation to degree.
-        mHandler.post(() -> submitRotationToDegree(mCurrentDegree));
-    }
-
     public void setSpeed(int speed) {
         float degree = 0.0f;
         if (speed <= SCALE_MIN_SPEED) {
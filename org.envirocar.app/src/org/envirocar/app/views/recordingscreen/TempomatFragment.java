@@ -32,21 +32,33 @@ import org.envirocar.app.injection.modules.MainActivityModule;
 import org.envirocar.app.R;
 import org.envirocar.app.events.GPSSpeedChangeEvent;
 import org.envirocar.app.injection.BaseInjectorFragment;
+import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.logging.Logger;
-import org.envirocar.obd.events.SpeedUpdateEvent;
+import org.envirocar.obd.events.PropertyEventChannel;
+
+import java.util.EnumSet;
+
+import javax.inject.Inject;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
 
 /**
  * @author dewall
  */
-public class TempomatFragment extends BaseInjectorFragment {
+public class TempomatFragment extends BaseInjectorFragment implements PropertyEventChannel.Listener {
     private static final Logger LOG = Logger.getLogger(TempomatFragment.class);
 
     @BindView(R.id.fragment_dashboard_tempomat_view)
     protected Tempomat mTempomatView;
 
+    @Inject
+    protected PropertyEventChannel mEventChannel;
+
+    private Disposable mSpeedSubscription;
+
     @Nullable
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle
@@ -67,12 +79,21 @@ public class TempomatFragment extends BaseInjectorFragment {
     public void onResume() {
         LOG.info("onResume()");
         super.onResume();
+
+        // only the latest speed is of interest for the view.
+        mSpeedSubscription = mEventChannel.subscribeConflated(this,
+                EnumSet.of(Measurement.PropertyKey.SPEED), AndroidSchedulers.mainThread());
     }
 
     @Override
     public void onPause(){
         LOG.info("onPause()");
         super.onPause();
+
+        if (mSpeedSubscription != null) {
+            mSpeedSubscription.dispose();
+            mSpeedSubscription = null;
+        }
     }
 
     @Override
@@ -88,15 +109,16 @@ public class TempomatFragment extends BaseInjectorFragment {
     }
 
     /**
-     * Receiver method for the speed update event.
+     * Receiver method for the OBD speed, called on the main thread.
      *
-     * @param event the SpeedUpdateEvent to receive over the bus.
+     * @param key       the property key, always {@link Measurement.PropertyKey#SPEED}.
+     * @param value     the speed in km/h.
+     * @param timestamp the time of the speed value.
      */
-    @Subscribe
-    public void onReceiveSpeedUpdateEvent(SpeedUpdateEvent event) {
-        LOG.debug(String.format("Received event: %s", event.toString()));
+    @Override
+    public void onPropertyEvent(Measurement.PropertyKey key, double value, long timestamp) {
         if(mTempomatView != null){
-            mTempomatView.setSpeed(event.mSpeed);
+            mTempomatView.setSpeed((int) value);
         }
     }
 
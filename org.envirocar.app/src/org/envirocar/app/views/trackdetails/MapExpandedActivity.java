@@ -261,6 +261,8 @@ public class MapExpandedActivity extends BaseInjectorActivity {
                         style.addLayer(trackMapOverlay.getLineLayer());
 
                         mapboxMap1.moveCamera(CameraUpdateFactory.newLatLngBounds(viewBbox, 50));
+                        mapboxMap1.addOnCameraIdleListener(() -> trackMapOverlay.updateZoom(
+                                style, mapboxMap1.getCameraPosition().zoom));
                         setUpStartStopIcons(style);
 
                         if (options.contains(Measurement.PropertyKey.SPEED)) {
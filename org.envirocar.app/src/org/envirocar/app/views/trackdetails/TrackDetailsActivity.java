@@ -265,6 +265,8 @@ public class TrackDetailsActivity extends BaseInjectorActivity {
                 style.addSource(trackMapOverlay.getGeoJsonSource());
                 style.addLayer(trackMapOverlay.getLineLayer());
                 tep.moveCamera(CameraUpdateFactory.newLatLngBounds(viewBbox, 50));
+                tep.addOnCameraIdleListener(() ->
+                        trackMapOverlay.updateZoom(style, tep.getCameraPosition().zoom));
                 setUpStartStopIcons(style);
             });
             mapboxMap = tep;
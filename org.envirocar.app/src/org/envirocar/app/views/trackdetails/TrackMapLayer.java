@@ -20,13 +20,16 @@ package org.envirocar.app.views.trackdetails;
 
 import android.animation.ArgbEvaluator;
 import android.graphics.Color;
+import android.util.LruCache;
 
 import com.mapbox.geojson.BoundingBox;
 import com.mapbox.geojson.Feature;
 import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.geojson.LineString;
+import com.mapbox.geojson.Point;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+import com.mapbox.mapboxsdk.maps.Style;
 import com.mapbox.mapboxsdk.style.expressions.Expression;
 import com.mapbox.mapboxsdk.style.layers.LineLayer;
 import com.mapbox.mapboxsdk.style.layers.Property;
@@ -37,6 +40,7 @@ import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.logging.Logger;
+import org.envirocar.core.utils.MultiResolutionPolyline;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -61,6 +65,17 @@ public class TrackMapLayer extends MapLayer{
     public static final String GRADIENT_LAYER = "gradient-layer";
     public static final String GRADIENT_SOURCE = "source-layer";
 
+    // Upper zoom levels of the bands that get their own simplified geometry. Above the last band
+    // the full geometry is shown.
+    private static final int[] ZOOM_BANDS = {6, 9, 12, 14, 16};
+    // Maximum deviation of a simplified geometry from the track in pixels.
+    private static final double PIXEL_TOLERANCE = 0.5;
+    // Assumed width of the map in pixels to choose the geometry before the camera is known.
+    private static final double INITIAL_VIEW_SIZE = 512;
+
+    private static final LruCache<Long, MultiResolutionPolyline> GEOMETRY_CACHE =
+            new LruCache<>(8);
+
     private Float gradMax, gradMin;
     private final Track mTrack;
     private List<Measurement> measurementList = new ArrayList<>();
@@ -69,17 +84,31 @@ public class TrackMapLayer extends MapLayer{
     protected LatLngBounds mViewBoundingBox;
     protected LatLngBounds mScrollableLimitBox;
 
+    private MultiResolutionPolyline mGeometry;
+    private final LineString[] mLineStrings = new LineString[ZOOM_BANDS.length + 1];
+    private int mZoomBand;
+
     /**
      * Constructor.
      *
      * @param track the track to create a overlay for.
      */
     public TrackMapLayer(Track track) {
+        this(track, track.getMeasurements());
+    }
+
+    /**
+     * Constructor for a track whose measurements have not been loaded with the track.
+     *
+     * @param track        the track to create a overlay for.
+     * @param measurements the measurements of the track.
+     */
+    public TrackMapLayer(Track track, List<Measurement> measurements) {
         super();
         mTrack = track;
-        if(mTrack.getMeasurements() != null)
+        if(measurements != null)
         {
-            measurementList = mTrack.getMeasurements();
+            measurementList = measurements;
             hasNoMeasurements = false;
         }
         else
@@ -120,10 +149,102 @@ public class TrackMapLayer extends MapLayer{
             addPoint(7.635147738274369, 51.96057578167202);
             addPoint(7.635078051137631, 51.96024289279303);
         }
+        initGeometry();
         setGeoJsonSource();
         setBoundingBoxes();
     }
 
+    /**
+     * Precomputes the multi-resolution geometry of the track path. The geometry is cached per
+     * track, so that reopening a track does not simplify it again.
+     */
+    private void initGeometry() {
+        Long cacheKey = !hasNoMeasurements && mTrack.getTrackID() != null ?
+                mTrack.getTrackID().getId() : null;
+        if (cacheKey != null) {
+            MultiResolutionPolyline cached = GEOMETRY_CACHE.get(cacheKey);
+            if (cached != null && cached.size() == mPoints.size()) {
+                mGeometry = cached;
+            }
+        }
+
+        if (mGeometry == null) {
+            double[] latitudes = new double[mPoints.size()];
+            double[] longitudes = new double[mPoints.size()];
+            for (int i = 0; i < mPoints.size(); i++) {
+                latitudes[i] = mPoints.get(i).latitude();
+                longitudes[i] = mPoints.get(i).longitude();
+            }
+            mGeometry = new MultiResolutionPolyline(latitudes, longitudes);
+            if (cacheKey != null) {
+                GEOMETRY_CACHE.put(cacheKey, mGeometry);
+            }
+        }
+
+        mZoomBand = getZoomBand(mGeometry.getFittingZoom(INITIAL_VIEW_SIZE));
+    }
+
+    private static int getZoomBand(double zoom) {
+        for (int i = 0; i < ZOOM_BANDS.length; i++) {
+            if (zoom < ZOOM_BANDS[i]) {
+                return i;
+            }
+        }
+        return ZOOM_BANDS.length;
+    }
+
+    /**
+     * Returns the track path simplified for a zoom band. The full path is only used for the
+     * highest zoom levels.
+     *
+     * @param zoomBand the index of the zoom band.
+     * @return the path of the zoom band.
+     */
+    private LineString getLineString(int zoomBand) {
+        if (mLineStrings[zoomBand] == null) {
+            if (zoomBand == ZOOM_BANDS.length) {
+                mLineStrings[zoomBand] = LineString.fromLngLats(mPoints);
+            } else {
+                int[] indices = mGeometry.simplifyForZoom(ZOOM_BANDS[zoomBand], PIXEL_TOLERANCE);
+                List<Point> points = new ArrayList<>(indices.length);
+                for (int index : indices) {
+                    points.add(mPoints.get(index));
+                }
+                mLineStrings[zoomBand] = LineString.fromLngLats(points);
+            }
+        }
+        return mLineStrings[zoomBand];
+    }
+
+    /**
+     * Swaps the geometry of the track sources of a style if the zoom level of the camera moved
+     * into another zoom band. Should be called whenever the camera comes to rest.
+     *
+     * @param style the style containing the sources of this layer.
+     * @param zoom  the current zoom level of the camera.
+     */
+    public void updateZoom(Style style, double zoom) {
+        int zoomBand = getZoomBand(zoom);
+        if (zoomBand == mZoomBand) {
+            return;
+        }
+        mZoomBand = zoomBand;
+
+        Feature feature = Feature.fromGeometry(getLineString(zoomBand));
+        for (String sourceId : new String[]{SOURCE_NAME, GRADIENT_SOURCE}) {
+            GeoJsonSource source = style.getSourceAs(sourceId);
+            if (source != null) {
+                source.setGeoJson(feature);
+            }
+        }
+    }
+
+    @Override
+    public void setGeoJsonSource() {
+        this.geoJsonSource = new GeoJsonSource(SOURCE_NAME, FeatureCollection.fromFeatures(
+                new Feature[]{Feature.fromGeometry(getLineString(mZoomBand))}));
+    }
+
     protected void setBoundingBoxes(){
         if(mPoints.size() == 1){
             LatLng latLng = latLngs.get(0);
@@ -254,7 +375,7 @@ public class TrackMapLayer extends MapLayer{
 
     public GeoJsonSource getGradientGeoJSONSource(){
         return new GeoJsonSource(GRADIENT_SOURCE, FeatureCollection.fromFeatures(new Feature[] {Feature.fromGeometry(
-                LineString.fromLngLats(mPoints)
+                getLineString(mZoomBand)
         )}), new GeoJsonOptions().withLineMetrics(true));
     }
 
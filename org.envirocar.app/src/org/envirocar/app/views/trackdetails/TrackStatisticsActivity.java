@@ -22,7 +22,6 @@ import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.app.Fragment;
 import android.content.Intent;
-import android.location.Location;
 import android.os.Bundle;
 import androidx.annotation.Nullable;
 import androidx.appcompat.widget.Toolbar;
@@ -38,16 +37,24 @@ import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
 import org.envirocar.app.injection.BaseInjectorActivity;
 import org.envirocar.core.EnviroCarDB;
+import org.envirocar.core.logging.Logger;
+import org.envirocar.core.utils.LargestTriangleThreeBuckets;
+import org.envirocar.core.utils.LocationUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
 import butterknife.ButterKnife;
 import butterknife.BindView;
+import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
 import io.reactivex.schedulers.Schedulers;
 import lecho.lib.hellocharts.formatter.SimpleAxisValueFormatter;
 import lecho.lib.hellocharts.gesture.ZoomType;
@@ -67,6 +74,7 @@ import lecho.lib.hellocharts.view.PreviewLineChartView;
  * @author dewall
  */
 public class TrackStatisticsActivity extends BaseInjectorActivity {
+    private static final Logger LOG = Logger.getLogger(TrackStatisticsActivity.class);
     private static final String EXTRA_TRACKID = "org.envirocar.app.extraTrackID";
 
     public static void createInstance(Activity activity, int trackID) {
@@ -163,6 +171,8 @@ public class TrackStatisticsActivity extends BaseInjectorActivity {
     }
 
     public static class PlaceholderFragment extends Fragment {
+        // the chart initially shows a third of the track, see previewX().
+        private static final int VISIBLE_FRACTION = 3;
 
         @BindView(R.id.activity_track_statistics_fragment_chart)
         protected LineChartView mChart;
@@ -174,6 +184,12 @@ public class TrackStatisticsActivity extends BaseInjectorActivity {
 
         private final Track mTrack;
 
+        // cumulative distance in km at each measurement, computed once per track.
+        private double[] mDistances;
+        private final Map<Measurement.PropertyKey, List<PointValue>> mSeries =
+                new EnumMap<>(Measurement.PropertyKey.class);
+        private Disposable mSeriesDisposable;
+
         public PlaceholderFragment() {
             this(null);
         }
@@ -213,10 +229,32 @@ public class TrackStatisticsActivity extends BaseInjectorActivity {
             return rootView;
         }
 
+        @Override
+        public void onDestroyView() {
+            if (mSeriesDisposable != null) {
+                mSeriesDisposable.dispose();
+            }
+            super.onDestroyView();
+        }
+
         private void generateData(Measurement.PropertyKey propertyKey) {
+            if (mSeriesDisposable != null) {
+                mSeriesDisposable.dispose();
+            }
+
+            // no more points than pixels in the initially visible part of the chart.
+            int maxPoints = getResources().getDisplayMetrics().widthPixels * VISIBLE_FRACTION;
+
             // Generate the PointValues for the Graph.
-            List<PointValue> values = generateDistancedBasedData(propertyKey, mTrack);
+            mSeriesDisposable = Single.fromCallable(
+                    () -> generateDistancedBasedData(propertyKey, mTrack, maxPoints))
+                    .subscribeOn(Schedulers.computation())
+                    .observeOn(AndroidSchedulers.mainThread())
+                    .subscribe(values -> showData(propertyKey, values),
+                            e -> LOG.error("Error while generating the chart data.", e));
+        }
 
+        private void showData(Measurement.PropertyKey propertyKey, List<PointValue> values) {
             Line line = new Line(values);
             line.setColor(getResources().getColor(R.color.green_dark_cario));
             line.setHasPoints(false);
@@ -248,29 +286,41 @@ public class TrackStatisticsActivity extends BaseInjectorActivity {
             previewX();
         }
 
-        private List<PointValue> generateDistancedBasedData(Measurement.PropertyKey propertyKey,
-                                                            Track track) {
-            List<PointValue> values = new ArrayList<PointValue>();
-
-            // temporary array for computing distances.
-            float[] tmp = new float[1];
-            float distance = 0;
+        private synchronized List<PointValue> generateDistancedBasedData(
+                Measurement.PropertyKey propertyKey, Track track, int maxPoints) {
+            List<PointValue> values = mSeries.get(propertyKey);
+            if (values != null) {
+                return values;
+            }
 
-            // temporary value for the last measurement
-            Measurement lastMeasurement = null;
+            List<Measurement> measurements = track.getMeasurements();
+            if (mDistances == null) {
+                mDistances = LocationUtils.getCumulativeDistances(measurements);
+            }
 
-            for (Measurement m : track.getMeasurements()) {
-                if (lastMeasurement != null) {
-                    Location.distanceBetween(lastMeasurement.getLatitude(), lastMeasurement
-                            .getLongitude(), m.getLatitude(), m.getLongitude(), tmp);
-                    distance += tmp[0] / 1000f; // we need km not meters.
+            double[] x = new double[measurements.size()];
+            double[] y = new double[measurements.size()];
+            int size = 0;
+            for (int i = 0; i < measurements.size(); i++) {
+                Measurement m = measurements.get(i);
+                if (m.hasProperty(propertyKey)) {
+                    x[size] = mDistances[i];
+                    y[size] = m.getProperty(propertyKey);
+                    size++;
                 }
-                if (m != null && m.hasProperty(propertyKey)) {
-                    values.add(new PointValue(distance, m.getProperty(propertyKey).floatValue()));
-                }
-                lastMeasurement = m;
+            }
+            if (size < x.length) {
+                x = Arrays.copyOf(x, size);
+                y = Arrays.copyOf(y, size);
+            }
+
+            int[] indices = LargestTriangleThreeBuckets.downsample(x, y, maxPoints);
+            values = new ArrayList<>(indices.length);
+            for (int index : indices) {
+                values.add(new PointValue((float) x[index], (float) y[index]));
             }
 
+            mSeries.put(propertyKey, values);
             return values;
         }
 
@@ -40,7 +40,9 @@ import com.mapbox.mapboxsdk.maps.Style;
 
 import org.envirocar.app.R;
 import org.envirocar.app.views.trackdetails.TrackMapLayer;
+import org.envirocar.core.EnviroCarDB;
 import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackSummary;
 import org.envirocar.core.exception.NoMeasurementsException;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.trackprocessing.statistics.TrackStatisticsProvider;
@@ -57,6 +59,8 @@ import butterknife.BindView;
 import butterknife.ButterKnife;
 import io.reactivex.Scheduler;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * TODO JavaDoc
@@ -80,15 +84,18 @@ public abstract class AbstractTrackListCardAdapter<E extends
     protected final List<Track> mTrackDataset;
     protected Scheduler.Worker mMainThreadWorker = AndroidSchedulers.mainThread().createWorker();
     protected final OnTrackInteractionCallback mTrackInteractionCallback;
+    protected final EnviroCarDB mEnviroCarDB;
 
     /**
      * Constructor.
      *
-     * @param tracks the list of tracks to show cards for.
+     * @param tracks      the list of tracks to show cards for.
+     * @param enviroCarDB the database to load the measurements of lazily loaded tracks from.
      */
-    public AbstractTrackListCardAdapter(List<Track> tracks, final OnTrackInteractionCallback
-            callback) {
+    public AbstractTrackListCardAdapter(List<Track> tracks, EnviroCarDB enviroCarDB,
+                                        final OnTrackInteractionCallback callback) {
         this.mTrackDataset = tracks;
+        this.mEnviroCarDB = enviroCarDB;
         this.mTrackInteractionCallback = callback;
     }
 
@@ -147,7 +154,9 @@ public abstract class AbstractTrackListCardAdapter<E extends
 
                     // Set the tracklength parameter.
 
-                    double distanceOfTrack = track.getLength();
+                    TrackSummary summary = track.getSummary();
+                    double distanceOfTrack = summary != null ?
+                            summary.getDistance() : track.getLength();
                     String tracklength = String.format("%s km", DECIMAL_FORMATTER_TWO.format(
                             distanceOfTrack));
                     mMainThreadWorker.schedule(() -> holder.mDistance.setText(tracklength));
@@ -213,12 +222,32 @@ public abstract class AbstractTrackListCardAdapter<E extends
 
 
     /**
-     * Initializes the MapView, its base layers and settings.
+     * Initializes the MapView, its base layers and settings. The measurements of a lazily
+     * loaded track are only read for the cards that get shown.
      */
     protected void initMapView(TrackCardViewHolder holder, Track track) {
         // First, clear the overlays in the MapView.
         LOG.info("initMapView()");
-        TrackMapLayer trackMapOverlay = new TrackMapLayer(track);
+        if (holder.mMapLayerLoading != null) {
+            holder.mMapLayerLoading.dispose();
+            holder.mMapLayerLoading = null;
+        }
+
+        if (!track.isLazyLoadingMeasurements()) {
+            initMapView(holder, new TrackMapLayer(track));
+            return;
+        }
+
+        holder.mMapLayerLoading = mEnviroCarDB.getMeasurements(track.getTrackID())
+                .toList()
+                .map(measurements -> new TrackMapLayer(track, measurements))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(trackMapOverlay -> initMapView(holder, trackMapOverlay),
+                        e -> LOG.warn(e.getMessage(), e));
+    }
+
+    private void initMapView(TrackCardViewHolder holder, TrackMapLayer trackMapOverlay) {
         final LatLngBounds viewBbox = trackMapOverlay.getViewBoundingBox();
         holder.mMapView.addOnDidFailLoadingMapListener(holder.failLoadingMapListener);
         holder.mMapView.getMapAsync(new OnMapReadyCallback() {
@@ -318,6 +347,7 @@ public abstract class AbstractTrackListCardAdapter<E extends
         protected LinearLayout cardViewLayout;
 
         protected MapView.OnDidFailLoadingMapListener failLoadingMapListener;
+        protected Disposable mMapLayerLoading;
 
         /**
          * Constructor.
@@ -51,6 +51,7 @@ import org.envirocar.app.handler.agreement.AgreementManager;
 import org.envirocar.app.injection.BaseInjectorFragment;
 import org.envirocar.app.views.utils.DialogUtils;
 import org.envirocar.app.views.utils.ECAnimationUtils;
+import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.exception.NotConnectedException;
 import org.envirocar.core.exception.UnauthorizedException;
@@ -173,10 +174,15 @@ public abstract class AbstractTrackListCardFragment<E extends RecyclerView.Adapt
                 Intent sharingIntent = new Intent(Intent.ACTION_SEND);
                 sharingIntent.setType("application/json");
                 //  Uri shareBody = Uri.fromFile(TrackSerde.exportTrack(track).getFile());
+                // lazily loaded tracks are written while reading their measurements.
+                Iterable<Measurement> measurements = track.isLazyLoadingMeasurements() ?
+                        mEnvirocarDB.getMeasurements(track.getTrackID()).blockingIterable() :
+                        track.getMeasurements();
                 Uri shareBody = FileProvider.getUriForFile(
                         getActivity(),
                         getActivity().getApplicationContext()
-                                .getPackageName() + ".provider", TrackSerde.exportTrack(track).getFile());
+                                .getPackageName() + ".provider",
+                        TrackSerde.exportTrack(track, measurements).getFile());
                 sharingIntent.putExtra(android.content.Intent.EXTRA_SUBJECT,
                         "EnviroCar Track " + track.getName());
                 sharingIntent.putExtra(android.content.Intent.EXTRA_STREAM, shareBody);
@@ -129,7 +129,7 @@ public class TrackListLocalCardFragment extends AbstractTrackListCardFragment<Tr
 
     @Override
     public TrackListLocalCardAdapter getRecyclerViewAdapter() {
-        return new TrackListLocalCardAdapter(mTrackList, new OnTrackInteractionCallback() {
+        return new TrackListLocalCardAdapter(mTrackList, mEnvirocarDB, new OnTrackInteractionCallback() {
 
             /**
              * Inits the view transition to a {@link TrackDetailsActivity} showing the
@@ -226,7 +226,7 @@ public class TrackListLocalCardFragment extends AbstractTrackListCardFragment<Tr
                 }
             }
 
-            loadTracksSubscription = mEnvirocarDB.getAllLocalTracks()
+            loadTracksSubscription = mEnvirocarDB.getAllLocalTracks(true)
                     .subscribeOn(Schedulers.io())
                     .observeOn(AndroidSchedulers.mainThread())
                     .subscribeWith(new DisposableObserver<List<Track>>() {
@@ -119,7 +119,7 @@ public class TrackListRemoteCardFragment extends AbstractTrackListCardFragment<T
 
     @Override
     public TrackListRemoteCardAdapter getRecyclerViewAdapter() {
-        return new TrackListRemoteCardAdapter(mTrackList,
+        return new TrackListRemoteCardAdapter(mTrackList, mEnvirocarDB,
                 new OnTrackInteractionCallback() {
 
                     /**
@@ -256,7 +256,7 @@ public class TrackListRemoteCardFragment extends AbstractTrackListCardFragment<T
                 }
             }
 
-            subscriptions.add(mEnvirocarDB.getAllRemoteTracks()
+            subscriptions.add(mEnvirocarDB.getAllRemoteTracks(true)
                     .subscribeOn(Schedulers.io())
                     .observeOn(AndroidSchedulers.mainThread())
                     .subscribeWith(new DisposableObserver<List<Track>>() {
@@ -285,7 +285,7 @@ public class TrackListRemoteCardFragment extends AbstractTrackListCardFragment<T
                         public void onNext(List<Track> tracks) {
                             LOG.info("onNext(" + tracks.size() + ") locally stored tracks");
                             for (Track track : tracks) {
-                                if (track.getMeasurements() != null && !track.getMeasurements().isEmpty()) {
+                                if (track.getSummary() != null && !track.getSummary().isEmpty()) {
                                     if (mTrackList.contains(track)) {
                                         mTrackList.set(mTrackList.indexOf(track), track);
                                     } else {
@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.handler;
+
+import org.envirocar.algorithm.MeasurementProvider;
+import org.envirocar.core.entity.Measurement;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Compares the ring buffers and the binary search of the interpolation with the linear scan
+ * over the buffered events that has been used before.
+ *
+ * @author dewall
+ */
+public class InterpolationMeasurementProviderTest {
+    private static final long START = 1500000000000L;
+
+    @Test
+    public void testEmptyBuffer() {
+        InterpolationBuffer buffer = new InterpolationBuffer(4, 1);
+
+        Assert.assertTrue(buffer.isEmpty());
+        Assert.assertEquals(0, buffer.drainTo(new long[4], new double[4]));
+        Assert.assertEquals(0, buffer.getAndResetDropped());
+    }
+
+    @Test
+    public void testCapacityIsRoundedUpToPowerOfTwo() {
+        Assert.assertEquals(2, new InterpolationBuffer(1, 1).getCapacity());
+        Assert.assertEquals(4, new InterpolationBuffer(4, 1).getCapacity());
+        Assert.assertEquals(8, new InterpolationBuffer(5, 1).getCapacity());
+        Assert.assertEquals(64, new InterpolationBuffer(64, 2).getCapacity());
+    }
+
+    @Test
+    public void testDrainWrapsAround() {
+        InterpolationBuffer buffer = new InterpolationBuffer(4, 2);
+        long[] timestamps = new long[4];
+        double[] values = new double[8];
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(buffer.offer(i, i, -i));
+        }
+        Assert.assertEquals(3, buffer.drainTo(timestamps, values));
+
+        // the next samples wrap around the end of the ring
+        for (int i = 3; i < 7; i++) {
+            Assert.assertTrue(buffer.offer(i, i, -i));
+        }
+        Assert.assertEquals(3, buffer.getOldestTimestamp());
+        Assert.assertEquals(6, buffer.getNewestTimestamp());
+        Assert.assertEquals(4, buffer.drainTo(timestamps, values));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(i + 3, timestamps[i]);
+            Assert.assertEquals(i + 3, values[i * 2], 0);
+            Assert.assertEquals(-(i + 3), values[i * 2 + 1], 0);
+        }
+        Assert.assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testFullBufferDropsSamples() {
+        InterpolationBuffer buffer = new InterpolationBuffer(4, 1);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(buffer.offer(i, i));
+        }
+
+        Assert.assertFalse(buffer.offer(4, 4));
+        Assert.assertEquals(1, buffer.getAndResetDropped());
+        Assert.assertEquals(0, buffer.getAndResetDropped());
+
+        long[] timestamps = new long[4];
+        Assert.assertEquals(4, buffer.drainTo(timestamps, new double[4]));
+        Assert.assertEquals(3, timestamps[3]);
+    }
+
+    @Test
+    public void testFindStartIndexMatchesLinearScan() {
+        Random random = new Random(42);
+        long[] timestamps = new long[64];
+        for (int run = 0; run < 1000; run++) {
+            int count = 2 + random.nextInt(63);
+            long timestamp = START;
+            for (int i = 0; i < count; i++) {
+                // include equal timestamps
+                timestamp += random.nextInt(3) * 100;
+                timestamps[i] = timestamp;
+            }
+
+            // targets before, within and after the buffered samples
+            long first = timestamps[0];
+            long last = timestamps[count - 1];
+            long[] targets = {first - 1, first, last, last + 1,
+                    first + (long) (random.nextDouble() * (last - first)),
+                    timestamps[random.nextInt(count)]};
+            for (long target : targets) {
+                Assert.assertEquals(linearStartIndex(timestamps, count, target),
+                        InterpolationMeasurementProvider.findStartIndex(timestamps, count, target));
+            }
+        }
+    }
+
+    @Test
+    public void testSingleEvent() {
+        InterpolationMeasurementProvider provider = new InterpolationMeasurementProvider();
+        provider.onPropertyEvent(Measurement.PropertyKey.SPEED, 42, START);
+        provider.newPosition(new MeasurementProvider.Position(START, 51.9, 7.6));
+
+        Measurement m = provider.measurements(1).blockingFirst();
+
+        Assert.assertEquals(START, m.getTime());
+        Assert.assertEquals(42, m.getProperty(Measurement.PropertyKey.SPEED), 0);
+        Assert.assertEquals(51.9, m.getLatitude(), 0);
+        Assert.assertEquals(7.6, m.getLongitude(), 0);
+    }
+
+    @Test
+    public void testInterpolationMatchesLinearScan() {
+        Random random = new Random(7);
+        InterpolationMeasurementProvider provider = new InterpolationMeasurementProvider();
+
+        // the second window wraps around the end of the rings
+        for (int window = 0; window < 2; window++) {
+            long offset = START + window * 100000L;
+            int speedCount = 40;
+            int positionCount = 40;
+            long[] speedTimestamps = new long[speedCount];
+            double[] speeds = new double[speedCount];
+            long[] positionTimestamps = new long[positionCount];
+            double[] latitudes = new double[positionCount];
+            double[] longitudes = new double[positionCount];
+
+            // the speed values only cover the first part of the window, so that the middle of
+            // the window is out of their range
+            for (int i = 0; i < speedCount; i++) {
+                speedTimestamps[i] = offset + i * 50 + random.nextInt(40);
+                speeds[i] = random.nextDouble() * 130;
+                provider.onPropertyEvent(Measurement.PropertyKey.SPEED, speeds[i], speedTimestamps[i]);
+            }
+            for (int i = 0; i < positionCount; i++) {
+                positionTimestamps[i] = offset + i * 250 + random.nextInt(200);
+                latitudes[i] = 51.9 + random.nextDouble() / 100;
+                longitudes[i] = 7.6 + random.nextDouble() / 100;
+                provider.newPosition(new MeasurementProvider.Position(positionTimestamps[i],
+                        latitudes[i], longitudes[i]));
+            }
+
+            Measurement m = provider.measurements(1).blockingFirst();
+
+            long first = Math.min(speedTimestamps[0], positionTimestamps[0]);
+            long last = Math.max(speedTimestamps[speedCount - 1], positionTimestamps[positionCount - 1]);
+            long target = first + (last - first) / 2;
+            Assert.assertEquals(target, m.getTime());
+            Assert.assertEquals(linearInterpolation(speedTimestamps, speeds, speedCount, target),
+                    m.getProperty(Measurement.PropertyKey.SPEED), 0);
+            Assert.assertEquals(linearInterpolation(positionTimestamps, latitudes, positionCount, target),
+                    m.getLatitude(), 0);
+            Assert.assertEquals(linearInterpolation(positionTimestamps, longitudes, positionCount, target),
+                    m.getLongitude(), 0);
+        }
+    }
+
+    /**
+     * The linear scan of the former implementation.
+     */
+    private static int linearStartIndex(long[] timestamps, int count, long targetTimestamp) {
+        int i = 0;
+        while (i + 1 < count) {
+            if (timestamps[i] <= targetTimestamp && timestamps[i + 1] >= targetTimestamp) {
+                return i;
+            }
+            i++;
+        }
+        return 0;
+    }
+
+    /**
+     * The interpolation of the former implementation.
+     */
+    private static double linearInterpolation(long[] timestamps, double[] values, int count,
+                                              long targetTimestamp) {
+        if (count == 1) {
+            return values[0];
+        }
+
+        int start = linearStartIndex(timestamps, count, targetTimestamp);
+        float duration = (float) (timestamps[start + 1] - timestamps[start]);
+        float endWeight = (targetTimestamp - timestamps[start]) / duration;
+        float startWeight = (timestamps[start + 1] - targetTimestamp) / duration;
+        return values[start] * startWeight + values[start + 1] * endWeight;
+    }
+}
@@ -0,0 +1,359 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.app.handler;
+
+import org.envirocar.core.EnviroCarDB;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.core.entity.UploadQueueEntry;
+import org.envirocar.core.exception.DataCreationFailureException;
+import org.envirocar.core.exception.TrackUploadException;
+import org.envirocar.core.utils.rx.OptionalOrError;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author dewall
+ */
+public class TrackUploadQueueTest {
+    private static final int PARALLELISM = 3;
+    private static final long BACKOFF = 10;
+
+    private final Map<Long, Track> tracks = new ConcurrentHashMap<>();
+    private final Map<Long, UploadQueueEntry> queue = new ConcurrentHashMap<>();
+    private final AtomicInteger prepared = new AtomicInteger();
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    private EnviroCarDB enviroCarDB;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient();
+
+        enviroCarDB = mock(EnviroCarDB.class);
+        doAnswer(invocation -> {
+            Track.TrackId id = (Track.TrackId) invocation.getArguments()[0];
+            queue.putIfAbsent(id.getId(), new UploadQueueEntry(id));
+            return null;
+        }).when(enviroCarDB).enqueueUpload(any(Track.TrackId.class));
+        doAnswer(invocation -> {
+            UploadQueueEntry entry = (UploadQueueEntry) invocation.getArguments()[0];
+            queue.put(entry.getTrackId().getId(), entry);
+            return null;
+        }).when(enviroCarDB).updateUploadQueueEntry(any(UploadQueueEntry.class));
+        doAnswer(invocation -> {
+            queue.remove(((Track.TrackId) invocation.getArguments()[0]).getId());
+            return null;
+        }).when(enviroCarDB).removeFromUploadQueue(any(Track.TrackId.class));
+        when(enviroCarDB.getUploadQueue()).thenAnswer(invocation -> new ArrayList<>(queue.values()));
+        when(enviroCarDB.getUploadQueueEntry(any(Track.TrackId.class))).thenAnswer(invocation ->
+                queue.get(((Track.TrackId) invocation.getArguments()[0]).getId()));
+        when(enviroCarDB.getTrack(any(Track.TrackId.class), anyBoolean())).thenAnswer(invocation -> {
+            Track track = tracks.get(((Track.TrackId) invocation.getArguments()[0]).getId());
+            return track != null ? Observable.just(track) : Observable.empty();
+        });
+        when(enviroCarDB.updateTrackObservable(any(Track.class))).thenAnswer(invocation -> {
+            Track track = (Track) invocation.getArguments()[0];
+            tracks.put(track.getTrackID().getId(), track);
+            return Observable.just(track);
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testUploadsQueuedTracksInParallel() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                int current = running.incrementAndGet();
+                maxRunning.accumulateAndGet(current, Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return created(request.getBody().readUtf8());
+            }
+        });
+
+        TrackUploadQueue uploadQueue = createQueue();
+        int count = 120;
+        for (int i = 0; i < count; i++) {
+            uploadQueue.enqueue(addTrack(i));
+        }
+
+        List<OptionalOrError<Track>> results = uploadQueue.processQueue().toList().blockingGet();
+
+        Assert.assertEquals(count, results.size());
+        for (OptionalOrError<Track> result : results) {
+            Assert.assertTrue(result.isSuccessful());
+        }
+        for (Track track : tracks.values()) {
+            Assert.assertEquals("remote-" + track.getTrackID().getId(), track.getRemoteID());
+        }
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(count, server.getRequestCount());
+        Assert.assertTrue(maxRunning.get() > 1);
+        Assert.assertTrue(maxRunning.get() <= PARALLELISM);
+    }
+
+    @Test
+    public void testResumesUploadedTrackWithoutUploadingAgain() {
+        Track track = addTrack(1);
+        UploadQueueEntry entry = new UploadQueueEntry(track.getTrackID());
+        entry.setState(UploadQueueEntry.State.UPLOADED);
+        entry.setRemoteId("remote-1");
+        queue.put(1L, entry);
+
+        List<OptionalOrError<Track>> results = createQueue().processQueue().toList().blockingGet();
+
+        Assert.assertEquals(1, results.size());
+        Assert.assertTrue(results.get(0).isSuccessful());
+        Assert.assertEquals("remote-1", tracks.get(1L).getRemoteID());
+        Assert.assertEquals(0, prepared.get());
+        Assert.assertEquals(0, server.getRequestCount());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentProcessingUploadsTrackOnce() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                Thread.sleep(20);
+                return created(request.getBody().readUtf8());
+            }
+        });
+
+        TrackUploadQueue uploadQueue = createQueue();
+        int count = 20;
+        for (int i = 0; i < count; i++) {
+            uploadQueue.enqueue(addTrack(i));
+        }
+
+        // e.g., the upload service and the upload of all tracks requested by the user.
+        List<OptionalOrError<Track>> results = Observable.merge(
+                uploadQueue.processQueue(), uploadQueue.processQueueOnce())
+                .toList().blockingGet();
+
+        Assert.assertEquals(count, results.size());
+        Assert.assertEquals(count, server.getRequestCount());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testGivesUpUploadedTrackWithoutUploadingAgain() {
+        // the local track of the uploaded track has been deleted in the meantime.
+        UploadQueueEntry entry = new UploadQueueEntry(new Track.TrackId(1));
+        entry.setState(UploadQueueEntry.State.UPLOADED);
+        entry.setRemoteId("remote-1");
+        queue.put(1L, entry);
+
+        TrackUploadQueue uploadQueue = createQueue();
+        List<OptionalOrError<Track>> results = uploadQueue.processQueue().toList().blockingGet();
+
+        Assert.assertEquals(1, results.size());
+        Assert.assertFalse(results.get(0).isSuccessful());
+        Assert.assertEquals(UploadQueueEntry.State.FAILED_AFTER_UPLOAD, queue.get(1L).getState());
+        Assert.assertEquals(0, server.getRequestCount());
+        Assert.assertTrue(uploadQueue.processQueue().toList().blockingGet().isEmpty());
+    }
+
+    @Test
+    public void testProcessQueueOnceReportsRetries() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        TrackUploadQueue uploadQueue = createQueue();
+        uploadQueue.enqueue(addTrack(1));
+
+        List<OptionalOrError<Track>> results = uploadQueue.processQueueOnce().toList().blockingGet();
+
+        Assert.assertEquals(1, results.size());
+        Assert.assertFalse(results.get(0).isSuccessful());
+        Assert.assertEquals(1, server.getRequestCount());
+        // the retry remains scheduled for the processing of the queue.
+        UploadQueueEntry entry = queue.get(1L);
+        Assert.assertEquals(UploadQueueEntry.State.PENDING, entry.getState());
+        Assert.assertEquals(1, entry.getAttempts());
+        Assert.assertTrue(entry.getNextAttempt() > 0);
+    }
+
+    @Test
+    public void testRetriesFailedUploadWithBackoff() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(created("1"));
+
+        TrackUploadQueue uploadQueue = createQueue();
+        uploadQueue.enqueue(addTrack(1));
+        UploadQueueEntry entry = queue.get(1L);
+
+        List<OptionalOrError<Track>> results = uploadQueue.processQueue().toList().blockingGet();
+
+        Assert.assertEquals(1, results.size());
+        Assert.assertTrue(results.get(0).isSuccessful());
+        Assert.assertEquals("remote-1", tracks.get(1L).getRemoteID());
+        Assert.assertEquals(2, entry.getAttempts());
+        Assert.assertEquals(3, server.getRequestCount());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testBackoffDoesNotOccupyUploadSlot() {
+        AtomicInteger firstTrackAttempts = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String id = request.getBody().readUtf8();
+                if (id.equals("1") && firstTrackAttempts.incrementAndGet() == 1) {
+                    return new MockResponse().setResponseCode(503);
+                }
+                return created(id);
+            }
+        });
+
+        // a single upload slot and a backoff that is much longer than the other uploads.
+        TrackUploadQueue uploadQueue = new TrackUploadQueue(enviroCarDB, new TestUploader(), 1,
+                500, Schedulers.io());
+        for (int i = 1; i <= 5; i++) {
+            uploadQueue.enqueue(addTrack(i));
+        }
+
+        List<OptionalOrError<Track>> results = uploadQueue.processQueue().toList().blockingGet();
+
+        Assert.assertEquals(5, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertTrue(results.get(i).isSuccessful());
+        }
+        // the other tracks have been uploaded while the first one was waiting for its retry.
+        Assert.assertEquals("remote-1", results.get(4).getOptional().getRemoteID());
+        Assert.assertEquals(2, firstTrackAttempts.get());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testMarksPermanentlyFailedUpload() {
+        TrackUploadQueue uploadQueue = new TrackUploadQueue(enviroCarDB, new TestUploader() {
+            @Override
+            public Observable<Track> prepareForUpload(Track track) {
+                return Observable.error(new TrackUploadException(
+                        track, TrackUploadException.Reason.NO_CAR_ASSIGNED));
+            }
+        }, PARALLELISM, BACKOFF, Schedulers.io());
+        uploadQueue.enqueue(addTrack(1));
+
+        List<OptionalOrError<Track>> results = uploadQueue.processQueue().toList().blockingGet();
+
+        Assert.assertEquals(1, results.size());
+        Assert.assertFalse(results.get(0).isSuccessful());
+        Assert.assertEquals(TrackUploadException.Reason.NO_CAR_ASSIGNED,
+                ((TrackUploadException) results.get(0).getE()).getReason());
+        Assert.assertEquals(UploadQueueEntry.State.FAILED, queue.get(1L).getState());
+        Assert.assertEquals(0, server.getRequestCount());
+
+        // failed entries are skipped until the track is enqueued again.
+        Assert.assertTrue(uploadQueue.processQueue().toList().blockingGet().isEmpty());
+    }
+
+    private TrackUploadQueue createQueue() {
+        return new TrackUploadQueue(enviroCarDB, new TestUploader(), PARALLELISM, BACKOFF,
+                Schedulers.io());
+    }
+
+    private Track addTrack(long id) {
+        Track track = new TrackImpl();
+        track.setTrackID(new Track.TrackId(id));
+        track.setTrackStatus(Track.TrackStatus.FINISHED);
+        tracks.put(id, track);
+        return track;
+    }
+
+    private MockResponse created(String id) {
+        return new MockResponse()
+                .setResponseCode(201)
+                .setHeader("Location", server.url("/tracks/remote-" + id).toString());
+    }
+
+    private class TestUploader implements TrackUploadQueue.Uploader {
+
+        @Override
+        public Completable assertUploadAllowed() {
+            return Completable.complete();
+        }
+
+        @Override
+        public Observable<Track> prepareForUpload(Track track) {
+            prepared.incrementAndGet();
+            return Observable.just(track);
+        }
+
+        @Override
+        public Observable<Track> createRemoteTrack(Track track) {
+            return Observable.fromCallable(() -> {
+                Request request = new Request.Builder()
+                        .url(server.url("/tracks"))
+                        .post(RequestBody.create(MediaType.parse("text/plain"),
+                                String.valueOf(track.getTrackID().getId())))
+                        .build();
+                try (Response response = client.newCall(request).execute()) {
+                    if (response.code() != 201) {
+                        throw new DataCreationFailureException("HTTP " + response.code());
+                    }
+                    String location = response.header("Location");
+                    track.setRemoteID(location.substring(location.lastIndexOf('/') + 1));
+                    return track;
+                }
+            });
+        }
+    }
+}
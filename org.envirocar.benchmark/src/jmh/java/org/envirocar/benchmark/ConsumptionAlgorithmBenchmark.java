@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.benchmark;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.exception.FuelConsumptionException;
+import org.envirocar.core.exception.UnsupportedFuelTypeException;
+import org.envirocar.core.trackprocessing.consumption.ConsumptionAlgorithm;
+import org.envirocar.core.trackprocessing.consumption.DieselConsumptionAlgorithm;
+import org.envirocar.core.trackprocessing.consumption.GasolineConsumptionAlgorithm;
+import org.envirocar.core.trackprocessing.consumption.LoadBasedEnergyConsumptionAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculates the consumption and the CO2 emission of single measurements with each of the
+ * consumption algorithms.
+ *
+ * @author dewall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConsumptionAlgorithmBenchmark {
+
+    public enum Algorithm {
+        GASOLINE,
+        DIESEL,
+        LOAD_BASED_GASOLINE,
+        LOAD_BASED_DIESEL
+    }
+
+    @Param
+    public Algorithm algorithm;
+
+    private ConsumptionAlgorithm consumptionAlgorithm;
+    private Measurement[] measurements;
+    private int index;
+
+    @Setup
+    public void setup() {
+        switch (algorithm) {
+            case GASOLINE:
+                consumptionAlgorithm = new GasolineConsumptionAlgorithm();
+                break;
+            case DIESEL:
+                consumptionAlgorithm = new DieselConsumptionAlgorithm();
+                break;
+            case LOAD_BASED_GASOLINE:
+                consumptionAlgorithm = new LoadBasedEnergyConsumptionAlgorithm(Car.FuelType.GASOLINE);
+                break;
+            case LOAD_BASED_DIESEL:
+                consumptionAlgorithm = new LoadBasedEnergyConsumptionAlgorithm(Car.FuelType.DIESEL);
+                break;
+        }
+
+        List<Measurement> track = Fixtures.createTrack(3600, Car.FuelType.GASOLINE).getMeasurements();
+        measurements = track.toArray(new Measurement[track.size()]);
+    }
+
+    @Benchmark
+    public double consumptionAndCO2() throws FuelConsumptionException, UnsupportedFuelTypeException {
+        Measurement measurement = measurements[index];
+        index = index + 1 == measurements.length ? 0 : index + 1;
+
+        double consumption = consumptionAlgorithm.calculateConsumption(measurement);
+        return consumptionAlgorithm.calculateCO2FromConsumption(consumption);
+    }
+}
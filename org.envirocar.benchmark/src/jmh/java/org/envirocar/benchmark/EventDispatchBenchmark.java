@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.benchmark;
+
+import com.squareup.otto.Bus;
+import com.squareup.otto.Subscribe;
+import com.squareup.otto.ThreadEnforcer;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.obd.events.PropertyEventChannel;
+import org.envirocar.obd.events.PropertyKeyEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatches OBD values to a number of subscribers, once as {@link PropertyKeyEvent} over the
+ * Otto bus as it was done by the OBDController, once as primitives over the
+ * {@link PropertyEventChannel}. Run with the gc profiler to compare the allocation rates.
+ *
+ * @author dewall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EventDispatchBenchmark {
+
+    @Param({"1", "4"})
+    public int subscribers;
+
+    private Bus bus;
+    private PropertyEventChannel channel;
+    private long timestamp;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        bus = new Bus(ThreadEnforcer.ANY);
+        channel = new PropertyEventChannel();
+        for (int i = 0; i < subscribers; i++) {
+            bus.register(new BusSubscriber(blackhole));
+            channel.subscribe((key, value, time) -> blackhole.consume(value),
+                    EnumSet.allOf(Measurement.PropertyKey.class));
+        }
+    }
+
+    @Benchmark
+    public void otto() {
+        long now = timestamp++;
+        bus.post(new PropertyKeyEvent(Measurement.PropertyKey.SPEED, (int) (now & 0xFF), now));
+    }
+
+    @Benchmark
+    public void channel() {
+        long now = timestamp++;
+        channel.publish(Measurement.PropertyKey.SPEED, (int) (now & 0xFF), now);
+    }
+
+    public static class BusSubscriber {
+        private final Blackhole blackhole;
+
+        BusSubscriber(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe
+        public void onPropertyKeyEvent(PropertyKeyEvent event) {
+            blackhole.consume(event.getValue().doubleValue());
+        }
+    }
+}
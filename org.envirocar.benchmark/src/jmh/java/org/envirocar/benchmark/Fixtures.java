@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.benchmark;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.CarImpl;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.obd.trace.OBDTrace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixtures shared by the benchmarks: synthetic tracks and the adapter responses of recorded
+ * OBD traces.
+ *
+ * @author dewall
+ */
+public final class Fixtures {
+    public static final String SAMPLE_TRACE = "traces/elm327-sample.trace";
+
+    private static final long START_TIME = 1546300800000L;
+    private static final double START_LATITUDE = 51.9607;
+    private static final double START_LONGITUDE = 7.6261;
+    // meters per degree of latitude
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    private Fixtures() {
+        // no instances
+    }
+
+    /**
+     * Creates a synthetic drive with one measurement per second. The drive is deterministic, so
+     * the results of different runs are comparable.
+     *
+     * @param size     the number of measurements.
+     * @param fuelType the fuel type of the car.
+     * @return the track including its measurements.
+     */
+    public static Track createTrack(int size, Car.FuelType fuelType) {
+        Random random = new Random(42);
+        Track track = new TrackImpl();
+        track.setTrackID(new Track.TrackId(1));
+        track.setName("Benchmark track");
+        track.setDescription("Synthetic track of " + size + " measurements");
+        track.setCar(new CarImpl("5750591ee4b09078f98673d8", "Volkswagen", "Golf", fuelType,
+                2010, 1598));
+        track.setTrackStatus(Track.TrackStatus.FINISHED);
+
+        List<Measurement> measurements = new ArrayList<>(size);
+        double latitude = START_LATITUDE;
+        double longitude = START_LONGITUDE;
+        double bearing = 90;
+        double speed = 30;
+        double altitude = 60;
+        for (int i = 0; i < size; i++) {
+            MeasurementImpl measurement = new MeasurementImpl(latitude, longitude);
+            measurement.setTime(START_TIME + i * 1000L);
+            measurement.setTrackId(track.getTrackID());
+
+            double rpm = 800 + speed * 35 + random.nextDouble() * 100;
+            double load = 20 + random.nextDouble() * 60;
+            measurement.setProperty(Measurement.PropertyKey.SPEED, speed);
+            measurement.setProperty(Measurement.PropertyKey.RPM, rpm);
+            measurement.setProperty(Measurement.PropertyKey.MAF, rpm * load / 4000);
+            measurement.setProperty(Measurement.PropertyKey.INTAKE_TEMPERATURE,
+                    25 + random.nextDouble() * 5);
+            measurement.setProperty(Measurement.PropertyKey.INTAKE_PRESSURE,
+                    40 + load * 0.6);
+            measurement.setProperty(Measurement.PropertyKey.ENGINE_LOAD, load);
+            measurement.setProperty(Measurement.PropertyKey.THROTTLE_POSITON, load * 0.8);
+            measurement.setProperty(Measurement.PropertyKey.GPS_SPEED,
+                    speed + random.nextGaussian());
+            measurement.setProperty(Measurement.PropertyKey.GPS_BEARING, bearing);
+            measurement.setProperty(Measurement.PropertyKey.GPS_ALTITUDE, altitude);
+            measurement.setProperty(Measurement.PropertyKey.GPS_ACCURACY,
+                    3 + random.nextDouble() * 5);
+            measurement.setProperty(Measurement.PropertyKey.LAMBDA_VOLTAGE,
+                    0.4 + random.nextDouble() * 0.5);
+            measurement.setProperty(Measurement.PropertyKey.LAMBDA_VOLTAGE_ER,
+                    0.9 + random.nextDouble() * 0.4);
+            measurement.setProperty(Measurement.PropertyKey.CONSUMPTION, rpm * load / 20000);
+            measurement.setProperty(Measurement.PropertyKey.CO2, rpm * load / 8500);
+            measurements.add(measurement);
+
+            // drive on with a slowly changing speed, bearing and altitude
+            speed = Math.max(0, Math.min(130, speed + random.nextGaussian() * 3));
+            bearing = (bearing + random.nextGaussian() * 5 + 360) % 360;
+            altitude += random.nextGaussian() * 0.5;
+            double meters = speed / 3.6;
+            latitude += Math.cos(Math.toRadians(bearing)) * meters / METERS_PER_DEGREE;
+            longitude += Math.sin(Math.toRadians(bearing)) * meters
+                    / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+        }
+
+        track.setMeasurements(measurements);
+        track.setStartTime(START_TIME);
+        track.setEndTime(START_TIME + (size - 1) * 1000L);
+        return track;
+    }
+
+    /**
+     * Extracts the mode 01 data responses from an OBD trace. Like the ELM327 adapters do, spaces
+     * and prompts are dropped and the lines are split at carriage returns. The responses to the
+     * requests of the supported PIDs are skipped.
+     *
+     * @param location the path of a trace file or of a trace resource.
+     * @return the responses in the recorded order.
+     */
+    public static List<byte[]> loadResponses(String location) throws IOException {
+        OBDTrace trace;
+        try (InputStream in = open(location)) {
+            trace = OBDTrace.read(in);
+        }
+
+        List<byte[]> responses = new ArrayList<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (OBDTrace.Record record : trace.getRecords()) {
+            if (record.getDirection() != OBDTrace.Direction.READ) {
+                continue;
+            }
+
+            for (byte b : record.getData()) {
+                if (b == '\r') {
+                    byte[] response = line.toByteArray();
+                    if (response.length > 4 && response[0] == '4' && response[1] == '1'
+                            && !isSupportedPIDsResponse(response)) {
+                        responses.add(response);
+                    }
+                    line.reset();
+                } else if (b != ' ' && b != '>') {
+                    line.write(b);
+                }
+            }
+        }
+
+        if (responses.isEmpty()) {
+            throw new IOException("The trace does not contain any mode 01 response: " + location);
+        }
+        return responses;
+    }
+
+    private static boolean isSupportedPIDsResponse(byte[] response) {
+        // the supported PIDs are requested in groups of 0x20 PIDs.
+        int pid = Integer.parseInt(new String(response, 2, 2), 16);
+        return pid % 0x20 == 0;
+    }
+
+    private static InputStream open(String location) throws IOException {
+        File file = new File(location);
+        if (file.isFile()) {
+            return new FileInputStream(file);
+        }
+
+        InputStream in = Fixtures.class.getClassLoader().getResourceAsStream(location);
+        if (in == null) {
+            throw new FileNotFoundException("No trace found at " + location);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.benchmark;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.utils.Geodesic;
+import org.envirocar.core.utils.LocationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the length of a track, once pairwise with the ellipsoidal distance of
+ * {@link LocationUtils} and once with the bulk kernels of {@link Geodesic}.
+ *
+ * @author dewall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeodesicBenchmark {
+
+    @Param({"3600", "50000"})
+    public int points;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] lengths;
+
+    @Setup
+    public void setup() {
+        List<Measurement> measurements = Fixtures.createTrack(points, Car.FuelType.GASOLINE)
+                .getMeasurements();
+        latitudes = new double[points];
+        longitudes = new double[points];
+        lengths = new double[points];
+        for (int i = 0; i < points; i++) {
+            latitudes[i] = measurements.get(i).getLatitude();
+            longitudes[i] = measurements.get(i).getLongitude();
+        }
+    }
+
+    @Benchmark
+    public double ellipsoidal() {
+        double length = 0;
+        for (int i = 1; i < points; i++) {
+            length += LocationUtils.getDistance(
+                    latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+        }
+        return length;
+    }
+
+    @Benchmark
+    public double haversine() {
+        return Geodesic.length(latitudes, longitudes);
+    }
+
+    @Benchmark
+    public double[] haversineCumulative() {
+        Geodesic.cumulativeLengths(latitudes, longitudes, lengths);
+        return lengths;
+    }
+
+    @Benchmark
+    public double[] equirectangularSegments() {
+        Geodesic.equirectangularSegmentLengths(latitudes, longitudes, lengths);
+        return lengths;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.benchmark;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies the measurements of a track into the different representations and reads a property
+ * of every measurement. The copies allocate little more than the memory retained by the
+ * representation, so with <code>-Pprofilers=gc</code> the <code>gc.alloc.rate.norm</code> of
+ * the copy benchmarks approximates the heap footprint of a track in bytes. <code>hashMapProperties</code> copies
+ * the properties into the former representation of one boxed value per map entry.
+ *
+ * @author dewall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MeasurementBenchmark {
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+
+    @Param({"10000"})
+    public int measurements;
+
+    private List<Measurement> track;
+    private MeasurementBuffer buffer;
+
+    @Setup
+    public void setup() {
+        track = Fixtures.createTrack(measurements, Car.FuelType.GASOLINE).getMeasurements();
+        buffer = MeasurementBuffer.of(track);
+    }
+
+    @Benchmark
+    public List<Map<Measurement.PropertyKey, Double>> hashMapProperties() {
+        List<Map<Measurement.PropertyKey, Double>> result = new ArrayList<>(track.size());
+        for (int i = 0; i < track.size(); i++) {
+            Measurement measurement = track.get(i);
+            Map<Measurement.PropertyKey, Double> properties = new HashMap<>();
+            for (Measurement.PropertyKey key : KEYS) {
+                if (measurement.hasProperty(key)) {
+                    properties.put(key, measurement.getProperty(key));
+                }
+            }
+            result.add(properties);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Measurement> carbonCopy() {
+        List<Measurement> result = new ArrayList<>(track.size());
+        for (int i = 0; i < track.size(); i++) {
+            result.add(track.get(i).carbonCopy());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public MeasurementBuffer buffer() {
+        return MeasurementBuffer.of(track);
+    }
+
+    @Benchmark
+    public double speedOfMeasurements() {
+        double sum = 0;
+        for (int i = 0; i < track.size(); i++) {
+            Double speed = track.get(i).getProperty(Measurement.PropertyKey.SPEED);
+            if (speed != null) {
+                sum += speed;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double speedOfBuffer() {
+        double sum = 0;
+        MeasurementBuffer.Row row = buffer.row(0);
+        for (int i = 0; i < buffer.size(); i++) {
+            Double speed = row.moveTo(i).getProperty(Measurement.PropertyKey.SPEED);
+            if (speed != null) {
+                sum += speed;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.benchmark;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.exception.NoMeasurementsException;
+import org.envirocar.core.utils.TrackObfuscator;
+import org.envirocar.core.utils.TrackUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Obfuscates the start and the end of a track before its upload, once as a copy of the track and
+ * once only determining the index range of the non obfuscated measurements.
+ *
+ * @author dewall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObfuscationBenchmark {
+
+    @Param({"600", "3600", "50000"})
+    public int measurements;
+
+    private Track track;
+
+    @Setup
+    public void setup() {
+        track = Fixtures.createTrack(measurements, Car.FuelType.GASOLINE);
+    }
+
+    @Benchmark
+    public Track obfuscate() throws NoMeasurementsException {
+        return TrackUtils.getObfuscatedTrack(track);
+    }
+
+    @Benchmark
+    public TrackObfuscator.Range nonObfuscatedRange() {
+        return TrackObfuscator.DEFAULT.getNonObfuscatedRange(track);
+    }
+}
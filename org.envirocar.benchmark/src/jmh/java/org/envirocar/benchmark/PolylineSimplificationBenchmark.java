@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.benchmark;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.utils.MultiResolutionPolyline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simplifies the path of a track for the zoom levels of the track map. The number of points
+ * retained per zoom level is covered by MultiResolutionPolylineTest.
+ *
+ * @author dewall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PolylineSimplificationBenchmark {
+
+    private static final double PIXEL_TOLERANCE = 0.5;
+
+    @Param({"1000", "10000", "50000"})
+    public int points;
+
+    @Param({"9", "14"})
+    public int zoom;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private MultiResolutionPolyline polyline;
+
+    @Setup
+    public void setup() {
+        List<Measurement> measurements = Fixtures.createTrack(points, Car.FuelType.GASOLINE)
+                .getMeasurements();
+        latitudes = new double[points];
+        longitudes = new double[points];
+        for (int i = 0; i < points; i++) {
+            latitudes[i] = measurements.get(i).getLatitude();
+            longitudes[i] = measurements.get(i).getLongitude();
+        }
+        polyline = new MultiResolutionPolyline(latitudes, longitudes);
+    }
+
+    @Benchmark
+    public MultiResolutionPolyline precompute() {
+        return new MultiResolutionPolyline(latitudes, longitudes);
+    }
+
+    @Benchmark
+    public int[] simplifyForZoom() {
+        return polyline.simplifyForZoom(zoom, PIXEL_TOLERANCE);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.benchmark;
+
+import org.envirocar.obd.commands.response.DataResponse;
+import org.envirocar.obd.commands.response.ResponseParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the mode 01 responses of a recorded OBD trace, one response per operation.
+ *
+ * @author dewall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseParserBenchmark {
+
+    /**
+     * The trace to take the responses from, either a file or a resource.
+     */
+    @Param({Fixtures.SAMPLE_TRACE})
+    public String trace;
+
+    private ResponseParser parser;
+    private byte[][] responses;
+    private int index;
+
+    @Setup
+    public void setup() throws Exception {
+        List<byte[]> loaded = Fixtures.loadResponses(trace);
+        responses = loaded.toArray(new byte[loaded.size()][]);
+        parser = new ResponseParser();
+
+        // fail early instead of measuring exceptions
+        for (byte[] response : responses) {
+            parser.parse(response);
+        }
+    }
+
+    @Benchmark
+    public DataResponse parse() throws Exception {
+        byte[] response = responses[index];
+        index = index + 1 == responses.length ? 0 : index + 1;
+        return parser.parse(response);
+    }
+}
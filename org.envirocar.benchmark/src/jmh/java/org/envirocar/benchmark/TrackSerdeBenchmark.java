@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.benchmark;
+
+import com.google.gson.stream.JsonWriter;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Track;
+import org.envirocar.remote.serde.TrackSerde;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes a track for the upload, once streamed and once as a JSON tree.
+ *
+ * @author dewall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TrackSerdeBenchmark {
+
+    @Param({"600", "3600"})
+    public int measurements;
+
+    private TrackSerde serde;
+    private Track track;
+    private CountingWriter writer;
+
+    @Setup
+    public void setup() {
+        serde = new TrackSerde();
+        track = Fixtures.createTrack(measurements, Car.FuelType.GASOLINE);
+        writer = new CountingWriter();
+    }
+
+    @Benchmark
+    public long serializeStreamed() throws IOException {
+        writer.count = 0;
+        serde.serialize(track, track.getMeasurements(), new JsonWriter(writer));
+        return writer.count;
+    }
+
+    @Benchmark
+    public String serializeTree() {
+        return serde.serialize(track, Track.class, null).toString();
+    }
+
+    /**
+     * Discards the written characters, so that only the serialization is measured.
+     */
+    private static final class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
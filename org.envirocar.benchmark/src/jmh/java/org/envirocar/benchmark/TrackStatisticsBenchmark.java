@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.benchmark;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.exception.FuelConsumptionException;
+import org.envirocar.core.trackprocessing.statistics.TrackStatistics;
+import org.envirocar.core.trackprocessing.statistics.TrackStatisticsProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the statistics shown for a finished track.
+ *
+ * @author dewall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrackStatisticsBenchmark {
+
+    @Param({"3600"})
+    public int measurements;
+
+    @Param({"GASOLINE", "DIESEL"})
+    public Car.FuelType fuelType;
+
+    private TrackStatisticsProcessor processor;
+    private List<Measurement> track;
+
+    @Setup
+    public void setup() {
+        processor = new TrackStatisticsProcessor(fuelType);
+        track = Fixtures.createTrack(measurements, fuelType).getMeasurements();
+    }
+
+    @Benchmark
+    public double distance() {
+        return processor.computeDistanceOfTrack(track);
+    }
+
+    @Benchmark
+    public Double fuelConsumptionPerHour() throws FuelConsumptionException {
+        return processor.getFuelConsumptionPerHour(track);
+    }
+
+    @Benchmark
+    public Double co2Average() throws FuelConsumptionException {
+        return processor.getCO2Average(track);
+    }
+
+    @Benchmark
+    public TrackStatistics allStatistics() {
+        return processor.computeStatistics(track);
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import android.content.ContentValues;
+import android.database.MatrixCursor;
+
+import org.envirocar.benchmark.Fixtures;
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes measurements to database rows and decodes them again, both with and without the
+ * overhead of {@link ContentValues} and cursors. The benchmark lives in the package of the
+ * storage module to access the package-private {@link MeasurementPropertiesCodec}.
+ *
+ * @author dewall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MeasurementTableCodecBenchmark {
+
+    private Measurement measurement;
+    private byte[] encodedProperties;
+    private MatrixCursor cursor;
+
+    @Setup
+    public void setup() {
+        measurement = Fixtures.createTrack(1, Car.FuelType.GASOLINE).getMeasurements().get(0);
+        encodedProperties = MeasurementPropertiesCodec.encode(measurement.getAllProperties());
+
+        cursor = new MatrixCursor(new String[]{
+                MeasurementTable.KEY_ROWID,
+                MeasurementTable.KEY_LATITUDE,
+                MeasurementTable.KEY_LONGITUDE,
+                MeasurementTable.KEY_TIME,
+                MeasurementTable.KEY_TRACK,
+                MeasurementTable.KEY_PROPERTIES});
+        cursor.addRow(new Object[]{1L, measurement.getLatitude(), measurement.getLongitude(),
+                measurement.getTime(), measurement.getTrackId().getId(), encodedProperties});
+        cursor.moveToFirst();
+    }
+
+    @Benchmark
+    public byte[] encodeProperties() {
+        return MeasurementPropertiesCodec.encode(measurement.getAllProperties());
+    }
+
+    @Benchmark
+    public Measurement decodeProperties() {
+        Measurement decoded = new MeasurementImpl();
+        MeasurementPropertiesCodec.decode(encodedProperties, decoded);
+        return decoded;
+    }
+
+    @Benchmark
+    public ContentValues toContentValues() {
+        return MeasurementTable.toContentValues(measurement);
+    }
+
+    @Benchmark
+    public Measurement fromCursor() {
+        return MeasurementTable.fromCursor(cursor);
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import android.test.InstrumentationTestCase;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @author dewall
+ */
+public class MeasurementBufferTest extends InstrumentationTestCase {
+
+    @Test
+    public void testRowsEqualTheirMeasurements() throws Exception {
+        List<Measurement> measurements = createMeasurements(1000);
+        // the buffer grows beyond its initial capacity.
+        MeasurementBuffer buffer = new MeasurementBuffer(1);
+        for (Measurement measurement : measurements) {
+            buffer.add(measurement);
+        }
+
+        Assert.assertThat(buffer.size(), CoreMatchers.is(measurements.size()));
+        MeasurementBuffer.Row row = buffer.row(0);
+        for (int i = 0; i < measurements.size(); i++) {
+            assertMeasurementEquals(measurements.get(i), row.moveTo(i));
+            assertMeasurementEquals(measurements.get(i), buffer.asList().get(i));
+            assertMeasurementEquals(measurements.get(i), row.carbonCopy());
+        }
+    }
+
+    @Test
+    public void testWritesThroughRow() throws Exception {
+        MeasurementBuffer buffer = MeasurementBuffer.of(createMeasurements(3));
+        MeasurementBuffer.Row row = buffer.row(1);
+        row.setProperty(Measurement.PropertyKey.CO2, 12.5);
+        row.setLatitude(50.0);
+        row.setTime(42L);
+
+        Measurement other = buffer.row(1);
+        Assert.assertEquals(12.5, other.getProperty(Measurement.PropertyKey.CO2), 0.0);
+        Assert.assertEquals(50.0, other.getLatitude(), 0.0);
+        Assert.assertEquals(42L, other.getTime());
+        Assert.assertThat(buffer.row(0).hasProperty(Measurement.PropertyKey.CO2),
+                CoreMatchers.is(false));
+
+        // a view of the row itself can be written back.
+        Map<Measurement.PropertyKey, Double> expected = new HashMap<>(row.getAllProperties());
+        row.setAllProperties(row.getAllProperties());
+        Assert.assertThat(row.getAllProperties(), CoreMatchers.is(expected));
+
+        row.reset();
+        Assert.assertNull(row.getLatitude());
+        Assert.assertThat(row.getAllProperties().isEmpty(), CoreMatchers.is(true));
+    }
+
+    @Test
+    public void testMeasurementImplSetAllPropertiesOfItself() throws Exception {
+        Measurement measurement = createMeasurements(1).get(0);
+        Map<Measurement.PropertyKey, Double> expected =
+                new HashMap<>(measurement.getAllProperties());
+        measurement.setAllProperties(measurement.getAllProperties());
+        Assert.assertThat(measurement.getAllProperties(), CoreMatchers.is(expected));
+        Assert.assertThat(measurement.getAllProperties().get(Measurement.PropertyKey.RPM),
+                CoreMatchers.is(expected.get(Measurement.PropertyKey.RPM)));
+    }
+
+    private static void assertMeasurementEquals(Measurement expected, Measurement actual) {
+        Assert.assertEquals(expected.getLatitude(), actual.getLatitude());
+        Assert.assertEquals(expected.getLongitude(), actual.getLongitude());
+        Assert.assertEquals(expected.getTime(), actual.getTime());
+        Assert.assertEquals(expected.getPropertyMask(), actual.getPropertyMask());
+        Assert.assertThat(actual.getAllProperties(), CoreMatchers.is(expected.getAllProperties()));
+    }
+
+    private static List<Measurement> createMeasurements(int size) {
+        Random random = new Random(42);
+        Measurement.PropertyKey[] keys = Measurement.PropertyKey.values();
+        List<Measurement> measurements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Measurement measurement = i % 10 == 5 ? new MeasurementImpl()
+                    : new MeasurementImpl(51 + random.nextDouble(), 7 + random.nextDouble());
+            measurement.setTime(i * 1000L);
+            for (Measurement.PropertyKey key : keys) {
+                if (random.nextBoolean()) {
+                    measurement.setProperty(key, random.nextGaussian());
+                }
+            }
+            measurements.add(measurement);
+        }
+        return measurements;
+    }
+}
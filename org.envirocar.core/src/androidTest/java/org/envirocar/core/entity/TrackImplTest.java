@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import android.test.InstrumentationTestCase;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author dewall
+ */
+public class TrackImplTest extends InstrumentationTestCase {
+
+    @Test
+    public void testMeasurementPropertyMask() throws Exception {
+        MeasurementImpl measurement = new MeasurementImpl(51.0, 7.0);
+        measurement.setProperty(Measurement.PropertyKey.SPEED, 42.0);
+        measurement.setProperty(Measurement.PropertyKey.RPM, null);
+        measurement.setProperty(Measurement.PropertyKey.CO2, 3.0);
+        Assert.assertEquals(Measurement.PropertyKey.SPEED.getMask()
+                | Measurement.PropertyKey.CO2.getMask(), measurement.getPropertyMask());
+        Assert.assertThat(measurement.hasProperty(Measurement.PropertyKey.RPM), CoreMatchers.is(false));
+
+        Map<Measurement.PropertyKey, Double> properties = new EnumMap<>(Measurement.PropertyKey.class);
+        properties.put(Measurement.PropertyKey.MAF, 1.0);
+        measurement.setAllProperties(properties);
+        Assert.assertEquals(Measurement.PropertyKey.MAF.getMask(), measurement.getPropertyMask());
+        Assert.assertEquals(measurement.getPropertyMask(),
+                measurement.carbonCopy().getPropertyMask());
+
+        measurement.reset();
+        Assert.assertEquals(0L, measurement.getPropertyMask());
+    }
+
+    @Test
+    public void testFromMask() throws Exception {
+        long mask = 0L;
+        for (Measurement.PropertyKey key : Measurement.PropertyKey.values()) {
+            mask |= key.getMask();
+        }
+        Assert.assertThat(Measurement.PropertyKey.fromMask(mask),
+                CoreMatchers.is(Arrays.asList(Measurement.PropertyKey.values())));
+        Assert.assertThat(Measurement.PropertyKey.fromMask(0L).isEmpty(), CoreMatchers.is(true));
+    }
+
+    @Test
+    public void testTrackPropertyMaskIsUpdatedIncrementally() throws Exception {
+        TrackImpl track = new TrackImpl();
+        Assert.assertThat(track.hasProperty(Measurement.PropertyKey.SPEED), CoreMatchers.is(false));
+
+        track.getMeasurements().add(createMeasurement(Measurement.PropertyKey.SPEED));
+        Assert.assertThat(track.getSupportedProperties(),
+                CoreMatchers.is(Arrays.asList(Measurement.PropertyKey.SPEED)));
+
+        // measurements appended to the list are picked up by the next query.
+        track.getMeasurements().add(createMeasurement(Measurement.PropertyKey.GPS_SPEED));
+        track.getMeasurements().add(createMeasurement(Measurement.PropertyKey.MAF));
+        Assert.assertThat(track.getSupportedProperties(), CoreMatchers.is(Arrays.asList(
+                Measurement.PropertyKey.SPEED, Measurement.PropertyKey.MAF,
+                Measurement.PropertyKey.GPS_SPEED)));
+
+        // replaced measurements lead to a recomputation.
+        List<Measurement> measurements = new ArrayList<>();
+        measurements.add(createMeasurement(Measurement.PropertyKey.RPM));
+        measurements.add(createMeasurement(Measurement.PropertyKey.RPM));
+        measurements.add(createMeasurement(Measurement.PropertyKey.RPM));
+        track.setMeasurements(measurements);
+        Assert.assertEquals(Measurement.PropertyKey.RPM.getMask(), track.getPropertyMask());
+        Assert.assertEquals(Measurement.PropertyKey.RPM.getMask(),
+                track.carbonCopy().getPropertyMask());
+
+        // removed measurements lead to a recomputation as well.
+        track.getMeasurements().clear();
+        track.getMeasurements().add(createMeasurement(Measurement.PropertyKey.CO2));
+        Assert.assertEquals(Measurement.PropertyKey.CO2.getMask(), track.getPropertyMask());
+    }
+
+    @Test
+    public void testTrackWithoutMeasurementsUsesSummary() throws Exception {
+        TrackSummary summary = new TrackSummary();
+        summary.add(createMeasurement(Measurement.PropertyKey.CONSUMPTION));
+
+        TrackImpl track = new TrackImpl();
+        track.setSummary(summary);
+        Assert.assertThat(track.hasProperty(Measurement.PropertyKey.CONSUMPTION),
+                CoreMatchers.is(true));
+
+        track.getMeasurements().add(createMeasurement(Measurement.PropertyKey.SPEED));
+        Assert.assertEquals(Measurement.PropertyKey.SPEED.getMask(), track.getPropertyMask());
+    }
+
+    private static Measurement createMeasurement(Measurement.PropertyKey key) {
+        Measurement measurement = new MeasurementImpl(51.0, 7.0);
+        measurement.setProperty(key, 1.0);
+        return measurement;
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.logging;
+
+import android.test.InstrumentationTestCase;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author dewall
+ */
+public class AsyncLogWriterTest extends InstrumentationTestCase {
+
+    private static class CollectingHandler implements Handler {
+        final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> threadIds = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void logMessage(int level, String string) {
+            messages.add(string);
+        }
+
+        @Override
+        public void logMessage(int level, String string, long time, long threadId) {
+            logMessage(level, string);
+            threadIds.add(threadId);
+        }
+
+        @Override
+        public void initializeComplete() {
+        }
+    }
+
+    @Test
+    public void testMessagesAreFormattedByTheWriter() throws Exception {
+        CollectingHandler handler = new CollectingHandler();
+        AsyncLogWriter writer = new AsyncLogWriter(16, new CopyOnWriteArrayList<>(
+                Collections.singletonList(handler)));
+
+        StringBuilder argument = new StringBuilder("lazy");
+        writer.enqueue(Logger.INFO, "test", "value %s of %d", new Object[]{argument, 3}, null);
+        writer.enqueue(Logger.INFO, "test", "100%", null, null);
+        Assert.assertTrue(writer.flush(5000));
+
+        Assert.assertThat(handler.messages.get(0), CoreMatchers.is("[test] value lazy of 3"));
+        Assert.assertThat(handler.messages.get(1), CoreMatchers.is("[test] 100%"));
+        Assert.assertThat(handler.threadIds.get(0), CoreMatchers.is(Thread.currentThread().getId()));
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        CollectingHandler handler = new CollectingHandler();
+        AsyncLogWriter writer = new AsyncLogWriter(1 << 16, new CopyOnWriteArrayList<>(
+                Collections.singletonList(handler)));
+
+        int threads = 4;
+        int messages = 5000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            new Thread(() -> {
+                for (int i = 0; i < messages; i++) {
+                    writer.enqueue(Logger.DEBUG, "t" + thread, "%d", new Object[]{i}, null);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        Assert.assertTrue(writer.flush(5000));
+
+        Assert.assertThat(writer.getDroppedCount(), CoreMatchers.is(0L));
+        Assert.assertThat(handler.messages.size(), CoreMatchers.is(threads * messages));
+        int[] next = new int[threads];
+        for (String message : handler.messages) {
+            int thread = message.charAt(2) - '0';
+            Assert.assertThat(message, CoreMatchers.is("[t" + thread + "] " + next[thread]++));
+        }
+    }
+
+    @Test
+    public void testOverloadDropsMessages() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingHandler handler = new CollectingHandler() {
+            @Override
+            public void logMessage(int level, String string) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.logMessage(level, string);
+            }
+        };
+        AsyncLogWriter writer = new AsyncLogWriter(8, new CopyOnWriteArrayList<>(
+                Collections.singletonList(handler)));
+
+        int accepted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (writer.enqueue(Logger.INFO, "test", "message", null, null)) {
+                accepted++;
+            }
+        }
+        release.countDown();
+        Assert.assertTrue(writer.flush(5000));
+
+        Assert.assertTrue(accepted <= 9);
+        Assert.assertThat(writer.getDroppedCount(), CoreMatchers.is(100L - accepted));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (handler.messages.size() < accepted + 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(handler.messages.get(accepted).contains(
+                (100 - accepted) + " log messages dropped"));
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.trackprocessing.statistics;
+
+import android.test.InstrumentationTestCase;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.core.utils.Geodesic;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author dewall
+ */
+public class TrackStatisticsTest extends InstrumentationTestCase {
+
+    private static List<Measurement> createMeasurements(int count) {
+        List<Measurement> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MeasurementImpl m = new MeasurementImpl(51.95 + i * 0.0001, 7.62 + i * 0.00005);
+            m.setTime(1000L * i);
+            m.setProperty(Measurement.PropertyKey.SPEED, (double) (i % 50));
+            m.setProperty(Measurement.PropertyKey.CONSUMPTION, 5.0 + (i % 3));
+            result.add(m);
+        }
+        return result;
+    }
+
+    private static Measurement createMeasurement(long time, double speed) {
+        MeasurementImpl m = new MeasurementImpl(51.95, 7.62);
+        m.setTime(time);
+        m.setProperty(Measurement.PropertyKey.SPEED, speed);
+        return m;
+    }
+
+    @Test
+    public void testSinglePass() throws Exception {
+        List<Measurement> measurements = createMeasurements(500);
+        TrackStatistics statistics = new TrackStatistics(Car.FuelType.GASOLINE);
+        double distance = 0.0;
+        double co2 = 0.0;
+        for (int i = 0; i < measurements.size(); i++) {
+            statistics.add(measurements.get(i));
+            if (i > 0) {
+                distance += Geodesic.haversine(
+                        measurements.get(i - 1).getLatitude(), measurements.get(i - 1).getLongitude(),
+                        measurements.get(i).getLatitude(), measurements.get(i).getLongitude());
+            }
+            co2 += measurements.get(i).getProperty(Measurement.PropertyKey.CONSUMPTION) * 2.35;
+        }
+
+        Assert.assertThat(statistics.getCount(), CoreMatchers.is(500L));
+        Assert.assertThat(statistics.getDuration(), CoreMatchers.is(499000L));
+        Assert.assertEquals(distance, statistics.getDistance(), 1e-9);
+        Assert.assertEquals(24.5, statistics.getSpeed().getMean(), 1e-9);
+        Assert.assertEquals(0.0, statistics.getSpeed().getMin(), 0.0);
+        Assert.assertEquals(49.0, statistics.getSpeed().getMax(), 0.0);
+        Assert.assertEquals(co2 / 500, statistics.getCO2Average(), 1e-9);
+    }
+
+    @Test
+    public void testTimeWeightedMean() throws Exception {
+        TrackStatistics statistics = new TrackStatistics();
+        statistics.add(createMeasurement(0, 10));
+        statistics.add(createMeasurement(1000, 20));
+        statistics.add(createMeasurement(4000, 30));
+
+        Assert.assertEquals(20.0, statistics.getSpeed().getMean(), 1e-9);
+        Assert.assertEquals(17.5, statistics.getSpeed().getTimeWeightedMean(), 1e-9);
+    }
+
+    @Test
+    public void testMergeEqualsSinglePass() throws Exception {
+        List<Measurement> measurements = createMeasurements(300);
+        TrackStatistics all = new TrackStatistics(Car.FuelType.DIESEL);
+        TrackStatistics first = new TrackStatistics(Car.FuelType.DIESEL);
+        TrackStatistics second = new TrackStatistics(Car.FuelType.DIESEL);
+        for (int i = 0; i < measurements.size(); i++) {
+            all.add(measurements.get(i));
+            (i < 120 ? first : second).add(measurements.get(i));
+        }
+
+        TrackStatistics merged = first.merge(second);
+        Assert.assertThat(merged.getCount(), CoreMatchers.is(all.getCount()));
+        Assert.assertThat(merged.getDuration(), CoreMatchers.is(all.getDuration()));
+        Assert.assertEquals(all.getDistance(), merged.getDistance(), 1e-9);
+        Assert.assertEquals(all.getSpeed().getMean(), merged.getSpeed().getMean(), 1e-9);
+        Assert.assertEquals(all.getSpeed().getTimeWeightedMean(),
+                merged.getSpeed().getTimeWeightedMean(), 1e-9);
+        Assert.assertEquals(all.getSpeed().getMax(), merged.getSpeed().getMax(), 0.0);
+        Assert.assertEquals(all.getCO2Average(), merged.getCO2Average(), 1e-9);
+    }
+
+    @Test
+    public void testByteArrayRoundTrip() throws Exception {
+        TrackStatistics statistics = new TrackStatistics(Car.FuelType.GASOLINE);
+        for (Measurement m : createMeasurements(100)) {
+            statistics.add(m);
+        }
+
+        TrackStatistics decoded = TrackStatistics.fromByteArray(
+                statistics.toByteArray(), Car.FuelType.GASOLINE);
+        Assert.assertNotNull(decoded);
+        Assert.assertThat(decoded.getCount(), CoreMatchers.is(statistics.getCount()));
+        Assert.assertEquals(statistics.getDistance(), decoded.getDistance(), 0.0);
+        Assert.assertEquals(statistics.getSpeed().getTimeWeightedMean(),
+                decoded.getSpeed().getTimeWeightedMean(), 0.0);
+        Assert.assertEquals(statistics.getCO2Average(), decoded.getCO2Average(), 0.0);
+
+        Assert.assertNull(TrackStatistics.fromByteArray(new byte[]{42}, null));
+
+        // statistics of an outdated encoding are not decoded.
+        byte[] outdated = statistics.toByteArray();
+        outdated[0] = 1;
+        Assert.assertNull(TrackStatistics.fromByteArray(outdated, Car.FuelType.GASOLINE));
+    }
+
+    @Test
+    public void testTrackAddsAppendedMeasurements() throws Exception {
+        List<Measurement> measurements = createMeasurements(200);
+        TrackImpl track = new TrackImpl();
+        track.setMeasurements(new ArrayList<>(measurements.subList(0, 100)));
+
+        TrackStatistics statistics = track.getStatistics();
+        Assert.assertThat(statistics.getCount(), CoreMatchers.is(100L));
+
+        track.getMeasurements().addAll(measurements.subList(100, 200));
+        Assert.assertThat(track.getStatistics(), CoreMatchers.sameInstance(statistics));
+        Assert.assertThat(statistics.getCount(), CoreMatchers.is(200L));
+        Assert.assertEquals(new TrackStatisticsProcessor(Car.FuelType.GASOLINE)
+                .computeDistanceOfTrack(measurements), track.getDistanceOfTrack(), 1e-9);
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.utils;
+
+import android.test.InstrumentationTestCase;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author dewall
+ */
+public class GeodesicTest extends InstrumentationTestCase {
+
+    @Test
+    public void testHaversine() throws Exception {
+        double degree = Geodesic.EARTH_RADIUS_KM * Math.PI / 180;
+        Assert.assertEquals(degree, Geodesic.haversine(51.0, 7.0, 52.0, 7.0), 1e-9);
+        Assert.assertEquals(degree, Geodesic.haversine(0.0, 179.5, 0.0, -179.5), 1e-9);
+        Assert.assertEquals(0.0, Geodesic.haversine(51.0, 7.0, 51.0, 7.0), 0.0);
+    }
+
+    @Test
+    public void testEquirectangularCrossesAntimeridian() throws Exception {
+        Assert.assertEquals(Geodesic.haversine(10.0, 179.999, 10.0, -179.999),
+                Geodesic.equirectangular(10.0, 179.999, 10.0, -179.999), 1e-9);
+    }
+
+    @Test
+    public void testErrorBounds() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            double latitude = random.nextDouble() * 140 - 70;
+            double longitude = random.nextDouble() * 360 - 180;
+            double otherLatitude = latitude + (random.nextDouble() - 0.5) * 0.02;
+            double otherLongitude = longitude + (random.nextDouble() - 0.5) * 0.02;
+
+            double exact = LocationUtils.getDistance(
+                    latitude, longitude, otherLatitude, otherLongitude);
+            double haversine = Geodesic.haversine(
+                    latitude, longitude, otherLatitude, otherLongitude);
+            double equirectangular = Geodesic.equirectangular(
+                    latitude, longitude, otherLatitude, otherLongitude);
+
+            Assert.assertEquals(exact, haversine, exact * Geodesic.MAX_RELATIVE_ERROR);
+            Assert.assertEquals(haversine, equirectangular, haversine * 1e-7);
+        }
+    }
+
+    @Test
+    public void testBulkKernels() throws Exception {
+        Random random = new Random(7);
+        int size = 1000;
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        latitudes[0] = 51.96;
+        longitudes[0] = 7.62;
+        for (int i = 1; i < size; i++) {
+            latitudes[i] = latitudes[i - 1] + (random.nextDouble() - 0.5) * 0.001;
+            longitudes[i] = longitudes[i - 1] + (random.nextDouble() - 0.5) * 0.001;
+        }
+
+        double[] segments = new double[size - 1];
+        double[] equirectangular = new double[size - 1];
+        double[] cumulative = new double[size];
+        double[] toFirst = new double[size];
+        Geodesic.segmentLengths(latitudes, longitudes, segments);
+        Geodesic.equirectangularSegmentLengths(latitudes, longitudes, equirectangular);
+        Geodesic.cumulativeLengths(latitudes, longitudes, cumulative);
+        Geodesic.distancesTo(latitudes[0], longitudes[0], latitudes, longitudes, toFirst);
+
+        double sum = 0;
+        for (int i = 1; i < size; i++) {
+            double expected = Geodesic.haversine(
+                    latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+            Assert.assertEquals(expected, segments[i - 1], 1e-12);
+            Assert.assertEquals(expected, equirectangular[i - 1], 1e-9);
+            sum += expected;
+            Assert.assertEquals(sum, cumulative[i], 1e-9);
+            Assert.assertEquals(Geodesic.haversine(latitudes[0], longitudes[0],
+                    latitudes[i], longitudes[i]), toFirst[i], 1e-12);
+        }
+        Assert.assertEquals(0.0, cumulative[0], 0.0);
+        Assert.assertEquals(sum, Geodesic.length(latitudes, longitudes), 1e-9);
+    }
+
+    @Test
+    public void testCumulativeDistancesOfMeasurements() throws Exception {
+        List<Measurement> measurements = new ArrayList<>();
+        measurements.add(new MeasurementImpl());
+        measurements.add(new MeasurementImpl(51.0, 7.0));
+        measurements.add(new MeasurementImpl());
+        measurements.add(new MeasurementImpl(52.0, 7.0));
+
+        double[] distances = LocationUtils.getCumulativeDistances(measurements);
+        Assert.assertThat(distances.length, CoreMatchers.is(4));
+        Assert.assertEquals(0.0, distances[0], 0.0);
+        Assert.assertEquals(0.0, distances[1], 0.0);
+        Assert.assertEquals(0.0, distances[2], 0.0);
+        Assert.assertEquals(Geodesic.haversine(51.0, 7.0, 52.0, 7.0), distances[3], 1e-12);
+    }
+}
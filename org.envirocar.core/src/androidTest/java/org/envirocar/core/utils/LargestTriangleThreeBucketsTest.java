@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.utils;
+
+import android.test.InstrumentationTestCase;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * @author dewall
+ */
+public class LargestTriangleThreeBucketsTest extends InstrumentationTestCase {
+
+    @Test
+    public void testSmallSeriesAreKept() throws Exception {
+        int[] indices = LargestTriangleThreeBuckets.downsample(
+                new double[]{0, 1, 2}, new double[]{5, 3, 4}, 10);
+        Assert.assertThat(indices.length, CoreMatchers.is(3));
+        Assert.assertThat(indices[2], CoreMatchers.is(2));
+    }
+
+    @Test
+    public void testDownsampling() throws Exception {
+        Random random = new Random(42);
+        int size = 20000;
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = i * 0.01;
+            y[i] = 50 + 30 * Math.sin(i / 500.0) + random.nextGaussian();
+        }
+        // a single spike that a plain bucket average would flatten.
+        y[12345] = 250;
+        y[4321] = -40;
+
+        int[] indices = LargestTriangleThreeBuckets.downsample(x, y, 500);
+        Assert.assertThat(indices.length, CoreMatchers.is(500));
+        Assert.assertThat(indices[0], CoreMatchers.is(0));
+        Assert.assertThat(indices[indices.length - 1], CoreMatchers.is(size - 1));
+
+        boolean hasMax = false;
+        boolean hasMin = false;
+        for (int i = 0; i < indices.length; i++) {
+            if (i > 0) {
+                Assert.assertTrue(indices[i] > indices[i - 1]);
+            }
+            hasMax |= indices[i] == 12345;
+            hasMin |= indices[i] == 4321;
+        }
+        Assert.assertTrue(hasMax);
+        Assert.assertTrue(hasMin);
+    }
+
+    @Test
+    public void testMinAndMaxInSameBucket() throws Exception {
+        int size = 1000;
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = i;
+            y[i] = 50;
+        }
+        // a drop right after a spike, e.g., a speed value dropping out.
+        y[500] = 120;
+        y[502] = 0;
+
+        int[] indices = LargestTriangleThreeBuckets.downsample(x, y, 10);
+        Assert.assertTrue(indices.length <= 10);
+        Assert.assertThat(indices[0], CoreMatchers.is(0));
+        Assert.assertThat(indices[indices.length - 1], CoreMatchers.is(size - 1));
+
+        boolean hasMax = false;
+        boolean hasMin = false;
+        for (int i = 0; i < indices.length; i++) {
+            if (i > 0) {
+                Assert.assertTrue(indices[i] > indices[i - 1]);
+            }
+            hasMax |= indices[i] == 500;
+            hasMin |= indices[i] == 502;
+        }
+        Assert.assertTrue(hasMax);
+        Assert.assertTrue(hasMin);
+    }
+}
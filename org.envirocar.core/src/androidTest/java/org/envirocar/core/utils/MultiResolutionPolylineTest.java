@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.utils;
+
+import android.test.InstrumentationTestCase;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * @author dewall
+ */
+public class MultiResolutionPolylineTest extends InstrumentationTestCase {
+
+    private static MultiResolutionPolyline createPolyline(int size) {
+        Random random = new Random(42);
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        double bearing = 90;
+        for (int i = 1; i < size; i++) {
+            bearing += random.nextGaussian() * 5;
+            latitudes[i] = latitudes[i - 1] + Math.cos(Math.toRadians(bearing)) * 0.0001;
+            longitudes[i] = longitudes[i - 1] + Math.sin(Math.toRadians(bearing)) * 0.00015;
+        }
+        for (int i = 0; i < size; i++) {
+            latitudes[i] += 51.96;
+            longitudes[i] += 7.62;
+        }
+        return new MultiResolutionPolyline(latitudes, longitudes);
+    }
+
+    @Test
+    public void testStraightLine() throws Exception {
+        MultiResolutionPolyline polyline = new MultiResolutionPolyline(
+                new double[]{51.0, 51.0, 51.0, 51.0}, new double[]{7.0, 7.1, 7.2, 7.3});
+
+        Assert.assertThat(polyline.simplify(0).length, CoreMatchers.is(2));
+        Assert.assertThat(polyline.simplify(0)[1], CoreMatchers.is(3));
+    }
+
+    @Test
+    public void testSimplificationsAreNested() throws Exception {
+        MultiResolutionPolyline polyline = createPolyline(5000);
+
+        int previous = 0;
+        for (int zoom = 4; zoom <= 18; zoom++) {
+            int[] indices = polyline.simplifyForZoom(zoom, 0.5);
+            Assert.assertThat(indices[0], CoreMatchers.is(0));
+            Assert.assertThat(indices[indices.length - 1], CoreMatchers.is(4999));
+            Assert.assertTrue(indices.length >= previous);
+            previous = indices.length;
+
+            double tolerance = MultiResolutionPolyline.toleranceForZoom(zoom, 0.5);
+            for (int index : polyline.simplifyForZoom(zoom - 1, 0.5)) {
+                Assert.assertTrue(polyline.getSignificance(index) > tolerance);
+            }
+        }
+        Assert.assertTrue(polyline.simplifyForZoom(10, 0.5).length < 500);
+    }
+
+    @Test
+    public void testReduction() throws Exception {
+        // the track sizes of the PolylineSimplificationBenchmark
+        for (int size : new int[]{1000, 10000, 50000}) {
+            MultiResolutionPolyline polyline = createPolyline(size);
+
+            Assert.assertTrue(polyline.simplifyForZoom(10, 0.5).length < size / 20);
+            Assert.assertTrue(polyline.simplifyForZoom(14, 0.5).length < size / 4);
+            Assert.assertTrue(polyline.simplifyForZoom(18, 0.5).length < size);
+        }
+    }
+
+    @Test
+    public void testDegenerateInput() throws Exception {
+        Assert.assertThat(new MultiResolutionPolyline(new double[0], new double[0])
+                .simplify(0).length, CoreMatchers.is(0));
+        Assert.assertThat(new MultiResolutionPolyline(new double[]{51.0}, new double[]{7.0})
+                .simplify(0).length, CoreMatchers.is(1));
+    }
+}
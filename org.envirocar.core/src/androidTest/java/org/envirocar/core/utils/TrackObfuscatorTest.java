@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.utils;
+
+import android.test.InstrumentationTestCase;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.core.exception.NoMeasurementsException;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+
+/**
+ * Compares the {@link TrackObfuscator} with the straightforward obfuscation that checks the
+ * exact distance of every measurement, on random tracks.
+ *
+ * @author dewall
+ */
+public class TrackObfuscatorTest extends InstrumentationTestCase {
+
+    private static final int TRACKS = 300;
+
+    @Test
+    public void testDefaultThresholdsMatchReference() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < TRACKS; i++) {
+            assertMatchesReference(TrackObfuscator.DEFAULT, createTrack(random));
+        }
+    }
+
+    @Test
+    public void testConfiguredThresholdsMatchReference() throws Exception {
+        Random random = new Random(7);
+        for (int i = 0; i < TRACKS; i++) {
+            TrackObfuscator obfuscator = new TrackObfuscator(
+                    random.nextInt(180) * 1000L, random.nextDouble() * 0.8);
+            assertMatchesReference(obfuscator, createTrack(random));
+        }
+    }
+
+    @Test
+    public void testRoundTripIsKept() throws Exception {
+        // a round trip ends where it started, its middle stays.
+        List<Measurement> track = new ArrayList<>();
+        for (int i = 0; i <= 600; i++) {
+            double angle = 2 * Math.PI * i / 600;
+            track.add(createMeasurement(51.0 + 0.01 * Math.sin(angle),
+                    7.0 + 0.01 * (1 - Math.cos(angle)), i * 1000L));
+        }
+
+        TrackObfuscator.Range range = TrackObfuscator.DEFAULT.getNonObfuscatedRange(
+                track, 0, 600 * 1000L);
+        Assert.assertThat(range.getFrom(), CoreMatchers.is(reference(TrackObfuscator.DEFAULT,
+                track, 0, 600 * 1000L)[0]));
+        Assert.assertThat(range.size() > 400, CoreMatchers.is(true));
+    }
+
+    @Test
+    public void testFullyObfuscatedTrack() throws Exception {
+        List<Measurement> track = new ArrayList<>();
+        track.add(createMeasurement(51.0, 7.0, 0));
+        track.add(createMeasurement(51.03, 7.03, 30000));
+        track.add(createMeasurement(51.0, 7.0, 60000));
+
+        Assert.assertNull(TrackObfuscator.DEFAULT.getNonObfuscatedRange(track, 0, 60000));
+        Assert.assertNull(TrackObfuscator.DEFAULT.getNonObfuscatedRange(
+                new ArrayList<>(), 0, 60000));
+    }
+
+    @Test
+    public void testStreamingMatchesRange() throws Exception {
+        Random random = new Random(11);
+        for (int i = 0; i < TRACKS; i++) {
+            List<Measurement> measurements = createTrack(random);
+            Measurement first = measurements.get(0);
+            Measurement last = measurements.get(measurements.size() - 1);
+            Track track = new TrackImpl();
+            track.setStartTime(first.getTime());
+            track.setEndTime(last.getTime());
+
+            TrackObfuscator.Range range = TrackObfuscator.DEFAULT.getNonObfuscatedRange(
+                    measurements, first.getTime(), last.getTime());
+            Single<Flowable<Measurement>> streamed = TrackUtils.getObfuscatedMeasurements(
+                    track, first, last, Flowable.fromIterable(measurements));
+            if (range == null) {
+                streamed.test().assertError(NoMeasurementsException.class);
+            } else {
+                Assert.assertThat(streamed.blockingGet().toList().blockingGet(), CoreMatchers.is(
+                        measurements.subList(range.getFrom(), range.getTo())));
+            }
+        }
+    }
+
+    private static void assertMatchesReference(TrackObfuscator obfuscator,
+                                               List<Measurement> track) {
+        long start = track.get(0).getTime();
+        long end = track.get(track.size() - 1).getTime();
+
+        int[] expected = reference(obfuscator, track, start, end);
+        TrackObfuscator.Range range = obfuscator.getNonObfuscatedRange(track, start, end);
+        if (expected == null) {
+            Assert.assertNull(range);
+        } else {
+            Assert.assertNotNull(range);
+            Assert.assertThat(range.getFrom(), CoreMatchers.is(expected[0]));
+            Assert.assertThat(range.getTo(), CoreMatchers.is(expected[1] + 1));
+        }
+    }
+
+    /**
+     * The obfuscation as it was done before: scanning from both ends with the exact distance.
+     */
+    private static int[] reference(TrackObfuscator obfuscator, List<Measurement> measurements,
+                                   long start, long end) {
+        Measurement first = measurements.get(0);
+        Measurement last = measurements.get(measurements.size() - 1);
+
+        int from = -1;
+        for (int i = 0; i < measurements.size() && from == -1; i++) {
+            if (!isObfuscated(obfuscator, measurements.get(i), start, end, first, last)) {
+                from = i;
+            }
+        }
+        int to = -1;
+        for (int i = measurements.size() - 1; i >= 0 && to == -1; i--) {
+            if (!isObfuscated(obfuscator, measurements.get(i), start, end, first, last)) {
+                to = i;
+            }
+        }
+        return from == -1 || to == -1 ? null : new int[]{from, to};
+    }
+
+    private static boolean isObfuscated(TrackObfuscator obfuscator, Measurement m, long start,
+                                        long end, Measurement first, Measurement last) {
+        return m.getTime() - start <= obfuscator.getTimeMillis()
+                || end - m.getTime() <= obfuscator.getTimeMillis()
+                || LocationUtils.getDistance(first, m) <= obfuscator.getDistanceKm()
+                || LocationUtils.getDistance(last, m) <= obfuscator.getDistanceKm();
+    }
+
+    /**
+     * A random walk with steps in the order of the obfuscation radius, which often returns close
+     * to its start, at latitudes from the equator to the polar circle.
+     */
+    private static List<Measurement> createTrack(Random random) {
+        int size = 2 + random.nextInt(400);
+        double latitude = random.nextDouble() * 132 - 66;
+        double longitude = random.nextDouble() * 360 - 180;
+        double step = 0.0002 + random.nextDouble() * 0.003;
+        long time = 1500000000000L;
+
+        List<Measurement> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(createMeasurement(latitude, longitude, time));
+            latitude += (random.nextDouble() - 0.5) * step;
+            longitude += (random.nextDouble() - 0.5) * step;
+            time += 500 + random.nextInt(5000);
+        }
+        return result;
+    }
+
+    private static Measurement createMeasurement(double latitude, double longitude, long time) {
+        Measurement measurement = new MeasurementImpl(latitude, longitude);
+        measurement.setTime(time);
+        return measurement;
+    }
+}
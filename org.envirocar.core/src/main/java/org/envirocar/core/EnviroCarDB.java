@@ -20,12 +20,14 @@ package org.envirocar.core;
 
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.UploadQueueEntry;
 import org.envirocar.core.exception.MeasurementSerializationException;
 import org.envirocar.core.exception.TrackSerializationException;
 import org.envirocar.core.util.TrackMetadata;
 
 import java.util.List;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 
 
@@ -71,6 +73,20 @@ public interface EnviroCarDB {
 
     void insertTrack(Track track) throws TrackSerializationException;
 
+    /**
+     * Inserts a track together with the given measurements instead of the ones held by the
+     * track. The measurements are written as they are iterated, so they can be decoded one at a
+     * time (e.g., while downloading the track). They are committed in batches and no transaction
+     * is open while the next measurement is read. If iterating fails, the partially inserted
+     * track is deleted again. The track itself is updated after the last measurement in case its
+     * properties have been completed in the meantime.
+     *
+     * @param track        the track to insert.
+     * @param measurements the measurements of the track.
+     */
+    void insertTrack(Track track, Iterable<Measurement> measurements) throws
+            TrackSerializationException;
+
     Observable<Track> insertTrackObservable(Track track);
 
     boolean updateTrack(Track track);
@@ -87,14 +103,113 @@ public interface EnviroCarDB {
 
     Observable<List<Track.TrackId>> deleteAllRemoteTracks();
 
+    /**
+     * Streams the measurements of a track ordered by time directly from the database. In contrast
+     * to fetching the track with its measurements, only the measurements that have been requested
+     * by the subscriber are held in memory. The underlying cursor is closed on completion or
+     * cancellation.
+     *
+     * @param trackId the id of the track.
+     * @return a flowable emitting the measurements of the track.
+     */
+    Flowable<Measurement> getMeasurements(Track.TrackId trackId);
+
+    /**
+     * @param trackId the id of the track.
+     * @return the earliest measurement of the track or null if the track has no measurements.
+     */
+    Measurement getFirstMeasurement(Track.TrackId trackId);
+
+    /**
+     * @param trackId the id of the track.
+     * @return the latest measurement of the track or null if the track has no measurements.
+     */
+    Measurement getLastMeasurement(Track.TrackId trackId);
+
+    /**
+     * Streams the measurements of all tracks within a bounding box. The lookup is served by a
+     * spatial index, so its cost depends on the number of measurements in the box and not on
+     * the number of stored measurements. A box with a minimum longitude greater than its maximum
+     * longitude crosses the antimeridian.
+     *
+     * @return a flowable emitting the measurements in no particular order.
+     */
+    Flowable<Measurement> getMeasurementsInArea(double minLatitude, double minLongitude,
+                                                double maxLatitude, double maxLongitude);
+
+    /**
+     * Returns the stored measurement nearest to a position.
+     *
+     * @param latitude    the latitude of the position.
+     * @param longitude   the longitude of the position.
+     * @param maxDistance the maximum distance of the measurement in km.
+     * @return the nearest measurement or null if there is none within the maximum distance.
+     */
+    Measurement getNearestMeasurement(double latitude, double longitude, double maxDistance);
+
+    /**
+     * Returns the tracks with at least one measurement within a bounding box. See
+     * {@link #getMeasurementsInArea(double, double, double, double)}.
+     *
+     * @param lazy indicates whether the measurements should be loaded or not.
+     * @return the tracks as observable.
+     */
+    Observable<List<Track>> getTracksInArea(double minLatitude, double minLongitude,
+                                            double maxLatitude, double maxLongitude,
+                                            boolean lazy);
+
     void insertMeasurement(Measurement measurement) throws MeasurementSerializationException;
 
+    /**
+     * Inserts a batch of measurements of a track and updates the track itself within a single
+     * transaction, i.e., observers of the database are only notified once per batch.
+     *
+     * @param track        the track the measurements belong to.
+     * @param measurements the measurements to insert.
+     */
+    void insertMeasurements(Track track, List<Measurement> measurements) throws
+            MeasurementSerializationException;
+
     void automaticDeleteMeasurements(long time, Track.TrackId trackId);
 
     Observable<Void> insertMeasurementObservable(Measurement measurement);
 
     void updateTrackRemoteID(Track track, String remoteID);
 
+    /**
+     * Adds a track to the upload queue. The checkpoint of a track that is already queued is
+     * kept, unless its upload has failed permanently. A track whose remote track has already
+     * been created is not uploaded again.
+     *
+     * @param trackId the id of the track to upload.
+     */
+    void enqueueUpload(Track.TrackId trackId);
+
+    /**
+     * @return the entries of the upload queue ordered by their next attempt.
+     */
+    List<UploadQueueEntry> getUploadQueue();
+
+    /**
+     * @param trackId the id of the track.
+     * @return the entry of the upload queue of the track or null if the track is not queued.
+     */
+    UploadQueueEntry getUploadQueueEntry(Track.TrackId trackId);
+
+    /**
+     * Stores the checkpoint of an upload.
+     *
+     * @param entry the entry of the upload queue.
+     */
+    void updateUploadQueueEntry(UploadQueueEntry entry);
+
+    /**
+     * Removes a track from the upload queue.
+     *
+     * @param trackId the id of the track.
+     */
+    void removeFromUploadQueue(Track.TrackId trackId);
+
     Observable<Void> updateTrackRemoteIDObservable(Track track, String remoteID);
 
     Observable<Track> fetchTracks(Observable<List<Track>> track, final boolean lazy);
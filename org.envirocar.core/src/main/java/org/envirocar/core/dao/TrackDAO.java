@@ -18,6 +18,7 @@
  */
 package org.envirocar.core.dao;
 
+import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.exception.DataCreationFailureException;
 import org.envirocar.core.exception.DataRetrievalFailureException;
@@ -29,6 +30,7 @@ import org.envirocar.core.exception.UnauthorizedException;
 import java.util.List;
 
 import io.reactivex.Observable;
+import io.reactivex.functions.BiConsumer;
 
 /**
  * TODO JavaDoc
@@ -42,6 +44,17 @@ public interface TrackDAO {
 
     Observable<Track> getTrackByIdObservable(String id);
 
+    /**
+     * Gets a track and hands it to the consumer together with its measurements. Implementations
+     * may decode the measurements one at a time while the consumer iterates over them, so they
+     * have to be consumed within the consumer and are not set on the track.
+     *
+     * @param id       the id of the track.
+     * @param consumer the consumer of the track and its measurements.
+     */
+    void getTrackById(String id, BiConsumer<Track, Iterable<Measurement>> consumer) throws
+            DataRetrievalFailureException, NotConnectedException, UnauthorizedException;
+
     List<Track> getTrackIds() throws DataRetrievalFailureException, NotConnectedException,
             UnauthorizedException;
 
@@ -65,6 +78,19 @@ public interface TrackDAO {
     Track createTrack(Track track) throws DataCreationFailureException, NotConnectedException,
             ResourceConflictException, UnauthorizedException;
 
+    /**
+     * Creates a track with the given measurements instead of the measurements set on the track.
+     * Implementations may iterate the measurements more than once, e.g. when a request is
+     * retried, so they are not required to be held in memory.
+     *
+     * @param track        the track to create.
+     * @param measurements the measurements of the track.
+     * @return the created track.
+     */
+    Track createTrack(Track track, Iterable<Measurement> measurements) throws
+            DataCreationFailureException, NotConnectedException, ResourceConflictException,
+            UnauthorizedException;
+
     Observable<Track> createTrackObservable(Track track);
 
     void deleteTrack(Track track) throws DataUpdateFailureException, NotConnectedException,
@@ -20,7 +20,9 @@ package org.envirocar.core.entity;
 
 import org.envirocar.core.R;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -36,7 +38,8 @@ public interface Measurement extends BaseEntity<Measurement> {
         int getUnitResource();
     }
 
-    // All measurement values
+    // All measurement values. The ordinal is persisted by the local storage, so new keys must only
+    // be appended.
     enum PropertyKey implements PropertyKeyExtension {
         SPEED {
             @Override
@@ -337,10 +340,39 @@ public interface Measurement extends BaseEntity<Measurement> {
             }
         };
 
+        private static final PropertyKey[] VALUES = values();
+
+        static {
+            if (VALUES.length > Long.SIZE) {
+                throw new IllegalStateException("Property masks only support up to 64 keys.");
+            }
+        }
+
         @Override
         public int getUnitResource() {
             return -1;
         }
+
+        /**
+         * @return the bit of this key in a property mask.
+         */
+        public long getMask() {
+            return 1L << ordinal();
+        }
+
+        /**
+         * Returns the keys contained in the given property mask in ordinal order.
+         *
+         * @param mask the property mask.
+         * @return the keys of the mask.
+         */
+        public static List<PropertyKey> fromMask(long mask) {
+            List<PropertyKey> result = new ArrayList<>(Long.bitCount(mask));
+            for (; mask != 0L; mask &= mask - 1) {
+                result.add(VALUES[Long.numberOfTrailingZeros(mask)]);
+            }
+            return result;
+        }
     }
 
     Map<String, PropertyKey> PropertyKeyValues = new HashMap<String,
@@ -374,6 +406,12 @@ public interface Measurement extends BaseEntity<Measurement> {
 
     boolean hasProperty(PropertyKey key);
 
+    /**
+     * @return the mask of all keys this measurement has a value for, see
+     * {@link PropertyKey#getMask()}.
+     */
+    long getPropertyMask();
+
     Map<PropertyKey, Double> getAllProperties();
 
     void setAllProperties(Map<PropertyKey, Double> properties);
@@ -0,0 +1,330 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar buffer of the measurements of a track. Coordinates, times and property masks are held
+ * in one primitive array each, and the values of every key in a column that is only allocated
+ * once the key occurs. Compared to a list of {@link MeasurementImpl}, this requires no object per
+ * measurement.
+ * <p>
+ * The rows are accessed through a {@link Row}, a flyweight {@link Measurement} that can be moved
+ * from one row to another. Writes through a row modify the buffer. The buffer is not thread-safe.
+ *
+ * @author dewall
+ */
+public class MeasurementBuffer {
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Track.TrackId trackId;
+    private int size;
+    private double[] latitudes;
+    private double[] longitudes;
+    private long[] times;
+    private long[] masks;
+    private final double[][] columns = new double[KEYS.length][];
+
+    /**
+     * Constructor.
+     */
+    public MeasurementBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the initial number of rows.
+     */
+    public MeasurementBuffer(int capacity) {
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        times = new long[capacity];
+        masks = new long[capacity];
+    }
+
+    /**
+     * Copies the given measurements into a new buffer.
+     *
+     * @param measurements the measurements to copy.
+     * @return the buffer.
+     */
+    public static MeasurementBuffer of(List<Measurement> measurements) {
+        MeasurementBuffer buffer = new MeasurementBuffer(measurements.size());
+        if (!measurements.isEmpty()) {
+            buffer.trackId = measurements.get(0).getTrackId();
+        }
+        for (int i = 0, size = measurements.size(); i < size; i++) {
+            buffer.add(measurements.get(i));
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the track id shared by all rows of this buffer.
+     */
+    public Track.TrackId getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(Track.TrackId trackId) {
+        this.trackId = trackId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a copy of the given measurement. Its track id is not copied, the rows share the
+     * track id of the buffer.
+     *
+     * @param measurement the measurement to append.
+     * @return the index of the new row.
+     */
+    public int add(Measurement measurement) {
+        int index = addRow();
+        latitudes[index] = toPrimitive(measurement.getLatitude());
+        longitudes[index] = toPrimitive(measurement.getLongitude());
+        times[index] = measurement.getTime();
+
+        long mask = measurement.getPropertyMask();
+        if (measurement instanceof MeasurementImpl) {
+            double[] values = ((MeasurementImpl) measurement).values;
+            for (long remaining = mask; remaining != 0L; remaining &= remaining - 1) {
+                int ordinal = Long.numberOfTrailingZeros(remaining);
+                column(ordinal)[index] = values[ordinal];
+            }
+        } else {
+            for (long remaining = mask; remaining != 0L; remaining &= remaining - 1) {
+                int ordinal = Long.numberOfTrailingZeros(remaining);
+                column(ordinal)[index] = measurement.getProperty(KEYS[ordinal]);
+            }
+        }
+        masks[index] = mask;
+        return index;
+    }
+
+    /**
+     * Creates a flyweight positioned at the given row.
+     *
+     * @param index the index of the row.
+     * @return the flyweight.
+     */
+    public Row row(int index) {
+        return new Row().moveTo(index);
+    }
+
+    /**
+     * @return an unmodifiable list view of the rows. Every call of {@link List#get(int)} creates
+     * a new flyweight, use {@link Row#moveTo(int)} to iterate without allocations.
+     */
+    public List<Measurement> asList() {
+        return new AbstractList<Measurement>() {
+            @Override
+            public Measurement get(int index) {
+                return row(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int addRow() {
+        if (size == times.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            times = Arrays.copyOf(times, capacity);
+            masks = Arrays.copyOf(masks, capacity);
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != null) {
+                    columns[i] = Arrays.copyOf(columns[i], capacity);
+                }
+            }
+        }
+        return size++;
+    }
+
+    private double[] column(int ordinal) {
+        double[] column = columns[ordinal];
+        if (column == null) {
+            column = new double[times.length];
+            columns[ordinal] = column;
+        }
+        return column;
+    }
+
+    private static double toPrimitive(Double value) {
+        // missing coordinates are stored as NaN.
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Double toObject(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    /**
+     * Flyweight {@link Measurement} that reads and writes one row of the buffer.
+     */
+    public final class Row implements Measurement {
+        private int index;
+
+        private Row() {
+        }
+
+        /**
+         * Positions this flyweight at another row.
+         *
+         * @param index the index of the row.
+         * @return this flyweight.
+         */
+        public Row moveTo(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            this.index = index;
+            return this;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public Track.TrackId getTrackId() {
+            return trackId;
+        }
+
+        /**
+         * Sets the track id of the buffer and, therefore, of all rows.
+         */
+        @Override
+        public void setTrackId(Track.TrackId trackId) {
+            MeasurementBuffer.this.trackId = trackId;
+        }
+
+        @Override
+        public Double getLatitude() {
+            return toObject(latitudes[index]);
+        }
+
+        @Override
+        public void setLatitude(double latitude) {
+            latitudes[index] = latitude;
+        }
+
+        @Override
+        public Double getLongitude() {
+            return toObject(longitudes[index]);
+        }
+
+        @Override
+        public void setLongitude(double longitude) {
+            longitudes[index] = longitude;
+        }
+
+        @Override
+        public long getTime() {
+            return times[index];
+        }
+
+        @Override
+        public void setTime(long time) {
+            times[index] = time;
+        }
+
+        @Override
+        public Double getProperty(PropertyKey key) {
+            return (masks[index] & key.getMask()) != 0 ? columns[key.ordinal()][index] : null;
+        }
+
+        @Override
+        public void setProperty(PropertyKey key, Double value) {
+            if (value != null) {
+                column(key.ordinal())[index] = value;
+                masks[index] |= key.getMask();
+            }
+        }
+
+        @Override
+        public boolean hasProperty(PropertyKey key) {
+            return (masks[index] & key.getMask()) != 0;
+        }
+
+        @Override
+        public long getPropertyMask() {
+            return masks[index];
+        }
+
+        /**
+         * @return an unmodifiable view of the properties of the row this flyweight is positioned
+         * at when the view is read.
+         */
+        @Override
+        public Map<PropertyKey, Double> getAllProperties() {
+            return new PropertyMapView(this);
+        }
+
+        @Override
+        public void setAllProperties(Map<PropertyKey, Double> properties) {
+            // the given map may be a view of this row, so it is read completely first.
+            MeasurementImpl copy = new MeasurementImpl();
+            copy.setAllProperties(properties);
+            masks[index] = 0L;
+            for (long remaining = copy.propertyMask; remaining != 0L; remaining &= remaining - 1) {
+                int ordinal = Long.numberOfTrailingZeros(remaining);
+                setProperty(KEYS[ordinal], copy.values[ordinal]);
+            }
+        }
+
+        /**
+         * @return a {@link MeasurementImpl} holding the values of the current row.
+         */
+        @Override
+        public Measurement carbonCopy() {
+            MeasurementImpl res = new MeasurementImpl();
+            res.trackId = trackId;
+            res.latitude = getLatitude();
+            res.longitude = getLongitude();
+            res.time = times[index];
+            for (long remaining = masks[index]; remaining != 0L; remaining &= remaining - 1) {
+                int ordinal = Long.numberOfTrailingZeros(remaining);
+                res.setProperty(KEYS[ordinal], columns[ordinal][index]);
+            }
+            return res;
+        }
+
+        @Override
+        public void reset() {
+            latitudes[index] = Double.NaN;
+            longitudes[index] = Double.NaN;
+            masks[index] = 0L;
+        }
+    }
+}
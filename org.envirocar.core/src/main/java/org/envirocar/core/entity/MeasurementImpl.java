@@ -18,20 +18,26 @@
  */
 package org.envirocar.core.entity;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * TODO JavaDoc
+ * <p>
+ * The property values are stored unboxed in an array indexed by the ordinal of their key. The
+ * property mask denotes which of the entries are set.
  *
  * @author dewall
  */
 public class MeasurementImpl implements Measurement {
+    private static final int KEY_COUNT = PropertyKey.values().length;
+
     protected Track.TrackId trackId;
     protected Double latitude;
     protected Double longitude;
     protected long time;
-    protected Map<Measurement.PropertyKey, Double> propertyMap = new HashMap<>();
+    // allocated with the first property value.
+    protected double[] values;
+    protected long propertyMask;
 
     /**
      * Constructor.
@@ -93,40 +99,61 @@ public class MeasurementImpl implements Measurement {
 
     @Override
     public Double getProperty(PropertyKey key) {
-        return propertyMap.get(key);
+        return (propertyMask & key.getMask()) != 0 ? values[key.ordinal()] : null;
     }
 
     @Override
     public void setProperty(PropertyKey key, Double value) {
         if (value != null) {
-            propertyMap.put(key, value);
+            if (values == null) {
+                values = new double[KEY_COUNT];
+            }
+            values[key.ordinal()] = value;
+            propertyMask |= key.getMask();
         }
     }
 
     @Override
     public boolean hasProperty(PropertyKey key) {
-        return propertyMap.containsKey(key);
+        return (propertyMask & key.getMask()) != 0;
     }
 
+    @Override
+    public long getPropertyMask() {
+        return propertyMask;
+    }
+
+    /**
+     * @return an unmodifiable view of the properties. Use {@link #setProperty(PropertyKey,
+     * Double)} to modify them.
+     */
     @Override
     public Map<PropertyKey, Double> getAllProperties() {
-        return propertyMap;
+        return new PropertyMapView(this);
     }
 
     @Override
     public void setAllProperties(Map<PropertyKey, Double> properties) {
-        this.propertyMap = properties;
+        // the given map may be a view of this measurement, so it is read completely first.
+        double[] newValues = new double[KEY_COUNT];
+        long newMask = 0L;
+        for (Map.Entry<PropertyKey, Double> entry : properties.entrySet()) {
+            if (entry.getValue() != null) {
+                newValues[entry.getKey().ordinal()] = entry.getValue();
+                newMask |= entry.getKey().getMask();
+            }
+        }
+        this.values = newValues;
+        this.propertyMask = newMask;
     }
 
     @Override
     public Measurement carbonCopy() {
-        Measurement res = new MeasurementImpl();
-        res.setLongitude(longitude);
-        res.setLatitude(latitude);
-
-        for (Map.Entry<PropertyKey, Double> entry : propertyMap.entrySet()) {
-            res.setProperty(entry.getKey(), entry.getValue());
-        }
+        MeasurementImpl res = new MeasurementImpl();
+        res.longitude = longitude;
+        res.latitude = latitude;
+        res.values = values != null ? values.clone() : null;
+        res.propertyMask = propertyMask;
 
         res.setTrackId(trackId);
         res.setTime(time);
@@ -139,7 +166,7 @@ public class MeasurementImpl implements Measurement {
         longitude = null;
 
         synchronized (this) {
-            propertyMap.clear();
+            propertyMask = 0L;
         }
     }
 }
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Unmodifiable {@link Map} view of the properties of a {@link Measurement}. Lookups are answered
+ * by the measurement itself and the entries are iterated in ordinal order of the keys set in its
+ * property mask, so no map has to be maintained next to the values.
+ *
+ * @author dewall
+ */
+class PropertyMapView extends AbstractMap<Measurement.PropertyKey, Double> {
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+
+    private final Measurement measurement;
+    private Set<Entry<Measurement.PropertyKey, Double>> entrySet;
+
+    /**
+     * Constructor.
+     *
+     * @param measurement the measurement to view the properties of.
+     */
+    PropertyMapView(Measurement measurement) {
+        this.measurement = measurement;
+    }
+
+    @Override
+    public int size() {
+        return Long.bitCount(measurement.getPropertyMask());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return measurement.getPropertyMask() == 0L;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Measurement.PropertyKey
+                && measurement.hasProperty((Measurement.PropertyKey) key);
+    }
+
+    @Override
+    public Double get(Object key) {
+        return key instanceof Measurement.PropertyKey
+                ? measurement.getProperty((Measurement.PropertyKey) key) : null;
+    }
+
+    @Override
+    public Set<Entry<Measurement.PropertyKey, Double>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<Measurement.PropertyKey, Double>>() {
+                @Override
+                public Iterator<Entry<Measurement.PropertyKey, Double>> iterator() {
+                    return new EntryIterator(measurement.getPropertyMask());
+                }
+
+                @Override
+                public int size() {
+                    return PropertyMapView.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<Measurement.PropertyKey, Double>> {
+        private long remaining;
+
+        private EntryIterator(long mask) {
+            this.remaining = mask;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining != 0L;
+        }
+
+        @Override
+        public Entry<Measurement.PropertyKey, Double> next() {
+            if (remaining == 0L) {
+                throw new NoSuchElementException();
+            }
+            Measurement.PropertyKey key = KEYS[Long.numberOfTrailingZeros(remaining)];
+            remaining &= remaining - 1;
+            return new SimpleImmutableEntry<>(key, measurement.getProperty(key));
+        }
+    }
+}
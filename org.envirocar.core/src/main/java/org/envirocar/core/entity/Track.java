@@ -138,6 +138,20 @@ public interface Track extends BaseEntity<Track>, Comparable<Track> {
 
     List<Measurement.PropertyKey> getSupportedProperties();
 
+    /**
+     * @return the mask of all keys any measurement of this track has a value for, see
+     * {@link Measurement.PropertyKey#getMask()}.
+     */
+    long getPropertyMask();
+
+    /**
+     * @return the precomputed summary of the measurements or null if the track has been loaded
+     * without one.
+     */
+    TrackSummary getSummary();
+
+    void setSummary(TrackSummary summary);
+
     String getRemoteID();
 
     void setRemoteID(String remoteID);
@@ -22,6 +22,7 @@ import org.envirocar.core.exception.FuelConsumptionException;
 import org.envirocar.core.exception.NoMeasurementsException;
 import org.envirocar.core.exception.UnsupportedFuelTypeException;
 import org.envirocar.core.logging.Logger;
+import org.envirocar.core.trackprocessing.statistics.TrackStatistics;
 import org.envirocar.core.trackprocessing.statistics.TrackStatisticsProcessor;
 import org.envirocar.core.trackprocessing.statistics.TrackStatisticsProvider;
 import org.envirocar.core.util.TrackMetadata;
@@ -50,14 +51,15 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
     protected Track.TrackStatus trackStatus = Track.TrackStatus.ONGOING;
     protected List<Measurement> measurements = new ArrayList<Measurement>();
     protected DownloadState downloadState;
+    protected TrackSummary summary;
 
     protected boolean isLazyLoadingMeasurements = false;
 
-    protected Double distanceOfTrack;
-    protected Double consumptionPerHour;
-    protected Double co2Average;
-    protected Double literPerHundredKm;
-    protected Double gramsPerKm;
+    protected TrackStatistics statistics;
+
+    protected long propertyMask;
+    // number of measurements already contained in the property mask.
+    protected int propertyMaskCount;
 
     /**
      * Default constructor with downloaded state.
@@ -97,7 +99,7 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
 
     @Override
     public boolean isLazyLoadingMeasurements() {
-        return false;
+        return isLazyLoadingMeasurements;
     }
 
     @Override
@@ -107,7 +109,7 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
 
     @Override
     public Track carbonCopy() {
-        Track track = new TrackImpl(downloadState);
+        TrackImpl track = new TrackImpl(downloadState);
         track.setTrackID(trackID);
         track.setRemoteID(remoteID);
         track.setName(name);
@@ -118,8 +120,12 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
         track.setMetadata(metadata);
         track.setTrackStatus(trackStatus);
         track.setMeasurements(new ArrayList<>(measurements));
+        track.propertyMask = propertyMask;
+        track.propertyMaskCount = propertyMaskCount;
         track.setLazyMeasurements(isLazyLoadingMeasurements);
         track.setLength(length);
+        track.setSummary(summary);
+        track.setStatistics(statistics != null ? statistics.copy() : null);
         return track;
     }
 
@@ -171,7 +177,8 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
     @Override
     public void setCar(Car car) {
         this.car = car;
-        this.STATISTICS_PROCESSOR = new TrackStatisticsProcessor(car.getFuelType());
+        this.STATISTICS_PROCESSOR = car != null ? new TrackStatisticsProcessor(car.getFuelType()) : null;
+        this.statistics = null;
     }
 
     @Override
@@ -296,28 +303,56 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
         //        Preconditions.checkState(measurements != null && measurements.size() > 0, "A
         // track is not" +
         //                " allowed to have empty measuremnts");
+        // the statistics only follow appends to the list they have been computed from.
+        if (measurements != this.measurements) {
+            this.statistics = null;
+        }
         this.measurements = measurements;
+        this.propertyMask = 0L;
+        this.propertyMaskCount = 0;
     }
 
     @Override
     public boolean hasProperty(Measurement.PropertyKey propertyKey) {
-        for (Measurement m : measurements) {
-            if (m.hasProperty(propertyKey)) {
-                return true;
-            }
-        }
-        return false;
+        return (getPropertyMask() & propertyKey.getMask()) != 0;
     }
 
     @Override
     public List<Measurement.PropertyKey> getSupportedProperties() {
-        List<Measurement.PropertyKey> result = new ArrayList<>();
-        for (Measurement.PropertyKey key : Measurement.PropertyKey.values()) {
-            if (hasProperty(key)) {
-                result.add(key);
-            }
+        return Measurement.PropertyKey.fromMask(getPropertyMask());
+    }
+
+    /**
+     * Returns the property mask of the measurements of this track. Measurements that have been
+     * appended since the last call are added incrementally. If the measurements have not been
+     * loaded, the mask of the persisted summary is returned.
+     *
+     * @return the property mask of this track.
+     */
+    @Override
+    public long getPropertyMask() {
+        int size = measurements.size();
+        if (size == 0 && summary != null) {
+            return summary.getPropertyMask();
         }
-        return result;
+        if (propertyMaskCount > size) {
+            propertyMask = 0L;
+            propertyMaskCount = 0;
+        }
+        for (; propertyMaskCount < size; propertyMaskCount++) {
+            propertyMask |= measurements.get(propertyMaskCount).getPropertyMask();
+        }
+        return propertyMask;
+    }
+
+    @Override
+    public TrackSummary getSummary() {
+        return summary;
+    }
+
+    @Override
+    public void setSummary(TrackSummary summary) {
+        this.summary = summary;
     }
 
     @Override
@@ -405,47 +440,73 @@ public class TrackImpl implements Track, TrackStatisticsProvider {
     }
 
 
+    /**
+     * Returns the statistics of the measurements of this track. Measurements that have been
+     * appended since the last call are added incrementally, so the list of measurements must only
+     * be appended to. A list that is modified otherwise has to be passed to
+     * {@link #setMeasurements(List)} again, which discards the statistics.
+     *
+     * @return the statistics of this track.
+     */
     @Override
-    public double getDistanceOfTrack() {
-        if ((distanceOfTrack == null || distanceOfTrack == 0.0) && STATISTICS_PROCESSOR != null) {
-            distanceOfTrack = STATISTICS_PROCESSOR.computeDistanceOfTrack(getMeasurements());
+    public TrackStatistics getStatistics() {
+        int size = measurements.size();
+        if (statistics == null || (size > 0 && statistics.getCount() > size)) {
+            statistics = new TrackStatistics(car != null ? car.getFuelType() : null);
         }
-        return distanceOfTrack;
+        for (int i = (int) statistics.getCount(); i < size; i++) {
+            statistics.add(measurements.get(i));
+        }
+        return statistics;
+    }
+
+    /**
+     * Sets previously computed statistics, e.g., persisted for a track whose measurements are
+     * loaded lazily.
+     *
+     * @param statistics the statistics of this track.
+     */
+    public void setStatistics(TrackStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return true if the statistics have been set or computed, false if they have to be
+     * computed from the measurements.
+     */
+    public boolean hasStatistics() {
+        return statistics != null;
+    }
+
+    @Override
+    public double getDistanceOfTrack() {
+        return getStatistics().getDistance();
     }
 
     @Override
     public double getFuelConsumptionPerHour() throws FuelConsumptionException {
-        if (consumptionPerHour == null) {
-            consumptionPerHour = STATISTICS_PROCESSOR.getFuelConsumptionPerHour(getMeasurements());
+        if (STATISTICS_PROCESSOR == null) {
+            throw new FuelConsumptionException("No car assigned to the track");
         }
-        return consumptionPerHour;
+        return STATISTICS_PROCESSOR.getFuelConsumptionPerHour(getStatistics());
     }
 
     @Override
     public double getCO2Average() throws FuelConsumptionException {
-        if (co2Average == null) {
-            co2Average = STATISTICS_PROCESSOR.getCO2Average(getMeasurements());
-        }
-        return co2Average;
+        return getStatistics().getCO2Average();
     }
 
     @Override
     public double getLiterPerHundredKm() throws
             FuelConsumptionException, NoMeasurementsException {
-        if (literPerHundredKm == null) {
-            literPerHundredKm = STATISTICS_PROCESSOR.getLiterPerHundredKm(
-                    getFuelConsumptionPerHour(), getDuration(), getDistanceOfTrack());
-        }
-        return literPerHundredKm;
+        return STATISTICS_PROCESSOR.getLiterPerHundredKm(
+                getFuelConsumptionPerHour(), getDuration(), getDistanceOfTrack());
     }
 
     @Override
     public double getGramsPerKm() throws FuelConsumptionException, NoMeasurementsException,
             UnsupportedFuelTypeException {
-        if (gramsPerKm == null) {
-            gramsPerKm = STATISTICS_PROCESSOR.getGramsPerKm(getLiterPerHundredKm(), getCar().getFuelType());
-        }
-        return gramsPerKm;
+        return STATISTICS_PROCESSOR.getGramsPerKm(getLiterPerHundredKm(), getCar().getFuelType());
     }
 
 }
@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+import org.envirocar.core.utils.Geodesic;
+
+import java.util.Map;
+
+/**
+ * Precomputed aggregates of the measurements of a track. A summary is updated measurement by
+ * measurement and allows to show a track (e.g., in the track list) without loading its
+ * measurements.
+ *
+ * @author dewall
+ */
+public class TrackSummary {
+
+    private long firstTime;
+    private long lastTime;
+    private int measurementCount;
+    private double distance;
+
+    private double minLatitude;
+    private double maxLatitude;
+    private double minLongitude;
+    private double maxLongitude;
+    private double lastLatitude;
+    private double lastLongitude;
+
+    private long propertyMask;
+
+    /**
+     * Adds a measurement to the summary. Measurements have to be added ordered by time.
+     *
+     * @param measurement the measurement to add.
+     */
+    public void add(Measurement measurement) {
+        double latitude = measurement.getLatitude();
+        double longitude = measurement.getLongitude();
+
+        if (measurementCount == 0) {
+            firstTime = measurement.getTime();
+            minLatitude = maxLatitude = latitude;
+            minLongitude = maxLongitude = longitude;
+        } else {
+            distance += Geodesic.haversine(lastLatitude, lastLongitude, latitude, longitude);
+            minLatitude = Math.min(minLatitude, latitude);
+            maxLatitude = Math.max(maxLatitude, latitude);
+            minLongitude = Math.min(minLongitude, longitude);
+            maxLongitude = Math.max(maxLongitude, longitude);
+        }
+
+        lastTime = measurement.getTime();
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+        measurementCount++;
+
+        for (Map.Entry<Measurement.PropertyKey, Double> entry : measurement.getAllProperties().entrySet()) {
+            double value = entry.getValue();
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                // non-finite values are not persisted.
+                continue;
+            }
+
+            propertyMask |= entry.getKey().getMask();
+        }
+    }
+
+    public boolean isEmpty() {
+        return measurementCount == 0;
+    }
+
+    public boolean hasProperty(Measurement.PropertyKey key) {
+        return (propertyMask & key.getMask()) != 0;
+    }
+
+    public long getFirstTime() {
+        return firstTime;
+    }
+
+    public void setFirstTime(long firstTime) {
+        this.firstTime = firstTime;
+    }
+
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    public void setLastTime(long lastTime) {
+        this.lastTime = lastTime;
+    }
+
+    public int getMeasurementCount() {
+        return measurementCount;
+    }
+
+    public void setMeasurementCount(int measurementCount) {
+        this.measurementCount = measurementCount;
+    }
+
+    /**
+     * @return the distance in km.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(double distance) {
+        this.distance = distance;
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public void setMinLatitude(double minLatitude) {
+        this.minLatitude = minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public void setMaxLatitude(double maxLatitude) {
+        this.maxLatitude = maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public void setMinLongitude(double minLongitude) {
+        this.minLongitude = minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    public void setMaxLongitude(double maxLongitude) {
+        this.maxLongitude = maxLongitude;
+    }
+
+    public double getLastLatitude() {
+        return lastLatitude;
+    }
+
+    public void setLastLatitude(double lastLatitude) {
+        this.lastLatitude = lastLatitude;
+    }
+
+    public double getLastLongitude() {
+        return lastLongitude;
+    }
+
+    public void setLastLongitude(double lastLongitude) {
+        this.lastLongitude = lastLongitude;
+    }
+
+    public long getPropertyMask() {
+        return propertyMask;
+    }
+
+    public void setPropertyMask(long propertyMask) {
+        this.propertyMask = propertyMask;
+    }
+}
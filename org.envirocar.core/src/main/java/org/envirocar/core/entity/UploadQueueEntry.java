@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.entity;
+
+/**
+ * Entry of the persistent track upload queue. It records how far the upload of a track has
+ * progressed, so that an interrupted upload continues at its last checkpoint instead of starting
+ * all over again.
+ *
+ * @author dewall
+ */
+public class UploadQueueEntry {
+
+    public enum State {
+        /**
+         * The track waits for its upload.
+         */
+        PENDING,
+        /**
+         * The remote track has been created, only the local track has to be updated.
+         */
+        UPLOADED,
+        /**
+         * The upload failed permanently and is not retried until the track is enqueued again.
+         */
+        FAILED,
+        /**
+         * The remote track has been created, but the local track could not be updated. The
+         * track is never uploaded again, only the update is retried once it is enqueued again.
+         */
+        FAILED_AFTER_UPLOAD
+    }
+
+    private final Track.TrackId trackId;
+    private State state = State.PENDING;
+    private String remoteId;
+    private int attempts;
+    private long nextAttempt;
+    private String error;
+
+    /**
+     * Constructor.
+     *
+     * @param trackId the id of the queued track.
+     */
+    public UploadQueueEntry(Track.TrackId trackId) {
+        this.trackId = trackId;
+    }
+
+    public Track.TrackId getTrackId() {
+        return trackId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    /**
+     * @return true if the upload has failed permanently and is not processed anymore.
+     */
+    public boolean isFailed() {
+        return state == State.FAILED || state == State.FAILED_AFTER_UPLOAD;
+    }
+
+    /**
+     * @return the id of the remote track once the entry has been {@link State#UPLOADED}.
+     */
+    public String getRemoteId() {
+        return remoteId;
+    }
+
+    public void setRemoteId(String remoteId) {
+        this.remoteId = remoteId;
+    }
+
+    /**
+     * @return the number of failed attempts.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return the time in milliseconds before which the upload is not attempted again.
+     */
+    public long getNextAttempt() {
+        return nextAttempt;
+    }
+
+    public void setNextAttempt(long nextAttempt) {
+        this.nextAttempt = nextAttempt;
+    }
+
+    /**
+     * @return the message of the last failed attempt.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -33,6 +33,7 @@ import javax.annotation.Nonnull;
 public class ACRACustomSender implements ReportSender {
 
 	private static final Logger logger = Logger.getLogger(ACRACustomSender.class);
+	private static final long FLUSH_TIMEOUT_MILLIS = 2000;
 	
     public ACRACustomSender(){
     }
@@ -46,6 +47,8 @@ public class ACRACustomSender implements ReportSender {
         }
     	logger.severe(report.toString());
     	logger.severe("[END OF ACRA REPORT]");
+    	// the process is about to die, write the report before the log writer is gone.
+    	Logger.flush(FLUSH_TIMEOUT_MILLIS);
     }
     
 }
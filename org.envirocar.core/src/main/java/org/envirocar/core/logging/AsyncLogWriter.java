@@ -0,0 +1,249 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.logging;
+
+import android.util.Log;
+
+import org.envirocar.core.util.Util;
+
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands log messages from the logging threads to a single background writer. Messages are
+ * stored in a preallocated ring buffer and only formatted on the writer thread, so logging costs
+ * the caller a few field writes. Logging never blocks: if the buffer is full, the message is
+ * dropped and counted, and the writer reports the number of dropped messages once it caught up.
+ *
+ * @author dewall
+ */
+class AsyncLogWriter implements Runnable {
+
+    private static final long IDLE_PARK_NANOS = 50_000_000L;
+
+    /**
+     * A slot of the ring buffer.
+     */
+    private static final class Entry {
+        int level;
+        long time;
+        long threadId;
+        String name;
+        String message;
+        Object[] args;
+        Throwable throwable;
+
+        void clear() {
+            name = null;
+            message = null;
+            args = null;
+            throwable = null;
+        }
+    }
+
+    private final List<Handler> handlers;
+    private final Entry[] entries;
+    // sequence number per slot, see Vyukov's bounded MPMC queue.
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final AtomicLong dropped = new AtomicLong();
+    private long reportedDropped;
+
+    private final Thread writer;
+    private volatile boolean idle;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the number of messages that can be buffered, a power of two.
+     * @param handlers the handlers the messages are written to.
+     */
+    AsyncLogWriter(int capacity, List<Handler> handlers) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity has to be a power of two");
+        }
+        this.handlers = handlers;
+        this.entries = new Entry[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+
+        this.writer = new Thread(this, "enviroCar-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.setPriority(Thread.MIN_PRIORITY);
+        this.writer.start();
+    }
+
+    /**
+     * Enqueues a message without blocking.
+     *
+     * @return false if the buffer was full and the message has been dropped.
+     */
+    boolean enqueue(int level, String name, String message, Object[] args, Throwable throwable) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        Entry entry = entries[index];
+        entry.level = level;
+        entry.time = System.currentTimeMillis();
+        entry.threadId = Thread.currentThread().getId();
+        entry.name = name;
+        entry.message = message;
+        entry.args = args;
+        entry.throwable = throwable;
+        sequences.set(index, position + 1);
+
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of messages that have been dropped since the start.
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Waits until all messages enqueued before this call have been written.
+     *
+     * @param timeoutMillis the maximum time to wait.
+     * @return true if the messages have been written within the timeout.
+     */
+    boolean flush(long timeoutMillis) {
+        if (Thread.currentThread() == writer) {
+            return false;
+        }
+        long target = tail.get();
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (head < target) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(1_000_000L);
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        long position = head;
+        while (true) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                reportDropped();
+                idle = true;
+                // recheck after announcing the idle state, a producer might have missed it.
+                if (sequences.get(index) != position + 1) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+                continue;
+            }
+
+            Entry entry = entries[index];
+            int level = entry.level;
+            long time = entry.time;
+            long threadId = entry.threadId;
+            String name = entry.name;
+            String message = entry.message;
+            Object[] args = entry.args;
+            Throwable throwable = entry.throwable;
+            entry.clear();
+            sequences.lazySet(index, position + entries.length);
+            head = ++position;
+
+            write(level, time, threadId, format(name, message, args, throwable));
+        }
+    }
+
+    private void reportDropped() {
+        long count = dropped.get();
+        if (count > reportedDropped) {
+            write(Logger.WARNING, System.currentTimeMillis(), writer.getId(),
+                    String.format("[%s] %d log messages dropped because the log buffer was full",
+                            Logger.class.getName(), count - reportedDropped));
+            reportedDropped = count;
+        }
+    }
+
+    private void write(int level, long time, long threadId, String message) {
+        for (Handler handler : handlers) {
+            try {
+                handler.logMessage(level, message, time, threadId);
+            } catch (RuntimeException e) {
+                Log.e(AndroidHandler.DEFAULT_TAG, e.getMessage(), e);
+            }
+        }
+    }
+
+    private static String format(String name, String message, Object[] args,
+                                 Throwable throwable) {
+        if (args != null && args.length > 0) {
+            try {
+                message = String.format(message, args);
+            } catch (IllegalFormatException e) {
+                StringBuilder sb = new StringBuilder(String.valueOf(message));
+                for (Object arg : args) {
+                    sb.append(" ").append(arg);
+                }
+                message = sb.toString();
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        sb.append(name);
+        sb.append("] ");
+        sb.append(message);
+        if (throwable != null) {
+            sb.append(":");
+            sb.append(Util.NEW_LINE_CHAR);
+            sb.append(Logger.convertExceptionToString(throwable));
+        }
+        return sb.toString();
+    }
+}
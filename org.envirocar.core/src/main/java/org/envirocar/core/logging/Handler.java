@@ -22,6 +22,18 @@ public interface Handler {
 
 	void logMessage(int level, String string);
 
+	/**
+	 * Logs a message on behalf of another thread.
+	 *
+	 * @param level    the log level
+	 * @param string   the formatted message
+	 * @param time     the time the message was logged at
+	 * @param threadId the id of the thread that logged the message
+	 */
+	default void logMessage(int level, String string, long time, long threadId) {
+		logMessage(level, string);
+	}
+
 	void initializeComplete();
 
 }
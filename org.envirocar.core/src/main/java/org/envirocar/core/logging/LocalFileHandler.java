@@ -131,28 +131,35 @@ public class LocalFileHandler implements Handler {
 
 	@Override
 	public void logMessage(int level, String msg) {
+		this.logger.log(toLevel(level), msg);
+	}
+
+	@Override
+	public void logMessage(int level, String msg, long time, long threadId) {
+		// messages are written by the log writer thread, keep the time and thread of the caller.
+		LogRecord record = new LogRecord(toLevel(level), msg);
+		record.setMillis(time);
+		record.setThreadID((int) threadId);
+		record.setLoggerName(this.logger.getName());
+		this.logger.log(record);
+	}
+
+	private static Level toLevel(int level) {
 		switch (level) {
 		case Logger.SEVERE:
-			this.logger.severe(msg);
-			break;
+			return Level.SEVERE;
 		case Logger.WARNING:
-			this.logger.warning(msg);
-			break;
+			return Level.WARNING;
 		case Logger.INFO:
-			this.logger.info(msg);
-			break;
+			return Level.INFO;
 		case Logger.FINE:
-			this.logger.fine(msg);
-			break;
+			return Level.FINE;
 		case Logger.VERBOSE:
-			this.logger.finer(msg);
-			break;
+			return Level.FINER;
 		case Logger.DEBUG:
-			this.logger.finest(msg);
-			break;
+			return Level.FINEST;
 		default:
-			this.logger.info(msg);
-			break;
+			return Level.INFO;
 		}
 	}
 
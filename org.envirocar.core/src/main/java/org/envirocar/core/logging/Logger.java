@@ -22,14 +22,16 @@ import android.util.Log;
 
 import org.envirocar.core.util.Util;
 
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Logging mechanism that logs to Androids built-in logging interface
  * and a local log file.
  * This class' methods emulate commonly used logging interfaces method syntax.
+ * Messages are written asynchronously by a single background thread, parameterized messages
+ * are only formatted there. Logging never blocks the caller, under overload messages are
+ * dropped.
  *
  * @author matthes rieke
  *
@@ -44,9 +46,11 @@ public class Logger {
     public static final int DEBUG = 10;
 
     private static final String TAB_CHAR = "\t";
+    private static final int BUFFER_SIZE = 4096;
 
-    private static List<Handler> handlers = new ArrayList<Handler>();
-    private static int minimumLogLevel = INFO;
+    private static List<Handler> handlers = new CopyOnWriteArrayList<>();
+    private static volatile int minimumLogLevel = INFO;
+    private static final AsyncLogWriter WRITER = new AsyncLogWriter(BUFFER_SIZE, handlers);
 
     public static final void addFileHandlerLocation(String path) {
         try {
@@ -84,70 +88,76 @@ public class Logger {
         if (level > minimumLogLevel) {
             return;
         }
+        WRITER.enqueue(level, this.name, message, null, e);
+    }
 
-        String concatMessage;
-        if (e != null) {
-            concatMessage = createConcatenatedMessage(message, e);
-        } else {
-            concatMessage = message;
+    public final void log(int level, String message) {
+        log(level, message, (Throwable) null);
+    }
+
+    /**
+     * Logs a message in the syntax of {@link String#format(String, Object...)}. The message is
+     * formatted by the log writer, so the arguments must not be modified afterwards.
+     *
+     * @param level   the log level
+     * @param message the message format
+     * @param args    the arguments of the message
+     */
+    public final void log(int level, String message, Object... args) {
+        if (level > minimumLogLevel) {
+            return;
         }
-        log(level, concatMessage);
+        WRITER.enqueue(level, this.name, message, args, null);
     }
 
-    private String createConcatenatedMessage(String message, Throwable e) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(message);
-        sb.append(":");
-        sb.append(Util.NEW_LINE_CHAR);
-
-        sb.append(convertExceptionToString(e));
-
-        return sb.toString();
+    /**
+     * Waits until all messages logged so far have been written, e.g., before the log files are
+     * read or the process dies.
+     *
+     * @param timeoutMillis the maximum time to wait
+     * @return true if all messages have been written
+     */
+    public static boolean flush(long timeoutMillis) {
+        return WRITER.flush(timeoutMillis);
     }
 
-    public final void log(int level, String message) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[");
-        sb.append(this.name);
-//		sb.append(":");
-//		sb.append(Thread.currentThread().getStackTrace()[5].getLineNumber());
-        sb.append("] ");
-        sb.append(message);
-
-        synchronized (Logger.class) {
-            for (Handler h : handlers) {
-                try {
-                    h.logMessage(level, sb.toString());
-                } catch (RuntimeException e) {
-                    Log.e(AndroidHandler.DEFAULT_TAG, e.getMessage(), e);
-                }
-            }
-        }
-
+    /**
+     * @return the number of messages dropped because the log buffer was full
+     */
+    public static long getDroppedCount() {
+        return WRITER.getDroppedCount();
     }
 
     public void debug(String message) {
-        log(DEBUG, message, null);
+        log(DEBUG, message, (Throwable) null);
+    }
+
+    public void debug(String message, Object... args) {
+        log(DEBUG, message, args);
     }
 
     public void verbose(String message) {
-        log(VERBOSE, message, null);
+        log(VERBOSE, message, (Throwable) null);
     }
 
     public void fine(String message) {
-        log(FINE, message, null);
+        log(FINE, message, (Throwable) null);
     }
 
     public void info(String message) {
-        log(INFO, message, null);
+        log(INFO, message, (Throwable) null);
     }
 
-    public void info(String messageTmp, String... args) {
-        info(String.format(messageTmp, args));
+    public void info(String messageTmp, Object... args) {
+        log(INFO, messageTmp, args);
     }
 
     public void warn(String message) {
-        log(WARNING, message, null);
+        log(WARNING, message, (Throwable) null);
+    }
+
+    public void warn(String message, Object... args) {
+        log(WARNING, message, args);
     }
 
     public void warn(String message, Throwable e) {
@@ -155,7 +165,7 @@ public class Logger {
     }
 
     public void severe(String message) {
-        log(SEVERE, message, null);
+        log(SEVERE, message, (Throwable) null);
     }
 
     public void severe(String message, Exception e) {
@@ -22,6 +22,7 @@ import org.envirocar.core.entity.Car;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.exception.FuelConsumptionException;
 import org.envirocar.core.exception.UnsupportedFuelTypeException;
+import org.envirocar.core.utils.Geodesic;
 
 /**
  * TODO JavaDoc
@@ -32,7 +33,6 @@ public class LoadBasedEnergyConsumptionAlgorithm implements ConsumptionAlgorithm
     // External parameters
     private static final double G = 9.81;               // gravitational acceleration in m/s²
     private static final double RHO_AIR = 1.2;           // air mass density in kg/m³
-    private static final double RADIUS_EARTH = 6370000;  // in m
 
     /* Vehicle-specific values */
     private final double cr;              // rolling resistance coefficient (dimensionless)
@@ -46,8 +46,6 @@ public class LoadBasedEnergyConsumptionAlgorithm implements ConsumptionAlgorithm
     /* Geometric parameters */
     private double theta = 0.0;                 // road gradient angle in °
     private double distanceMeter;         // distance on spherical earth in m
-    private double distanceRadians;       // distance on spherical earth in radians
-    private double distanceRadiansTemp;   // temporary variable in radians
 
     /* Resistance and power */
     private double rollingResistance;     // in N
@@ -115,19 +113,9 @@ public class LoadBasedEnergyConsumptionAlgorithm implements ConsumptionAlgorithm
             this.acceleration = (speedNow - speedPrev) / ((datetimeNow - this.datePrev) / 1000);
 
             // calculate road gradient angle
-            this.distanceRadiansTemp =
-                    Math.sin(Math.toRadians(latitudeNow))
-                            * Math.sin(Math.toRadians(this.latitudePrev))
-                            + Math.cos(Math.toRadians(latitudeNow))
-                            * Math.cos(Math.toRadians(this.latitudePrev))
-                            * Math.cos(Math.toRadians(longitudeNow) - Math.toRadians(this.longitudePrev));
-
-            // check cases where the argument is outside of the domain of definition
-            this.distanceRadiansTemp = Math.min(this.distanceRadiansTemp, 1);
-            this.distanceRadiansTemp = Math.max(this.distanceRadiansTemp, -1);
-
-            this.distanceRadians = Math.acos(distanceRadiansTemp);
-            this.distanceMeter = this.distanceRadians * RADIUS_EARTH;
+            // the haversine formula stays accurate for the short distances between measurements
+            this.distanceMeter = Geodesic.haversine(this.latitudePrev, this.longitudePrev,
+                    latitudeNow, longitudeNow) * 1000;
 
             // atan returns angle between -pi/2 and pi/2
             this.theta = Math.toDegrees(Math.atan((altitudeNow - this.altitudePrev) / this.distanceMeter));
@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.trackprocessing.statistics;
+
+/**
+ * A running sum of doubles with Neumaier's compensation, which keeps the rounding error of long
+ * summations (e.g., thousands of short distance segments) independent of the number of summands.
+ *
+ * @author dewall
+ */
+final class CompensatedSum {
+
+    private double sum;
+    private double compensation;
+
+    CompensatedSum() {
+        this(0.0, 0.0);
+    }
+
+    CompensatedSum(double sum, double compensation) {
+        this.sum = sum;
+        this.compensation = compensation;
+    }
+
+    void add(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+
+    void add(CompensatedSum other) {
+        add(other.sum);
+        add(other.compensation);
+    }
+
+    void set(CompensatedSum other) {
+        this.sum = other.sum;
+        this.compensation = other.compensation;
+    }
+
+    double get() {
+        return sum + compensation;
+    }
+
+    double getSum() {
+        return sum;
+    }
+
+    double getCompensation() {
+        return compensation;
+    }
+}
@@ -0,0 +1,421 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.trackprocessing.statistics;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.exception.FuelConsumptionException;
+import org.envirocar.core.exception.UnsupportedFuelTypeException;
+import org.envirocar.core.trackprocessing.consumption.ConsumptionAlgorithm;
+import org.envirocar.core.utils.Geodesic;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Online accumulator for the statistics of a track. Every {@link Measurement} is added in O(1),
+ * so the statistics can be kept up to date while recording and all values derived from it
+ * (distance, speed, fuel consumption and CO2) are computed in a single pass over the track.
+ * Accumulators of consecutive segments can be combined with {@link #merge(TrackStatistics)} and
+ * persisted with {@link #toByteArray()}.
+ *
+ * @author dewall
+ */
+public class TrackStatistics {
+
+    // version 2: distances of the haversine kernel, statistics of version 1 are recomputed.
+    private static final byte ENCODING_VERSION = 2;
+    private static final int SERIES_ENCODED_SIZE = 8 + 2 * 8 + 2 * 8 + 2 * 8 + 8 + 2 * 8;
+    private static final int ENCODED_SIZE = 1 + 3 * 8 + 4 * 8 + 2 * 8 + 3 * SERIES_ENCODED_SIZE;
+
+    /**
+     * Accumulates the values of a single measured quantity.
+     */
+    public static final class Series {
+        private long count;
+        private final CompensatedSum sum = new CompensatedSum();
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private long firstTime;
+        private long lastTime;
+        private double lastValue;
+        // integral of the value over time, holding each value until the next sample arrives.
+        private final CompensatedSum timeWeightedSum = new CompensatedSum();
+
+        void add(long time, double value) {
+            if (count == 0) {
+                firstTime = time;
+                lastTime = time;
+            } else if (time > lastTime) {
+                timeWeightedSum.add(lastValue * (time - lastTime));
+            }
+            count++;
+            sum.add(value);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            lastTime = Math.max(lastTime, time);
+            lastValue = value;
+        }
+
+        void merge(Series next) {
+            if (next.count == 0) {
+                return;
+            }
+            if (count == 0) {
+                firstTime = next.firstTime;
+                lastTime = next.lastTime;
+            } else if (next.firstTime > lastTime) {
+                // the value of this series is held until the next series starts.
+                timeWeightedSum.add(lastValue * (next.firstTime - lastTime));
+            }
+            count += next.count;
+            sum.add(next.sum);
+            min = Math.min(min, next.min);
+            max = Math.max(max, next.max);
+            timeWeightedSum.add(next.timeWeightedSum);
+            lastTime = Math.max(lastTime, next.lastTime);
+            lastValue = next.lastValue;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getSum() {
+            return sum.get();
+        }
+
+        /**
+         * @return the arithmetic mean of all values or NaN if there are none.
+         */
+        public double getMean() {
+            return count == 0 ? Double.NaN : sum.get() / count;
+        }
+
+        /**
+         * Returns the mean weighted by the time each value was valid. Falls back to the
+         * arithmetic mean if all values share the same timestamp.
+         *
+         * @return the time-weighted mean or NaN if there are no values.
+         */
+        public double getTimeWeightedMean() {
+            long duration = lastTime - firstTime;
+            if (count == 0 || duration <= 0) {
+                return getMean();
+            }
+            return timeWeightedSum.get() / duration;
+        }
+
+        /**
+         * @return the smallest value or NaN if there are none.
+         */
+        public double getMin() {
+            return count == 0 ? Double.NaN : min;
+        }
+
+        /**
+         * @return the largest value or NaN if there are none.
+         */
+        public double getMax() {
+            return count == 0 ? Double.NaN : max;
+        }
+
+        private void write(ByteBuffer buffer) {
+            buffer.putLong(count);
+            buffer.putDouble(sum.getSum()).putDouble(sum.getCompensation());
+            buffer.putDouble(min).putDouble(max);
+            buffer.putLong(firstTime).putLong(lastTime);
+            buffer.putDouble(lastValue);
+            buffer.putDouble(timeWeightedSum.getSum())
+                    .putDouble(timeWeightedSum.getCompensation());
+        }
+
+        private void read(ByteBuffer buffer) {
+            count = buffer.getLong();
+            sum.set(new CompensatedSum(buffer.getDouble(), buffer.getDouble()));
+            min = buffer.getDouble();
+            max = buffer.getDouble();
+            firstTime = buffer.getLong();
+            lastTime = buffer.getLong();
+            lastValue = buffer.getDouble();
+            timeWeightedSum.set(new CompensatedSum(buffer.getDouble(), buffer.getDouble()));
+        }
+    }
+
+    private final ConsumptionAlgorithm consumptionAlgorithm;
+
+    private long count;
+    private long firstTime;
+    private long lastTime;
+    private double firstLatitude = Double.NaN;
+    private double firstLongitude = Double.NaN;
+    private double lastLatitude = Double.NaN;
+    private double lastLongitude = Double.NaN;
+    private final CompensatedSum distance = new CompensatedSum();
+
+    private final Series speed = new Series();
+    private final Series fuelConsumption = new Series();
+    private final Series co2 = new Series();
+
+    /**
+     * Constructor for statistics without fuel consumption and CO2 values.
+     */
+    public TrackStatistics() {
+        this((ConsumptionAlgorithm) null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param consumptionAlgorithm the algorithm used for fuel consumption and CO2 values, may be
+     *                             null.
+     */
+    public TrackStatistics(ConsumptionAlgorithm consumptionAlgorithm) {
+        this.consumptionAlgorithm = consumptionAlgorithm;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param fuelType the fuel type of the car, may be null.
+     */
+    public TrackStatistics(Car.FuelType fuelType) {
+        this(fuelType != null ? ConsumptionAlgorithm.fromFuelType(fuelType) : null);
+    }
+
+    /**
+     * Adds a measurement. Measurements are expected in the order of their timestamps.
+     *
+     * @param measurement the measurement to add.
+     */
+    public void add(Measurement measurement) {
+        long time = measurement.getTime();
+        if (count == 0) {
+            firstTime = time;
+        }
+        lastTime = time;
+        count++;
+
+        Double latitude = measurement.getLatitude();
+        Double longitude = measurement.getLongitude();
+        if (latitude != null && longitude != null) {
+            if (Double.isNaN(lastLatitude)) {
+                firstLatitude = latitude;
+                firstLongitude = longitude;
+            } else {
+                distance.add(Geodesic.haversine(lastLatitude, lastLongitude, latitude, longitude));
+            }
+            lastLatitude = latitude;
+            lastLongitude = longitude;
+        }
+
+        Double speedValue = measurement.getProperty(Measurement.PropertyKey.SPEED);
+        if (speedValue == null) {
+            speedValue = measurement.getProperty(Measurement.PropertyKey.GPS_SPEED);
+        }
+        if (speedValue != null) {
+            speed.add(time, speedValue);
+        }
+
+        if (consumptionAlgorithm == null) {
+            return;
+        }
+
+        try {
+            fuelConsumption.add(time, consumptionAlgorithm.calculateConsumption(measurement));
+        } catch (FuelConsumptionException | UnsupportedFuelTypeException e) {
+            // not all measurements provide the required parameters.
+        }
+
+        Double consumption = measurement.getProperty(Measurement.PropertyKey.CONSUMPTION);
+        if (consumption != null) {
+            try {
+                co2.add(time, consumptionAlgorithm.calculateCO2FromConsumption(consumption));
+            } catch (FuelConsumptionException e) {
+                // no action required.
+            }
+        }
+    }
+
+    /**
+     * Appends the statistics of the directly following segment of the same track. The distance
+     * between the last position of this and the first position of the next segment is added.
+     *
+     * @param next the statistics of the following segment.
+     * @return this instance.
+     */
+    public TrackStatistics merge(TrackStatistics next) {
+        if (next.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            firstTime = next.firstTime;
+        }
+        lastTime = next.lastTime;
+        count += next.count;
+
+        if (!Double.isNaN(next.firstLatitude)) {
+            if (Double.isNaN(lastLatitude)) {
+                firstLatitude = next.firstLatitude;
+                firstLongitude = next.firstLongitude;
+            } else {
+                distance.add(Geodesic.haversine(
+                        lastLatitude, lastLongitude, next.firstLatitude, next.firstLongitude));
+            }
+            lastLatitude = next.lastLatitude;
+            lastLongitude = next.lastLongitude;
+        }
+        distance.add(next.distance);
+
+        speed.merge(next.speed);
+        fuelConsumption.merge(next.fuelConsumption);
+        co2.merge(next.co2);
+        return this;
+    }
+
+    /**
+     * @return an independent copy of these statistics.
+     */
+    public TrackStatistics copy() {
+        return new TrackStatistics(consumptionAlgorithm).merge(this);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getFirstTime() {
+        return firstTime;
+    }
+
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * @return the duration between the first and the last measurement in milliseconds.
+     */
+    public long getDuration() {
+        return lastTime - firstTime;
+    }
+
+    /**
+     * @return the distance in km.
+     */
+    public double getDistance() {
+        return distance.get();
+    }
+
+    /**
+     * @return the speed in km/h.
+     */
+    public Series getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return the fuel consumption in l/h.
+     */
+    public Series getFuelConsumption() {
+        return fuelConsumption;
+    }
+
+    /**
+     * @return the CO2 emission in kg/h.
+     */
+    public Series getCO2() {
+        return co2;
+    }
+
+    /**
+     * @return the mean fuel consumption in l/h of all measurements that allowed its computation.
+     * @throws FuelConsumptionException if no measurement allowed the computation.
+     */
+    public double getFuelConsumptionPerHour() throws FuelConsumptionException {
+        if (fuelConsumption.getCount() == 0) {
+            throw new FuelConsumptionException("No fuel consumption computation possible. No " +
+                    "values with required parameters");
+        }
+        return fuelConsumption.getMean();
+    }
+
+    /**
+     * Returns the average CO2 emission in kg/h. Measurements without a consumption value
+     * contribute with zero.
+     *
+     * @return the average CO2 emission in kg/h.
+     * @throws FuelConsumptionException if there is no consumption algorithm for the fuel type.
+     */
+    public double getCO2Average() throws FuelConsumptionException {
+        if (consumptionAlgorithm == null) {
+            throw new FuelConsumptionException("No CO2 computation possible for this fuel type");
+        }
+        return co2.getSum() / count;
+    }
+
+    /**
+     * Encodes these statistics for persistence.
+     *
+     * @return the encoded statistics.
+     */
+    public byte[] toByteArray() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_SIZE);
+        buffer.put(ENCODING_VERSION);
+        buffer.putLong(count).putLong(firstTime).putLong(lastTime);
+        buffer.putDouble(firstLatitude).putDouble(firstLongitude);
+        buffer.putDouble(lastLatitude).putDouble(lastLongitude);
+        buffer.putDouble(distance.getSum()).putDouble(distance.getCompensation());
+        speed.write(buffer);
+        fuelConsumption.write(buffer);
+        co2.write(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Decodes statistics encoded by {@link #toByteArray()}.
+     *
+     * @param bytes    the encoded statistics.
+     * @param fuelType the fuel type of the car, may be null.
+     * @return the decoded statistics or null if the encoding is not supported.
+     */
+    public static TrackStatistics fromByteArray(byte[] bytes, Car.FuelType fuelType) {
+        if (bytes == null || bytes.length != ENCODED_SIZE || bytes[0] != ENCODING_VERSION) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        TrackStatistics result = new TrackStatistics(fuelType);
+        try {
+            result.count = buffer.getLong();
+            result.firstTime = buffer.getLong();
+            result.lastTime = buffer.getLong();
+            result.firstLatitude = buffer.getDouble();
+            result.firstLongitude = buffer.getDouble();
+            result.lastLatitude = buffer.getDouble();
+            result.lastLongitude = buffer.getDouble();
+            result.distance.set(new CompensatedSum(buffer.getDouble(), buffer.getDouble()));
+            result.speed.read(buffer);
+            result.fuelConsumption.read(buffer);
+            result.co2.read(buffer);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+        return result;
+    }
+}
@@ -18,8 +18,6 @@
  */
 package org.envirocar.core.trackprocessing.statistics;
 
-import android.location.Location;
-
 import org.envirocar.core.entity.Car;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.exception.FuelConsumptionException;
@@ -27,8 +25,6 @@ import org.envirocar.core.exception.UnsupportedFuelTypeException;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.trackprocessing.consumption.ConsumptionAlgorithm;
 
-import java.util.List;
-
 /**
  * TODO JavaDoc
  *
@@ -49,76 +45,52 @@ public class TrackStatisticsProcessor {
         this.consumptionAlgorithm = ConsumptionAlgorithm.fromFuelType(fuelType);
     }
 
-    public double computeDistanceOfTrack(List<Measurement> measurements) {
-        double distance = 0.0;
-
-        // Return a distance of one if only one measurement exists.
-        if (measurements == null || measurements.size() <= 1) {
-            return distance;
-        }
-
-        Measurement m1 = measurements.get(0);
-        Measurement m2;
-        float[] distanceArray = new float[1];
-
-        for (int i = 1; i < measurements.size(); i++) {
-            m2 = measurements.get(i);
-            Location.distanceBetween(m1.getLatitude(), m1.getLongitude(), m2
-                    .getLatitude(), m2.getLongitude(), distanceArray);
-            distance += distanceArray[0];
-
-            m1 = m2;
-            distanceArray[0] = 0;
+    /**
+     * Computes all statistics of a track in a single pass. Measurements are consumed as they are
+     * iterated, so this also works on measurements streamed from the database without
+     * materializing them (e.g., {@code enviroCarDB.getMeasurements(trackId).blockingIterable()}).
+     *
+     * @param measurements the measurements ordered by time.
+     * @return the statistics of the measurements.
+     */
+    public TrackStatistics computeStatistics(Iterable<Measurement> measurements) {
+        TrackStatistics statistics = new TrackStatistics(consumptionAlgorithm);
+        if (measurements != null) {
+            for (Measurement measurement : measurements) {
+                statistics.add(measurement);
+            }
         }
+        return statistics;
+    }
 
-        return distance / 1000.0d;
+    /**
+     * Computes the distance of a track in kilometers.
+     *
+     * @param measurements the measurements ordered by time.
+     * @return the distance in km.
+     */
+    public double computeDistanceOfTrack(Iterable<Measurement> measurements) {
+        return computeStatistics(measurements).getDistance();
     }
 
-    public Double getCO2Average(List<Measurement> measurements) throws FuelConsumptionException {
-        double co2Avg = 0.0;
+    public Double getCO2Average(Iterable<Measurement> measurements) throws FuelConsumptionException {
         if (consumptionAlgorithm == null) {
             return null;
         }
-
-        for (Measurement measurement : measurements) {
-            Double property = measurement.getProperty(Measurement.PropertyKey.CONSUMPTION);
-
-            if (property != null) {
-                co2Avg += consumptionAlgorithm.calculateCO2FromConsumption(property);
-            }
-
-        }
-        co2Avg /= measurements.size();
-
-        return co2Avg;
+        return computeStatistics(measurements).getCO2Average();
     }
 
-    public Double getFuelConsumptionPerHour(List<Measurement> measurements) throws FuelConsumptionException {
-        double consumption = 0.0;
+    public Double getFuelConsumptionPerHour(Iterable<Measurement> measurements) throws FuelConsumptionException {
         if (consumptionAlgorithm == null) {
             return null;
         }
+        return getFuelConsumptionPerHour(computeStatistics(measurements));
+    }
 
-        int consideredCount = 0;
-        for (Measurement measurement : measurements) {
-            try {
-                consumption += consumptionAlgorithm.calculateConsumption(measurement);
-                consideredCount++;
-            } catch (UnsupportedFuelTypeException e) {
-                LOG.debug(e.getMessage());
-            } catch (FuelConsumptionException e) {
-                // no action required.
-            }
-        }
-
+    public double getFuelConsumptionPerHour(TrackStatistics statistics) throws FuelConsumptionException {
         LOG.info(String.format("%s of %s measurements used for consumption/hour calculation",
-                consideredCount, measurements.size()));
-
-        if (consideredCount <= 0) {
-            throw new FuelConsumptionException("No fuel consumption computation possible. No values with required parameters");
-        }
-
-        return consumption / consideredCount;
+                statistics.getFuelConsumption().getCount(), statistics.getCount()));
+        return statistics.getFuelConsumptionPerHour();
     }
 
     public double getLiterPerHundredKm(double consumptionPerHour, double durationInMillis, double lengthOfTrack) {
@@ -29,6 +29,8 @@ import org.envirocar.core.exception.UnsupportedFuelTypeException;
  */
 public interface TrackStatisticsProvider {
 
+    TrackStatistics getStatistics();
+
     double getDistanceOfTrack();
 
     double getFuelConsumptionPerHour() throws FuelConsumptionException;
@@ -0,0 +1,253 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.utils;
+
+/**
+ * Spherical distance kernels in kilometers on primitive coordinates in degrees. The bulk
+ * variants process whole tracks given as arrays of latitudes and longitudes: the loops are
+ * branch free, allocate nothing and compute the cosine of every latitude only once.
+ * <p>
+ * Error bounds against the ellipsoidal (WGS84, Vincenty) distance of
+ * {@link LocationUtils#getDistance(double, double, double, double)}:
+ * <ul>
+ * <li>haversine: at most {@link #MAX_RELATIVE_ERROR} (0.57 %) for all distances, the deviation
+ * is a property of the sphere, not of the segment length.</li>
+ * <li>equirectangular: the haversine error plus less than 1e-7 for segments up to 1 km and
+ * 1e-6 up to 10 km at latitudes within ±70°. At ±89° these become 1e-5 and 4e-4. It is meant
+ * for the short segments between consecutive measurements, not for long distances.</li>
+ * </ul>
+ *
+ * @author dewall
+ */
+public final class Geodesic {
+
+    /**
+     * The mean earth radius (IUGG) in kilometers.
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    /**
+     * The maximum relative deviation of the haversine distance from the ellipsoidal distance.
+     */
+    public static final double MAX_RELATIVE_ERROR = 0.0057;
+
+    private Geodesic() {
+        // no instances
+    }
+
+    /**
+     * @return the great circle distance of two points in kilometers.
+     */
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        return distance(haversineTerm(phi1, Math.cos(phi1), phi2, Math.cos(phi2),
+                Math.toRadians(lon2 - lon1)));
+    }
+
+    /**
+     * @return the distance of two close points in kilometers, approximated in the plane
+     * tangential to their mean latitude.
+     */
+    public static double equirectangular(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double x = normalizeLongitude(Math.toRadians(lon2 - lon1)) * Math.cos((phi1 + phi2) / 2);
+        double y = phi2 - phi1;
+        return EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Computes the great circle distances of consecutive points.
+     *
+     * @param latitudes  the latitudes of the points.
+     * @param longitudes the longitudes of the points.
+     * @param lengths    receives the distance of point i and i + 1 at index i, at least one
+     *                   element shorter than the points.
+     */
+    public static void segmentLengths(double[] latitudes, double[] longitudes, double[] lengths) {
+        int size = checkSegments(latitudes, longitudes, lengths);
+        if (size < 2) {
+            return;
+        }
+
+        double previousPhi = Math.toRadians(latitudes[0]);
+        double previousCos = Math.cos(previousPhi);
+        for (int i = 1; i < size; i++) {
+            double phi = Math.toRadians(latitudes[i]);
+            double cos = Math.cos(phi);
+            lengths[i - 1] = distance(haversineTerm(previousPhi, previousCos, phi, cos,
+                    Math.toRadians(longitudes[i] - longitudes[i - 1])));
+            previousPhi = phi;
+            previousCos = cos;
+        }
+    }
+
+    /**
+     * Computes the equirectangular distances of consecutive points, see
+     * {@link #equirectangular(double, double, double, double)}.
+     *
+     * @param latitudes  the latitudes of the points.
+     * @param longitudes the longitudes of the points.
+     * @param lengths    receives the distance of point i and i + 1 at index i, at least one
+     *                   element shorter than the points.
+     */
+    public static void equirectangularSegmentLengths(double[] latitudes, double[] longitudes,
+                                                     double[] lengths) {
+        int size = checkSegments(latitudes, longitudes, lengths);
+
+        for (int i = 1; i < size; i++) {
+            double phi1 = Math.toRadians(latitudes[i - 1]);
+            double phi2 = Math.toRadians(latitudes[i]);
+            double x = normalizeLongitude(Math.toRadians(longitudes[i] - longitudes[i - 1]))
+                    * Math.cos((phi1 + phi2) / 2);
+            double y = phi2 - phi1;
+            lengths[i - 1] = EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+        }
+    }
+
+    /**
+     * Computes the great circle distance along the points from the first point to every point.
+     *
+     * @param latitudes  the latitudes of the points.
+     * @param longitudes the longitudes of the points.
+     * @param distances  receives the distance from the first point, as long as the points.
+     */
+    public static void cumulativeLengths(double[] latitudes, double[] longitudes,
+                                         double[] distances) {
+        int size = checkLength(latitudes, longitudes);
+        if (distances.length < size) {
+            throw new IllegalArgumentException("The result array is too short");
+        }
+        if (size == 0) {
+            return;
+        }
+
+        distances[0] = 0;
+        double previousPhi = Math.toRadians(latitudes[0]);
+        double previousCos = Math.cos(previousPhi);
+        for (int i = 1; i < size; i++) {
+            double phi = Math.toRadians(latitudes[i]);
+            double cos = Math.cos(phi);
+            distances[i] = distances[i - 1] + distance(haversineTerm(previousPhi, previousCos,
+                    phi, cos, Math.toRadians(longitudes[i] - longitudes[i - 1])));
+            previousPhi = phi;
+            previousCos = cos;
+        }
+    }
+
+    /**
+     * @return the great circle length of the path along the points in kilometers.
+     */
+    public static double length(double[] latitudes, double[] longitudes) {
+        int size = checkLength(latitudes, longitudes);
+        double length = 0;
+        if (size < 2) {
+            return length;
+        }
+
+        double previousPhi = Math.toRadians(latitudes[0]);
+        double previousCos = Math.cos(previousPhi);
+        for (int i = 1; i < size; i++) {
+            double phi = Math.toRadians(latitudes[i]);
+            double cos = Math.cos(phi);
+            length += distance(haversineTerm(previousPhi, previousCos, phi, cos,
+                    Math.toRadians(longitudes[i] - longitudes[i - 1])));
+            previousPhi = phi;
+            previousCos = cos;
+        }
+        return length;
+    }
+
+    /**
+     * Computes the great circle distances of the points to a single point.
+     *
+     * @param latitude   the latitude of the single point.
+     * @param longitude  the longitude of the single point.
+     * @param latitudes  the latitudes of the points.
+     * @param longitudes the longitudes of the points.
+     * @param distances  receives the distances, as long as the points.
+     */
+    public static void distancesTo(double latitude, double longitude, double[] latitudes,
+                                   double[] longitudes, double[] distances) {
+        int size = checkLength(latitudes, longitudes);
+        if (distances.length < size) {
+            throw new IllegalArgumentException("The result array is too short");
+        }
+
+        double phi = Math.toRadians(latitude);
+        double cos = Math.cos(phi);
+        for (int i = 0; i < size; i++) {
+            double otherPhi = Math.toRadians(latitudes[i]);
+            distances[i] = distance(haversineTerm(phi, cos, otherPhi, Math.cos(otherPhi),
+                    Math.toRadians(longitudes[i] - longitude)));
+        }
+    }
+
+    /**
+     * The haversine of the central angle of two points, i.e., a value that increases strictly
+     * with their distance. Comparing it against {@link #toHaversineTerm(double)} of a threshold
+     * avoids the inverse trigonometric functions of the distance.
+     *
+     * @param phi1   the latitude of the first point in radians.
+     * @param cos1   the cosine of the first latitude.
+     * @param phi2   the latitude of the second point in radians.
+     * @param cos2   the cosine of the second latitude.
+     * @param lambda the difference of the longitudes in radians.
+     */
+    public static double haversineTerm(double phi1, double cos1, double phi2, double cos2,
+                                       double lambda) {
+        double sinPhi = Math.sin((phi2 - phi1) / 2);
+        double sinLambda = Math.sin(lambda / 2);
+        return sinPhi * sinPhi + cos1 * cos2 * sinLambda * sinLambda;
+    }
+
+    /**
+     * @param distanceKm a distance in kilometers.
+     * @return the haversine term of the distance, see
+     * {@link #haversineTerm(double, double, double, double, double)}.
+     */
+    public static double toHaversineTerm(double distanceKm) {
+        double sin = Math.sin(Math.min(distanceKm / EARTH_RADIUS_KM, Math.PI) / 2);
+        return sin * sin;
+    }
+
+    private static double distance(double haversineTerm) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1, haversineTerm)));
+    }
+
+    private static double normalizeLongitude(double lambda) {
+        return lambda - 2 * Math.PI * Math.rint(lambda / (2 * Math.PI));
+    }
+
+    private static int checkLength(double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("Latitudes and longitudes differ in length");
+        }
+        return latitudes.length;
+    }
+
+    private static int checkSegments(double[] latitudes, double[] longitudes, double[] lengths) {
+        int size = checkLength(latitudes, longitudes);
+        if (lengths.length < size - 1) {
+            throw new IllegalArgumentException("The result array is too short");
+        }
+        return size;
+    }
+}
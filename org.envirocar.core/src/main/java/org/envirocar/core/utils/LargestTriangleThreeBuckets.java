@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.utils;
+
+import java.util.Arrays;
+
+/**
+ * Downsampling of a series for charts with the Largest-Triangle-Three-Buckets algorithm (Sveinn
+ * Steinarsson, 2013). The series is split into buckets and from each bucket the point that forms
+ * the largest triangle with the previously selected point and the average of the next bucket is
+ * kept. In addition, the global minimum and maximum of the series are always kept, so that peaks
+ * do not vanish from the chart.
+ *
+ * @author dewall
+ */
+public final class LargestTriangleThreeBuckets {
+
+    private LargestTriangleThreeBuckets() {
+        // no instances
+    }
+
+    /**
+     * Selects at most {@code threshold} points of a series.
+     *
+     * @param x         the x values in ascending order.
+     * @param y         the y values.
+     * @param threshold the maximum number of points to select.
+     * @return the ascending indices of the selected points.
+     */
+    public static int[] downsample(double[] x, double[] y, int threshold) {
+        int size = x.length;
+        if (y.length != size) {
+            throw new IllegalArgumentException("x and y differ in length");
+        }
+
+        if (threshold >= size || size <= 2) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        if (threshold < 3) {
+            threshold = Math.min(size, 3);
+        }
+
+        int minIndex = 0;
+        int maxIndex = 0;
+        for (int i = 1; i < size; i++) {
+            if (y[i] < y[minIndex]) {
+                minIndex = i;
+            }
+            if (y[i] > y[maxIndex]) {
+                maxIndex = i;
+            }
+        }
+
+        // the first and last point are kept, the others are split into equally sized buckets.
+        // If both extremes fall into the same bucket, it keeps both and one bucket less is used.
+        int buckets = threshold - 2;
+        if (buckets > 1 && shareBucket(minIndex, maxIndex, size, buckets)) {
+            buckets--;
+        }
+        double bucketSize = (double) (size - 2) / buckets;
+
+        int[] result = new int[threshold];
+        int count = 0;
+        result[count++] = 0;
+
+        int selected = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // buckets with a global extreme keep it.
+            boolean hasMin = minIndex >= start && minIndex < end;
+            boolean hasMax = maxIndex >= start && maxIndex < end;
+            if (hasMin && hasMax && count + 2 < threshold) {
+                result[count++] = Math.min(minIndex, maxIndex);
+                selected = Math.max(minIndex, maxIndex);
+                result[count++] = selected;
+                continue;
+            }
+            if (hasMin || hasMax) {
+                if (hasMin && hasMax) {
+                    // no budget left for both, so the one farther from the last point is taken.
+                    selected = Math.abs(y[minIndex] - y[selected])
+                            > Math.abs(y[maxIndex] - y[selected]) ? minIndex : maxIndex;
+                } else {
+                    selected = hasMin ? minIndex : maxIndex;
+                }
+                result[count++] = selected;
+                continue;
+            }
+
+            // average of the next bucket, or of the last point for the last bucket.
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            if (bucket == buckets - 1) {
+                nextStart = size - 1;
+                nextEnd = size;
+            }
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            double maxArea = -1;
+            int candidate = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[selected] - averageX) * (y[i] - y[selected])
+                        - (x[selected] - x[i]) * (averageY - y[selected]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    candidate = i;
+                }
+            }
+            selected = candidate;
+            result[count++] = selected;
+        }
+
+        result[count++] = size - 1;
+        return count == threshold ? result : Arrays.copyOf(result, count);
+    }
+
+    private static boolean shareBucket(int minIndex, int maxIndex, int size, int buckets) {
+        double bucketSize = (double) (size - 2) / buckets;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            if (minIndex >= start && minIndex < end) {
+                return maxIndex >= start && maxIndex < end;
+            }
+        }
+        return false;
+    }
+}
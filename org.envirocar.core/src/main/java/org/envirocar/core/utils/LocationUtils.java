@@ -22,6 +22,8 @@ import android.location.Location;
 
 import org.envirocar.core.entity.Measurement;
 
+import java.util.List;
+
 /**
  * @author dewall
  */
@@ -31,7 +33,9 @@ public class LocationUtils {
     }
 
     /**
-     * Returns the distance of two points in kilometers.
+     * Returns the ellipsoidal distance of two points in kilometers. This is the exact reference
+     * for single decisions, e.g., the obfuscation radius. Bulk computations like the length of a
+     * track should use the {@link Geodesic} kernels instead.
      *
      * @param lat1
      * @param lng1
@@ -55,4 +59,39 @@ public class LocationUtils {
     public static double getDistance(Measurement m1, Measurement m2) {
         return getDistance(m1.getLatitude(), m1.getLongitude(), m2.getLatitude(), m2.getLongitude());
     }
+
+    /**
+     * Returns the great circle distance along the measurements from the first measurement to
+     * every measurement. Measurements without a position keep the distance of their predecessor.
+     *
+     * @param measurements the time ordered measurements of a track.
+     * @return the distances in km, one per measurement.
+     */
+    public static double[] getCumulativeDistances(List<Measurement> measurements) {
+        int size = measurements.size();
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+
+        int valid = 0;
+        for (int i = 0; i < size; i++) {
+            Measurement measurement = measurements.get(i);
+            Double latitude = measurement.getLatitude();
+            Double longitude = measurement.getLongitude();
+            if (latitude != null && longitude != null) {
+                // positions missing at the start take the first known position
+                for (; valid <= i; valid++) {
+                    latitudes[valid] = latitude;
+                    longitudes[valid] = longitude;
+                }
+            } else if (valid > 0) {
+                latitudes[i] = latitudes[i - 1];
+                longitudes[i] = longitudes[i - 1];
+                valid = i + 1;
+            }
+        }
+
+        double[] distances = new double[size];
+        Geodesic.cumulativeLengths(latitudes, longitudes, distances);
+        return distances;
+    }
 }
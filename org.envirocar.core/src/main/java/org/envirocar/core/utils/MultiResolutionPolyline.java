@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.utils;
+
+/**
+ * A polyline that can be simplified to any tolerance without recomputation. The Douglas-Peucker
+ * algorithm is run once on the Web Mercator projection of the points and stores for each point
+ * the largest tolerance at which it is still retained. A simplification for a given tolerance or
+ * map zoom level is then a linear filter over the points.
+ *
+ * @author dewall
+ */
+public class MultiResolutionPolyline {
+
+    /**
+     * The size of a map tile in pixels as used by Mapbox GL.
+     */
+    public static final double TILE_SIZE = 512;
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] significance;
+
+    /**
+     * Constructor.
+     *
+     * @param latitudes  the latitudes of the points.
+     * @param longitudes the longitudes of the points.
+     */
+    public MultiResolutionPolyline(double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("Latitudes and longitudes differ in length");
+        }
+
+        int size = latitudes.length;
+        this.x = new double[size];
+        this.y = new double[size];
+        for (int i = 0; i < size; i++) {
+            double latitude = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitudes[i]));
+            double sin = Math.sin(Math.toRadians(latitude));
+            x[i] = (longitudes[i] + 180.0) / 360.0;
+            y[i] = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        }
+        this.significance = computeSignificance(x, y);
+    }
+
+    /**
+     * Returns the tolerance in projected units that corresponds to a number of pixels at a zoom
+     * level.
+     *
+     * @param zoom   the zoom level.
+     * @param pixels the number of pixels.
+     * @return the tolerance.
+     */
+    public static double toleranceForZoom(double zoom, double pixels) {
+        return pixels / (TILE_SIZE * Math.pow(2, zoom));
+    }
+
+    public int size() {
+        return significance.length;
+    }
+
+    /**
+     * @param index the index of the point.
+     * @return the largest tolerance at which the point is retained.
+     */
+    public double getSignificance(int index) {
+        return significance[index];
+    }
+
+    /**
+     * Returns the indices of the points that are retained by the Douglas-Peucker algorithm for
+     * a tolerance. The first and the last point are always retained.
+     *
+     * @param tolerance the tolerance in projected units.
+     * @return the ascending indices of the retained points.
+     */
+    public int[] simplify(double tolerance) {
+        int count = 0;
+        for (double value : significance) {
+            if (value > tolerance) {
+                count++;
+            }
+        }
+
+        int[] result = new int[count];
+        for (int i = 0, j = 0; i < significance.length; i++) {
+            if (significance[i] > tolerance) {
+                result[j++] = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the indices of the points that are required to draw the polyline at a zoom level
+     * with an error of at most the given number of pixels.
+     *
+     * @param zoom   the zoom level.
+     * @param pixels the maximum error in pixels.
+     * @return the ascending indices of the retained points.
+     */
+    public int[] simplifyForZoom(double zoom, double pixels) {
+        return simplify(toleranceForZoom(zoom, pixels));
+    }
+
+    /**
+     * Returns the zoom level at which the extent of the polyline spans a number of pixels.
+     *
+     * @param pixels the number of pixels.
+     * @return the zoom level.
+     */
+    public double getFittingZoom(double pixels) {
+        if (x.length == 0) {
+            return 0;
+        }
+
+        double minX = x[0], maxX = x[0], minY = y[0], maxY = y[0];
+        for (int i = 1; i < x.length; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        double extent = Math.max(maxX - minX, maxY - minY);
+        if (extent <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.log(pixels / (TILE_SIZE * extent)) / Math.log(2);
+    }
+
+    private static double[] computeSignificance(double[] x, double[] y) {
+        int size = x.length;
+        double[] result = new double[size];
+        if (size == 0) {
+            return result;
+        }
+        result[0] = Double.POSITIVE_INFINITY;
+        result[size - 1] = Double.POSITIVE_INFINITY;
+
+        // explicit stack of the segments to split, so that long tracks cannot overflow the
+        // call stack. A point is never retained at a larger tolerance than the point that split
+        // its segment, which makes the simplifications of all tolerances nested.
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        double[] bounds = new double[size];
+        int top = 0;
+        starts[0] = 0;
+        ends[0] = size - 1;
+        bounds[0] = Double.POSITIVE_INFINITY;
+
+        while (top >= 0) {
+            int start = starts[top];
+            int end = ends[top];
+            double bound = bounds[top];
+            top--;
+            if (end - start < 2) {
+                continue;
+            }
+
+            int split = start + 1;
+            double max = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = segmentDistance(x[i], y[i], x[start], y[start], x[end], y[end]);
+                if (distance > max) {
+                    max = distance;
+                    split = i;
+                }
+            }
+
+            double value = Math.min(max, bound);
+            result[split] = value;
+
+            top++;
+            starts[top] = start;
+            ends[top] = split;
+            bounds[top] = value;
+            top++;
+            starts[top] = split;
+            ends[top] = end;
+            bounds[top] = value;
+        }
+        return result;
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay,
+                                          double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        }
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.core.utils;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.exception.NoMeasurementsException;
+
+import java.util.List;
+
+/**
+ * Obfuscates the start and the end of a track: measurements within a time span after the start
+ * or before the end of the track, and measurements within a radius around the first or the last
+ * measurement are removed, as long as they are at the beginning or the end of the track.
+ * Obfuscated measurements in between two non obfuscated ones are kept.
+ * <p>
+ * The non obfuscated measurements are determined as an index range. The track is scanned from
+ * both ends until the first non obfuscated measurement is found, so every measurement is
+ * checked at most once and the work only depends on the length of the obfuscated start and end.
+ * The exact ellipsoidal distance is only computed for measurements close to the radius, all
+ * others are decided with the spherical distance of precomputed reference points.
+ *
+ * @author dewall
+ */
+public class TrackObfuscator {
+
+    public static final long DEFAULT_TIME_MILLIS = 60000;
+    public static final double DEFAULT_DISTANCE_KM = 0.25;
+
+    /**
+     * The obfuscator with the default thresholds of 60 s and 250 m.
+     */
+    public static final TrackObfuscator DEFAULT =
+            new TrackObfuscator(DEFAULT_TIME_MILLIS, DEFAULT_DISTANCE_KM);
+
+    // margin around the radius in which the spherical distance is not conclusive
+    private static final double SPHERICAL_TOLERANCE = 2 * Geodesic.MAX_RELATIVE_ERROR;
+
+    /**
+     * Index range of the non obfuscated measurements of a track.
+     */
+    public static final class Range {
+        private final int from;
+        private final int to;
+
+        Range(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return the index of the first non obfuscated measurement.
+         */
+        public int getFrom() {
+            return from;
+        }
+
+        /**
+         * @return the index after the last non obfuscated measurement.
+         */
+        public int getTo() {
+            return to;
+        }
+
+        public int size() {
+            return to - from;
+        }
+
+        /**
+         * @return a view of the range of the given measurements.
+         */
+        public <T> List<T> subList(List<T> measurements) {
+            return measurements.subList(from, to);
+        }
+    }
+
+    /**
+     * A measurement to compute the distances to, with precomputed spherical coordinates.
+     */
+    static final class Reference {
+        private final Measurement measurement;
+        private final double latitude;
+        private final double longitude;
+        private final double cosLatitude;
+
+        Reference(Measurement measurement) {
+            this.measurement = measurement;
+            this.latitude = Math.toRadians(measurement.getLatitude());
+            this.longitude = Math.toRadians(measurement.getLongitude());
+            this.cosLatitude = Math.cos(latitude);
+        }
+    }
+
+    private final long timeMillis;
+    private final double distanceKm;
+    // bounds of the haversine of the radius, taking the spherical tolerance into account
+    private final double lowerHaversine;
+    private final double upperHaversine;
+
+    /**
+     * Constructor.
+     *
+     * @param timeMillis the time span after the start and before the end to obfuscate.
+     * @param distanceKm the radius around the first and the last measurement to obfuscate.
+     */
+    public TrackObfuscator(long timeMillis, double distanceKm) {
+        if (timeMillis < 0 || distanceKm < 0) {
+            throw new IllegalArgumentException("The thresholds must not be negative");
+        }
+        this.timeMillis = timeMillis;
+        this.distanceKm = distanceKm;
+        this.lowerHaversine = Geodesic.toHaversineTerm(distanceKm * (1 - SPHERICAL_TOLERANCE));
+        this.upperHaversine = Geodesic.toHaversineTerm(distanceKm * (1 + SPHERICAL_TOLERANCE));
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+    /**
+     * Creates a copy of the track that only contains its non obfuscated measurements. The
+     * measurements of the copy are a view of the copied measurement list.
+     *
+     * @param track the track to obfuscate.
+     * @return the obfuscated copy of the track.
+     * @throws NoMeasurementsException if all measurements of the track are obfuscated.
+     */
+    public Track obfuscate(Track track) throws NoMeasurementsException {
+        Range range = getNonObfuscatedRange(track);
+        if (range == null) {
+            throw new NoMeasurementsException("No obfuscated measurements available.");
+        }
+
+        Track result = track.carbonCopy();
+        result.setMeasurements(range.subList(result.getMeasurements()));
+        return result;
+    }
+
+    /**
+     * @param track the track to obfuscate.
+     * @return the range of the non obfuscated measurements or null, if all are obfuscated.
+     */
+    public Range getNonObfuscatedRange(Track track) {
+        List<Measurement> measurements = track.getMeasurements();
+        if (measurements.isEmpty()) {
+            return null;
+        }
+        return getNonObfuscatedRange(measurements, track.getStartTime(), track.getEndTime());
+    }
+
+    /**
+     * @param measurements the time ordered measurements of a track.
+     * @param startTime    the start time of the track.
+     * @param endTime      the end time of the track.
+     * @return the range of the non obfuscated measurements or null, if all are obfuscated.
+     */
+    public Range getNonObfuscatedRange(List<Measurement> measurements, long startTime,
+                                       long endTime) {
+        int size = measurements.size();
+        if (size == 0) {
+            return null;
+        }
+
+        Reference first = new Reference(measurements.get(0));
+        Reference last = new Reference(measurements.get(size - 1));
+
+        int from = 0;
+        while (from < size && isObfuscated(measurements.get(from), startTime, endTime, first, last)) {
+            from++;
+        }
+        if (from == size) {
+            return null;
+        }
+
+        // the backward scan ends at the latest at the first non obfuscated measurement.
+        int to = size - 1;
+        while (to > from && isObfuscated(measurements.get(to), startTime, endTime, first, last)) {
+            to--;
+        }
+        return new Range(from, to + 1);
+    }
+
+    public boolean isTemporalObfuscated(Measurement measurement, long startTime, long endTime) {
+        return measurement.getTime() - startTime <= timeMillis
+                || endTime - measurement.getTime() <= timeMillis;
+    }
+
+    public boolean isSpatialObfuscated(Measurement measurement, Measurement first,
+                                       Measurement last) {
+        return isSpatialObfuscated(measurement, new Reference(first), new Reference(last));
+    }
+
+    boolean isObfuscated(Measurement measurement, long startTime, long endTime,
+                         Reference first, Reference last) {
+        return isTemporalObfuscated(measurement, startTime, endTime)
+                || isSpatialObfuscated(measurement, first, last);
+    }
+
+    private boolean isSpatialObfuscated(Measurement measurement, Reference first,
+                                        Reference last) {
+        double latitude = Math.toRadians(measurement.getLatitude());
+        double longitude = Math.toRadians(measurement.getLongitude());
+        double cosLatitude = Math.cos(latitude);
+        return isWithinDistance(first, measurement, latitude, longitude, cosLatitude)
+                || isWithinDistance(last, measurement, latitude, longitude, cosLatitude);
+    }
+
+    private boolean isWithinDistance(Reference reference, Measurement measurement,
+                                     double latitude, double longitude, double cosLatitude) {
+        double haversine = Geodesic.haversineTerm(reference.latitude, reference.cosLatitude,
+                latitude, cosLatitude, longitude - reference.longitude);
+
+        if (haversine < lowerHaversine) {
+            return true;
+        }
+        if (haversine > upperHaversine) {
+            return false;
+        }
+        // close to the radius, decide with the exact distance.
+        return LocationUtils.getDistance(reference.measurement, measurement) <= distanceKm;
+    }
+}
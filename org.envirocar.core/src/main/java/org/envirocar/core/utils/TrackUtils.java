@@ -24,8 +24,8 @@ import org.envirocar.core.exception.NoMeasurementsException;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.util.Util;
 
-import java.util.ArrayList;
-import java.util.List;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
 
 /**
  * TODO JavaDoc
@@ -35,9 +35,6 @@ import java.util.List;
 public class TrackUtils {
     private static final Logger LOG = Logger.getLogger(TrackUtils.class);
 
-    private static final double OBFUSCATION_DISTANCE_KM = 0.25;
-    private static final int OBFUSCATION_TIME_MS = 60000;
-
     /**
      * resolve all not obfuscated measurements of a track.
      * <p>
@@ -47,66 +44,100 @@ public class TrackUtils {
      *
      * @param track
      * @return
+     * @see TrackObfuscator
      */
     public static Track getObfuscatedTrack(Track track) throws NoMeasurementsException {
-        Track result = track.carbonCopy();
-        result.setMeasurements(getNonObfuscatedMeasurements(track));
-        return result;
+        return getObfuscatedTrack(track, TrackObfuscator.DEFAULT);
     }
 
-    private static List<Measurement> getNonObfuscatedMeasurements(Track track) throws NoMeasurementsException {
-        List<Measurement> measurements = track.getMeasurements();
-
-        List<Measurement> nonPrivateMeasurements = new ArrayList<Measurement>();
+    /**
+     * resolve all not obfuscated measurements of a track with the thresholds of the given
+     * obfuscator.
+     *
+     * @param track      the track to obfuscate.
+     * @param obfuscator the obfuscator to use.
+     * @return a copy of the track with the non obfuscated measurements.
+     */
+    public static Track getObfuscatedTrack(Track track, TrackObfuscator obfuscator)
+            throws NoMeasurementsException {
         try {
-            int first = determineFirstNonObfuscatedIndex(measurements, track);
-            int last = determineLastNonObfuscatedIndex(measurements, track);
-
-            if (first == -1 || last == -1) {
-                LOG.warn("Could not determine first/last non-obfuscated measurements.");
-                throw new NoMeasurementsException("No obfuscated measurements available.");
-            }
-
-            for (int i = first; i <= last; i++) {
-                nonPrivateMeasurements.add(measurements.get(i));
-            }
-
-            return nonPrivateMeasurements;
+            return obfuscator.obfuscate(track);
         } catch (NoMeasurementsException e) {
             LOG.warn("Could not obfuscate track");
             throw e;
         }
     }
 
-    private static int determineFirstNonObfuscatedIndex(List<Measurement> measurements, Track track) throws NoMeasurementsException {
-        for (int i = 0; i < measurements.size(); i++) {
-            Measurement m = measurements.get(i);
-            if (!isTemporalObfuscated(m, track) && !isSpatialObfuscated(m, track)) {
-                return i;
-            }
-        }
-
-        return -1;
+    /**
+     * Streaming variant of {@link #getObfuscatedTrack(Track)}. The measurements are read in two
+     * passes: the first pass determines the range of non obfuscated measurements and the second
+     * pass, which is run on every subscription of the emitted flowable, skips the measurements
+     * outside of this range. No measurements are held back, so the memory usage does not depend
+     * on the length of the track. The given flowable therefore has to emit the same measurements
+     * every time it is subscribed, e.g. {@link org.envirocar.core.EnviroCarDB#getMeasurements}.
+     *
+     * @param track        the track providing the start and end time.
+     * @param first        the first measurement of the track.
+     * @param last         the last measurement of the track.
+     * @param measurements the time ordered measurements of the track.
+     * @return a single emitting the non obfuscated measurements or an error if all measurements
+     * are obfuscated.
+     */
+    public static Single<Flowable<Measurement>> getObfuscatedMeasurements(
+            Track track, Measurement first, Measurement last, Flowable<Measurement> measurements) {
+        return getObfuscatedMeasurements(track, first, last, measurements,
+                TrackObfuscator.DEFAULT);
     }
 
-    private static int determineLastNonObfuscatedIndex(List<Measurement> measurements, Track track) throws NoMeasurementsException {
-        for (int i = measurements.size()-1; i >= 0; i--) {
-            Measurement m = measurements.get(i);
-            if (!isTemporalObfuscated(m, track) && !isSpatialObfuscated(m, track)) {
-                return i;
-            }
-        }
-
-        return -1;
+    /**
+     * Streaming variant of {@link #getObfuscatedTrack(Track, TrackObfuscator)}.
+     *
+     * @see #getObfuscatedMeasurements(Track, Measurement, Measurement, Flowable)
+     */
+    public static Single<Flowable<Measurement>> getObfuscatedMeasurements(
+            Track track, Measurement first, Measurement last, Flowable<Measurement> measurements,
+            TrackObfuscator obfuscator) {
+        return Single.defer(() -> {
+            long startTime = track.getStartTime();
+            long endTime = track.getEndTime();
+            TrackObfuscator.Reference firstReference = new TrackObfuscator.Reference(first);
+            TrackObfuscator.Reference lastReference = new TrackObfuscator.Reference(last);
+
+            // {index, first non obfuscated index, last non obfuscated index}
+            return measurements
+                    .reduce(new long[]{0, -1, -1}, (range, m) -> {
+                        if (!obfuscator.isObfuscated(
+                                m, startTime, endTime, firstReference, lastReference)) {
+                            if (range[1] < 0) {
+                                range[1] = range[0];
+                            }
+                            range[2] = range[0];
+                        }
+                        range[0]++;
+                        return range;
+                    })
+                    .map(range -> {
+                        if (range[1] < 0) {
+                            throw new NoMeasurementsException("No obfuscated measurements available.");
+                        }
+                        return measurements.skip(range[1]).take(range[2] - range[1] + 1);
+                    });
+        });
     }
 
     public static final boolean isSpatialObfuscated(Measurement measurement, Track track) throws NoMeasurementsException {
-        return (LocationUtils.getDistance(track.getFirstMeasurement(), measurement) <= OBFUSCATION_DISTANCE_KM)
-                || (LocationUtils.getDistance(track.getLastMeasurement(), measurement) <= OBFUSCATION_DISTANCE_KM);
+        return isSpatialObfuscated(measurement, track.getFirstMeasurement(), track.getLastMeasurement());
+    }
+
+    public static final boolean isSpatialObfuscated(Measurement measurement, Measurement first, Measurement last) {
+        return TrackObfuscator.DEFAULT.isSpatialObfuscated(measurement, first, last);
     }
 
     public static final boolean isTemporalObfuscated(Measurement measurement, Track track) throws NoMeasurementsException {
-        return (measurement.getTime() - track.getStartTime() <= OBFUSCATION_TIME_MS ||
-                track.getEndTime() - measurement.getTime() <= OBFUSCATION_TIME_MS);
+        return isTemporalObfuscated(measurement, track.getStartTime(), track.getEndTime());
+    }
+
+    public static final boolean isTemporalObfuscated(Measurement measurement, long startTime, long endTime) {
+        return TrackObfuscator.DEFAULT.isTemporalObfuscated(measurement, startTime, endTime);
     }
 }
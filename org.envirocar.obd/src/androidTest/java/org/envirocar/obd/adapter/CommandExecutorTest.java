@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.adapter;
+
+import android.test.InstrumentationTestCase;
+
+import org.envirocar.obd.exception.StreamFinishedException;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class CommandExecutorTest extends InstrumentationTestCase {
+
+    @Test
+    public void testLinesOfSingleRead() throws IOException, StreamFinishedException {
+        CommandExecutor executor = createExecutor("41 0D 32\r410C1AF8\r>\r");
+
+        Assert.assertThat(new String(executor.retrieveLatestResponse()), CoreMatchers.is("410D32"));
+        Assert.assertThat(new String(executor.retrieveLatestResponse()), CoreMatchers.is("410C1AF8"));
+        Assert.assertThat(executor.retrieveLatestResponse().length, CoreMatchers.is(0));
+    }
+
+    @Test
+    public void testLongLine() throws IOException, StreamFinishedException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            line.append((char) ('A' + i % 6));
+        }
+        CommandExecutor executor = createExecutor(line + "\r");
+
+        Assert.assertThat(new String(executor.retrieveLatestResponse()), CoreMatchers.is(line.toString()));
+    }
+
+    @Test
+    public void testStreamFinished() throws IOException {
+        CommandExecutor executor = createExecutor("410D32");
+        try {
+            executor.retrieveLatestResponse();
+            Assert.fail("Expected the stream to be finished");
+        } catch (StreamFinishedException e) {
+            // expected
+        }
+    }
+
+    private CommandExecutor createExecutor(String input) {
+        return new CommandExecutor(new ByteArrayInputStream(input.getBytes()),
+                new ByteArrayOutputStream(),
+                new HashSet<>(Arrays.asList(' ', '>')), '\r', '\r');
+    }
+
+}
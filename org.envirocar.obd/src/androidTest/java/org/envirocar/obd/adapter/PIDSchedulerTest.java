@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.adapter;
+
+import android.test.InstrumentationTestCase;
+
+import org.envirocar.obd.commands.PID;
+import org.envirocar.obd.commands.PIDUtil;
+import org.envirocar.obd.commands.request.PIDCommand;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+public class PIDSchedulerTest extends InstrumentationTestCase {
+
+    @Test
+    public void testRateLimitedPIDs() {
+        PIDScheduler scheduler = new PIDScheduler(commands(PID.SPEED, PID.RPM, PID.INTAKE_AIR_TEMP),
+                PIDScheduler.DEFAULT_TARGET_RATES);
+
+        Map<PID, Integer> counts = simulate(scheduler, 100, 60000);
+
+        // 0.2 Hz over one minute
+        Assert.assertThat(counts.get(PID.INTAKE_AIR_TEMP), CoreMatchers.is(12));
+        Assert.assertTrue(counts.get(PID.SPEED) > 250);
+        Assert.assertTrue(Math.abs(counts.get(PID.SPEED) - counts.get(PID.RPM)) <= 1);
+        Assert.assertEquals(5.0, scheduler.getEffectiveRate(PID.SPEED), 0.5);
+    }
+
+    @Test
+    public void testSlowAdapterStretchesIntervals() {
+        List<PIDCommand> commands = commands(PID.SPEED, PID.TPS, PID.CALCULATED_ENGINE_LOAD);
+        PIDScheduler scheduler = new PIDScheduler(commands, PIDScheduler.DEFAULT_TARGET_RATES);
+
+        // with one response per second the rate limited PIDs may only use half of the link
+        Map<PID, Integer> counts = simulate(scheduler, 1000, 60000);
+
+        Assert.assertTrue(counts.get(PID.SPEED) >= 28);
+        Assert.assertTrue(counts.get(PID.TPS) <= 16);
+    }
+
+    @Test
+    public void testRemove() {
+        PIDScheduler scheduler = new PIDScheduler(commands(PID.SPEED), PIDScheduler.DEFAULT_TARGET_RATES);
+        scheduler.remove(PID.SPEED);
+
+        Assert.assertTrue(scheduler.isEmpty());
+        Assert.assertNull(scheduler.next(0));
+    }
+
+    private Map<PID, Integer> simulate(PIDScheduler scheduler, long roundTrip, long duration) {
+        Map<PID, Integer> counts = new EnumMap<>(PID.class);
+        for (long now = 0; now < duration; now += roundTrip) {
+            PIDCommand command = scheduler.next(now);
+            scheduler.onRoundTrip(roundTrip);
+            scheduler.onResponse(command.getPid(), now + roundTrip);
+
+            Integer count = counts.get(command.getPid());
+            counts.put(command.getPid(), count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+
+    private List<PIDCommand> commands(PID... pids) {
+        PIDCommand[] result = new PIDCommand[pids.length];
+        for (int i = 0; i < pids.length; i++) {
+            result[i] = PIDUtil.instantiateCommand(pids[i]);
+        }
+        return Arrays.asList(result);
+    }
+}
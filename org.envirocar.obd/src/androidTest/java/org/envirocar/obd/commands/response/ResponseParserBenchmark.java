@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.commands.response;
+
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+import org.envirocar.obd.commands.PID;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the throughput of the {@link ResponseParser} against the former String based
+ * decoding on a trace of typical adapter responses.
+ */
+public class ResponseParserBenchmark extends InstrumentationTestCase {
+    private static final String TAG = ResponseParserBenchmark.class.getSimpleName();
+
+    private static final int ITERATIONS = 20000;
+
+    private static final byte[][] TRACE = {
+            "410D32".getBytes(),
+            "410C1AF8".getBytes(),
+            "41100F3C".getBytes(),
+            "410B64".getBytes(),
+            "410F4B".getBytes(),
+            "41112A".getBytes(),
+            "410480".getBytes(),
+            "41068A".getBytes(),
+            "410776".getBytes(),
+            "412407FF0028".getBytes(),
+            "41341DBC3B48".getBytes(),
+            "410A20".getBytes()
+    };
+
+    @Test
+    public void testParserThroughput() throws Exception {
+        ResponseParser parser = new ResponseParser();
+
+        // warm up and check that both parsers agree
+        for (byte[] response : TRACE) {
+            Assert.assertThat(parser.parse(response).getPid(),
+                    CoreMatchers.is(legacyParse(response)));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (byte[] response : TRACE) {
+                parser.parse(response);
+            }
+        }
+        long parserTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (byte[] response : TRACE) {
+                legacyParse(response);
+            }
+        }
+        long legacyTime = System.nanoTime() - start;
+
+        long responses = (long) ITERATIONS * TRACE.length;
+        Log.i(TAG, String.format("parser: %s responses/s", responses * 1000000000L / Math.max(1, parserTime)));
+        Log.i(TAG, String.format("legacy: %s responses/s", responses * 1000000000L / Math.max(1, legacyTime)));
+    }
+
+    /**
+     * The decoding as it was done before, without creating the response entity.
+     */
+    private static PID legacyParse(byte[] data) {
+        String dataString = new String(data);
+        if (dataString.contains("SEARCHING") || dataString.contains("NODATA")) {
+            return null;
+        }
+
+        int[] buffer = new int[data.length / 2];
+        PID pid = null;
+        for (int index = 0; index + 2 <= data.length; index += 2) {
+            String tmp = new String(data, index, 2);
+            if (index == 2) {
+                for (PID p : PID.values()) {
+                    if (tmp.equalsIgnoreCase(p.getHexadecimalRepresentation())) {
+                        pid = p;
+                    }
+                }
+            } else if (index > 2) {
+                buffer[index / 2] = Integer.parseInt(tmp, 16);
+            }
+        }
+        return pid;
+    }
+}
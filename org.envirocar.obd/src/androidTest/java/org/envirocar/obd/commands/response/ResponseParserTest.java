@@ -21,7 +21,10 @@ package org.envirocar.obd.commands.response;
 import android.test.InstrumentationTestCase;
 
 import org.envirocar.obd.commands.PID;
+import org.envirocar.obd.commands.response.entity.EngineRPMResponse;
 import org.envirocar.obd.commands.response.entity.LambdaProbeVoltageResponse;
+import org.envirocar.obd.commands.response.entity.MAFResponse;
+import org.envirocar.obd.commands.response.entity.SpeedResponse;
 import org.envirocar.obd.exception.AdapterSearchingException;
 import org.envirocar.obd.exception.InvalidCommandResponseException;
 import org.envirocar.obd.exception.NoDataReceivedException;
@@ -30,6 +33,9 @@ import org.hamcrest.CoreMatchers;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ResponseParserTest extends InstrumentationTestCase {
 
     @Test
@@ -61,4 +67,74 @@ public class ResponseParserTest extends InstrumentationTestCase {
         Assert.assertThat(parse, CoreMatchers.instanceOf(LambdaProbeVoltageResponse.class));
     }
 
+    @Test
+    public void testMultiPIDSingleFrame() throws Exception {
+        ResponseParser responseParser = new ResponseParser();
+        List<DataResponse> result = new ArrayList<>();
+
+        responseParser.parseMultiple("410C1AF80D32".getBytes(), result);
+
+        Assert.assertThat(result.size(), CoreMatchers.is(2));
+        Assert.assertThat(result.get(0), CoreMatchers.instanceOf(EngineRPMResponse.class));
+        Assert.assertThat(result.get(0).getValue().intValue(), CoreMatchers.is((0x1A * 256 + 0xF8) / 4));
+        Assert.assertThat(result.get(1), CoreMatchers.instanceOf(SpeedResponse.class));
+        Assert.assertThat(result.get(1).getValue().intValue(), CoreMatchers.is(0x32));
+    }
+
+    @Test
+    public void testMultiPIDMultiFrame() throws Exception {
+        ResponseParser responseParser = new ResponseParser();
+        List<DataResponse> result = new ArrayList<>();
+
+        // 9 bytes: 41 0C 1A F8 0D | 32 10 0F 3C, padded
+        responseParser.parseMultiple("0090:410C1AF80D1:32100F3C0000AA".getBytes(), result);
+
+        Assert.assertThat(result.size(), CoreMatchers.is(3));
+        Assert.assertThat(result.get(2), CoreMatchers.instanceOf(MAFResponse.class));
+        Assert.assertThat(result.get(2).getValue().floatValue(), CoreMatchers.is((0x0F * 256 + 0x3C) / 100.0f));
+    }
+
+    @Test
+    public void testMultiPIDSeveralECUs() throws Exception {
+        ResponseParser responseParser = new ResponseParser();
+        List<DataResponse> result = new ArrayList<>();
+
+        responseParser.parseMultiple("410C1AF80D32410D33".getBytes(), result);
+
+        Assert.assertThat(result.size(), CoreMatchers.is(3));
+        Assert.assertThat(result.get(2).getValue().intValue(), CoreMatchers.is(0x33));
+    }
+
+    @Test
+    public void testMultiPIDMultiFrameSeveralECUs() throws Exception {
+        ResponseParser responseParser = new ResponseParser();
+        List<DataResponse> result = new ArrayList<>();
+
+        // two ECUs with 9 bytes each: 41 0C 1A F8 0D 32 | 10 0F 3C and 41 0C 0F A0 0D 10 | 10 0A 28
+        responseParser.parseMultiple(("0090:410C1AF80D321:100F3CAAAAAAAA"
+                + "0090:410C0FA00D101:100A28AAAAAAAA").getBytes(), result);
+
+        Assert.assertThat(result.size(), CoreMatchers.is(6));
+        Assert.assertThat(result.get(0).getValue().intValue(), CoreMatchers.is((0x1A * 256 + 0xF8) / 4));
+        Assert.assertThat(result.get(1).getValue().intValue(), CoreMatchers.is(0x32));
+        Assert.assertThat(result.get(2).getValue().floatValue(), CoreMatchers.is((0x0F * 256 + 0x3C) / 100.0f));
+        Assert.assertThat(result.get(3), CoreMatchers.instanceOf(EngineRPMResponse.class));
+        Assert.assertThat(result.get(3).getValue().intValue(), CoreMatchers.is((0x0F * 256 + 0xA0) / 4));
+        Assert.assertThat(result.get(4), CoreMatchers.instanceOf(SpeedResponse.class));
+        Assert.assertThat(result.get(4).getValue().intValue(), CoreMatchers.is(0x10));
+        Assert.assertThat(result.get(5), CoreMatchers.instanceOf(MAFResponse.class));
+        Assert.assertThat(result.get(5).getValue().floatValue(), CoreMatchers.is((0x0A * 256 + 0x28) / 100.0f));
+    }
+
+    @Test
+    public void testMultiPIDUnknownResponse() throws Exception {
+        ResponseParser responseParser = new ResponseParser();
+        try {
+            responseParser.parseMultiple("7F0112".getBytes(), new ArrayList<>());
+            Assert.fail("Expected an UnmatchedResponseException");
+        } catch (UnmatchedResponseException e) {
+            // expected
+        }
+    }
+
 }
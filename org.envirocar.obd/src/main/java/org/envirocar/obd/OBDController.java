@@ -19,7 +19,6 @@
 package org.envirocar.obd;
 
 import com.google.common.base.Preconditions;
-import com.squareup.otto.Bus;
 
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.logging.Logger;
@@ -33,9 +32,7 @@ import org.envirocar.obd.bluetooth.BluetoothSocketWrapper;
 import org.envirocar.obd.commands.PID;
 import org.envirocar.obd.commands.PIDUtil;
 import org.envirocar.obd.commands.response.DataResponse;
-import org.envirocar.obd.events.PropertyKeyEvent;
-import org.envirocar.obd.events.RPMUpdateEvent;
-import org.envirocar.obd.events.SpeedUpdateEvent;
+import org.envirocar.obd.events.PropertyEventChannel;
 import org.envirocar.obd.exception.AllAdaptersFailedException;
 import org.envirocar.obd.exception.EngineNotRunningException;
 import org.reactivestreams.Subscriber;
@@ -49,7 +46,6 @@ import java.util.Queue;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observer;
-import io.reactivex.Scheduler;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.observers.DisposableObserver;
 import io.reactivex.schedulers.Schedulers;
@@ -77,22 +73,21 @@ public class OBDController {
     private ConnectionListener connectionListener;
     private String deviceName;
     private boolean userRequestedStop = false;
-    private Bus eventBus;
-    private Scheduler.Worker eventBusWorker;
+    private PropertyEventChannel eventChannel;
 
     /**
      * Default Constructor.
      *
      * @param bluetoothSocketWrapper
      * @param cl
-     * @param bus
+     * @param eventChannel
      */
     public OBDController(BluetoothSocketWrapper bluetoothSocketWrapper, ConnectionListener cl,
-                         Bus bus) throws IOException {
+                         PropertyEventChannel eventChannel) throws IOException {
         this(bluetoothSocketWrapper.getInputStream(),
                 bluetoothSocketWrapper.getOutputStream(),
                 bluetoothSocketWrapper.getRemoteDeviceName(),
-                cl, bus);
+                cl, eventChannel);
     }
 
     /**
@@ -101,9 +96,11 @@ public class OBDController {
      * @param in  the inputStream of the connection
      * @param out the outputStream of the connection
      * @param cl  the connection listener which receives connection state changes
+     * @param eventChannel the channel the received values are published on
      */
     public OBDController(InputStream in, OutputStream out,
-                         String deviceName, ConnectionListener cl, Bus bus) {
+                         String deviceName, ConnectionListener cl,
+                         PropertyEventChannel eventChannel) {
         this.inputStream = Preconditions.checkNotNull(in);
         this.outputStream = Preconditions.checkNotNull(out);
         this.connectionListener = Preconditions.checkNotNull(cl);
@@ -112,10 +109,7 @@ public class OBDController {
         setupAdapterCandidates();
         startPreferredAdapter();
 
-        this.eventBus = bus;
-        if (this.eventBus != null) {
-            this.eventBusWorker = Schedulers.io().createWorker();
-        }
+        this.eventChannel = eventChannel;
     }
 
     /**
@@ -306,30 +300,22 @@ public class OBDController {
 
             @Override
             public void onNext(DataResponse dataResponse) {
-                pushToEventBus(dataResponse);
+                publish(dataResponse);
             }
         };
     }
 
-    private void pushToEventBus(DataResponse dataResponse) {
-        eventBusWorker.schedule(() -> {
-            PropertyKeyEvent[] pkes = createEventsFromDataResponse(dataResponse);
-
-            for (PropertyKeyEvent pke : pkes) {
-                eventBus.post(pke);
-            }
-
-            PID pid = dataResponse.getPid();
-            if (pid == PID.SPEED) {
-                eventBus.post(new SpeedUpdateEvent(dataResponse.getValue().intValue()));
-            } else if (pid == PID.RPM) {
-                eventBus.post(new RPMUpdateEvent(dataResponse.getValue().intValue()));
-            }
-        });
-    }
+    /**
+     * publishes the values of the response on the event channel. This is done on the thread of
+     * the data subscription, the listeners of the channel are expected to return quickly.
+     */
+    protected void publish(DataResponse dataResponse) {
+        if (eventChannel == null) {
+            return;
+        }
 
-    protected PropertyKeyEvent[] createEventsFromDataResponse(DataResponse dataResponse) {
         PID pid = dataResponse.getPid();
+        long timestamp = dataResponse.getTimestamp();
         switch (pid) {
 //            case FUEL_SYSTEM_STATUS:
             case CALCULATED_ENGINE_LOAD:
@@ -342,10 +328,11 @@ public class OBDController {
             case INTAKE_AIR_TEMP:
             case MAF:
             case TPS:
-                return new PropertyKeyEvent[]{
-                        new PropertyKeyEvent(PIDUtil.toPropertyKey(pid),
-                                dataResponse.getValue(), dataResponse.getTimestamp())
-                };
+                Number value = dataResponse.getValue();
+                if (value != null) {
+                    eventChannel.publish(PIDUtil.toPropertyKey(pid), value.doubleValue(), timestamp);
+                }
+                break;
             case O2_LAMBDA_PROBE_1_VOLTAGE:
             case O2_LAMBDA_PROBE_2_VOLTAGE:
             case O2_LAMBDA_PROBE_3_VOLTAGE:
@@ -354,12 +341,9 @@ public class OBDController {
             case O2_LAMBDA_PROBE_6_VOLTAGE:
             case O2_LAMBDA_PROBE_7_VOLTAGE:
             case O2_LAMBDA_PROBE_8_VOLTAGE:
-                return new PropertyKeyEvent[]{
-                        new PropertyKeyEvent(Measurement.PropertyKey.LAMBDA_VOLTAGE_ER,
-                                dataResponse.getCompositeValues()[0], dataResponse.getTimestamp()),
-                        new PropertyKeyEvent(Measurement.PropertyKey.LAMBDA_VOLTAGE,
-                                dataResponse.getCompositeValues()[1], dataResponse.getTimestamp())
-                };
+                publishComposite(dataResponse, Measurement.PropertyKey.LAMBDA_VOLTAGE_ER,
+                        Measurement.PropertyKey.LAMBDA_VOLTAGE);
+                break;
             case O2_LAMBDA_PROBE_1_CURRENT:
             case O2_LAMBDA_PROBE_2_CURRENT:
             case O2_LAMBDA_PROBE_3_CURRENT:
@@ -368,15 +352,17 @@ public class OBDController {
             case O2_LAMBDA_PROBE_6_CURRENT:
             case O2_LAMBDA_PROBE_7_CURRENT:
             case O2_LAMBDA_PROBE_8_CURRENT:
-                return new PropertyKeyEvent[]{
-                        new PropertyKeyEvent(Measurement.PropertyKey.LAMBDA_CURRENT_ER,
-                                dataResponse.getCompositeValues()[0], dataResponse.getTimestamp()),
-                        new PropertyKeyEvent(Measurement.PropertyKey.LAMBDA_CURRENT,
-                                dataResponse.getCompositeValues()[1], dataResponse.getTimestamp())
-                };
+                publishComposite(dataResponse, Measurement.PropertyKey.LAMBDA_CURRENT_ER,
+                        Measurement.PropertyKey.LAMBDA_CURRENT);
+                break;
         }
+    }
 
-        return new PropertyKeyEvent[0];
+    private void publishComposite(DataResponse dataResponse, Measurement.PropertyKey first,
+                                  Measurement.PropertyKey second) {
+        Number[] values = dataResponse.getCompositeValues();
+        eventChannel.publish(first, values[0].doubleValue(), dataResponse.getTimestamp());
+        eventChannel.publish(second, values[1].doubleValue(), dataResponse.getTimestamp());
     }
 
     /**
@@ -24,11 +24,10 @@ import org.envirocar.core.logging.Logger;
 import org.envirocar.obd.commands.request.BasicCommand;
 import org.envirocar.obd.exception.StreamFinishedException;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Set;
 
 import io.reactivex.Observable;
@@ -38,7 +37,10 @@ import io.reactivex.ObservableOnSubscribe;
 public class CommandExecutor {
 
     private static final Logger LOGGER = Logger.getLogger(CommandExecutor.class.getName());
-    private final Set<Byte> ignoredChars;
+    private static final int READ_BUFFER_SIZE = 1024;
+    private static final int INITIAL_LINE_SIZE = 64;
+
+    private final boolean[] ignoredChars = new boolean[256];
     private final byte endOfLineOutput;
     private final byte endOfLineInput;
     private OutputStream outputStream;
@@ -47,15 +49,22 @@ public class CommandExecutor {
     private boolean logEverything = false;
     private int currentLogLevel = Logger.DEBUG;
 
+    // bytes read from the stream but not yet framed into a line
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private int readPosition;
+    private int readLimit;
+
+    // the current line, reused for every line
+    private byte[] lineBuffer = new byte[INITIAL_LINE_SIZE];
+    private int lineLength;
+
 
     public CommandExecutor(InputStream is, OutputStream os,
                            Set<Character> ignoredChars, Character endOfLineInput, Character endOfLineOutput) {
         this.inputStream = is;
         this.outputStream = os;
-        this.ignoredChars = new HashSet<>(ignoredChars.size());
-
         for (Character c : ignoredChars) {
-            this.ignoredChars.add((byte) c.charValue());
+            this.ignoredChars[c.charValue() & 0xFF] = true;
         }
 
         this.endOfLineOutput = (byte) endOfLineOutput.charValue();
@@ -85,7 +94,7 @@ public class CommandExecutor {
         byte[] bytes = cmd.getOutputBytes();
 
         if (LOGGER.isEnabled(this.currentLogLevel)) {
-            LOGGER.log(this.currentLogLevel, "Sending bytes: " + new String(bytes));
+            LOGGER.log(this.currentLogLevel, "Sending bytes: %s", new LoggedBytes(bytes, false));
         }
 
         // write to OutputStream, or in this case a BluetoothSocket
@@ -116,29 +125,21 @@ public class CommandExecutor {
 
 
     private byte[] readResponseLine() throws IOException, StreamFinishedException {
-        // TODO
-//        LOGGER.info("Reading response line...");
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
         // read until end of line arrives
-        readUntilLineEnd(baos);
-
-        byte[] byteArray = baos.toByteArray();
+        lineLength = 0;
+        readUntilLineEnd();
 
         //some adapter (i.e. the drivedeck) MIGHT respond with linebreaks as actual data - detect this
-        if (quirk != null && quirk.shouldWaitForNextTokenLine(byteArray)) {
+        if (quirk != null && quirk.shouldWaitForNextTokenLine(lineBuffer, 0, lineLength)) {
             LOGGER.info("Detected quirk: " + this.quirk.getClass().getSimpleName());
 
             //re-add the end of line, it was dismissed previously
-            baos.write(this.endOfLineInput);
-            readUntilLineEnd(baos);
-            byteArray = baos.toByteArray();
+            appendToLine(this.endOfLineInput);
+            readUntilLineEnd();
         }
 
-        if (byteArray.length == 0) {
+        if (lineLength == 0) {
             LOGGER.info("Unexpected empty line anomaly detected. Try to read next line.");
-//            baos.reset();
 
             try {
                 Thread.sleep(100);
@@ -146,20 +147,26 @@ public class CommandExecutor {
             }
 
             if (isDataAvailable()){
-                readUntilLineEnd(baos);
-                byteArray = baos.toByteArray();
+                readUntilLineEnd();
             }
 
         }
 
+        // the line is handed out to the callers, so it has to be a copy of the buffer
+        byte[] byteArray = Arrays.copyOf(lineBuffer, lineLength);
+
         if (LOGGER.isEnabled(currentLogLevel)) {
-            LOGGER.log(currentLogLevel, "Received bytes: " + Base64.encodeToString(byteArray, Base64.DEFAULT));
+            LOGGER.log(currentLogLevel, "Received bytes: %s", new LoggedBytes(byteArray, true));
         }
 
         return byteArray;
     }
 
     public boolean isDataAvailable(){
+        if (readPosition < readLimit) {
+            return true;
+        }
+
         try {
             return inputStream.available() > 0;
         } catch (Exception e){
@@ -167,24 +174,64 @@ public class CommandExecutor {
         }
     }
 
-    private void readUntilLineEnd(ByteArrayOutputStream baos) throws IOException, StreamFinishedException {
-        int i = inputStream.read();
-        byte b = (byte) i;
-        while (b != this.endOfLineInput) {
-            if (i == -1) {
-                throw new StreamFinishedException("Stream finished");
+    /**
+     * Appends the bytes up to the next end of line to the current line. Ignored characters are
+     * dropped, the end of line itself is consumed.
+     */
+    private void readUntilLineEnd() throws IOException, StreamFinishedException {
+        while (true) {
+            if (readPosition == readLimit) {
+                fillReadBuffer();
             }
 
-            if (!ignoredChars.contains(b)) {
-                baos.write(b);
+            while (readPosition < readLimit) {
+                byte b = readBuffer[readPosition++];
+                if (b == this.endOfLineInput) {
+                    return;
+                }
+
+                if (!ignoredChars[b & 0xFF]) {
+                    appendToLine(b);
+                }
             }
+        }
+    }
+
+    private void fillReadBuffer() throws IOException, StreamFinishedException {
+        int count = inputStream.read(readBuffer, 0, readBuffer.length);
+        if (count == -1) {
+            throw new StreamFinishedException("Stream finished");
+        }
+        readPosition = 0;
+        readLimit = count;
+    }
 
-            i = inputStream.read();
-            b = (byte) i;
+    private void appendToLine(byte b) {
+        if (lineLength == lineBuffer.length) {
+            lineBuffer = Arrays.copyOf(lineBuffer, lineBuffer.length * 2);
         }
+        lineBuffer[lineLength++] = b;
     }
 
     public byte[] retrieveLatestResponse() throws IOException, StreamFinishedException {
         return readResponseLine();
     }
+
+    /**
+     * Defers the encoding of logged bytes to the log writer thread.
+     */
+    private static final class LoggedBytes {
+        private final byte[] bytes;
+        private final boolean base64;
+
+        LoggedBytes(byte[] bytes, boolean base64) {
+            this.bytes = bytes;
+            this.base64 = base64;
+        }
+
+        @Override
+        public String toString() {
+            return base64 ? Base64.encodeToString(bytes, Base64.DEFAULT) : new String(bytes);
+        }
+    }
 }
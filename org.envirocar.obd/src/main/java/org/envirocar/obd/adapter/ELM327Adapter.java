@@ -118,6 +118,11 @@ public class ELM327Adapter extends SyncAdapter {
         return succesfulCount >= 5;
     }
 
+    @Override
+    protected boolean supportsMultiPIDRequests() {
+        return true;
+    }
+
     @Override
     protected byte[] preProcess(byte[] bytes) {
         return bytes;
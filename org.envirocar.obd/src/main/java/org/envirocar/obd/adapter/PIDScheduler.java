@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.adapter;
+
+import org.envirocar.obd.commands.PID;
+import org.envirocar.obd.commands.request.PIDCommand;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which PID is requested next. PIDs without a target rate are requested as often as
+ * possible in a round robin. PIDs with a target rate are requested once they are due, and
+ * their intervals are stretched when the observed round trip time of the adapter does not
+ * leave enough bandwidth for the unlimited PIDs.
+ *
+ * @author dewall
+ */
+public class PIDScheduler {
+
+    /**
+     * Target rate for PIDs that should be requested as often as possible.
+     */
+    public static final double MAX_RATE = Double.POSITIVE_INFINITY;
+
+    /**
+     * Default target rates in Hz. PIDs that are not contained are requested at {@link #MAX_RATE}.
+     */
+    public static final Map<PID, Double> DEFAULT_TARGET_RATES;
+
+    static {
+        Map<PID, Double> rates = new EnumMap<>(PID.class);
+        rates.put(PID.INTAKE_AIR_TEMP, 0.2);
+        rates.put(PID.SHORT_TERM_FUEL_TRIM_BANK_1, 0.2);
+        rates.put(PID.LONG_TERM_FUEL_TRIM_BANK_1, 0.2);
+        rates.put(PID.FUEL_PRESSURE, 0.2);
+        rates.put(PID.CALCULATED_ENGINE_LOAD, 1.0);
+        rates.put(PID.TPS, 1.0);
+        for (PID pid : PID.values()) {
+            if (pid.name().startsWith("O2_LAMBDA_PROBE")) {
+                rates.put(pid, 1.0);
+            }
+        }
+        DEFAULT_TARGET_RATES = Collections.unmodifiableMap(rates);
+    }
+
+    // the share of the link capacity the rate limited PIDs may use while unlimited PIDs exist.
+    private static final double MAX_LIMITED_SHARE = 0.5;
+    // weight of a new sample in the moving averages.
+    private static final double SMOOTHING = 0.2;
+
+    private static class Entry {
+        private final PIDCommand command;
+        private final double targetRate;
+        private long nextDue;
+        private long lastResponse = -1;
+        private double averageInterval = -1;
+
+        private Entry(PIDCommand command, double targetRate) {
+            this.command = command;
+            this.targetRate = targetRate;
+        }
+    }
+
+    private final Map<PID, Entry> entries = new EnumMap<>(PID.class);
+    private final List<Entry> unlimitedEntries = new ArrayList<>();
+    private final List<Entry> limitedEntries = new ArrayList<>();
+    private int nextUnlimited;
+
+    private double averageRoundTrip = -1;
+    private double intervalScale = 1.0;
+
+    /**
+     * Constructor.
+     *
+     * @param commands    the commands to schedule.
+     * @param targetRates the target rates in Hz. PIDs that are not contained are requested at
+     *                    {@link #MAX_RATE}.
+     */
+    public PIDScheduler(List<PIDCommand> commands, Map<PID, Double> targetRates) {
+        for (PIDCommand command : commands) {
+            if (command == null || entries.containsKey(command.getPid())) {
+                continue;
+            }
+
+            Double rate = targetRates.get(command.getPid());
+            Entry entry = new Entry(command, rate != null && rate > 0 ? rate : MAX_RATE);
+            entries.put(command.getPid(), entry);
+            if (Double.isInfinite(entry.targetRate)) {
+                unlimitedEntries.add(entry);
+            } else {
+                limitedEntries.add(entry);
+            }
+        }
+    }
+
+    /**
+     * @param now the current time in ms.
+     * @return the command to send next or null if no commands are scheduled.
+     */
+    public PIDCommand next(long now) {
+        // the most overdue rate limited PID goes first.
+        Entry due = null;
+        for (Entry entry : limitedEntries) {
+            if (entry.nextDue <= now && (due == null || entry.nextDue < due.nextDue)) {
+                due = entry;
+            }
+        }
+
+        if (due == null && !unlimitedEntries.isEmpty()) {
+            nextUnlimited = nextUnlimited % unlimitedEntries.size();
+            return unlimitedEntries.get(nextUnlimited++).command;
+        }
+
+        if (due == null) {
+            // only rate limited PIDs are left, take the one that is due next.
+            for (Entry entry : limitedEntries) {
+                if (due == null || entry.nextDue < due.nextDue) {
+                    due = entry;
+                }
+            }
+            if (due == null) {
+                return null;
+            }
+        }
+
+        due.nextDue = now + (long) (intervalScale * 1000 / due.targetRate);
+        return due.command;
+    }
+
+    /**
+     * Updates the observed round trip time of the adapter and adjusts the intervals of the rate
+     * limited PIDs to the resulting link capacity.
+     *
+     * @param millis the time between sending a command and receiving its response.
+     */
+    public void onRoundTrip(long millis) {
+        averageRoundTrip = average(averageRoundTrip, Math.max(1, millis));
+
+        double limitedDemand = 0;
+        for (Entry entry : limitedEntries) {
+            limitedDemand += entry.targetRate;
+        }
+
+        double capacity = 1000 / averageRoundTrip;
+        double share = unlimitedEntries.isEmpty() ? 1.0 : MAX_LIMITED_SHARE;
+        intervalScale = Math.max(1.0, limitedDemand / (capacity * share));
+    }
+
+    /**
+     * Records a response for a PID.
+     *
+     * @param pid the PID that has been answered.
+     * @param now the current time in ms.
+     */
+    public void onResponse(PID pid, long now) {
+        Entry entry = entries.get(pid);
+        if (entry == null) {
+            return;
+        }
+
+        if (entry.lastResponse >= 0) {
+            entry.averageInterval = average(entry.averageInterval, now - entry.lastResponse);
+        }
+        entry.lastResponse = now;
+    }
+
+    /**
+     * Removes a PID from the schedule, e.g. because it failed too often.
+     *
+     * @param pid the PID to remove.
+     */
+    public void remove(PID pid) {
+        Entry entry = entries.remove(pid);
+        if (entry != null) {
+            unlimitedEntries.remove(entry);
+            limitedEntries.remove(entry);
+        }
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @return the average round trip time in ms or -1 if nothing has been observed yet.
+     */
+    public double getAverageRoundTrip() {
+        return averageRoundTrip;
+    }
+
+    /**
+     * @param pid the PID.
+     * @return the observed response rate of the PID in Hz.
+     */
+    public double getEffectiveRate(PID pid) {
+        Entry entry = entries.get(pid);
+        if (entry == null || entry.averageInterval <= 0) {
+            return 0.0;
+        }
+        return 1000 / entry.averageInterval;
+    }
+
+    /**
+     * @return the observed response rates of all scheduled PIDs in Hz.
+     */
+    public Map<PID, Double> getEffectiveRates() {
+        Map<PID, Double> result = new EnumMap<>(PID.class);
+        for (PID pid : entries.keySet()) {
+            result.put(pid, getEffectiveRate(pid));
+        }
+        return result;
+    }
+
+    private static double average(double current, double sample) {
+        return current < 0 ? sample : current + SMOOTHING * (sample - current);
+    }
+}
@@ -18,8 +18,23 @@
  */
 package org.envirocar.obd.adapter;
 
+import java.util.Arrays;
+
 public interface ResponseQuirkWorkaround {
 
     boolean shouldWaitForNextTokenLine(byte[] byteArray);
 
+    /**
+     * Variant of {@link #shouldWaitForNextTokenLine(byte[])} for a line within a reused buffer.
+     * Implementations should override it to avoid copying the line.
+     *
+     * @param buffer the buffer holding the line
+     * @param offset the offset of the line in the buffer
+     * @param length the length of the line
+     * @return true if the line ended with a line break that was part of the data
+     */
+    default boolean shouldWaitForNextTokenLine(byte[] buffer, int offset, int length) {
+        return shouldWaitForNextTokenLine(Arrays.copyOfRange(buffer, offset, offset + length));
+    }
+
 }
@@ -25,6 +25,7 @@ import org.envirocar.obd.commands.PID;
 import org.envirocar.obd.commands.PIDSupported;
 import org.envirocar.obd.commands.PIDUtil;
 import org.envirocar.obd.commands.request.BasicCommand;
+import org.envirocar.obd.commands.request.MultiPIDCommand;
 import org.envirocar.obd.commands.request.PIDCommand;
 import org.envirocar.obd.commands.response.DataResponse;
 import org.envirocar.obd.commands.response.ResponseParser;
@@ -51,6 +52,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
 
 
 public abstract class SyncAdapter implements OBDAdapter {
@@ -63,6 +65,9 @@ public abstract class SyncAdapter implements OBDAdapter {
     private static final char COMMAND_RECEIVE_END = '>';
     private static final char COMMAND_RECEIVE_SPACE = ' ';
     private static final int MAX_ERROR_PER_COMMAND = 5;
+    private static final long RATE_LOG_INTERVAL = 60000;
+    private static final int MULTI_PID_PROBE_SIZE = 3;
+    private static final int MAX_BATCH_FAILURES = 3;
 
     private Set<Character> ignoredChars = new HashSet<>(Arrays.asList(COMMAND_RECEIVE_SPACE, COMMAND_SEND_END));
     private CommandExecutor commandExecutor;
@@ -72,7 +77,12 @@ public abstract class SyncAdapter implements OBDAdapter {
 
     private Map<PID, AtomicInteger> failureMap = new HashMap<>();
     private List<PIDCommand> requestCommands;
-    private Queue<PIDCommand> commandRingBuffer = new ArrayDeque<>();
+    private PIDScheduler scheduler;
+    private long lastRateLog;
+
+    private int maxPIDsPerRequest = 1;
+    private int batchFailures;
+    private final List<DataResponse> batchResponses = new ArrayList<>();
     private Queue<PIDSupported> pidSupportedCommands = new ArrayDeque<>(
             Arrays.asList(
                     new PIDSupported(),
@@ -117,6 +127,8 @@ public abstract class SyncAdapter implements OBDAdapter {
                         // If the supported PIDs is empty, then usually the engine isn't running.
                         if (supportedPIDs.size() == 0) {
                             subscriber.onError(new EngineNotRunningException("No PIDs returned. Possibly the car engine is not running."));
+                        } else if (supportsMultiPIDRequests()) {
+                            detectMultiPIDSupport();
                         }
 
                         subscriber.onNext(true);
@@ -185,12 +197,18 @@ public abstract class SyncAdapter implements OBDAdapter {
             byte[] bytes = null;
             while (!subscriber.isDisposed()) {
                 try {
+                    if (maxPIDsPerRequest > 1) {
+                        executeBatch(subscriber);
+                        continue;
+                    }
+
                     latestCommand = pollNextCommand();
                     LOGGER.debug("Sending command " + (latestCommand != null ? latestCommand.getPid().toString() : "n/a"));
 
                     /**
                      * write the next pending command
                      */
+                    long sent = System.currentTimeMillis();
                     if (latestCommand != null) {
                         commandExecutor.execute(latestCommand);
                     }
@@ -199,11 +217,18 @@ public abstract class SyncAdapter implements OBDAdapter {
                      * read the next incoming response
                      */
                     bytes = commandExecutor.retrieveLatestResponse();
+                    long received = System.currentTimeMillis();
+                    if (latestCommand != null && scheduler != null) {
+                        scheduler.onRoundTrip(received - sent);
+                    }
 
                     DataResponse response = parser.parse(preProcess(bytes));
 
                     if (response != null) {
                         LOGGER.debug("isDisposed? " + subscriber.isDisposed());
+                        if (latestCommand != null) {
+                            onResponseReceived(latestCommand.getPid(), received);
+                        }
                         subscriber.onNext(response);
                     }
                 } catch (IOException e) {
@@ -235,28 +260,34 @@ public abstract class SyncAdapter implements OBDAdapter {
     }
 
     protected PIDCommand pollNextCommand() throws AdapterFailedException {
-        if (this.commandRingBuffer.isEmpty()) {
-            throw new AdapterFailedException("No available commands left in the buffer");
-        }
-
-        PIDCommand cmd = commandRingBuffer.poll();
+        while (scheduler != null && !scheduler.isEmpty()) {
+            PIDCommand cmd = scheduler.next(System.currentTimeMillis());
 
-        if (cmd != null) {
-            if (!checkIsBlacklisted(cmd.getPid())) {
-                /**
-                 * not blacklisted: add it back as the last element of the ring
-                 */
-                commandRingBuffer.offer(cmd);
-                return cmd;
-            } else {
+            if (cmd != null && checkIsBlacklisted(cmd.getPid())) {
                 /**
-                 * blacklisted: do not re-add it and return the next candidate
+                 * blacklisted: remove it from the schedule and return the next candidate
                  */
-                return pollNextCommand();
+                scheduler.remove(cmd.getPid());
+                continue;
             }
+
+            return cmd;
+        }
+
+        throw new AdapterFailedException("No available commands left in the buffer");
+    }
+
+    private void onResponseReceived(PID pid, long time) {
+        if (scheduler == null) {
+            return;
         }
 
-        return cmd;
+        scheduler.onResponse(pid, time);
+        if (time - lastRateLog > RATE_LOG_INTERVAL) {
+            lastRateLog = time;
+            LOGGER.info(String.format("Effective PID rates (round trip %.1f ms): %s",
+                    scheduler.getAverageRoundTrip(), scheduler.getEffectiveRates()));
+        }
     }
 
     protected void increaseFailureCount(PID command) {
@@ -295,14 +326,151 @@ public abstract class SyncAdapter implements OBDAdapter {
         }
     }
 
-    private void preparePendingCommands() {
-        commandRingBuffer = new ArrayDeque<>();
+    /**
+     * Sends the next batch of PIDs as a single request and emits the parsed responses. PIDs
+     * that are not answered count as failures, so that they are blacklisted like in single PID
+     * requests. Falls back to single PID requests if batched requests keep failing.
+     */
+    private void executeBatch(ObservableEmitter<DataResponse> subscriber) throws IOException,
+            StreamFinishedException, AdapterFailedException {
+        List<PIDCommand> batch = pollNextCommands(maxPIDsPerRequest);
+
+        long sent = System.currentTimeMillis();
+        commandExecutor.execute(new MultiPIDCommand(batch));
+        byte[] bytes = commandExecutor.retrieveLatestResponse();
+        long received = System.currentTimeMillis();
+        scheduler.onRoundTrip((received - sent) / batch.size());
+
+        batchResponses.clear();
+        try {
+            parser.parseMultiple(preProcess(bytes), batchResponses);
+        } catch (AdapterSearchingException e) {
+            LOGGER.warn("Adapter still searching: " + e.getMessage());
+            return;
+        } catch (NoDataReceivedException | InvalidCommandResponseException e) {
+            LOGGER.warn("Batched request failed: " + e.getMessage());
+            increaseFailureCounts(batch);
+        } catch (UnmatchedResponseException e) {
+            LOGGER.warn("Unmatched response: " + e.getMessage());
+        }
+
+        if (batchResponses.isEmpty()) {
+            if (++batchFailures >= MAX_BATCH_FAILURES) {
+                LOGGER.warn("Batched requests keep failing. Falling back to single PID requests.");
+                maxPIDsPerRequest = 1;
+            }
+            return;
+        }
 
+        batchFailures = 0;
+        for (DataResponse response : batchResponses) {
+            onResponseReceived(response.getPid(), received);
+            subscriber.onNext(response);
+        }
+        increaseFailureCounts(batch);
+    }
+
+    /**
+     * Increases the failure count of every PID of the batch without a response in
+     * {@link #batchResponses}.
+     */
+    private void increaseFailureCounts(List<PIDCommand> batch) {
+        for (PIDCommand cmd : batch) {
+            boolean answered = false;
+            for (DataResponse response : batchResponses) {
+                if (response.getPid() == cmd.getPid()) {
+                    answered = true;
+                    break;
+                }
+            }
+            if (!answered) {
+                increaseFailureCount(cmd.getPid());
+            }
+        }
+    }
+
+    private List<PIDCommand> pollNextCommands(int count) throws AdapterFailedException {
+        List<PIDCommand> result = new ArrayList<>(count);
+        while (result.size() < count) {
+            PIDCommand cmd = pollNextCommand();
+            if (cmd == null || result.contains(cmd)) {
+                break;
+            }
+            result.add(cmd);
+        }
+        return result;
+    }
+
+    /**
+     * Sends a request for several supported PIDs and enables batched requests if the adapter
+     * answers all of them.
+     */
+    private void detectMultiPIDSupport() throws IOException, StreamFinishedException,
+            AdapterFailedException {
+        List<PIDCommand> probe = new ArrayList<>(MULTI_PID_PROBE_SIZE);
         for (PIDCommand cmd : providePendingCommands()) {
-            if (cmd != null) {
-                commandRingBuffer.offer(cmd);
+            if (cmd != null && probe.size() < MULTI_PID_PROBE_SIZE) {
+                probe.add(cmd);
             }
         }
+
+        if (probe.size() < 2) {
+            return;
+        }
+
+        MultiPIDCommand command = new MultiPIDCommand(probe);
+        LOGGER.info("Probing multi PID support: " + command);
+        commandExecutor.execute(command);
+        byte[] resp = commandExecutor.retrieveLatestResponse();
+
+        List<DataResponse> responses = new ArrayList<>();
+        try {
+            parser.parseMultiple(preProcess(resp), responses);
+        } catch (AdapterSearchingException | NoDataReceivedException |
+                InvalidCommandResponseException | UnmatchedResponseException e) {
+            LOGGER.info("Multi PID requests not supported: " + e.getMessage());
+            return;
+        }
+
+        // several ECUs may answer the same PID, so only the distinct PIDs are compared.
+        Set<PID> requested = new HashSet<>();
+        for (PIDCommand cmd : probe) {
+            requested.add(cmd.getPid());
+        }
+        Set<PID> answered = new HashSet<>();
+        for (DataResponse response : responses) {
+            answered.add(response.getPid());
+        }
+
+        if (answered.containsAll(requested)) {
+            maxPIDsPerRequest = MultiPIDCommand.MAX_PIDS;
+            LOGGER.info("Multi PID requests supported.");
+        } else {
+            requested.removeAll(answered);
+            LOGGER.info(String.format("Multi PID requests not supported: %s not answered",
+                    requested));
+        }
+    }
+
+    /**
+     * @return true if the adapter may be able to answer several PIDs with one request. The
+     * support is verified during the initialization.
+     */
+    protected boolean supportsMultiPIDRequests() {
+        return false;
+    }
+
+    private void preparePendingCommands() {
+        scheduler = new PIDScheduler(providePendingCommands(), provideTargetRates());
+        lastRateLog = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the target request rates in Hz of the PIDs. PIDs without a target rate are
+     * requested as often as possible.
+     */
+    protected Map<PID, Double> provideTargetRates() {
+        return PIDScheduler.DEFAULT_TARGET_RATES;
     }
 
     private boolean checkIsBlacklisted(PID pid) {
@@ -29,19 +29,22 @@ public class PIDSupportedQuirk implements ResponseQuirkWorkaround {
 
     @Override
     public boolean shouldWaitForNextTokenLine(byte[] byteArray) {
-        if (byteArray.length > 3) {
+        return shouldWaitForNextTokenLine(byteArray, 0, byteArray.length);
+    }
+
+    @Override
+    public boolean shouldWaitForNextTokenLine(byte[] buffer, int offset, int length) {
+        if (length > 3) {
             for (int i = 0; i < PREFIX.length; i++) {
-                if (byteArray[i] != PREFIX[i]) {
+                if (buffer[offset + i] != PREFIX[i]) {
                     return false;
                 }
             }
 
             //it is a PID supported, check the correct length
-            return byteArray.length < 14;
+            return length < 14;
         }
 
         return false;
     }
-
-
 }
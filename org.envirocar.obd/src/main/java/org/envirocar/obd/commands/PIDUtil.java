@@ -24,18 +24,40 @@ import org.envirocar.obd.commands.request.PIDCommand;
 
 public class PIDUtil {
 
+	/**
+	 * PIDs indexed by their byte value
+	 */
+	private static final PID[] PIDS_BY_CODE = new PID[256];
+
+	static {
+		for (PID p : PID.values()) {
+			PIDS_BY_CODE[Integer.parseInt(p.getHexadecimalRepresentation(), 16)] = p;
+		}
+	}
+
 	public static PID fromString(String s) {
-		if (s == null || s.isEmpty()) {
+		if (s == null || s.length() != 2) {
 			return null;
 		}
-		
-		for (PID p : PID.values()) {
-			if (s.equalsIgnoreCase(p.getHexadecimalRepresentation())) {
-				return p;
-			}
+
+		int high = Character.digit(s.charAt(0), 16);
+		int low = Character.digit(s.charAt(1), 16);
+		if (high < 0 || low < 0) {
+			return null;
 		}
-		
-		return null;
+
+		return fromCode((high << 4) | low);
+	}
+
+	/**
+	 * @param code the byte value of the PID
+	 * @return the PID or null if the code does not represent a supported PID
+	 */
+	public static PID fromCode(int code) {
+		if (code < 0 || code >= PIDS_BY_CODE.length) {
+			return null;
+		}
+		return PIDS_BY_CODE[code];
 	}
 
 	
@@ -69,6 +91,38 @@ public class PIDUtil {
 		}
 	}
 
+	/**
+	 * @param pid the PID
+	 * @return the number of data bytes of a mode 01 response for the PID
+	 */
+	public static int getResponseLength(PID pid) {
+		switch (pid) {
+			case RPM:
+			case MAF:
+			case ENGINE_FUEL_RATE:
+				return 2;
+			case O2_LAMBDA_PROBE_1_VOLTAGE:
+			case O2_LAMBDA_PROBE_2_VOLTAGE:
+			case O2_LAMBDA_PROBE_3_VOLTAGE:
+			case O2_LAMBDA_PROBE_4_VOLTAGE:
+			case O2_LAMBDA_PROBE_5_VOLTAGE:
+			case O2_LAMBDA_PROBE_6_VOLTAGE:
+			case O2_LAMBDA_PROBE_7_VOLTAGE:
+			case O2_LAMBDA_PROBE_8_VOLTAGE:
+			case O2_LAMBDA_PROBE_1_CURRENT:
+			case O2_LAMBDA_PROBE_2_CURRENT:
+			case O2_LAMBDA_PROBE_3_CURRENT:
+			case O2_LAMBDA_PROBE_4_CURRENT:
+			case O2_LAMBDA_PROBE_5_CURRENT:
+			case O2_LAMBDA_PROBE_6_CURRENT:
+			case O2_LAMBDA_PROBE_7_CURRENT:
+			case O2_LAMBDA_PROBE_8_CURRENT:
+				return 4;
+			default:
+				return 1;
+		}
+	}
+
 	public static Measurement.PropertyKey toPropertyKey(PID pid) {
 		switch (pid) {
 //			case FUEL_SYSTEM_STATUS:
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.commands.request;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Requests several mode 01 PIDs at once (e.g. "01 0C 0D 10"). Supported by ELM327 v1.3+
+ * compatible adapters on CAN vehicles for up to six PIDs.
+ *
+ * @author dewall
+ */
+public class MultiPIDCommand implements BasicCommand {
+
+    public static final int MAX_PIDS = 6;
+    private static final String MODE = "01";
+
+    private final List<PIDCommand> commands;
+    private final byte[] bytes;
+
+    /**
+     * @param commands the mode 01 commands to combine
+     */
+    public MultiPIDCommand(List<PIDCommand> commands) {
+        if (commands.isEmpty() || commands.size() > MAX_PIDS) {
+            throw new IllegalStateException("Number of PIDs out of allowed bounds");
+        }
+
+        this.commands = Collections.unmodifiableList(new ArrayList<>(commands));
+
+        StringBuilder sb = new StringBuilder(MODE);
+        for (PIDCommand command : commands) {
+            if (!MODE.equals(command.getMode())) {
+                throw new IllegalStateException("Only mode 01 commands can be combined");
+            }
+            sb.append(' ').append(command.getPid().getHexadecimalRepresentation());
+        }
+        this.bytes = sb.toString().getBytes();
+    }
+
+    public List<PIDCommand> getCommands() {
+        return commands;
+    }
+
+    @Override
+    public byte[] getOutputBytes() {
+        return bytes;
+    }
+
+    @Override
+    public boolean awaitsResults() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes);
+    }
+}
@@ -39,14 +39,50 @@ import org.envirocar.obd.exception.InvalidCommandResponseException;
 import org.envirocar.obd.exception.NoDataReceivedException;
 import org.envirocar.obd.exception.UnmatchedResponseException;
 
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parses the hexadecimal response of an OBD adapter. The parser works directly on the received
+ * bytes and reuses its decoding buffer, so an instance must not be shared between threads.
+ */
 public class ResponseParser {
 
     private static final Logger LOGGER = Logger.getLogger(ResponseParser.class);
 
-    private static final CharSequence SEARCHING = "SEARCHING";
-    private static final CharSequence STOPPED = "STOPPED";
-    private static final CharSequence NO_DATA = "NODATA";
+    private static final byte[] SEARCHING = "SEARCHING".getBytes();
+    private static final byte[] STOPPED = "STOPPED".getBytes();
+    private static final byte[] NO_DATA = "NODATA".getBytes();
     public static final String STATUS_OK = "41";
+    private static final int STATUS_OK_BYTE = 0x41;
+
+    // number of hex digits of the byte count line of a CAN multi frame response
+    private static final int BYTE_COUNT_DIGITS = 3;
+    // maximum number of data bytes of a single CAN frame
+    private static final int MAX_FRAME_LENGTH = 7;
+
+    /**
+     * nibble values of the ASCII hex digits, -1 for all other characters
+     */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private int[] buffer = new int[16];
+    private int bufferLength;
+
+    // the response currently converted by createDataResponse
+    private int responseOffset;
+    private int responseLength;
 
     public ResponseParser() {
 
@@ -55,94 +91,242 @@ public class ResponseParser {
     public DataResponse parse(byte[] data) throws AdapterSearchingException, NoDataReceivedException,
             InvalidCommandResponseException, UnmatchedResponseException {
 
-        /**
-         * we received a char array as hexadecimal -->
-         * two chars represent one byte
-         */
-        int index = 0;
-        int length = 2;
-
-        String dataString = new String(data);
-
         //cartrend: 7E803410D00AAAAAAAA
         //= 410D00AAAAAAAA
-//        if (dataString.startsWith("7E803")) {
-//            dataString = dataString.substring(5, dataString.length());
-//        }
 
-        if (isSearching(dataString)) {
+        if (isSearching(data)) {
             throw new AdapterSearchingException();
-        } else if (isNoDataCommand(dataString)) {
+        } else if (isNoDataCommand(data)) {
             throw new NoDataReceivedException("NODATA was received");
         }
 
-        int[] buffer = new int[data.length / 2];
-        boolean error = false;
+        /**
+         * we received a char array as hexadecimal -->
+         * two chars represent one byte
+         */
+        bufferLength = data.length / 2;
+        ensureBufferCapacity(bufferLength);
+        responseOffset = 0;
+        responseLength = bufferLength;
 
         PID pid = null;
-        while (index + length <= data.length) {
-            String tmp = new String(data, index, length);
-
-            // this is the status
-            if (index == 0) {
-                if (!tmp.equals(STATUS_OK)) {
-                    error = true;
-                }
+        if (bufferLength > 1) {
+            // the first byte is the status, the second one the ID byte
+            boolean error = data[0] != STATUS_OK.charAt(0) || data[1] != STATUS_OK.charAt(1);
+            pid = PIDUtil.fromCode(decodeByte(data, 2));
+            if (error || pid == null) {
+                throw new InvalidCommandResponseException(
+                        pid == null ? new String(data, 2, 2) : pid.toString());
             }
-            // this is the ID byte
-            else if (index == 2) {
-                pid = PIDUtil.fromString(tmp);
-                if (error || pid == null) {
-                    throw new InvalidCommandResponseException(pid == null ? tmp : pid.toString());
-                }
-            } else {
-                if (error || pid == null){
-                    throw new InvalidCommandResponseException(pid == null ? tmp : pid.toString());
-                }
 
-                /*
-                 * this is a hex number
-                 */
-                buffer[index / 2] = Integer.parseInt(tmp, 16);
-                if (buffer[index / 2] < 0) {
+            // the remaining bytes are the hex encoded values
+            for (int i = 2; i < bufferLength; i++) {
+                buffer[i] = decodeByte(data, i * 2);
+                if (buffer[i] < 0) {
                     throw new InvalidCommandResponseException(pid.toString());
                 }
             }
-
-            index += length;
         }
 
         try {
-            return createDataResponse(pid, buffer, data);
+            return createDataResponse(pid, data);
         } catch (Exception e){
             throw new UnmatchedResponseException(e);
         }
     }
 
-    private DataResponse createDataResponse(PID pid, int[] processedData, byte[] rawData) {
+    /**
+     * Parses the combined response of a {@link org.envirocar.obd.commands.request.MultiPIDCommand}.
+     * The response may consist of several CAN frames (e.g. "00A0:410C1AF80D1:32100F3C0000") and
+     * of the responses of several ECUs. PIDs that cannot be converted are skipped.
+     *
+     * @param data   the raw response.
+     * @param result the list the parsed responses are added to.
+     * @throws UnmatchedResponseException if the response does not contain any known PID.
+     */
+    public void parseMultiple(byte[] data, List<DataResponse> result) throws
+            AdapterSearchingException, NoDataReceivedException, InvalidCommandResponseException,
+            UnmatchedResponseException {
+        if (isSearching(data)) {
+            throw new AdapterSearchingException();
+        } else if (isNoDataCommand(data)) {
+            throw new NoDataReceivedException("NODATA was received");
+        }
+
+        decodeFrames(data);
+
+        int index = 0;
+        int parsed = 0;
+        while (index < bufferLength) {
+            if (buffer[index] == STATUS_OK_BYTE) {
+                // the status byte of the next ECU response
+                index++;
+                continue;
+            }
+
+            PID pid = PIDUtil.fromCode(buffer[index]);
+            if (pid == null) {
+                break;
+            }
+
+            int length = PIDUtil.getResponseLength(pid);
+            if (index + 1 + length > bufferLength) {
+                break;
+            }
+
+            // let at(2) point to the first data byte of this PID
+            responseOffset = index - 1;
+            responseLength = length + 2;
+            try {
+                result.add(createDataResponse(pid, data));
+                parsed++;
+            } catch (Exception e) {
+                LOGGER.warn(String.format("Could not convert %s: %s", pid, e.getMessage()));
+            }
+            index += 1 + length;
+        }
+
+        if (parsed == 0) {
+            throw new UnmatchedResponseException(new IllegalStateException(
+                    "No PID found in response: " + new String(data)));
+        }
+    }
+
+    /**
+     * Decodes the hex pairs of a response into the buffer. Every ECU answers with either a
+     * single frame or a CAN multi frame response that starts with its own byte count line
+     * (e.g. "0090:410C1AF80D321:100F3CAAAAAAAA"). The byte count lines, the "n:" frame
+     * indices and the padding of the last frame of every multi frame response are dropped.
+     */
+    private void decodeFrames(byte[] data) throws InvalidCommandResponseException {
+        ensureBufferCapacity(data.length / 2);
+        bufferLength = 0;
+
+        int index = 0;
+        while (index + 1 < data.length) {
+            if (data[index + 1] == ':') {
+                // frame index without a byte count line
+                index += 2;
+                continue;
+            }
+
+            int byteCount = decodeByteCount(data, index);
+            if (byteCount < 0) {
+                // a single frame lasts until the byte count line of the next ECU response
+                index = decodeFrame(data, index, Integer.MAX_VALUE, Integer.MAX_VALUE);
+                continue;
+            }
+
+            index += BYTE_COUNT_DIGITS;
+            int remaining = byteCount;
+            while (remaining > 0 && index + 1 < data.length && data[index + 1] == ':') {
+                int frameStart = bufferLength;
+                index = decodeFrame(data, index + 2, remaining, MAX_FRAME_LENGTH);
+                remaining -= bufferLength - frameStart;
+            }
+        }
+    }
+
+    /**
+     * Decodes the hex pairs of a single frame into the buffer. The frame ends at the next frame
+     * index, at the next byte count line or after the given number of bytes.
+     *
+     * @param maxBytes  the number of bytes to add to the buffer, the others are padding.
+     * @param maxLength the maximum number of bytes of the frame.
+     * @return the index of the first character after the frame.
+     */
+    private int decodeFrame(byte[] data, int index, int maxBytes, int maxLength)
+            throws InvalidCommandResponseException {
+        int length = 0;
+        while (index + 1 < data.length && length < maxLength && data[index + 1] != ':'
+                && decodeByteCount(data, index) < 0) {
+            int value = decodeByte(data, index);
+            if (value < 0) {
+                throw new InvalidCommandResponseException(new String(data));
+            }
+            if (length < maxBytes) {
+                buffer[bufferLength++] = value;
+            }
+            length++;
+            index += 2;
+        }
+        return index;
+    }
+
+    /**
+     * @return the byte count of the multi frame response starting at the given offset or -1 if
+     * there is no byte count line followed by the first frame index
+     */
+    private static int decodeByteCount(byte[] data, int offset) {
+        int frameIndex = offset + BYTE_COUNT_DIGITS;
+        if (frameIndex + 1 >= data.length || data[frameIndex] != '0' || data[frameIndex + 1] != ':') {
+            return -1;
+        }
+
+        int count = 0;
+        for (int i = offset; i < frameIndex; i++) {
+            int digit = data[i] < 0 ? -1 : HEX_VALUES[data[i]];
+            if (digit < 0) {
+                return -1;
+            }
+            count = (count << 4) | digit;
+        }
+        return count;
+    }
+
+    private void ensureBufferCapacity(int length) {
+        if (buffer.length < length) {
+            buffer = new int[length];
+        }
+    }
+
+    /**
+     * @return the value of the two hex digits at the given offset or -1 if they are no hex digits
+     */
+    private static int decodeByte(byte[] data, int offset) {
+        int high = data[offset];
+        int low = data[offset + 1];
+        if (high < 0 || low < 0 || HEX_VALUES[high] < 0 || HEX_VALUES[low] < 0) {
+            return -1;
+        }
+        return (HEX_VALUES[high] << 4) | HEX_VALUES[low];
+    }
+
+    /**
+     * @return the decoded byte at the given index of the current response
+     */
+    private int at(int index) {
+        if (index >= responseLength) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Response has no byte at %s", index));
+        }
+        return buffer[responseOffset + index];
+    }
+
+    private DataResponse createDataResponse(PID pid, byte[] rawData) {
         switch (pid) {
 //            case FUEL_SYSTEM_STATUS:
 //                return FuelSystemStatusResponse.fromRawData(rawData);
             case CALCULATED_ENGINE_LOAD:
-                return new EngineLoadResponse((processedData[2] * 100.0f) / 255.0f);
+                return new EngineLoadResponse((at(2) * 100.0f) / 255.0f);
             case FUEL_PRESSURE:
-                return new FuelPressureResponse(processedData[2] * 3);
+                return new FuelPressureResponse(at(2) * 3);
             case INTAKE_MAP:
-                return new IntakeManifoldAbsolutePressureResponse(processedData[2]);
+                return new IntakeManifoldAbsolutePressureResponse(at(2));
             case RPM:
-                return new EngineRPMResponse((processedData[2] * 256 + processedData[3]) / 4);
+                return new EngineRPMResponse((at(2) * 256 + at(3)) / 4);
             case SPEED:
-                return new SpeedResponse(processedData[2]);
+                return new SpeedResponse(at(2));
             case INTAKE_AIR_TEMP:
-                return new IntakeAirTemperatureResponse(processedData[2] - 40);
+                return new IntakeAirTemperatureResponse(at(2) - 40);
             case MAF:
-                return new MAFResponse((processedData[2] * 256 + processedData[3]) / 100.0f);
+                return new MAFResponse((at(2) * 256 + at(3)) / 100.0f);
             case TPS:
-                return new ThrottlePositionResponse((processedData[2] * 100) / 255);
+                return new ThrottlePositionResponse((at(2) * 100) / 255);
             case SHORT_TERM_FUEL_TRIM_BANK_1:
-                return new ShortTermFuelTrimResponse((processedData[2] - 128) * (100d / 128d), 1);
+                return new ShortTermFuelTrimResponse((at(2) - 128) * (100d / 128d), 1);
             case LONG_TERM_FUEL_TRIM_BANK_1:
-                return new LongTermFuelTrimResponse((processedData[2] - 128) * (100d / 128d), 1);
+                return new LongTermFuelTrimResponse((at(2) - 128) * (100d / 128d), 1);
             case O2_LAMBDA_PROBE_1_VOLTAGE:
             case O2_LAMBDA_PROBE_2_VOLTAGE:
             case O2_LAMBDA_PROBE_3_VOLTAGE:
@@ -152,8 +336,8 @@ public class ResponseParser {
             case O2_LAMBDA_PROBE_7_VOLTAGE:
             case O2_LAMBDA_PROBE_8_VOLTAGE:
                 LambdaProbeVoltageResponse lambda = new LambdaProbeVoltageResponse(
-                        ((processedData[4] * 256d) + processedData[5]) / 8192d,
-                        ((processedData[2] * 256d) + processedData[3]) / 32768d);
+                        ((at(4) * 256d) + at(5)) / 8192d,
+                        ((at(2) * 256d) + at(3)) / 32768d);
                 return lambda;
             case O2_LAMBDA_PROBE_1_CURRENT:
             case O2_LAMBDA_PROBE_2_CURRENT:
@@ -164,20 +348,37 @@ public class ResponseParser {
             case O2_LAMBDA_PROBE_7_CURRENT:
             case O2_LAMBDA_PROBE_8_CURRENT:
                 return new LambdaProbeCurrentResponse(
-                        ((processedData[4] * 256d) + processedData[5]) / 256d - 128,
-                        ((processedData[2] * 256d) + processedData[3]) / 32768d);
+                        ((at(4) * 256d) + at(5)) / 256d - 128,
+                        ((at(2) * 256d) + at(3)) / 32768d);
         }
 
+        // status and PID are not part of the processed data
+        int[] processedData = new int[responseLength];
+        if (responseLength > 2) {
+            System.arraycopy(buffer, responseOffset + 2, processedData, 2, responseLength - 2);
+        }
         return new GenericDataResponse(pid, processedData, rawData);
     }
 
-    private boolean isSearching(String dataString) {
-        return dataString.contains(SEARCHING) || dataString.contains(STOPPED);
+    private boolean isSearching(byte[] data) {
+        return contains(data, SEARCHING) || contains(data, STOPPED);
     }
 
-    private boolean isNoDataCommand(String dataString) {
-        return dataString == null || dataString.contains(NO_DATA);
+    private boolean isNoDataCommand(byte[] data) {
+        return data == null || contains(data, NO_DATA);
     }
 
+    private static boolean contains(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
 
 }
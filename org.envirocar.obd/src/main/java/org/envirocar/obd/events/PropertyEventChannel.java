@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.events;
+
+import org.envirocar.core.entity.Measurement;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Typed channel for the measurement-rate values of the OBD adapter and the GPS, e.g., speed,
+ * rpm or MAF. In contrast to the Otto bus, which remains in use for the low-rate lifecycle
+ * events, values are published as primitives and dispatched without reflection, without a
+ * global lock and without allocating event objects.
+ * <p>
+ * Listeners either receive every value synchronously on the publishing thread
+ * ({@link #subscribe(Listener, Set)}), which suits cheap consumers like the measurement
+ * buffers, or only the latest value per property key on a scheduler of their choice
+ * ({@link #subscribeConflated(Listener, Set, Scheduler)}), so that a slow consumer like a view
+ * never holds up the publisher nor queues up values it cannot display anymore.
+ *
+ * @author dewall
+ */
+public class PropertyEventChannel {
+
+    /**
+     * Receives the values published on a {@link PropertyEventChannel}.
+     */
+    public interface Listener {
+
+        /**
+         * @param key       the property key of the value.
+         * @param value     the value.
+         * @param timestamp the time of the value in milliseconds since the epoch.
+         */
+        void onPropertyEvent(Measurement.PropertyKey key, double value, long timestamp);
+    }
+
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+    private static final Subscription[] EMPTY = new Subscription[0];
+
+    // replaced on every (un)subscription, so that publishing does not need to lock or iterate
+    private volatile Subscription[] subscriptions = EMPTY;
+
+    /**
+     * Subscribes a listener that receives every value of the given property keys synchronously
+     * on the publishing thread. The listener must therefore return quickly.
+     *
+     * @param listener the listener to subscribe.
+     * @param keys     the property keys the listener is interested in.
+     * @return the disposable to unsubscribe the listener.
+     */
+    public Disposable subscribe(Listener listener, Set<Measurement.PropertyKey> keys) {
+        return add(new Subscription(listener, keys));
+    }
+
+    /**
+     * Subscribes a listener that receives only the latest value per property key on the given
+     * scheduler. Values that are published while the listener has not yet been called are
+     * conflated, i.e., only the most recent one is delivered.
+     *
+     * @param listener  the listener to subscribe.
+     * @param keys      the property keys the listener is interested in.
+     * @param scheduler the scheduler to call the listener on.
+     * @return the disposable to unsubscribe the listener.
+     */
+    public Disposable subscribeConflated(Listener listener, Set<Measurement.PropertyKey> keys,
+                                         Scheduler scheduler) {
+        return add(new ConflatingSubscription(listener, keys, scheduler.createWorker()));
+    }
+
+    /**
+     * Publishes a value to all listeners that subscribed to its property key.
+     *
+     * @param key       the property key of the value.
+     * @param value     the value.
+     * @param timestamp the time of the value in milliseconds since the epoch.
+     */
+    public void publish(Measurement.PropertyKey key, double value, long timestamp) {
+        int ordinal = key.ordinal();
+        Subscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].keys[ordinal]) {
+                current[i].onPublish(key, value, timestamp);
+            }
+        }
+    }
+
+    private synchronized Disposable add(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+        return subscription;
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                Subscription[] updated = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated.length == 0 ? EMPTY : updated;
+                return;
+            }
+        }
+    }
+
+    private class Subscription implements Disposable {
+        final Listener listener;
+        final boolean[] keys = new boolean[KEYS.length];
+        private volatile boolean disposed;
+
+        Subscription(Listener listener, Set<Measurement.PropertyKey> keys) {
+            this.listener = listener;
+            for (Measurement.PropertyKey key : keys) {
+                this.keys[key.ordinal()] = true;
+            }
+        }
+
+        void onPublish(Measurement.PropertyKey key, double value, long timestamp) {
+            listener.onPropertyEvent(key, value, timestamp);
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            remove(this);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+
+    private final class ConflatingSubscription extends Subscription implements Runnable {
+        private final Scheduler.Worker worker;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // latest value per property key, guarded by this subscription
+        private final double[] values = new double[KEYS.length];
+        private final long[] timestamps = new long[KEYS.length];
+        private final boolean[] pending = new boolean[KEYS.length];
+
+        ConflatingSubscription(Listener listener, Set<Measurement.PropertyKey> keys,
+                               Scheduler.Worker worker) {
+            super(listener, keys);
+            this.worker = worker;
+        }
+
+        @Override
+        void onPublish(Measurement.PropertyKey key, double value, long timestamp) {
+            int ordinal = key.ordinal();
+            synchronized (this) {
+                values[ordinal] = value;
+                timestamps[ordinal] = timestamp;
+                pending[ordinal] = true;
+            }
+
+            if (scheduled.compareAndSet(false, true)) {
+                worker.schedule(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            // values published from now on schedule another run
+            scheduled.set(false);
+
+            for (int i = 0; i < KEYS.length && !isDisposed(); i++) {
+                double value;
+                long timestamp;
+                synchronized (this) {
+                    if (!pending[i]) {
+                        continue;
+                    }
+                    pending[i] = false;
+                    value = values[i];
+                    timestamp = timestamps[i];
+                }
+                listener.onPropertyEvent(KEYS[i], value, timestamp);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            super.dispose();
+            worker.dispose();
+        }
+    }
+}
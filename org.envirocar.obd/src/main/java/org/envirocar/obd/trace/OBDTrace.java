@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.trace;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A recorded conversation with an OBD-II adapter: the raw bytes read from and written to the
+ * adapter together with the time they have been transferred.
+ * <p>
+ * Traces are stored as text, one record per line:
+ * <pre>
+ * # enviroCar OBD trace 1
+ * # device OBDII
+ * 1520300 W 303130430D
+ * 48211800 R 343130433141463830440D3E
+ * </pre>
+ * i.e., the nanoseconds since the start of the recording, the direction ({@code W}ritten to or
+ * {@code R}ead from the adapter) and the bytes in hex. Like the rest of this package, the class
+ * does not depend on Android, so traces can be replayed on any JVM.
+ *
+ * @author dewall
+ */
+public final class OBDTrace {
+    static final Charset CHARSET = Charset.forName("US-ASCII");
+    static final String HEADER = "# enviroCar OBD trace 1";
+    static final String DEVICE_PREFIX = "# device ";
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    public enum Direction {
+        READ('R'),
+        WRITE('W');
+
+        private final char symbol;
+
+        Direction(char symbol) {
+            this.symbol = symbol;
+        }
+
+        char getSymbol() {
+            return symbol;
+        }
+
+        static Direction fromSymbol(char symbol) {
+            for (Direction direction : values()) {
+                if (direction.symbol == symbol) {
+                    return direction;
+                }
+            }
+            throw new IllegalArgumentException("Unknown direction: " + symbol);
+        }
+    }
+
+    /**
+     * A chunk of bytes transferred at once.
+     */
+    public static final class Record {
+        private final long timestamp;
+        private final Direction direction;
+        private final byte[] data;
+
+        public Record(long timestamp, Direction direction, byte[] data) {
+            this.timestamp = timestamp;
+            this.direction = direction;
+            this.data = data;
+        }
+
+        /**
+         * @return the nanoseconds since the start of the recording.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    private final String deviceName;
+    private final List<Record> records;
+
+    /**
+     * Constructor.
+     *
+     * @param deviceName the name of the recorded adapter.
+     * @param records    the records in the order of their transfer.
+     */
+    public OBDTrace(String deviceName, List<Record> records) {
+        this.deviceName = deviceName;
+        this.records = Collections.unmodifiableList(new ArrayList<>(records));
+    }
+
+    /**
+     * Reads a trace written by a {@link OBDTraceRecorder}.
+     *
+     * @param in the stream to read the trace from. It is not closed.
+     * @return the trace.
+     * @throws IOException if the trace could not be read or is malformed.
+     */
+    public static OBDTrace read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, CHARSET));
+
+        String deviceName = null;
+        List<Record> records = new ArrayList<>();
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.startsWith(DEVICE_PREFIX)) {
+                deviceName = line.substring(DEVICE_PREFIX.length());
+            } else if (!line.isEmpty() && !line.startsWith("#")) {
+                records.add(parseRecord(line, lineNumber));
+            }
+        }
+
+        return new OBDTrace(deviceName, records);
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public List<Record> getRecords() {
+        return records;
+    }
+
+    /**
+     * @return the nanoseconds between the start of the recording and the last record.
+     */
+    public long getDuration() {
+        return records.isEmpty() ? 0 : records.get(records.size() - 1).timestamp;
+    }
+
+    static String formatRecord(long timestamp, Direction direction, byte[] data, int offset,
+                               int length) {
+        StringBuilder sb = new StringBuilder(24 + length * 2)
+                .append(timestamp)
+                .append(' ')
+                .append(direction.getSymbol())
+                .append(' ');
+        for (int i = offset; i < offset + length; i++) {
+            sb.append(HEX[(data[i] >> 4) & 0xF]).append(HEX[data[i] & 0xF]);
+        }
+        return sb.toString();
+    }
+
+    private static Record parseRecord(String line, int lineNumber) throws IOException {
+        String[] parts = line.split(" ");
+        if (parts.length != 3 || parts[1].length() != 1 || parts[2].length() % 2 != 0) {
+            throw new IOException("Malformed trace record in line " + lineNumber + ": " + line);
+        }
+
+        try {
+            byte[] data = new byte[parts[2].length() / 2];
+            for (int i = 0; i < data.length; i++) {
+                int high = Character.digit(parts[2].charAt(i * 2), 16);
+                int low = Character.digit(parts[2].charAt(i * 2 + 1), 16);
+                if (high < 0 || low < 0) {
+                    throw new IllegalArgumentException("Not a hex value: " + parts[2]);
+                }
+                data[i] = (byte) ((high << 4) | low);
+            }
+            return new Record(Long.parseLong(parts[0]),
+                    Direction.fromSymbol(parts[1].charAt(0)), data);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed trace record in line " + lineNumber + ": " + line, e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.trace;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Records the raw communication with an OBD-II adapter into an {@link OBDTrace}. The streams of
+ * the adapter connection are wrapped by {@link #record(InputStream)} and
+ * {@link #record(OutputStream)} and handed to the {@link org.envirocar.obd.OBDController}
+ * instead of the original ones:
+ * <pre>
+ * OBDTraceRecorder recorder = new OBDTraceRecorder(traceFile, socket.getRemoteDeviceName());
+ * new OBDController(recorder.record(socket.getInputStream()),
+ *         recorder.record(socket.getOutputStream()), socket.getRemoteDeviceName(), cl, eventChannel);
+ * </pre>
+ * Every read is stored as a record of its own, the bytes written are collected up to the next
+ * flush, i.e., one record per command. The trace is written while recording, so it survives
+ * a connection that breaks down.
+ *
+ * @author dewall
+ */
+public class OBDTraceRecorder implements Closeable {
+
+    private final Writer writer;
+    private final long start = System.nanoTime();
+
+    /**
+     * Constructor.
+     *
+     * @param trace      the stream to write the trace to. It is closed together with the recorder.
+     * @param deviceName the name of the recorded adapter.
+     * @throws IOException if the header of the trace could not be written.
+     */
+    public OBDTraceRecorder(OutputStream trace, String deviceName) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(trace, OBDTrace.CHARSET));
+        this.writer.write(OBDTrace.HEADER);
+        this.writer.write('\n');
+        if (deviceName != null) {
+            this.writer.write(OBDTrace.DEVICE_PREFIX);
+            this.writer.write(deviceName);
+            this.writer.write('\n');
+        }
+    }
+
+    /**
+     * @param in the stream receiving the bytes from the adapter.
+     * @return a stream recording every byte read from the given stream.
+     */
+    public InputStream record(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    append(OBDTrace.Direction.READ, new byte[]{(byte) b}, 0, 1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                if (count > 0) {
+                    append(OBDTrace.Direction.READ, b, off, count);
+                }
+                return count;
+            }
+        };
+    }
+
+    /**
+     * @param out the stream sending the bytes to the adapter.
+     * @return a stream recording every byte written to the given stream.
+     */
+    public OutputStream record(OutputStream out) {
+        return new FilterOutputStream(out) {
+            private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                pending.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                pending.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+                if (pending.size() > 0) {
+                    append(OBDTrace.Direction.WRITE, pending.toByteArray(), 0, pending.size());
+                    pending.reset();
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private synchronized void append(OBDTrace.Direction direction, byte[] data, int offset,
+                                     int length) throws IOException {
+        writer.write(OBDTrace.formatRecord(System.nanoTime() - start, direction, data, offset,
+                length));
+        writer.write('\n');
+        writer.flush();
+    }
+}
@@ -0,0 +1,296 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.trace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Replays an {@link OBDTrace} in place of a real adapter connection, e.g., to benchmark or
+ * regression-test the whole chain from the {@link org.envirocar.obd.OBDController} down to the
+ * measurements on a machine without a car:
+ * <pre>
+ * OBDTraceReplay replay = new OBDTraceReplay(OBDTrace.read(in), 10, true);
+ * new OBDController(replay.getInputStream(), replay.getOutputStream(),
+ *         replay.getTrace().getDeviceName(), cl, eventChannel);
+ * </pre>
+ * The replay is driven by the adapter implementation: the bytes recorded after a command only
+ * become readable once the adapter has written (and flushed) that command, and not before the
+ * time that passed between the command and the response in the recording, divided by the speed
+ * factor. Bytes the adapter streamed without a preceding command are replayed relative to the
+ * start of the replay. Once all records are replayed, the input stream reports its end.
+ *
+ * @author dewall
+ */
+public class OBDTraceReplay {
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    private final OBDTrace trace;
+    private final List<OBDTrace.Record> records;
+    private final double speed;
+    private final boolean strict;
+    private final Object lock = new Object();
+
+    private final InputStream inputStream = new ReplayInputStream();
+    private final OutputStream outputStream = new ReplayOutputStream();
+
+    // the commands flushed by the adapter and their replay times
+    private final Queue<byte[]> flushedCommands = new ArrayDeque<>();
+    private final Queue<Long> flushTimes = new ArrayDeque<>();
+
+    // the next record to replay and the bytes of it that have already been read
+    private int cursor;
+    private int cursorOffset;
+
+    // the recording time that corresponds to the replay time of the anchor
+    private long anchorRecorded;
+    private long anchorReplay = -1;
+    private boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param trace  the trace to replay.
+     * @param speed  the factor by which the replay is faster than the recording, e.g., 1 for
+     *               real-time or {@link #AS_FAST_AS_POSSIBLE}.
+     * @param strict if true, every command written by the adapter has to equal the recorded one,
+     *               otherwise only the number of commands has to match.
+     */
+    public OBDTraceReplay(OBDTrace trace, double speed, boolean strict) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("The speed has to be positive: " + speed);
+        }
+        this.trace = trace;
+        this.records = trace.getRecords();
+        this.speed = speed;
+        this.strict = strict;
+    }
+
+    public OBDTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * @return the stream replaying the bytes read from the adapter.
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * @return the stream accepting the commands written to the adapter.
+     */
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * @return true if all records have been replayed.
+     */
+    public boolean isFinished() {
+        synchronized (lock) {
+            return cursor == records.size();
+        }
+    }
+
+    /**
+     * Ends the replay. A blocked read returns the end of the stream.
+     */
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+    }
+
+    private void startIfRequired() {
+        if (anchorReplay < 0) {
+            anchorReplay = System.nanoTime();
+        }
+    }
+
+    /**
+     * Consumes the recorded commands at the cursor that have been flushed by the adapter.
+     *
+     * @return true if the cursor points to a read record, i.e., no command is outstanding.
+     */
+    private boolean consumeCommands() throws IOException {
+        while (cursor < records.size()
+                && records.get(cursor).getDirection() == OBDTrace.Direction.WRITE) {
+            if (flushedCommands.isEmpty()) {
+                return false;
+            }
+
+            OBDTrace.Record record = records.get(cursor);
+            byte[] command = flushedCommands.poll();
+            if (strict && !Arrays.equals(command, record.getData())) {
+                throw new IOException(String.format(
+                        "Replay diverged at record %s: expected command '%s' but got '%s'",
+                        cursor, new String(record.getData(), OBDTrace.CHARSET),
+                        new String(command, OBDTrace.CHARSET)));
+            }
+
+            anchorRecorded = record.getTimestamp();
+            anchorReplay = flushTimes.poll();
+            cursor++;
+        }
+        return true;
+    }
+
+    /**
+     * @return the nanoseconds until the read record at the cursor is due.
+     */
+    private long remainingDelay() {
+        if (speed == AS_FAST_AS_POSSIBLE) {
+            return 0;
+        }
+        long due = anchorReplay
+                + (long) ((records.get(cursor).getTimestamp() - anchorRecorded) / speed);
+        return due - System.nanoTime();
+    }
+
+    private class ReplayInputStream extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            synchronized (lock) {
+                startIfRequired();
+                while (true) {
+                    if (closed) {
+                        return -1;
+                    }
+
+                    long delay = 0;
+                    if (consumeCommands()) {
+                        if (cursor == records.size()) {
+                            return -1;
+                        }
+
+                        delay = remainingDelay();
+                        if (delay <= 0) {
+                            return transfer(b, off, len);
+                        }
+                    }
+
+                    try {
+                        if (delay > 0) {
+                            lock.wait(delay / 1000000, (int) (delay % 1000000));
+                        } else {
+                            lock.wait();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Replay has been interrupted");
+                    }
+                }
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            synchronized (lock) {
+                startIfRequired();
+                if (closed || !consumeCommands() || cursor == records.size()
+                        || remainingDelay() > 0) {
+                    return 0;
+                }
+                return records.get(cursor).getData().length - cursorOffset;
+            }
+        }
+
+        @Override
+        public void close() {
+            OBDTraceReplay.this.close();
+        }
+
+        private int transfer(byte[] b, int off, int len) {
+            byte[] data = records.get(cursor).getData();
+            int count = Math.min(len, data.length - cursorOffset);
+            System.arraycopy(data, cursorOffset, b, off, count);
+            cursorOffset += count;
+            if (cursorOffset == data.length) {
+                cursor++;
+                cursorOffset = 0;
+            }
+            return count;
+        }
+    }
+
+    private class ReplayOutputStream extends OutputStream {
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b) throws IOException {
+            synchronized (lock) {
+                checkOpen();
+                pending.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            synchronized (lock) {
+                checkOpen();
+                pending.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (lock) {
+                checkOpen();
+                if (pending.size() > 0) {
+                    startIfRequired();
+                    flushedCommands.offer(pending.toByteArray());
+                    flushTimes.offer(System.nanoTime());
+                    pending.reset();
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            OBDTraceReplay.this.close();
+        }
+
+        private void checkOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Replay has been closed");
+            }
+        }
+    }
+}
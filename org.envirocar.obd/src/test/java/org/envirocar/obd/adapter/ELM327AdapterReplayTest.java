@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.adapter;
+
+import org.envirocar.obd.commands.PID;
+import org.envirocar.obd.commands.response.DataResponse;
+import org.envirocar.obd.commands.response.ResponseParser;
+import org.envirocar.obd.trace.OBDTrace;
+import org.envirocar.obd.trace.OBDTraceReplay;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays the sample trace of an ELM327 session through the {@link ELM327Adapter} and compares
+ * the emitted responses with the ones recorded in the trace. The adapter schedules its PIDs by
+ * their rates, so the order of its requests differs from the recording and the replay only
+ * checks the number of requests.
+ *
+ * @author dewall
+ */
+public class ELM327AdapterReplayTest {
+    private static final String SAMPLE_TRACE = "traces/elm327-sample.trace";
+
+    @Test
+    public void testReplaysSampleTrace() throws Exception {
+        OBDTrace trace = readTrace();
+        List<DataResponse> expected = parseRecordedResponses(trace);
+        OBDTraceReplay replay = new OBDTraceReplay(trace, OBDTraceReplay.AS_FAST_AS_POSSIBLE,
+                false);
+
+        ELM327Adapter adapter = new ELM327Adapter();
+        Assert.assertTrue(adapter.supportsDevice(trace.getDeviceName()));
+        Assert.assertTrue(adapter.initialize(replay.getInputStream(), replay.getOutputStream())
+                .blockingFirst());
+        Assert.assertTrue(adapter.hasCertifiedConnection());
+
+        List<DataResponse> responses = adapter.observe().toList().blockingGet();
+
+        Assert.assertTrue(replay.isFinished());
+        Assert.assertEquals(600, expected.size());
+        Assert.assertEquals(expected.size(), responses.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getPid(), responses.get(i).getPid());
+            Assert.assertEquals(expected.get(i).getValue().doubleValue(),
+                    responses.get(i).getValue().doubleValue(), 0);
+        }
+
+        // the first response of the recording: 41 0D 1C
+        Assert.assertEquals(PID.SPEED, responses.get(0).getPid());
+        Assert.assertEquals(0x1C, responses.get(0).getValue().intValue());
+    }
+
+    private OBDTrace readTrace() throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream(SAMPLE_TRACE);
+        Assert.assertNotNull("No trace found at " + SAMPLE_TRACE, in);
+        try {
+            return OBDTrace.read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Parses the recorded data responses, i.e., the mode 01 responses except the ones to the
+     * requests of the supported PIDs.
+     */
+    private static List<DataResponse> parseRecordedResponses(OBDTrace trace) throws Exception {
+        ResponseParser parser = new ResponseParser();
+        List<DataResponse> result = new ArrayList<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (OBDTrace.Record record : trace.getRecords()) {
+            if (record.getDirection() != OBDTrace.Direction.READ) {
+                continue;
+            }
+
+            for (byte b : record.getData()) {
+                if (b == '\r') {
+                    byte[] response = line.toByteArray();
+                    line.reset();
+                    if (response.length > 4 && response[0] == '4' && response[1] == '1'
+                            && Integer.parseInt(new String(response, 2, 2), 16) % 0x20 != 0) {
+                        result.add(parser.parse(response));
+                    }
+                } else if (b != ' ' && b != '>') {
+                    line.write(b);
+                }
+            }
+        }
+        return result;
+    }
+}
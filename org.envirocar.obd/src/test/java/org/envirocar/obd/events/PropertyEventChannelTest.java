@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.events;
+
+import org.envirocar.core.entity.Measurement;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.TestScheduler;
+
+/**
+ * @author dewall
+ */
+public class PropertyEventChannelTest {
+
+    @Test
+    public void testListenerReceivesSubscribedKeysOnly() {
+        PropertyEventChannel channel = new PropertyEventChannel();
+        RecordingListener listener = new RecordingListener();
+        channel.subscribe(listener, EnumSet.of(Measurement.PropertyKey.SPEED));
+
+        channel.publish(Measurement.PropertyKey.SPEED, 52, 1000);
+        channel.publish(Measurement.PropertyKey.RPM, 2100, 1000);
+        channel.publish(Measurement.PropertyKey.SPEED, 54, 2000);
+
+        Assert.assertEquals(2, listener.keys.size());
+        Assert.assertEquals(Measurement.PropertyKey.SPEED, listener.keys.get(1));
+        Assert.assertEquals(54, listener.values.get(1), 0.0);
+        Assert.assertEquals(2000, (long) listener.timestamps.get(1));
+    }
+
+    @Test
+    public void testDisposedListenerReceivesNothing() {
+        PropertyEventChannel channel = new PropertyEventChannel();
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        Disposable subscription = channel.subscribe(first,
+                EnumSet.allOf(Measurement.PropertyKey.class));
+        channel.subscribe(second, EnumSet.allOf(Measurement.PropertyKey.class));
+
+        subscription.dispose();
+        channel.publish(Measurement.PropertyKey.MAF, 12.5, 1000);
+
+        Assert.assertTrue(subscription.isDisposed());
+        Assert.assertTrue(first.keys.isEmpty());
+        Assert.assertEquals(1, second.keys.size());
+    }
+
+    @Test
+    public void testConflatedListenerReceivesLatestValuePerKey() {
+        PropertyEventChannel channel = new PropertyEventChannel();
+        RecordingListener listener = new RecordingListener();
+        TestScheduler scheduler = new TestScheduler();
+        channel.subscribeConflated(listener,
+                EnumSet.of(Measurement.PropertyKey.SPEED, Measurement.PropertyKey.RPM), scheduler);
+
+        channel.publish(Measurement.PropertyKey.SPEED, 50, 1000);
+        channel.publish(Measurement.PropertyKey.RPM, 2000, 1000);
+        channel.publish(Measurement.PropertyKey.SPEED, 51, 2000);
+        channel.publish(Measurement.PropertyKey.SPEED, 52, 3000);
+        Assert.assertTrue(listener.keys.isEmpty());
+
+        scheduler.triggerActions();
+        Assert.assertEquals(2, listener.keys.size());
+        int speed = listener.keys.indexOf(Measurement.PropertyKey.SPEED);
+        Assert.assertEquals(52, listener.values.get(speed), 0.0);
+        Assert.assertEquals(3000, (long) listener.timestamps.get(speed));
+        int rpm = listener.keys.indexOf(Measurement.PropertyKey.RPM);
+        Assert.assertEquals(2000, listener.values.get(rpm), 0.0);
+
+        channel.publish(Measurement.PropertyKey.SPEED, 53, 4000);
+        scheduler.triggerActions();
+        Assert.assertEquals(3, listener.keys.size());
+        Assert.assertEquals(53, listener.values.get(2), 0.0);
+    }
+
+    private static final class RecordingListener implements PropertyEventChannel.Listener {
+        private final List<Measurement.PropertyKey> keys = new ArrayList<>();
+        private final List<Double> values = new ArrayList<>();
+        private final List<Long> timestamps = new ArrayList<>();
+
+        @Override
+        public void onPropertyEvent(Measurement.PropertyKey key, double value, long timestamp) {
+            keys.add(key);
+            values.add(value);
+            timestamps.add(timestamp);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.obd.trace;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author dewall
+ */
+public class OBDTraceReplayTest {
+    private static final String COMMAND = "010C\r";
+    private static final String RESPONSE = "41 0C 1A F8\r>";
+    private static final long RESPONSE_DELAY = 200;
+
+    @Test
+    public void testRecordedTraceCanBeRead() throws IOException {
+        OBDTrace trace = recordTrace();
+
+        Assert.assertEquals("OBDII", trace.getDeviceName());
+        Assert.assertEquals(2, trace.getRecords().size());
+        Assert.assertEquals(OBDTrace.Direction.WRITE, trace.getRecords().get(0).getDirection());
+        Assert.assertEquals(COMMAND, new String(trace.getRecords().get(0).getData()));
+        Assert.assertEquals(OBDTrace.Direction.READ, trace.getRecords().get(1).getDirection());
+        Assert.assertEquals(RESPONSE, new String(trace.getRecords().get(1).getData()));
+        Assert.assertTrue(trace.getDuration() >= TimeUnit.MILLISECONDS.toNanos(RESPONSE_DELAY));
+    }
+
+    @Test
+    public void testResponseWaitsForCommand() throws IOException {
+        OBDTraceReplay replay = new OBDTraceReplay(recordTrace(),
+                OBDTraceReplay.AS_FAST_AS_POSSIBLE, true);
+
+        Assert.assertEquals(0, replay.getInputStream().available());
+
+        writeCommand(replay.getOutputStream(), COMMAND);
+        Assert.assertEquals(RESPONSE.length(), replay.getInputStream().available());
+        Assert.assertEquals(RESPONSE, readFully(replay.getInputStream()));
+        Assert.assertTrue(replay.isFinished());
+    }
+
+    @Test
+    public void testReplayKeepsRecordedTiming() throws IOException {
+        OBDTrace trace = recordTrace();
+
+        long realTime = replayDuration(new OBDTraceReplay(trace, 1, true));
+        long accelerated = replayDuration(new OBDTraceReplay(trace, 10, true));
+
+        Assert.assertTrue(realTime >= RESPONSE_DELAY * 9 / 10);
+        Assert.assertTrue(accelerated < realTime / 2);
+    }
+
+    @Test
+    public void testDivergingCommandFailsInStrictMode() throws IOException {
+        OBDTrace trace = recordTrace();
+
+        OBDTraceReplay strict = new OBDTraceReplay(trace, OBDTraceReplay.AS_FAST_AS_POSSIBLE, true);
+        writeCommand(strict.getOutputStream(), "010D\r");
+        try {
+            strict.getInputStream().read();
+            Assert.fail("Expected the replay to diverge");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("diverged"));
+        }
+
+        OBDTraceReplay lenient = new OBDTraceReplay(trace, OBDTraceReplay.AS_FAST_AS_POSSIBLE, false);
+        writeCommand(lenient.getOutputStream(), "010D\r");
+        Assert.assertEquals(RESPONSE, readFully(lenient.getInputStream()));
+    }
+
+    @Test
+    public void testMalformedTraceIsRejected() {
+        String trace = OBDTrace.HEADER + "\n12 W 3G\n";
+        try {
+            OBDTrace.read(new ByteArrayInputStream(trace.getBytes()));
+            Assert.fail("Expected a malformed trace");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("line 2"));
+        }
+    }
+
+    private OBDTrace recordTrace() throws IOException {
+        ByteArrayOutputStream traceOut = new ByteArrayOutputStream();
+        try (OBDTraceRecorder recorder = new OBDTraceRecorder(traceOut, "OBDII")) {
+            OutputStream out = recorder.record(new ByteArrayOutputStream());
+            InputStream in = recorder.record(new ByteArrayInputStream(RESPONSE.getBytes()));
+
+            writeCommand(out, COMMAND);
+            try {
+                Thread.sleep(RESPONSE_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Assert.assertEquals(RESPONSE, readFully(in));
+        }
+        return OBDTrace.read(new ByteArrayInputStream(traceOut.toByteArray()));
+    }
+
+    private long replayDuration(OBDTraceReplay replay) throws IOException {
+        long start = System.nanoTime();
+        writeCommand(replay.getOutputStream(), COMMAND);
+        Assert.assertEquals(RESPONSE, readFully(replay.getInputStream()));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static void writeCommand(OutputStream out, String command) throws IOException {
+        out.write(command.getBytes());
+        out.flush();
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toString();
+    }
+}
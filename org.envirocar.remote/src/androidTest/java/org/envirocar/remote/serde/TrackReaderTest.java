@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.remote.serde;
+
+import android.test.InstrumentationTestCase;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.Track;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TrackReaderTest extends InstrumentationTestCase {
+
+    private static final String PROPERTIES = "\"properties\":{" +
+            "\"id\":\"5c3f5ba644ea8502f3a8f1a2\"," +
+            "\"name\":\"Test track\"," +
+            "\"length\":1.5," +
+            "\"begin\":\"2019-01-01T10:00:00Z\"," +
+            "\"end\":\"2019-01-01T10:00:05Z\"," +
+            "\"sensor\":{\"type\":\"car\",\"properties\":{" +
+            "\"id\":\"5750591ee4b09078f98673d8\",\"manufacturer\":\"VW\",\"model\":\"Golf\"," +
+            "\"fuelType\":\"gasoline\",\"constructionYear\":2010,\"engineDisplacement\":1600}}}";
+
+    private static final String FEATURES = "\"features\":[" + feature(0) + "," + feature(5) +
+            "]";
+
+    private static String feature(int second) {
+        return "{\"type\":\"Feature\"," +
+                "\"geometry\":{\"type\":\"Point\",\"coordinates\":[7.5" + second + ",51.9" +
+                second + "]}," +
+                "\"properties\":{\"id\":\"m" + second + "\"," +
+                "\"time\":\"2019-01-01T10:00:0" + second + "Z\"," +
+                "\"phenomenons\":{" +
+                "\"Speed\":{\"value\":4" + second + ",\"unit\":\"km/h\"}," +
+                "\"Rpm\":{\"value\":2000.5,\"unit\":\"u/min\"}," +
+                "\"Unknown Phenomenon\":{\"value\":1}}}}";
+    }
+
+    @Test
+    public void testPropertiesBeforeFeatures() throws Exception {
+        String json = "{\"type\":\"FeatureCollection\"," + PROPERTIES + "," + FEATURES + "}";
+        TrackReader reader = new TrackReader(new JsonReader(new StringReader(json)));
+
+        // the properties are available before reading the measurements
+        assertTrack(reader.getTrack());
+
+        List<Measurement> measurements = read(reader);
+        Assert.assertThat(measurements.size(), CoreMatchers.is(2));
+        assertMeasurementsEqual(measurements, deserializeTree(json).getMeasurements());
+    }
+
+    @Test
+    public void testPropertiesAfterFeatures() throws Exception {
+        String json = "{\"type\":\"FeatureCollection\"," + FEATURES + "," + PROPERTIES + "}";
+        TrackReader reader = new TrackReader(new JsonReader(new StringReader(json)));
+
+        List<Measurement> measurements = read(reader);
+        assertTrack(reader.getTrack());
+        assertMeasurementsEqual(measurements, deserializeTree(json).getMeasurements());
+    }
+
+    @Test
+    public void testMeasurement() throws Exception {
+        String json = "{" + FEATURES + "}";
+        List<Measurement> measurements = read(new TrackReader(
+                new JsonReader(new StringReader(json))));
+
+        Measurement m = measurements.get(1);
+        Assert.assertEquals(51.95f, m.getLatitude(), 0.0);
+        Assert.assertEquals(7.55f, m.getLongitude(), 0.0);
+        Assert.assertEquals(45.0, m.getProperty(Measurement.PropertyKey.SPEED), 0.0);
+        Assert.assertEquals(2000.5, m.getProperty(Measurement.PropertyKey.RPM), 0.0);
+        Assert.assertThat(m.getAllProperties().size(), CoreMatchers.is(2));
+        Assert.assertThat(m.getTime() - measurements.get(0).getTime(), CoreMatchers.is(5000L));
+    }
+
+    private static void assertTrack(Track track) {
+        Assert.assertThat(track.getRemoteID(), CoreMatchers.is("5c3f5ba644ea8502f3a8f1a2"));
+        Assert.assertThat(track.getName(), CoreMatchers.is("Test track"));
+        Assert.assertThat(track.getDescription(), CoreMatchers.is(""));
+        Assert.assertThat(track.getLength(), CoreMatchers.is(1.5));
+        Assert.assertThat(track.getEndTime() - track.getStartTime(), CoreMatchers.is(5000L));
+        Assert.assertThat(track.getCar().getId(), CoreMatchers.is("5750591ee4b09078f98673d8"));
+        Assert.assertThat(track.getDownloadState(), CoreMatchers.is(Track.DownloadState.DOWNLOADED));
+    }
+
+    private static void assertMeasurementsEqual(List<Measurement> actual,
+                                                List<Measurement> expected) {
+        Assert.assertThat(actual.size(), CoreMatchers.is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertThat(actual.get(i).getLatitude(),
+                    CoreMatchers.is(expected.get(i).getLatitude()));
+            Assert.assertThat(actual.get(i).getLongitude(),
+                    CoreMatchers.is(expected.get(i).getLongitude()));
+            Assert.assertThat(actual.get(i).getTime(),
+                    CoreMatchers.is(expected.get(i).getTime()));
+            Assert.assertThat(actual.get(i).getProperty(Measurement.PropertyKey.SPEED),
+                    CoreMatchers.is(expected.get(i).getProperty(Measurement.PropertyKey.SPEED)));
+        }
+    }
+
+    private static List<Measurement> read(TrackReader reader) {
+        List<Measurement> result = new ArrayList<>();
+        for (Measurement measurement : reader) {
+            result.add(measurement);
+        }
+        return result;
+    }
+
+    private static Track deserializeTree(String json) {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(Track.class, new TrackSerde())
+                .registerTypeAdapter(Measurement.class, new MeasurementSerde())
+                .registerTypeAdapter(Car.class, new CarSerde())
+                .create();
+        return gson.fromJson(json, Track.class);
+    }
+}
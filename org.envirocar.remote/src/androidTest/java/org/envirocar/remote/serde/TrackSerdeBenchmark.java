@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.remote.serde;
+
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.CarImpl;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.remote.util.GzipTrackRequestBody;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+import okio.Sink;
+import okio.Timeout;
+
+/**
+ * Compares the allocations and the peak heap of the streamed track upload against the json tree
+ * based serialization, which is converted to a byte array and gzipped afterwards.
+ */
+public class TrackSerdeBenchmark extends InstrumentationTestCase {
+    private static final String TAG = TrackSerdeBenchmark.class.getSimpleName();
+
+    private static final int MEASUREMENTS = 7200;
+
+    @Test
+    public void testStreamedJsonEqualsTree() throws Exception {
+        Track track = createTrack(100);
+
+        Buffer streamed = new Buffer();
+        new GzipTrackRequestBody(track).writeTo(streamed);
+        String streamedJson = Okio.buffer(new GzipSource(streamed)).readUtf8();
+
+        Assert.assertThat(streamedJson, CoreMatchers.is(createGson().toJson(track, Track.class)));
+    }
+
+    @Test
+    public void testAllocationsAndPeakHeap() throws Exception {
+        Track track = createTrack(MEASUREMENTS);
+
+        // warm up both paths
+        writeTree(track, new MeasuringSink());
+        writeStreamed(track, new MeasuringSink());
+
+        long[] tree = measure(track, false);
+        long[] streamed = measure(track, true);
+
+        Log.i(TAG, String.format("tree:     %s bytes allocated, %s bytes peak heap, %s bytes sent",
+                tree[0], tree[1], tree[2]));
+        Log.i(TAG, String.format("streamed: %s bytes allocated, %s bytes peak heap, %s bytes sent",
+                streamed[0], streamed[1], streamed[2]));
+    }
+
+    private long[] measure(Track track, boolean streamed) throws IOException {
+        Runtime.getRuntime().gc();
+        MeasuringSink sink = new MeasuringSink();
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocSize();
+        if (streamed) {
+            writeStreamed(track, sink);
+        } else {
+            writeTree(track, sink);
+        }
+        long allocated = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+
+        return new long[]{allocated, sink.peakHeap - sink.initialHeap, sink.bytes};
+    }
+
+    private void writeStreamed(Track track, MeasuringSink sink) throws IOException {
+        RequestBody body = new GzipTrackRequestBody(track);
+        BufferedSink out = Okio.buffer(sink);
+        body.writeTo(out);
+    }
+
+    /**
+     * Mirrors the previous upload path: the gson converter of retrofit serializes the track
+     * into a buffer, which gets gzipped while it is written to the connection.
+     */
+    private void writeTree(Track track, MeasuringSink sink) throws IOException {
+        Buffer buffer = new Buffer();
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(buffer.outputStream(), "UTF-8"));
+        createGson().toJson(track, Track.class, writer);
+        writer.close();
+        RequestBody body = RequestBody.create(MediaType.parse("application/json; charset=UTF-8"),
+                buffer.readByteString());
+        sink.sample();
+
+        BufferedSink gzipper = Okio.buffer(new GzipSink(Okio.buffer(sink)));
+        body.writeTo(gzipper);
+        gzipper.close();
+    }
+
+    private static Gson createGson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(Track.class, new TrackSerde())
+                .create();
+    }
+
+    private static Track createTrack(int size) {
+        Track track = new TrackImpl();
+        track.setName("Benchmark");
+        track.setDescription("Benchmark track");
+        track.setCar(new CarImpl("5750591ee4b09078f98673d8", "VW", "Golf",
+                Car.FuelType.GASOLINE, 2010, 1600));
+
+        List<Measurement> measurements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Measurement m = new MeasurementImpl(52.0 + i * 1e-5, 7.0 + i * 1e-5);
+            m.setTime(1500000000000L + 1000L * i);
+            m.setProperty(Measurement.PropertyKey.SPEED, 50.0 + i % 30);
+            m.setProperty(Measurement.PropertyKey.RPM, 2000.0 + i % 500);
+            m.setProperty(Measurement.PropertyKey.MAF, 12.5 + i % 7);
+            m.setProperty(Measurement.PropertyKey.INTAKE_TEMPERATURE, 30.0);
+            m.setProperty(Measurement.PropertyKey.INTAKE_PRESSURE, 90.0);
+            m.setProperty(Measurement.PropertyKey.CONSUMPTION, 5.4);
+            m.setProperty(Measurement.PropertyKey.CO2, 12.7);
+            m.setProperty(Measurement.PropertyKey.GPS_ACCURACY, 4.0);
+            m.setProperty(Measurement.PropertyKey.GPS_SPEED, 49.0 + i % 30);
+            m.setProperty(Measurement.PropertyKey.GPS_BEARING, 180.0);
+            m.setProperty(Measurement.PropertyKey.GPS_ALTITUDE, 80.0);
+            measurements.add(m);
+        }
+        track.setMeasurements(measurements);
+        return track;
+    }
+
+    /**
+     * Sink that discards the written bytes and samples the used heap on every write.
+     */
+    private static final class MeasuringSink implements Sink {
+        private final long initialHeap = usedHeap();
+        private long peakHeap = initialHeap;
+        private long bytes;
+
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+            sample();
+            bytes += byteCount;
+            source.skip(byteCount);
+        }
+
+        void sample() {
+            peakHeap = Math.max(peakHeap, usedHeap());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private static long usedHeap() {
+            Runtime runtime = Runtime.getRuntime();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
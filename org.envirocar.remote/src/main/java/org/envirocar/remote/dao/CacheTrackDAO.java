@@ -21,6 +21,7 @@ package org.envirocar.remote.dao;
 import org.envirocar.core.CacheDirectoryProvider;
 import org.envirocar.core.dao.AbstractCacheDAO;
 import org.envirocar.core.dao.TrackDAO;
+import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.exception.NotConnectedException;
 
@@ -29,6 +30,7 @@ import java.util.List;
 import javax.inject.Inject;
 
 import io.reactivex.Observable;
+import io.reactivex.functions.BiConsumer;
 
 
 /**
@@ -54,6 +56,12 @@ public class CacheTrackDAO extends AbstractCacheDAO implements TrackDAO {
         return Observable.error(new NotConnectedException("Not implemented for Cache DAO"));
     }
 
+    @Override
+    public void getTrackById(String id, BiConsumer<Track, Iterable<Measurement>> consumer) throws
+            NotConnectedException {
+        throw new NotConnectedException("Not implemented for Cache DAO");
+    }
+
     @Override
     public List<Track> getTrackIds() throws NotConnectedException {
         throw new NotConnectedException("Not implemented for Cache DAO");
@@ -101,6 +109,12 @@ public class CacheTrackDAO extends AbstractCacheDAO implements TrackDAO {
         throw new NotConnectedException("Not implemented for Cache DAO");
     }
 
+    @Override
+    public Track createTrack(Track track, Iterable<Measurement> measurements) throws
+            NotConnectedException {
+        throw new NotConnectedException("Not implemented for Cache DAO");
+    }
+
     @Override
     public Observable<Track> createTrackObservable(Track track) {
         return Observable.error(new NotConnectedException("Not implemented for Cache DAO"));
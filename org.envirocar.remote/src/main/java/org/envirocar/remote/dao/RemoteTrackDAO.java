@@ -19,9 +19,12 @@
 package org.envirocar.remote.dao;
 
 import com.google.common.base.Preconditions;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonReader;
 
 import org.envirocar.core.UserManager;
 import org.envirocar.core.dao.TrackDAO;
+import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.exception.DataCreationFailureException;
 import org.envirocar.core.exception.DataRetrievalFailureException;
@@ -29,9 +32,11 @@ import org.envirocar.core.exception.NotConnectedException;
 import org.envirocar.core.exception.ResourceConflictException;
 import org.envirocar.core.exception.UnauthorizedException;
 import org.envirocar.core.logging.Logger;
+import org.envirocar.remote.serde.TrackReader;
 import org.envirocar.remote.service.EnviroCarService;
 import org.envirocar.remote.service.TrackService;
 import org.envirocar.remote.util.EnvirocarServiceUtils;
+import org.envirocar.remote.util.GzipTrackRequestBody;
 
 import java.io.IOException;
 import java.util.List;
@@ -40,6 +45,7 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import io.reactivex.Observable;
+import io.reactivex.functions.BiConsumer;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Response;
@@ -86,6 +92,38 @@ public class RemoteTrackDAO extends BaseRemoteDAO<TrackDAO, TrackService> implem
         }
     }
 
+    @Override
+    public void getTrackById(String id, BiConsumer<Track, Iterable<Measurement>> consumer) throws
+            DataRetrievalFailureException, NotConnectedException, UnauthorizedException {
+        LOG.info(String.format("getTrack(%s) streamed", id));
+        final TrackService trackService = EnviroCarService.getTrackService();
+        Call<ResponseBody> trackCall = trackService.getTrackStreamed(
+                userManager.getUser().getUsername(), id);
+
+        try {
+            // Execute the request call
+            Response<ResponseBody> trackResponse = executeCall(trackCall);
+
+            // Decode the track while the consumer reads its measurements.
+            JsonReader reader = new JsonReader(trackResponse.body().charStream());
+            try {
+                TrackReader trackReader = new TrackReader(reader);
+                consumer.accept(trackReader.getTrack(), trackReader);
+            } finally {
+                reader.close();
+            }
+            LOG.debug("getTrack() was successful");
+        } catch (ResourceConflictException e) {
+            throw new DataRetrievalFailureException(e);
+        } catch (IOException | JsonIOException e) {
+            throw new NotConnectedException(e);
+        } catch (NotConnectedException | UnauthorizedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DataRetrievalFailureException(e);
+        }
+    }
+
     @Override
     public Observable<Track> getTrackByIdObservable(final String id) {
         return Observable.create(emitter -> {
@@ -166,6 +204,12 @@ public class RemoteTrackDAO extends BaseRemoteDAO<TrackDAO, TrackService> implem
     @Override
     public Track createTrack(Track track) throws DataCreationFailureException,
             NotConnectedException, UnauthorizedException {
+        return createTrack(track, track.getMeasurements());
+    }
+
+    @Override
+    public Track createTrack(Track track, Iterable<Measurement> measurements) throws
+            DataCreationFailureException, NotConnectedException, UnauthorizedException {
         LOG.info("createTrack()");
 
         // check whether the getUserStatistic is logged in
@@ -176,7 +220,8 @@ public class RemoteTrackDAO extends BaseRemoteDAO<TrackDAO, TrackService> implem
         // Initiate the remoteService and its call
         final TrackService trackService = EnviroCarService.getTrackService();
         Call<ResponseBody> uploadTrackCall =
-                trackService.uploadTrack(userManager.getUser().getUsername(), track);
+                trackService.uploadTrack(userManager.getUser().getUsername(),
+                        new GzipTrackRequestBody(track, measurements));
 
         try {
             Response<ResponseBody> response = uploadTrackCall.execute();
@@ -35,8 +35,7 @@ public abstract class AbstractJsonSerde {
     protected Long parseStringAsTime(String key, JsonObject o) {
         try {
             if (o.has(key)) {
-                String time = o.get(key).getAsString();
-                return DATE_FORMAT.parse(time).getTime();
+                return parseStringAsTime(o.get(key).getAsString());
             }
         } catch (Exception e) {
             LOG.error("Error while parsing date.", e);
@@ -44,6 +43,15 @@ public abstract class AbstractJsonSerde {
         return null;
     }
 
+    protected Long parseStringAsTime(String time) {
+        try {
+            return DATE_FORMAT.parse(time).getTime();
+        } catch (Exception e) {
+            LOG.error("Error while parsing date.", e);
+        }
+        return null;
+    }
+
     protected Double parseAsDouble(String key, JsonObject o){
         try {
             if(o.has(key)){
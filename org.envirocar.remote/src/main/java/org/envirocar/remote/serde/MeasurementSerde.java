@@ -26,6 +26,8 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.MeasurementImpl;
@@ -33,6 +35,7 @@ import org.envirocar.core.entity.Track;
 import org.envirocar.core.logging.Logger;
 import org.envirocar.core.util.Util;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.text.ParseException;
 import java.util.Map;
@@ -88,4 +91,96 @@ public class MeasurementSerde implements JsonSerializer<Measurement>,
 
         return result;
     }
+
+    /**
+     * Reads a single GeoJSON feature from the reader without building a json tree.
+     *
+     * @param in the reader positioned at the beginning of the feature object.
+     * @return the measurement of the feature.
+     * @throws IOException if reading fails.
+     */
+    public Measurement deserialize(JsonReader in) throws IOException {
+        Measurement result = new MeasurementImpl();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case Track.KEY_TRACK_FEATURES_GEOMETRY:
+                    readGeometry(in, result);
+                    break;
+                case Track.KEY_TRACK_FEATURES_PROPERTIES:
+                    readProperties(in, result);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return result;
+    }
+
+    private void readGeometry(JsonReader in, Measurement result) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            if (Track.KEY_TRACK_FEATURES_GEOMETRY_COORDINATES.equals(in.nextName())) {
+                in.beginArray();
+                // same precision as the tree based deserialization
+                result.setLongitude((float) in.nextDouble());
+                result.setLatitude((float) in.nextDouble());
+                while (in.hasNext()) {
+                    in.skipValue();
+                }
+                in.endArray();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private void readProperties(JsonReader in, Measurement result) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case Track.KEY_TRACK_FEATURES_PROPERTIES_TIME:
+                    try {
+                        result.setTime(Util.isoDateToLong(in.nextString()));
+                    } catch (ParseException e) {
+                        LOG.warn("Error while parsing the time of a measurement.", e);
+                    }
+                    break;
+                case Track.KEY_TRACK_FEATURES_PROPERTIES_PHENOMENONS:
+                    readPhenomenons(in, result);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private void readPhenomenons(JsonReader in, Measurement result) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            Measurement.PropertyKey key = Measurement.PropertyKeyValues.get(in.nextName());
+
+            Double value = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (Track.KEY_TRACK_FEATURES_PROPERTIES_PHENOMENONS_VALUE.equals(in.nextName())
+                        && in.peek() != JsonToken.NULL) {
+                    value = in.nextDouble();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+
+            if (key != null) {
+                result.setProperty(key, value);
+            }
+        }
+        in.endObject();
+    }
 }
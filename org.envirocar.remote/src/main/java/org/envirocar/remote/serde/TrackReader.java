@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.remote.serde;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.envirocar.core.entity.Car;
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a track from a GeoJSON feature collection without building a json tree. The properties
+ * are set on {@link #getTrack()} as soon as they have been read, i.e., before the first
+ * measurement when they precede the features in the document, otherwise once the iteration has
+ * finished. The measurements are decoded one at a time while iterating, so the iterator can only
+ * be obtained once and must be consumed while the underlying reader is open.
+ *
+ * @author dewall
+ */
+public class TrackReader extends AbstractJsonSerde implements Iterable<Measurement> {
+
+    private final CarSerde carSerde = new CarSerde();
+    private final MeasurementSerde measurementSerde = new MeasurementSerde();
+    private final JsonReader in;
+    private final Track track;
+
+    private boolean inFeatures;
+    private boolean iterated;
+
+    /**
+     * Constructor. Reads the document up to the first feature.
+     *
+     * @param in the reader positioned at the beginning of the feature collection.
+     * @throws IOException if reading fails.
+     */
+    public TrackReader(JsonReader in) throws IOException {
+        this.in = in;
+        this.track = new TrackImpl(Track.DownloadState.DOWNLOADED);
+        this.track.setTrackStatus(Track.TrackStatus.FINISHED);
+
+        in.beginObject();
+        this.inFeatures = readUntilFeatures();
+    }
+
+    /**
+     * @return the track without measurements.
+     */
+    public Track getTrack() {
+        return track;
+    }
+
+    /**
+     * @return an iterator decoding the measurements of the track. I/O errors are rethrown as
+     * {@link JsonIOException}.
+     */
+    @Override
+    public Iterator<Measurement> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("The measurements of the track have been read already.");
+        }
+        iterated = true;
+
+        return new Iterator<Measurement>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (inFeatures) {
+                        if (in.hasNext()) {
+                            return true;
+                        }
+                        in.endArray();
+                        inFeatures = readUntilFeatures();
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new JsonIOException(e);
+                }
+            }
+
+            @Override
+            public Measurement next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                try {
+                    return measurementSerde.deserialize(in);
+                } catch (IOException e) {
+                    throw new JsonIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the members of the feature collection until the features array.
+     *
+     * @return true if the reader is positioned in the features array, false if the end of the
+     * document has been reached.
+     */
+    private boolean readUntilFeatures() throws IOException {
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (Track.KEY_TRACK_FEATURES.equals(name)) {
+                in.beginArray();
+                return true;
+            } else if (Track.KEY_TRACK_PROPERTIES.equals(name)) {
+                readProperties();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return false;
+    }
+
+    private void readProperties() throws IOException {
+        String id = null;
+        String name = null;
+        String description = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case Track.KEY_TRACK_ID:
+                    id = nextStringOrNull();
+                    break;
+                case Track.KEY_TRACK_NAME:
+                    name = nextStringOrNull();
+                    break;
+                case Track.KEY_TRACK_DESC:
+                    description = nextStringOrNull();
+                    break;
+                case Track.KEY_TRACK_BEGIN:
+                    track.setStartTime(parseStringAsTime(nextStringOrNull()));
+                    break;
+                case Track.KEY_TRACK_END:
+                    track.setEndTime(parseStringAsTime(nextStringOrNull()));
+                    break;
+                case Track.KEY_TRACK_LENGTH:
+                    String length = nextStringOrNull();
+                    track.setLength(length != null ? Double.valueOf(length) : null);
+                    break;
+                case Track.KEY_TRACK_SENSOR:
+                    track.setCar(carSerde.deserialize(new JsonParser().parse(in), Car.class, null));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        track.setRemoteID(id);
+        track.setName(name != null ? name : "unnamed Track #" + id);
+        track.setDescription(description != null ? description : "");
+    }
+
+    private String nextStringOrNull() throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
@@ -19,8 +19,6 @@
 package org.envirocar.remote.serde;
 
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
@@ -125,26 +123,7 @@ public class TrackSerde extends AbstractJsonSerde implements JsonSerializer<Trac
     public JsonElement serialize(Track src, Type typeOfSrc, JsonSerializationContext context) {
         LOG.info("serialize() track");
         // set the properties of the json object
-        JsonObject trackProperties = new JsonObject();
-        trackProperties.addProperty(Track.KEY_TRACK_NAME, src.getName());
-        trackProperties.addProperty(Track.KEY_TRACK_DESC,
-                src.getDescription());
-        trackProperties.addProperty(Track.KEY_TRACK_SENSOR, src.getCar().getId());
-
-        try {
-            if (src.getMetadata() != null) {
-                JSONObject json = src.getMetadata().toJson();
-                JSONArray names = json.names();
-                for (int i = 0; i < names.length(); i++) {
-                    trackProperties.addProperty(names.get(i).toString(),
-                            json.getString(names.get(i).toString()));
-                }
-            } else {
-                LOG.warn("The track does not provide metadata!");
-            }
-        } catch (JSONException e) {
-            LOG.severe("Error while parsing metadata of track", e);
-        }
+        JsonObject trackProperties = createTrackProperties(src);
 
         // serialize the array of features.
         JsonArray trackFeatures = new JsonArray();
@@ -172,6 +151,129 @@ public class TrackSerde extends AbstractJsonSerde implements JsonSerializer<Trac
         return result;
     }
 
+    /**
+     * Serializes the track with the given measurements instead of the ones held by the track.
+     * Every measurement is written to the writer as soon as it has been consumed and without
+     * building an intermediate json tree, i.e., the measurements can be streamed from the
+     * database (e.g., by {@code enviroCarDB.getMeasurements(trackId).blockingIterable()})
+     * without holding the whole track in memory.
+     *
+     * @param src          the track to serialize.
+     * @param measurements the time ordered measurements of the track.
+     * @param out          the writer to write the json to.
+     * @throws IOException if writing fails.
+     */
+    public void serialize(Track src, Iterable<Measurement> measurements, JsonWriter out) throws
+            IOException {
+        LOG.info("serialize() track streamed");
+        out.beginObject();
+        out.name(Track.KEY_TRACK_TYPE).value("FeatureCollection");
+        out.name(Track.KEY_TRACK_PROPERTIES);
+        writeTrackProperties(src, out);
+
+        String sensor = src.getCar().getId();
+        boolean isDiesel = src.getCar().getFuelType() == Car.FuelType.DIESEL;
+
+        out.name(Track.KEY_TRACK_FEATURES);
+        out.beginArray();
+        for (Measurement measurement : measurements) {
+            writeMeasurement(measurement, sensor, isDiesel, out);
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    private void writeTrackProperties(Track src, JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name(Track.KEY_TRACK_NAME).value(src.getName());
+        out.name(Track.KEY_TRACK_DESC).value(src.getDescription());
+        out.name(Track.KEY_TRACK_SENSOR).value(src.getCar().getId());
+
+        try {
+            if (src.getMetadata() != null) {
+                JSONObject json = src.getMetadata().toJson();
+                JSONArray names = json.names();
+                for (int i = 0; i < names.length(); i++) {
+                    out.name(names.get(i).toString())
+                            .value(json.getString(names.get(i).toString()));
+                }
+            } else {
+                LOG.warn("The track does not provide metadata!");
+            }
+        } catch (JSONException e) {
+            LOG.severe("Error while parsing metadata of track", e);
+        }
+        out.endObject();
+    }
+
+    private void writeMeasurement(Measurement src, String sensor, boolean isDiesel,
+                                  JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("type").value("Feature");
+
+        // Write the geometry
+        out.name(Track.KEY_TRACK_FEATURES_GEOMETRY);
+        out.beginObject();
+        out.name(Track.KEY_TRACK_TYPE).value("Point");
+        out.name(Track.KEY_TRACK_FEATURES_GEOMETRY_COORDINATES);
+        out.beginArray();
+        out.value(src.getLongitude());
+        out.value(src.getLatitude());
+        out.endArray();
+        out.endObject();
+
+        // Write the measurement properties.
+        out.name(Track.KEY_TRACK_FEATURES_PROPERTIES);
+        out.beginObject();
+        out.name(Track.KEY_TRACK_FEATURES_PROPERTIES_TIME).value(Util.longToIsoDate(src.getTime()));
+        out.name("sensor").value(sensor);
+
+        // Write all measured phenomenons of this measurement.
+        Map<Measurement.PropertyKey, Double> props = src.getAllProperties();
+        if (!props.isEmpty()) {
+            out.name(Track.KEY_TRACK_FEATURES_PROPERTIES_PHENOMENONS);
+            out.beginObject();
+            for (Map.Entry<Measurement.PropertyKey, Double> entry : props.entrySet()) {
+                Measurement.PropertyKey key = entry.getKey();
+                if (supportedPhenomenons.contains(key) && !(isDiesel && (key == CO2 ||
+                        key == CONSUMPTION))) {
+                    out.name(key.toString());
+                    out.beginObject();
+                    out.name("value").value(entry.getValue());
+                    out.endObject();
+                }
+            }
+            out.endObject();
+        }
+        out.endObject();
+
+        out.endObject();
+    }
+
+    private JsonObject createTrackProperties(Track src) {
+        JsonObject trackProperties = new JsonObject();
+        trackProperties.addProperty(Track.KEY_TRACK_NAME, src.getName());
+        trackProperties.addProperty(Track.KEY_TRACK_DESC,
+                src.getDescription());
+        trackProperties.addProperty(Track.KEY_TRACK_SENSOR, src.getCar().getId());
+
+        try {
+            if (src.getMetadata() != null) {
+                JSONObject json = src.getMetadata().toJson();
+                JSONArray names = json.names();
+                for (int i = 0; i < names.length(); i++) {
+                    trackProperties.addProperty(names.get(i).toString(),
+                            json.getString(names.get(i).toString()));
+                }
+            } else {
+                LOG.warn("The track does not provide metadata!");
+            }
+        } catch (JSONException e) {
+            LOG.severe("Error while parsing metadata of track", e);
+        }
+        return trackProperties;
+    }
+
     private JsonElement createMeasurementProperties(Measurement src, Car car) throws
             JSONException {
         // Create the Geometry json object
@@ -281,6 +383,18 @@ public class TrackSerde extends AbstractJsonSerde implements JsonSerializer<Trac
     }
 
     public static FileWithMetadata exportTrack(Track track) throws IOException {
+        return exportTrack(track, track.getMeasurements());
+    }
+
+    /**
+     * Exports a track with the given measurements, which are written one at a time.
+     *
+     * @param track        the track to export.
+     * @param measurements the measurements of the track.
+     * @return the exported file.
+     */
+    public static FileWithMetadata exportTrack(Track track, Iterable<Measurement> measurements)
+            throws IOException {
         File result = new File(Util.resolveExternalStorageBaseFolder(), "enviroCar-track-" +
                 track.getTrackID() + ".json");
 
@@ -288,10 +402,7 @@ public class TrackSerde extends AbstractJsonSerde implements JsonSerializer<Trac
         JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, "UTF-8"));
         writer.setIndent("  ");
 
-        Gson gson = new GsonBuilder()
-                .registerTypeAdapter(Track.class, new TrackSerde())
-                .create();
-        gson.toJson(track, Track.class, writer);
+        new TrackSerde().serialize(track, measurements, writer);
 
         writer.flush();
         writer.close();
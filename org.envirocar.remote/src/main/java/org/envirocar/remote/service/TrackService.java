@@ -21,6 +21,7 @@ package org.envirocar.remote.service;
 
 
 import org.envirocar.core.entity.Track;
+import org.envirocar.remote.util.GzipTrackRequestBody;
 
 import java.util.List;
 
@@ -30,9 +31,11 @@ import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.POST;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 /**
  * @author dewall
@@ -43,6 +46,11 @@ public interface TrackService {
     Call<Track> getTrack(@Path("getUserStatistic") String user,
                          @Path("track") String track);
 
+    @Streaming
+    @GET("users/{getUserStatistic}/tracks/{track}")
+    Call<ResponseBody> getTrackStreamed(@Path("getUserStatistic") String user,
+                                        @Path("track") String track);
+
     @GET("users/{getUserStatistic}/tracks/{track}?limit=10000")
     Observable<Track> getTrackObservable(@Path("getUserStatistic") String user,
                                          @Path("track") String track);
@@ -81,6 +89,11 @@ public interface TrackService {
     @POST("users/{getUserStatistic}/tracks/")
     Call<ResponseBody> uploadTrack(@Path("getUserStatistic") String user, @Body Track track);
 
+    @POST("users/{getUserStatistic}/tracks/")
+    @Headers("Content-Encoding: gzip")
+    Call<ResponseBody> uploadTrack(@Path("getUserStatistic") String user,
+                                   @Body GzipTrackRequestBody track);
+
     @DELETE("users/{getUserStatistic}/tracks/{track}")
     Call<ResponseBody> deleteTrack(@Path("getUserStatistic") String user, @Path("track") String track);
 
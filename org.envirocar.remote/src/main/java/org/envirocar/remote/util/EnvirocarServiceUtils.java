@@ -22,15 +22,13 @@ import android.util.Log;
 
 import com.google.common.base.Preconditions;
 
-import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.exception.MailNotConfirmedException;
-import org.envirocar.core.exception.NoMeasurementsException;
 import org.envirocar.core.exception.NotConnectedException;
 import org.envirocar.core.exception.ResourceConflictException;
 import org.envirocar.core.exception.UnauthorizedException;
 import org.envirocar.core.logging.Logger;
-import org.envirocar.core.utils.TrackUtils;
+import org.envirocar.core.utils.TrackObfuscator;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -277,57 +275,14 @@ public class EnvirocarServiceUtils {
      * @return
      */
     public static Track getNonObfuscatedMeasurements(Track track, boolean obfuscate) {
-        List<Measurement> measurements = track.getMeasurements();
-
-
         if (obfuscate) {
-            boolean wasAtLeastOneTimeNotObfuscated = false;
-            ArrayList<Measurement> privateCandidates = new ArrayList<Measurement>();
-            ArrayList<Measurement> nonPrivateMeasurements = new ArrayList<Measurement>();
-            for (Measurement measurement : measurements) {
-                try {
-                    /*
-                     * ignore early and late
-                     */
-                    if (TrackUtils.isTemporalObfuscated(measurement, track)) {
-                        continue;
-                    }
-
-                    /*
-                     * ignore distance
-                     */
-                    if (TrackUtils.isSpatialObfuscated(measurement, track)) {
-                        if (wasAtLeastOneTimeNotObfuscated) {
-                            privateCandidates.add(measurement);
-                            nonPrivateMeasurements.add(measurement);
-                        }
-                        continue;
-                    }
-
-                    /*
-                     * we may have found obfuscation candidates in the middle of the track
-                     * (may cross start or end point) in a PRIOR iteration
-                     * of this loop. these candidates can be removed now as we are again
-                     * out of obfuscation scope
-                     */
-                    if (wasAtLeastOneTimeNotObfuscated) {
-                        privateCandidates.clear();
-                    } else {
-                        wasAtLeastOneTimeNotObfuscated = true;
-                    }
-
-                    nonPrivateMeasurements.add(measurement);
-                } catch (NoMeasurementsException e) {
-                    LOG.warn(e.getMessage(), e);
-                }
-
+            TrackObfuscator.Range range = TrackObfuscator.DEFAULT.getNonObfuscatedRange(track);
+            if (range == null) {
+                LOG.warn("No obfuscated measurements available.");
+                track.setMeasurements(new ArrayList<>());
+            } else {
+                track.setMeasurements(range.subList(track.getMeasurements()));
             }
-            /*
-             * the private candidates which have made it until here
-             * shall be ignored
-             */
-            nonPrivateMeasurements.removeAll(privateCandidates);
-            track.setMeasurements(privateCandidates);
         }
 
         return track;
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.remote.util;
+
+import com.google.gson.stream.JsonWriter;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.Track;
+import org.envirocar.remote.serde.TrackSerde;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Request body that writes the GeoJSON of a track feature by feature into a gzip compressed
+ * stream. Neither a json tree nor the serialized bytes of the track are held in memory.
+ *
+ * @author dewall
+ */
+public class GzipTrackRequestBody extends RequestBody {
+    private static final MediaType MEDIA_TYPE_JSON =
+            MediaType.parse("application/json; charset=utf-8");
+
+    private final TrackSerde trackSerde = new TrackSerde();
+    private final Track track;
+    private final Iterable<Measurement> measurements;
+
+    /**
+     * Constructor.
+     *
+     * @param track the track to upload with its measurements.
+     */
+    public GzipTrackRequestBody(Track track) {
+        this(track, track.getMeasurements());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param track        the track to upload.
+     * @param measurements the measurements of the track. These get iterated every time the body
+     *                     is written, e.g., again when the request is retried.
+     */
+    public GzipTrackRequestBody(Track track, Iterable<Measurement> measurements) {
+        this.track = track;
+        this.measurements = measurements;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return MEDIA_TYPE_JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        BufferedSink gzipper = Okio.buffer(new GzipSink(sink));
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(gzipper.outputStream(), "UTF-8"));
+        trackSerde.serialize(track, measurements, writer);
+        writer.close();
+    }
+}
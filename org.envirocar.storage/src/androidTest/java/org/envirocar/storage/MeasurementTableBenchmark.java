@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.Track;
+import org.hamcrest.CoreMatchers;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * Compares the insert and decode throughput of the binary measurement properties against the
+ * legacy JSON encoding on an in-memory database.
+ */
+public class MeasurementTableBenchmark extends InstrumentationTestCase {
+    private static final String TAG = MeasurementTableBenchmark.class.getSimpleName();
+
+    private static final int ROWS = 7200;
+
+    @Test
+    public void testInsertAndDecodeThroughput() throws Exception {
+        long[] binary = runBenchmark(false);
+        long[] json = runBenchmark(true);
+
+        Log.i(TAG, String.format("binary: insert %s rows/s, decode %s rows/s",
+                ROWS * 1000L / Math.max(1, binary[0]), ROWS * 1000L / Math.max(1, binary[1])));
+        Log.i(TAG, String.format("json:   insert %s rows/s, decode %s rows/s",
+                ROWS * 1000L / Math.max(1, json[0]), ROWS * 1000L / Math.max(1, json[1])));
+    }
+
+    private long[] runBenchmark(boolean legacyJson) throws Exception {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        try {
+            db.execSQL(MeasurementTable.CREATE);
+
+            long start = System.currentTimeMillis();
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < ROWS; i++) {
+                    ContentValues values = MeasurementTable.toContentValues(createMeasurement(i));
+                    if (legacyJson) {
+                        values.put(MeasurementTable.KEY_PROPERTIES,
+                                toJson(createMeasurement(i).getAllProperties()));
+                    }
+                    db.insert(MeasurementTable.TABLE_NAME, null, values);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            long insertTime = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            int count = 0;
+            Cursor c = db.rawQuery("SELECT * FROM " + MeasurementTable.TABLE_NAME, null);
+            try {
+                for (c.moveToFirst(); !c.isAfterLast(); c.moveToNext()) {
+                    Measurement m = MeasurementTable.fromCursor(c);
+                    if (m.hasProperty(Measurement.PropertyKey.SPEED)) {
+                        count++;
+                    }
+                }
+            } finally {
+                c.close();
+            }
+            long decodeTime = System.currentTimeMillis() - start;
+
+            Assert.assertThat(count, CoreMatchers.is(ROWS));
+            return new long[]{insertTime, decodeTime};
+        } finally {
+            db.close();
+        }
+    }
+
+    private static Measurement createMeasurement(int i) {
+        Measurement m = new MeasurementImpl(52.0 + i * 1e-5, 7.0 + i * 1e-5);
+        m.setTrackId(new Track.TrackId(1));
+        m.setTime(1000L * i);
+        m.setProperty(Measurement.PropertyKey.SPEED, 50.0 + i % 30);
+        m.setProperty(Measurement.PropertyKey.RPM, 2000.0 + i % 500);
+        m.setProperty(Measurement.PropertyKey.MAF, 12.5 + i % 7);
+        m.setProperty(Measurement.PropertyKey.INTAKE_TEMPERATURE, 30.0);
+        m.setProperty(Measurement.PropertyKey.INTAKE_PRESSURE, 90.0);
+        m.setProperty(Measurement.PropertyKey.CONSUMPTION, 5.4);
+        m.setProperty(Measurement.PropertyKey.CO2, 12.7);
+        m.setProperty(Measurement.PropertyKey.GPS_ACCURACY, 4.0);
+        m.setProperty(Measurement.PropertyKey.GPS_SPEED, 49.0 + i % 30);
+        m.setProperty(Measurement.PropertyKey.GPS_BEARING, 180.0);
+        m.setProperty(Measurement.PropertyKey.GPS_ALTITUDE, 80.0);
+        return m;
+    }
+
+    private static String toJson(Map<Measurement.PropertyKey, Double> properties) throws Exception {
+        JSONObject result = new JSONObject();
+        for (Map.Entry<Measurement.PropertyKey, Double> entry : properties.entrySet()) {
+            result.put(entry.getKey().name(), entry.getValue());
+        }
+        return result.toString();
+    }
+}
@@ -25,7 +25,6 @@ import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.MeasurementImpl;
 import org.envirocar.core.entity.Track;
 import org.hamcrest.CoreMatchers;
-import org.json.JSONObject;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -44,14 +43,33 @@ public class MeasurementTableTest extends InstrumentationTestCase {
         m.setProperty(Measurement.PropertyKey.CONSUMPTION, 1.1);
         ContentValues vals = MeasurementTable.toContentValues(m);
 
-        Object props = vals.get(MeasurementTable.KEY_PROPERTIES);
+        byte[] props = vals.getAsByteArray(MeasurementTable.KEY_PROPERTIES);
 
-        JSONObject obj = new JSONObject(props.toString());
+        MeasurementImpl decoded = new MeasurementImpl();
+        MeasurementPropertiesCodec.decode(props, decoded);
 
-        Assert.assertThat(obj.get(Measurement.PropertyKey.CONSUMPTION.name()), CoreMatchers.is(1.1));
-        Assert.assertThat(obj.get(Measurement.PropertyKey.SPEED.name()), CoreMatchers.is(Double.MAX_VALUE));
-        Assert.assertThat(obj.has(Measurement.PropertyKey.CALCULATED_MAF.name()), CoreMatchers.is(false));
-        Assert.assertThat(obj.has(Measurement.PropertyKey.CO2.name()), CoreMatchers.is(false));
+        Assert.assertThat(decoded.getProperty(Measurement.PropertyKey.CONSUMPTION), CoreMatchers.is(1.1));
+        Assert.assertThat(decoded.getProperty(Measurement.PropertyKey.SPEED), CoreMatchers.is(Double.MAX_VALUE));
+        Assert.assertThat(decoded.hasProperty(Measurement.PropertyKey.CALCULATED_MAF), CoreMatchers.is(false));
+        Assert.assertThat(decoded.hasProperty(Measurement.PropertyKey.CO2), CoreMatchers.is(false));
+    }
+
+    @Test
+    public void testPropertiesRoundTrip() throws Exception {
+        MeasurementImpl m = new MeasurementImpl();
+        for (Measurement.PropertyKey key : Measurement.PropertyKey.values()) {
+            m.setProperty(key, key.ordinal() * 1.5);
+        }
+        m.setProperty(Measurement.PropertyKey.SPEED, -0.0);
+
+        byte[] props = MeasurementPropertiesCodec.encode(m.getAllProperties());
+
+        MeasurementImpl decoded = new MeasurementImpl();
+        MeasurementPropertiesCodec.decode(props, decoded);
+
+        Assert.assertThat(decoded.getAllProperties(), CoreMatchers.is(m.getAllProperties()));
+        Assert.assertThat(Long.bitCount(MeasurementPropertiesCodec.getPresenceMask(props)),
+                CoreMatchers.is(Measurement.PropertyKey.values().length));
     }
 
 }
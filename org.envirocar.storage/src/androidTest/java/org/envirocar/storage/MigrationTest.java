@@ -0,0 +1,255 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.InstrumentationTestCase;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+
+import com.squareup.sqlbrite3.BriteDatabase;
+import com.squareup.sqlbrite3.SqlBrite;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.core.trackprocessing.statistics.TrackStatistics;
+import org.hamcrest.CoreMatchers;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Runs the data migrations of {@link EnviroCarDBCallback} on more rows than fit into a single
+ * cursor window (2 MB).
+ *
+ * @author dewall
+ */
+public class MigrationTest extends InstrumentationTestCase {
+    private static final int ROWS = 6000;
+    // a row of the cell backfill holds only three numbers, so many more rows fill a window.
+    private static final int CELL_ROWS = 150000;
+
+    @Test
+    public void testMigrateLegacyProperties() throws Exception {
+        SupportSQLiteOpenHelper helper = createDatabase();
+        try {
+            SupportSQLiteDatabase db = helper.getWritableDatabase();
+            // a legacy row holds about 1 KB of JSON, i.e., the rows span several windows.
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < ROWS; i++) {
+                    ContentValues values = new ContentValues();
+                    values.put(MeasurementTable.KEY_LATITUDE, 51.0);
+                    values.put(MeasurementTable.KEY_LONGITUDE, 7.0);
+                    values.put(MeasurementTable.KEY_TIME, i);
+                    values.put(MeasurementTable.KEY_TRACK, 1);
+                    values.put(MeasurementTable.KEY_PROPERTIES, createLegacyProperties(i));
+                    db.insert(MeasurementTable.TABLE_NAME, SQLiteDatabase.CONFLICT_FAIL, values);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            MeasurementTable.migrateLegacyProperties(db);
+
+            Assert.assertThat(count(db, "typeof(" + MeasurementTable.KEY_PROPERTIES + ")='text'"),
+                    CoreMatchers.is(0));
+            Cursor c = db.query("SELECT * FROM " + MeasurementTable.TABLE_NAME +
+                    " ORDER BY " + MeasurementTable.KEY_TIME);
+            try {
+                Assert.assertThat(c.getCount(), CoreMatchers.is(ROWS));
+                while (c.moveToNext()) {
+                    Measurement m = MeasurementTable.fromCursor(c);
+                    Assert.assertThat(m.getProperty(Measurement.PropertyKey.SPEED),
+                            CoreMatchers.is((double) m.getTime()));
+                }
+            } finally {
+                c.close();
+            }
+        } finally {
+            helper.close();
+        }
+    }
+
+    @Test
+    public void testBackfillCells() throws Exception {
+        SupportSQLiteOpenHelper helper = createDatabase();
+        try {
+            SupportSQLiteDatabase db = helper.getWritableDatabase();
+            // rows of a database before version 17 do not have a cell.
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < CELL_ROWS; i++) {
+                    ContentValues values = new ContentValues();
+                    values.put(MeasurementTable.KEY_LATITUDE, -80.0 + i * 0.001);
+                    values.put(MeasurementTable.KEY_LONGITUDE, -170.0 + i * 0.002);
+                    values.put(MeasurementTable.KEY_TIME, i);
+                    values.put(MeasurementTable.KEY_TRACK, 1);
+                    values.putNull(MeasurementTable.KEY_CELL);
+                    db.insert(MeasurementTable.TABLE_NAME, SQLiteDatabase.CONFLICT_FAIL, values);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            MeasurementTable.backfillCells(db);
+
+            Assert.assertThat(count(db, MeasurementTable.KEY_CELL + " IS NULL"),
+                    CoreMatchers.is(0));
+            Cursor c = db.query("SELECT " + MeasurementTable.KEY_LATITUDE + ", " +
+                    MeasurementTable.KEY_LONGITUDE + ", " + MeasurementTable.KEY_CELL +
+                    " FROM " + MeasurementTable.TABLE_NAME);
+            try {
+                Assert.assertThat(c.getCount(), CoreMatchers.is(CELL_ROWS));
+                while (c.moveToNext()) {
+                    Assert.assertThat(c.getLong(2),
+                            CoreMatchers.is(SpatialIndex.encode(c.getDouble(0), c.getDouble(1))));
+                }
+            } finally {
+                c.close();
+            }
+        } finally {
+            helper.close();
+        }
+    }
+
+    @Test
+    public void testBackfillStatistics() throws Exception {
+        SupportSQLiteOpenHelper helper = createDatabase();
+        BriteDatabase briteDatabase = new SqlBrite.Builder().build()
+                .wrapDatabaseHelper(helper, Schedulers.trampoline());
+        try {
+            EnviroCarDBImpl db = new EnviroCarDBImpl(briteDatabase);
+            Track track = new TrackImpl();
+            track.setName("Track");
+            track.setTrackStatus(Track.TrackStatus.FINISHED);
+            List<Measurement> measurements = new ArrayList<>();
+            for (int i = 0; i < ROWS; i++) {
+                Measurement m = new MeasurementImpl(51.0 + i * 0.0001, 7.0 + i * 0.0001);
+                m.setTime(i * 1000L);
+                m.setProperty(Measurement.PropertyKey.SPEED, 50.0);
+                measurements.add(m);
+            }
+            track.setMeasurements(measurements);
+            db.insertTrack(track);
+            TrackStatistics expected = ((TrackImpl) track).getStatistics();
+
+            // finished tracks of a database before version 16 do not have statistics.
+            helper.getWritableDatabase().execSQL("UPDATE " + TrackTable.TABLE_TRACK +
+                    " SET " + TrackTable.KEY_TRACK_STATISTICS + "=NULL");
+
+            Track lazyTrack = db.getTrack(track.getTrackID(), true).blockingFirst();
+            TrackStatistics statistics = ((TrackImpl) lazyTrack).getStatistics();
+            Assert.assertThat(statistics.getCount(), CoreMatchers.is((long) ROWS));
+            Assert.assertThat(statistics.getDistance(), CoreMatchers.is(expected.getDistance()));
+            Assert.assertThat(count(helper.getReadableDatabase(), TrackTable.TABLE_TRACK,
+                    TrackTable.KEY_TRACK_STATISTICS + " IS NULL"), CoreMatchers.is(0));
+        } finally {
+            briteDatabase.close();
+        }
+    }
+
+    @Test
+    public void testDeleteIncompleteDownloads() throws Exception {
+        SupportSQLiteOpenHelper helper = createDatabase();
+        BriteDatabase briteDatabase = new SqlBrite.Builder().build()
+                .wrapDatabaseHelper(helper, Schedulers.trampoline());
+        try {
+            EnviroCarDBImpl db = new EnviroCarDBImpl(briteDatabase);
+            Track complete = new TrackImpl();
+            complete.setTrackStatus(Track.TrackStatus.FINISHED);
+            complete.setRemoteID("complete");
+            Track interrupted = new TrackImpl();
+            interrupted.setTrackStatus(Track.TrackStatus.FINISHED);
+            interrupted.setRemoteID("interrupted");
+            List<Measurement> measurements = new ArrayList<>();
+            for (int i = 0; i < ROWS; i++) {
+                Measurement m = new MeasurementImpl(51.0, 7.0);
+                m.setTime(i * 1000L);
+                measurements.add(m);
+            }
+            db.insertTrack(complete, measurements);
+            db.insertTrack(interrupted, measurements);
+
+            // the app has been killed while the measurements of the second track were inserted.
+            SupportSQLiteDatabase database = helper.getWritableDatabase();
+            database.execSQL("UPDATE " + TrackTable.TABLE_TRACK +
+                    " SET " + TrackTable.KEY_TRACK_DOWNLOAD_STATE + "='" +
+                    Track.DownloadState.DOWNLOADING.name() + "' WHERE " + TrackTable.KEY_TRACK_ID +
+                    "=" + interrupted.getTrackID().getId());
+            Assert.assertThat(db.getAllRemoteTracks(true).blockingFirst().size(),
+                    CoreMatchers.is(1));
+
+            TrackTable.deleteIncompleteDownloads(database);
+
+            Assert.assertThat(count(database, TrackTable.TABLE_TRACK, "1"), CoreMatchers.is(1));
+            Assert.assertThat(count(database, MeasurementTable.KEY_TRACK + "=" +
+                    interrupted.getTrackID().getId()), CoreMatchers.is(0));
+            Assert.assertThat(count(database, MeasurementTable.KEY_TRACK + "=" +
+                    complete.getTrackID().getId()), CoreMatchers.is(ROWS));
+        } finally {
+            briteDatabase.close();
+        }
+    }
+
+    private SupportSQLiteOpenHelper createDatabase() {
+        // an in-memory database with the current schema.
+        return new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(getInstrumentation().getTargetContext())
+                        .name(null)
+                        .callback(new EnviroCarDBCallback(1))
+                        .build());
+    }
+
+    private static int count(SupportSQLiteDatabase db, String where) {
+        return count(db, MeasurementTable.TABLE_NAME, where);
+    }
+
+    private static int count(SupportSQLiteDatabase db, String table, String where) {
+        Cursor c = db.query("SELECT COUNT(*) FROM " + table + " WHERE " + where);
+        try {
+            c.moveToFirst();
+            return c.getInt(0);
+        } finally {
+            c.close();
+        }
+    }
+
+    private static String createLegacyProperties(int i) throws Exception {
+        JSONObject json = new JSONObject();
+        for (Measurement.PropertyKey key : Measurement.PropertyKey.values()) {
+            json.put(key.name(), 1000.0 * key.ordinal() + 0.123456789);
+        }
+        json.put(Measurement.PropertyKey.SPEED.name(), (double) i);
+        return json.toString();
+    }
+}
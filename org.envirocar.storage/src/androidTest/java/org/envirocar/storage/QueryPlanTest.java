@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.InstrumentationTestCase;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the lookups of {@link EnviroCarDBImpl} are served by an index instead of a full
+ * table scan.
+ */
+public class QueryPlanTest extends InstrumentationTestCase {
+
+    @Test
+    public void testMeasurementLookupsUseIndex() throws Exception {
+        String index = MeasurementTable.INDEX_TRACK_TIME;
+        assertUsesIndex(EnviroCarDBImpl.SQL_MEASUREMENTS_OF_TRACK, index, "1");
+        assertUsesIndex(EnviroCarDBImpl.SQL_START_TIME_OF_TRACK, index, "1");
+        assertUsesIndex(EnviroCarDBImpl.SQL_END_TIME_OF_TRACK, index, "1");
+        assertUsesIndex(EnviroCarDBImpl.SQL_FIRST_MEASUREMENT_OF_TRACK, index, "1");
+        assertUsesIndex(EnviroCarDBImpl.SQL_LAST_MEASUREMENT_OF_TRACK, index, "1");
+        assertUsesIndex(EnviroCarDBImpl.SQL_DELETE_MEASUREMENTS, index, "1");
+        assertUsesIndex(EnviroCarDBImpl.SQL_DELETE_MEASUREMENTS_AFTER, index, "1", "0");
+    }
+
+    @Test
+    public void testTrackLookupsUseIndex() throws Exception {
+        assertUsesIndex(EnviroCarDBImpl.SQL_ACTIVE_TRACK, TrackTable.INDEX_STATE, "ONGOING");
+        assertUsesIndex(EnviroCarDBImpl.SQL_LOCAL_TRACKS, TrackTable.INDEX_REMOTE_ID);
+        assertUsesIndex(EnviroCarDBImpl.SQL_COUNT_LOCAL_TRACKS, TrackTable.INDEX_REMOTE_ID);
+    }
+
+    @Test
+    public void testSpatialLookupsUseIndex() throws Exception {
+        List<Object> args = new ArrayList<>();
+        String where = SpatialIndex.where(51.9, 7.5, 52.0, 7.7, args);
+        assertUsesIndex(EnviroCarDBImpl.SQL_MEASUREMENTS_IN_AREA + where,
+                MeasurementTable.INDEX_CELL, toStrings(args));
+        assertUsesIndex(EnviroCarDBImpl.SQL_POSITIONS_IN_AREA + where,
+                MeasurementTable.INDEX_CELL, toStrings(args));
+    }
+
+    private static String[] toStrings(List<Object> args) {
+        String[] result = new String[args.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = String.valueOf(args.get(i));
+        }
+        return result;
+    }
+
+    private void assertUsesIndex(String sql, String index, String... args) {
+        String plan = explain(sql, args);
+        Assert.assertThat(sql + " -> " + plan, plan, CoreMatchers.containsString(index));
+    }
+
+    private String explain(String sql, String... args) {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        try {
+            db.execSQL(TrackTable.CREATE);
+            db.execSQL(MeasurementTable.CREATE);
+            db.execSQL(TrackSummaryTable.CREATE);
+            db.execSQL(MeasurementTable.CREATE_INDEX_TRACK_TIME);
+            db.execSQL(MeasurementTable.CREATE_INDEX_CELL);
+            db.execSQL(TrackTable.CREATE_INDEX_REMOTE_ID);
+            db.execSQL(TrackTable.CREATE_INDEX_STATE);
+
+            StringBuilder plan = new StringBuilder();
+            Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+            try {
+                int detail = c.getColumnIndex("detail");
+                while (c.moveToNext()) {
+                    plan.append(c.getString(detail)).append("; ");
+                }
+            } finally {
+                c.close();
+            }
+            return plan.toString();
+        } finally {
+            db.close();
+        }
+    }
+}
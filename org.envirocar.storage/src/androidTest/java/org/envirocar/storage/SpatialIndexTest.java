@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import android.test.InstrumentationTestCase;
+
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+
+import com.squareup.sqlbrite3.BriteDatabase;
+import com.squareup.sqlbrite3.SqlBrite;
+
+import org.envirocar.core.entity.Measurement;
+import org.envirocar.core.entity.MeasurementImpl;
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.core.utils.Geodesic;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * @author dewall
+ */
+public class SpatialIndexTest extends InstrumentationTestCase {
+
+    @Test
+    public void testCoverContainsAllPositionsOfTheBox() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            double extent = Math.pow(10, -4 + random.nextDouble() * 5);
+            double minLatitude = -89 + random.nextDouble() * (178 - extent);
+            double minLongitude = -180 + random.nextDouble() * (360 - extent);
+            double maxLatitude = minLatitude + extent * random.nextDouble();
+            double maxLongitude = minLongitude + extent * random.nextDouble();
+
+            long[] ranges = SpatialIndex.cover(minLatitude, minLongitude, maxLatitude, maxLongitude);
+            int cells = SpatialIndex.MAX_CELLS_PER_AXIS * SpatialIndex.MAX_CELLS_PER_AXIS;
+            Assert.assertTrue(ranges.length <= 2 * cells);
+            for (int j = 2; j < ranges.length; j += 2) {
+                // ordered and neither overlapping nor adjacent.
+                Assert.assertTrue(ranges[j] > ranges[j - 1] + 1);
+            }
+
+            for (int j = 0; j < 100; j++) {
+                double latitude = minLatitude + random.nextDouble() * (maxLatitude - minLatitude);
+                double longitude = minLongitude + random.nextDouble() * (maxLongitude - minLongitude);
+                Assert.assertTrue(contains(ranges, SpatialIndex.encode(latitude, longitude)));
+            }
+            Assert.assertTrue(contains(ranges, SpatialIndex.encode(maxLatitude, maxLongitude)));
+        }
+    }
+
+    @Test
+    public void testCoverCrossingTheAntimeridian() throws Exception {
+        long[] ranges = SpatialIndex.cover(-1, 179.9, 1, -179.9);
+        Assert.assertTrue(contains(ranges, SpatialIndex.encode(0, 179.95)));
+        Assert.assertTrue(contains(ranges, SpatialIndex.encode(0, -179.95)));
+        Assert.assertTrue(contains(ranges, SpatialIndex.encode(0, 180)));
+        Assert.assertThat(contains(ranges, SpatialIndex.encode(0, 0)), CoreMatchers.is(false));
+    }
+
+    @Test
+    public void testAreaQueries() throws Exception {
+        SupportSQLiteOpenHelper helper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(getInstrumentation().getTargetContext())
+                        .name(null)
+                        .callback(new EnviroCarDBCallback(1))
+                        .build());
+        BriteDatabase briteDatabase = new SqlBrite.Builder().build()
+                .wrapDatabaseHelper(helper, Schedulers.trampoline());
+        try {
+            EnviroCarDBImpl db = new EnviroCarDBImpl(briteDatabase);
+            Random random = new Random(42);
+            List<Measurement> all = new ArrayList<>();
+            // two overlapping tracks and one crossing the antimeridian.
+            double[][] starts = {{51.96, 7.62}, {51.97, 7.60}, {-16.5, 179.99}};
+            for (double[] startPosition : starts) {
+                Track track = createTrack(random, startPosition[0], startPosition[1]);
+                db.insertTrack(track);
+                all.addAll(track.getMeasurements());
+            }
+
+            double[][] boxes = {{51.95, 7.60, 51.97, 7.63}, {51.0, 7.0, 52.0, 8.0},
+                    {0, 0, 1, 1}, {-17, 179.995, -16, -179.995}};
+            for (double[] box : boxes) {
+                Set<Long> expectedTimes = new HashSet<>();
+                Set<Long> expectedTracks = new HashSet<>();
+                for (Measurement m : all) {
+                    if (isInBox(m, box)) {
+                        expectedTimes.add(m.getTime());
+                        expectedTracks.add(m.getTrackId().getId());
+                    }
+                }
+
+                Set<Long> times = new HashSet<>();
+                for (Measurement m : db.getMeasurementsInArea(box[0], box[1], box[2], box[3])
+                        .toList().blockingGet()) {
+                    times.add(m.getTime());
+                }
+                Assert.assertThat(times, CoreMatchers.is(expectedTimes));
+
+                Set<Long> tracks = new HashSet<>();
+                for (Track track : db.getTracksInArea(box[0], box[1], box[2], box[3], true)
+                        .blockingFirst()) {
+                    tracks.add(track.getTrackID().getId());
+                }
+                Assert.assertThat(tracks, CoreMatchers.is(expectedTracks));
+            }
+
+            for (int i = 0; i < 50; i++) {
+                double[] start = starts[i % starts.length];
+                double latitude = start[0] + (random.nextDouble() - 0.5) * 0.1;
+                double longitude = start[1] + (random.nextDouble() - 0.5) * 0.1;
+                Measurement expected = null;
+                double expectedDistance = Double.MAX_VALUE;
+                for (Measurement m : all) {
+                    double distance = Geodesic.haversine(latitude, longitude,
+                            m.getLatitude(), m.getLongitude());
+                    if (distance < expectedDistance) {
+                        expected = m;
+                        expectedDistance = distance;
+                    }
+                }
+
+                Measurement nearest = db.getNearestMeasurement(latitude, longitude, 100);
+                Assert.assertThat(nearest.getTime(), CoreMatchers.is(expected.getTime()));
+                Assert.assertNull(db.getNearestMeasurement(latitude, longitude,
+                        expectedDistance * 0.99));
+            }
+        } finally {
+            briteDatabase.close();
+        }
+    }
+
+    private static Track createTrack(Random random, double latitude, double longitude) {
+        Track track = new TrackImpl();
+        track.setName("Track");
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            latitude += (random.nextDouble() - 0.5) * 0.001;
+            longitude += (random.nextDouble() - 0.5) * 0.001;
+            if (longitude > 180) {
+                longitude -= 360;
+            } else if (longitude < -180) {
+                longitude += 360;
+            }
+            Measurement m = new MeasurementImpl(latitude, longitude);
+            // unique times identify the measurements.
+            m.setTime(random.nextLong());
+            m.setProperty(Measurement.PropertyKey.SPEED, 50.0);
+            measurements.add(m);
+        }
+        track.setMeasurements(measurements);
+        return track;
+    }
+
+    private static boolean isInBox(Measurement m, double[] box) {
+        boolean longitude = box[1] <= box[3]
+                ? m.getLongitude() >= box[1] && m.getLongitude() <= box[3]
+                : m.getLongitude() >= box[1] || m.getLongitude() <= box[3];
+        return m.getLatitude() >= box[0] && m.getLatitude() <= box[2] && longitude;
+    }
+
+    private static boolean contains(long[] ranges, long code) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (code >= ranges[i] && code <= ranges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -47,7 +47,7 @@ public final class DatabaseModule {
 
     // configs
     private static final String DATABASE_NAME = "envirocar";
-    private static final int DATABASE_VERSION = 11;
+    private static final int DATABASE_VERSION = 18;
 
 
     @Provides
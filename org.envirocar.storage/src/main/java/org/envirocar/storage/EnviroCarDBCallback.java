@@ -29,6 +29,23 @@ import org.envirocar.core.logging.Logger;
 class EnviroCarDBCallback extends SupportSQLiteOpenHelper.Callback {
     private static final Logger LOG = Logger.getLogger(EnviroCarDBOpenHelper.class);
 
+    // the oldest version that can be migrated without dropping all data.
+    private static final int FIRST_MIGRATABLE_VERSION = 11;
+    // measurement properties are stored binary encoded instead of JSON.
+    private static final int VERSION_BINARY_PROPERTIES = 12;
+    // tracks have a precomputed summary.
+    private static final int VERSION_TRACK_SUMMARY = 13;
+    // indexes on the track and measurement lookup columns.
+    private static final int VERSION_INDEXES = 14;
+    // persistent queue of track uploads.
+    private static final int VERSION_UPLOAD_QUEUE = 15;
+    // finished tracks store their statistics.
+    private static final int VERSION_TRACK_STATISTICS = 16;
+    // measurements have a geohash for spatial lookups.
+    private static final int VERSION_SPATIAL_INDEX = 17;
+    // downloaded tracks record whether their measurements are complete.
+    private static final int VERSION_DOWNLOAD_STATE = 18;
+
     /**
      * Creates a new Callback to get database lifecycle events.
      *
@@ -44,15 +61,74 @@ class EnviroCarDBCallback extends SupportSQLiteOpenHelper.Callback {
 //            db.execSQL("PRAGMA foreign_keys=ON;");
         db.execSQL(TrackTable.CREATE);
         db.execSQL(MeasurementTable.CREATE);
+        db.execSQL(TrackSummaryTable.CREATE);
+        db.execSQL(UploadQueueTable.CREATE);
+        createIndexes(db);
+        db.execSQL(MeasurementTable.CREATE_INDEX_CELL);
     }
 
     @Override
     public void onUpgrade(SupportSQLiteDatabase db, int oldVersion, int newVersion) {
-        LOG.info("On update enviroCar database");
-        db.execSQL(MeasurementTable.DELETE);
-        db.execSQL(TrackTable.DELETE);
-        db.execSQL(TrackTable.CREATE);
-        db.execSQL(MeasurementTable.CREATE);
+        LOG.info(String.format("On update enviroCar database from version %s to version %s",
+                oldVersion, newVersion));
+        if (oldVersion < FIRST_MIGRATABLE_VERSION) {
+            // versions this old are not migrated.
+            db.execSQL(UploadQueueTable.DELETE);
+            db.execSQL(TrackSummaryTable.DELETE);
+            db.execSQL(MeasurementTable.DELETE);
+            db.execSQL(TrackTable.DELETE);
+            db.execSQL(TrackTable.CREATE);
+            db.execSQL(MeasurementTable.CREATE);
+            db.execSQL(TrackSummaryTable.CREATE);
+            db.execSQL(UploadQueueTable.CREATE);
+            createIndexes(db);
+            db.execSQL(MeasurementTable.CREATE_INDEX_CELL);
+            return;
+        }
+
+        if (oldVersion < VERSION_BINARY_PROPERTIES) {
+            MeasurementTable.migrateLegacyProperties(db);
+        }
+
+        if (oldVersion < VERSION_TRACK_SUMMARY) {
+            db.execSQL(TrackSummaryTable.CREATE);
+            TrackSummaryTable.backfill(db);
+        }
+
+        if (oldVersion < VERSION_INDEXES) {
+            createIndexes(db);
+        }
+
+        if (oldVersion < VERSION_UPLOAD_QUEUE) {
+            db.execSQL(UploadQueueTable.CREATE);
+        }
+
+        if (oldVersion < VERSION_TRACK_STATISTICS) {
+            db.execSQL(TrackTable.ADD_COLUMN_STATISTICS);
+        }
+
+        if (oldVersion < VERSION_SPATIAL_INDEX) {
+            db.execSQL(MeasurementTable.ADD_COLUMN_CELL);
+            MeasurementTable.backfillCells(db);
+            db.execSQL(MeasurementTable.CREATE_INDEX_CELL);
+        }
+
+        if (oldVersion < VERSION_DOWNLOAD_STATE) {
+            db.execSQL(TrackTable.ADD_COLUMN_DOWNLOAD_STATE);
+        }
+    }
+
+    @Override
+    public void onOpen(SupportSQLiteDatabase db) {
+        // no download is running before the database has been opened.
+        if (!db.isReadOnly()) {
+            TrackTable.deleteIncompleteDownloads(db);
+        }
+    }
 
+    private void createIndexes(SupportSQLiteDatabase db) {
+        db.execSQL(MeasurementTable.CREATE_INDEX_TRACK_TIME);
+        db.execSQL(TrackTable.CREATE_INDEX_REMOTE_ID);
+        db.execSQL(TrackTable.CREATE_INDEX_STATE);
     }
 }
@@ -22,24 +22,35 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
+import androidx.sqlite.db.SupportSQLiteStatement;
+
 import com.squareup.sqlbrite3.BriteDatabase;
 
 import org.envirocar.core.EnviroCarDB;
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackImpl;
+import org.envirocar.core.entity.TrackSummary;
+import org.envirocar.core.entity.UploadQueueEntry;
 import org.envirocar.core.exception.MeasurementSerializationException;
 import org.envirocar.core.exception.TrackSerializationException;
 import org.envirocar.core.logging.Logger;
+import org.envirocar.core.trackprocessing.statistics.TrackStatistics;
 import org.envirocar.core.util.TrackMetadata;
+import org.envirocar.core.utils.Geodesic;
 import org.json.JSONException;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.ObservableTransformer;
 import io.reactivex.functions.Function;
@@ -54,8 +65,108 @@ import io.reactivex.functions.Function;
 public class EnviroCarDBImpl implements EnviroCarDB {
     private static final Logger LOG = Logger.getLogger(EnviroCarDBImpl.class);
 
+    // tracks joined with their precomputed summaries, except the ones still being downloaded.
+    private static final String SELECT_TRACKS =
+            "SELECT * FROM " + TrackTable.TABLE_TRACK +
+                    " LEFT JOIN " + TrackSummaryTable.TABLE_NAME +
+                    " ON " + TrackTable.TABLE_TRACK + "." + TrackTable.KEY_TRACK_ID +
+                    " = " + TrackSummaryTable.TABLE_NAME + "." + TrackSummaryTable.KEY_TRACK +
+                    " WHERE " + TrackTable.WHERE_COMPLETE;
+
+    static final String SQL_TRACK_BY_ID = SELECT_TRACKS +
+            " AND " + TrackTable.TABLE_TRACK + "." + TrackTable.KEY_TRACK_ID + "=?";
+    static final String SQL_TRACKS_BY_CAR = SELECT_TRACKS +
+            " AND " + TrackTable.KEY_TRACK_CAR_ID + "=?";
+    static final String SQL_LOCAL_TRACKS = SELECT_TRACKS +
+            " AND " + TrackTable.KEY_REMOTE_ID + " IS NULL";
+    static final String SQL_REMOTE_TRACKS = SELECT_TRACKS +
+            " AND " + TrackTable.KEY_REMOTE_ID + " IS NOT NULL";
+    static final String SQL_COUNT_LOCAL_TRACKS =
+            "SELECT COUNT(*) FROM " + TrackTable.TABLE_TRACK +
+                    " WHERE " + TrackTable.KEY_REMOTE_ID + " IS NULL";
+    static final String SQL_ACTIVE_TRACK = SELECT_TRACKS +
+            " AND " + TrackTable.KEY_TRACK_STATE + "=?" +
+            " ORDER BY " + TrackTable.TABLE_TRACK + "." + TrackTable.KEY_TRACK_ID + " DESC" +
+            " LIMIT 1";
+    static final String SQL_MEASUREMENTS_OF_TRACK =
+            "SELECT * FROM " + MeasurementTable.TABLE_NAME +
+                    " WHERE " + MeasurementTable.KEY_TRACK + "=?" +
+                    " ORDER BY " + MeasurementTable.KEY_TIME + " ASC";
+    static final String SQL_MEASUREMENT_BY_ID =
+            "SELECT * FROM " + MeasurementTable.TABLE_NAME +
+                    " WHERE " + MeasurementTable.KEY_ROWID + "=?";
+    // the spatial lookups are completed by the conditions of SpatialIndex.where.
+    static final String SQL_MEASUREMENTS_IN_AREA =
+            "SELECT * FROM " + MeasurementTable.TABLE_NAME + " WHERE ";
+    static final String SQL_POSITIONS_IN_AREA =
+            "SELECT " + MeasurementTable.KEY_ROWID + ", " + MeasurementTable.KEY_LATITUDE + ", " +
+                    MeasurementTable.KEY_LONGITUDE + " FROM " + MeasurementTable.TABLE_NAME +
+                    " WHERE ";
+    static final String SQL_TRACKS_IN_AREA = SELECT_TRACKS + " AND ";
+    static final String SQL_TRACK_HAS_MEASUREMENT_IN_AREA =
+            " AND EXISTS (SELECT 1 FROM " + MeasurementTable.TABLE_NAME +
+                    " WHERE " + MeasurementTable.TABLE_NAME + "." + MeasurementTable.KEY_TRACK +
+                    " = " + TrackTable.TABLE_TRACK + "." + TrackTable.KEY_TRACK_ID + " AND ";
+    static final String SQL_START_TIME_OF_TRACK =
+            "SELECT " + MeasurementTable.KEY_TIME + " FROM " + MeasurementTable.TABLE_NAME +
+                    " WHERE " + MeasurementTable.KEY_TRACK + "=?" +
+                    " ORDER BY " + MeasurementTable.KEY_TIME + " ASC LIMIT 1";
+    static final String SQL_END_TIME_OF_TRACK =
+            "SELECT " + MeasurementTable.KEY_TIME + " FROM " + MeasurementTable.TABLE_NAME +
+                    " WHERE " + MeasurementTable.KEY_TRACK + "=?" +
+                    " ORDER BY " + MeasurementTable.KEY_TIME + " DESC LIMIT 1";
+    static final String SQL_FIRST_MEASUREMENT_OF_TRACK =
+            "SELECT * FROM " + MeasurementTable.TABLE_NAME +
+                    " WHERE " + MeasurementTable.KEY_TRACK + "=?" +
+                    " ORDER BY " + MeasurementTable.KEY_TIME + " ASC LIMIT 1";
+    static final String SQL_LAST_MEASUREMENT_OF_TRACK =
+            "SELECT * FROM " + MeasurementTable.TABLE_NAME +
+                    " WHERE " + MeasurementTable.KEY_TRACK + "=?" +
+                    " ORDER BY " + MeasurementTable.KEY_TIME + " DESC LIMIT 1";
+    static final String SQL_SUMMARY_OF_TRACK =
+            "SELECT * FROM " + TrackSummaryTable.TABLE_NAME +
+                    " WHERE " + TrackSummaryTable.KEY_TRACK + "=?";
+    static final String SQL_DELETE_TRACK =
+            "DELETE FROM " + TrackTable.TABLE_TRACK +
+                    " WHERE " + TrackTable.KEY_TRACK_ID + "=?";
+    static final String SQL_DELETE_SUMMARY =
+            "DELETE FROM " + TrackSummaryTable.TABLE_NAME +
+                    " WHERE " + TrackSummaryTable.KEY_TRACK + "=?";
+    static final String SQL_DELETE_MEASUREMENTS =
+            "DELETE FROM " + MeasurementTable.TABLE_NAME +
+                    " WHERE " + MeasurementTable.KEY_TRACK + "=?";
+    static final String SQL_DELETE_MEASUREMENTS_AFTER =
+            "DELETE FROM " + MeasurementTable.TABLE_NAME +
+                    " WHERE " + MeasurementTable.KEY_TRACK + "=?" +
+                    " AND " + MeasurementTable.KEY_TIME + ">=?";
+    static final String SQL_UPLOAD_QUEUE =
+            "SELECT * FROM " + UploadQueueTable.TABLE_NAME +
+                    " ORDER BY " + UploadQueueTable.KEY_NEXT_ATTEMPT + " ASC";
+    static final String SQL_UPLOAD_QUEUE_ENTRY =
+            "SELECT * FROM " + UploadQueueTable.TABLE_NAME +
+                    " WHERE " + UploadQueueTable.KEY_TRACK + "=?";
+    static final String SQL_DELETE_UPLOAD =
+            "DELETE FROM " + UploadQueueTable.TABLE_NAME +
+                    " WHERE " + UploadQueueTable.KEY_TRACK + "=?";
+
+    // number of measurements committed at once when inserting a track.
+    static final int INSERT_BATCH_SIZE = 500;
+
+    // radius of the first lookup of the nearest measurement in km.
+    private static final double NEAREST_INITIAL_RADIUS = 0.05;
+
     protected BriteDatabase briteDatabase;
 
+    // compiled write statements. They are only executed inside of a transaction.
+    private final Map<String, SupportSQLiteStatement> statements = new HashMap<>();
+    private final QueryStatistics queryStatistics = new QueryStatistics();
+
+    // summary of the track that measurements have been inserted into last, so that recording a
+    // track does not read the summary back for every measurement. Only accessed inside of a
+    // transaction.
+    private Track.TrackId recentSummaryTrack;
+    private TrackSummary recentSummary;
+
     /**
      * Constructor.
      *
@@ -66,6 +177,13 @@ public class EnviroCarDBImpl implements EnviroCarDB {
         this.briteDatabase = briteDatabase;
     }
 
+    /**
+     * @return the latency counters of the executed queries.
+     */
+    public QueryStatistics getQueryStatistics() {
+        return queryStatistics;
+    }
+
     @Override
     public Observable<Track> getTrack(Track.TrackId trackId) {
         return getTrack(trackId, false);
@@ -73,9 +191,7 @@ public class EnviroCarDBImpl implements EnviroCarDB {
 
     @Override
     public Observable<Track> getTrack(Track.TrackId trackId, boolean lazy) {
-        return fetchTrackObservable(
-                "SELECT * FROM " + TrackTable.TABLE_TRACK +
-                        " WHERE " + TrackTable.KEY_TRACK_ID + "=" + trackId, lazy);
+        return fetchTrackObservable("getTrack", SQL_TRACK_BY_ID, lazy, trackId.getId());
     }
 
     @Override
@@ -85,14 +201,12 @@ public class EnviroCarDBImpl implements EnviroCarDB {
 
     @Override
     public Observable<List<Track>> getAllTracks(final boolean lazy) {
-        return fetchTracksObservable(
-                "SELECT * FROM " + TrackTable.TABLE_TRACK, lazy);
+        return fetchTracksObservable("getAllTracks", SELECT_TRACKS, lazy);
     }
 
     @Override
     public Observable<List<Track>> getAllTracksByCar(String carID, boolean lazy) {
-        return fetchTracksObservable("SELECT * FROM " + TrackTable.TABLE_TRACK +
-                " WHERE " + TrackTable.KEY_TRACK_CAR_ID + "='" + carID + "'", lazy);
+        return fetchTracksObservable("getAllTracksByCar", SQL_TRACKS_BY_CAR, lazy, carID);
     }
 
     @Override
@@ -102,15 +216,21 @@ public class EnviroCarDBImpl implements EnviroCarDB {
 
     @Override
     public Observable<List<Track>> getAllLocalTracks(boolean lazy) {
-        return fetchTracksObservable(
-                "SELECT * FROM " + TrackTable.TABLE_TRACK +
-                        " WHERE " + TrackTable.KEY_REMOTE_ID + " IS NULL", lazy);
+        return fetchTracksObservable("getAllLocalTracks", SQL_LOCAL_TRACKS, lazy);
     }
 
     @Override
     public Observable<Integer> getAllLocalTracksCount() {
-        return Observable.just(briteDatabase.getReadableDatabase().query("SELECT * FROM " + TrackTable.TABLE_TRACK +
-                " WHERE " + TrackTable.KEY_REMOTE_ID + " IS NULL").getCount());
+        return Observable.fromCallable(() -> {
+            long start = queryStatistics.start();
+            Cursor cursor = briteDatabase.query(SQL_COUNT_LOCAL_TRACKS);
+            try {
+                return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+            } finally {
+                cursor.close();
+                queryStatistics.record("getAllLocalTracksCount", start);
+            }
+        });
     }
 
     @Override
@@ -120,9 +240,7 @@ public class EnviroCarDBImpl implements EnviroCarDB {
 
     @Override
     public Observable<List<Track>> getAllRemoteTracks(boolean lazy) {
-        return fetchTracksObservable(
-                "SELECT * FROM " + TrackTable.TABLE_TRACK +
-                        " WHERE " + TrackTable.KEY_REMOTE_ID + " IS NOT NULL", lazy);
+        return fetchTracksObservable("getAllRemoteTracks", SQL_REMOTE_TRACKS, lazy);
     }
 
     @Override
@@ -134,24 +252,75 @@ public class EnviroCarDBImpl implements EnviroCarDB {
     }
 
     public void insertTrack(final Track track) throws TrackSerializationException {
+        insertTrack(track, track.getMeasurements());
+    }
+
+    @Override
+    public void insertTrack(final Track track, final Iterable<Measurement> measurements) throws
+            TrackSerializationException {
         LOG.info("insertTrack(): trying to insert a new track");
+        Track.TrackId trackId;
         BriteDatabase.Transaction transaction = briteDatabase.newTransaction();
         try {
+            // the track is hidden until its last measurement has been committed.
+            ContentValues values = TrackTable.toContentValues(track);
+            values.put(TrackTable.KEY_TRACK_DOWNLOAD_STATE, Track.DownloadState.DOWNLOADING.name());
             long result = briteDatabase.insert(TrackTable.TABLE_TRACK, SQLiteDatabase.CONFLICT_FAIL,
-                    TrackTable.toContentValues(track));
-            Track.TrackId trackId = new Track.TrackId(result);
+                    values);
+            trackId = new Track.TrackId(result);
             track.setTrackID(trackId);
+            forgetRecentSummary();
+            transaction.markSuccessful();
             LOG.info(String.format("insertTrack(): " +
                     "track has been successfully inserted ->[id = %s]", "" + result));
+        } finally {
+            transaction.close();
+        }
 
-            if (track.getMeasurements().size() > 0) {
-                for (Measurement measurement : track.getMeasurements()) {
-                    measurement.setTrackId(trackId);
-                    briteDatabase.insert(MeasurementTable.TABLE_NAME, SQLiteDatabase.CONFLICT_FAIL,
-                            MeasurementTable.toContentValues(measurement));
+        // the measurements are committed in batches, so that no transaction is open while they
+        // are read (e.g., from the network). A track that could not be read completely is
+        // deleted again, or on the next start if the app has been killed in the meantime.
+        boolean successful = false;
+        try {
+            TrackSummary summary = new TrackSummary();
+            List<Measurement> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+            for (Measurement measurement : measurements) {
+                batch.add(measurement);
+                if (batch.size() == INSERT_BATCH_SIZE) {
+                    insertBatch(trackId, batch, summary, null);
+                    batch.clear();
                 }
             }
+            // the properties of the track might have been completed while reading its measurements
+            insertBatch(trackId, batch, summary, track);
+            track.setSummary(summary);
+            successful = true;
+        } finally {
+            if (!successful) {
+                LOG.warn(String.format("insertTrack(): deleting incomplete track %s", trackId));
+                deleteTrack(trackId);
+            }
+        }
+    }
 
+    private void insertBatch(Track.TrackId trackId, List<Measurement> batch,
+                             TrackSummary summary, Track track) {
+        BriteDatabase.Transaction transaction = briteDatabase.newTransaction();
+        try {
+            for (Measurement measurement : batch) {
+                measurement.setTrackId(trackId);
+                executeInsertMeasurement(measurement);
+                summary.add(measurement);
+            }
+            writeSummary(trackId, summary);
+
+            if (track != null) {
+                ContentValues values = TrackTable.toContentValues(track);
+                values.put(TrackTable.KEY_TRACK_DOWNLOAD_STATE,
+                        Track.DownloadState.DOWNLOADED.name());
+                briteDatabase.update(TrackTable.TABLE_TRACK, SQLiteDatabase.CONFLICT_FAIL,
+                        values, TrackTable.KEY_TRACK_ID + "=?", Long.toString(trackId.getId()));
+            }
             transaction.markSuccessful();
         } finally {
             transaction.close();
@@ -175,7 +344,9 @@ public class EnviroCarDBImpl implements EnviroCarDB {
     public boolean updateTrack(Track track) {
         LOG.info(String.format("updateTrack(%s)", track.getTrackID()));
         ContentValues trackValues = TrackTable.toContentValues(track);
-        int update = briteDatabase.update(TrackTable.TABLE_TRACK, SQLiteDatabase.CONFLICT_FAIL, trackValues, TrackTable.KEY_TRACK_ID + "=" + track.getTrackID());
+        int update = briteDatabase.update(TrackTable.TABLE_TRACK, SQLiteDatabase.CONFLICT_FAIL,
+                trackValues, TrackTable.KEY_TRACK_ID + "=?",
+                Long.toString(track.getTrackID().getId()));
         return update != -1;
     }
 
@@ -201,9 +372,19 @@ public class EnviroCarDBImpl implements EnviroCarDB {
 
     @Override
     public void deleteTrack(Track.TrackId trackId) {
-        briteDatabase.delete(TrackTable.TABLE_TRACK,
-                TrackTable.KEY_TRACK_ID + "='" + trackId + "'");
-        deleteMeasurementsOfTrack(trackId);
+        long start = queryStatistics.start();
+        BriteDatabase.Transaction transaction = briteDatabase.newTransaction();
+        try {
+            forgetRecentSummary();
+            executeDelete(TrackTable.TABLE_TRACK, SQL_DELETE_TRACK, trackId.getId());
+            executeDelete(TrackSummaryTable.TABLE_NAME, SQL_DELETE_SUMMARY, trackId.getId());
+            executeDelete(MeasurementTable.TABLE_NAME, SQL_DELETE_MEASUREMENTS, trackId.getId());
+            executeDelete(UploadQueueTable.TABLE_NAME, SQL_DELETE_UPLOAD, trackId.getId());
+            transaction.markSuccessful();
+        } finally {
+            transaction.end();
+            queryStatistics.record("deleteTrack", start);
+        }
     }
 
     @Override
@@ -235,12 +416,134 @@ public class EnviroCarDBImpl implements EnviroCarDB {
                 });
     }
 
+    @Override
+    public Flowable<Measurement> getMeasurements(Track.TrackId trackId) {
+        return streamMeasurements(SQL_MEASUREMENTS_OF_TRACK, trackId.getId());
+    }
+
+    @Override
+    public Flowable<Measurement> getMeasurementsInArea(double minLatitude, double minLongitude,
+                                                       double maxLatitude, double maxLongitude) {
+        List<Object> args = new ArrayList<>();
+        String sql = SQL_MEASUREMENTS_IN_AREA + SpatialIndex.where(
+                minLatitude, minLongitude, maxLatitude, maxLongitude, args);
+        return streamMeasurements(sql, args.toArray());
+    }
+
+    @Override
+    public Measurement getNearestMeasurement(double latitude, double longitude,
+                                             double maxDistance) {
+        long start = queryStatistics.start();
+        try {
+            // search within growing circles until one contains a measurement.
+            double radius = Math.min(NEAREST_INITIAL_RADIUS, maxDistance);
+            while (true) {
+                double[] box = getBoundingBox(latitude, longitude, radius);
+                List<Object> args = new ArrayList<>();
+                String sql = SQL_POSITIONS_IN_AREA + SpatialIndex.where(
+                        box[0], box[1], box[2], box[3], args);
+
+                long nearest = -1;
+                double nearestDistance = Double.MAX_VALUE;
+                Cursor cursor = briteDatabase.query(sql, args.toArray());
+                try {
+                    while (cursor.moveToNext()) {
+                        double distance = Geodesic.haversine(latitude, longitude,
+                                cursor.getDouble(1), cursor.getDouble(2));
+                        if (distance < nearestDistance) {
+                            nearest = cursor.getLong(0);
+                            nearestDistance = distance;
+                        }
+                    }
+                } finally {
+                    cursor.close();
+                }
+
+                // measurements outside of the box are farther away than the radius.
+                if (nearest != -1 && nearestDistance <= radius) {
+                    return queryMeasurement(nearest);
+                }
+                if (radius >= maxDistance) {
+                    return null;
+                }
+                radius = Math.min(4 * radius, maxDistance);
+            }
+        } finally {
+            queryStatistics.record("getNearestMeasurement", start);
+        }
+    }
+
+    @Override
+    public Observable<List<Track>> getTracksInArea(double minLatitude, double minLongitude,
+                                                   double maxLatitude, double maxLongitude,
+                                                   boolean lazy) {
+        // the bounding boxes of the summaries exclude most tracks before the spatial lookup.
+        List<Object> args = new ArrayList<>();
+        String sql = SQL_TRACKS_IN_AREA +
+                TrackSummaryTable.whereIntersects(
+                        minLatitude, minLongitude, maxLatitude, maxLongitude, args) +
+                SQL_TRACK_HAS_MEASUREMENT_IN_AREA +
+                SpatialIndex.where(minLatitude, minLongitude, maxLatitude, maxLongitude, args) +
+                ")";
+        return fetchTracksObservable("getTracksInArea", sql, lazy, args.toArray());
+    }
+
     @Override
     public void insertMeasurement(final Measurement measurement) throws
             MeasurementSerializationException {
         LOG.info("inserted measurement into track " + measurement.getTrackId());
-        briteDatabase.insert(MeasurementTable.TABLE_NAME, SQLiteDatabase.CONFLICT_FAIL,
-                MeasurementTable.toContentValues(measurement));
+        long start = queryStatistics.start();
+        BriteDatabase.Transaction transaction = briteDatabase.newTransaction();
+        boolean successful = false;
+        try {
+            executeInsertMeasurement(measurement);
+
+            Track.TrackId trackId = measurement.getTrackId();
+            TrackSummary summary = trackId.equals(recentSummaryTrack) ?
+                    recentSummary : querySummary(trackId);
+            summary.add(measurement);
+            writeSummary(trackId, summary);
+            recentSummaryTrack = trackId;
+            recentSummary = summary;
+            transaction.markSuccessful();
+            successful = true;
+        } finally {
+            if (!successful) {
+                forgetRecentSummary();
+            }
+            transaction.end();
+            queryStatistics.record("insertMeasurement", start);
+        }
+    }
+
+    @Override
+    public void insertMeasurements(final Track track, final List<Measurement> measurements) throws
+            MeasurementSerializationException {
+        LOG.info(String.format("inserting %s measurements into track %s",
+                measurements.size(), track.getTrackID()));
+        long start = queryStatistics.start();
+        BriteDatabase.Transaction transaction = briteDatabase.newTransaction();
+        try {
+            for (Measurement measurement : measurements) {
+                executeInsertMeasurement(measurement);
+            }
+
+            forgetRecentSummary();
+            TrackSummary summary = querySummary(track.getTrackID());
+            for (Measurement measurement : measurements) {
+                summary.add(measurement);
+            }
+            writeSummary(track.getTrackID(), summary);
+            track.setSummary(summary);
+
+            briteDatabase.update(TrackTable.TABLE_TRACK, SQLiteDatabase.CONFLICT_FAIL,
+                    TrackTable.toContentValues(track),
+                    TrackTable.KEY_TRACK_ID + "=?", Long.toString(track.getTrackID().getId()));
+            transaction.markSuccessful();
+        } finally {
+            transaction.end();
+            queryStatistics.record("insertMeasurements", start);
+        }
     }
 
     @Override
@@ -306,44 +609,98 @@ public class EnviroCarDBImpl implements EnviroCarDB {
     }
 
     @Override
-    public Observable<Track> fetchTracks(
-            Observable<List<Track>> tracks, final boolean lazy) {
-        return fetchTrack(tracks
-                .flatMap(tracks1 -> Observable.fromIterable(tracks1)), lazy);
+    public void enqueueUpload(Track.TrackId trackId) {
+        LOG.info(String.format("enqueueUpload(%s)", trackId.getId()));
+        ContentValues values = UploadQueueTable.toContentValues(new UploadQueueEntry(trackId));
+        BriteDatabase.Transaction transaction = briteDatabase.newTransaction();
+        try {
+            briteDatabase.insert(UploadQueueTable.TABLE_NAME, SQLiteDatabase.CONFLICT_IGNORE,
+                    values);
+            // only uploads that have failed permanently start all over again.
+            briteDatabase.update(UploadQueueTable.TABLE_NAME, SQLiteDatabase.CONFLICT_FAIL, values,
+                    UploadQueueTable.KEY_TRACK + "=? AND " + UploadQueueTable.KEY_STATE + "=?",
+                    Long.toString(trackId.getId()), UploadQueueEntry.State.FAILED.name());
+            // the remote track of these exists, so only the update of the local track is retried.
+            ContentValues retry = new ContentValues(values);
+            retry.remove(UploadQueueTable.KEY_REMOTE_ID);
+            retry.put(UploadQueueTable.KEY_STATE, UploadQueueEntry.State.UPLOADED.name());
+            briteDatabase.update(UploadQueueTable.TABLE_NAME, SQLiteDatabase.CONFLICT_FAIL, retry,
+                    UploadQueueTable.KEY_TRACK + "=? AND " + UploadQueueTable.KEY_STATE + "=?",
+                    Long.toString(trackId.getId()),
+                    UploadQueueEntry.State.FAILED_AFTER_UPLOAD.name());
+            transaction.markSuccessful();
+        } finally {
+            transaction.end();
+        }
     }
 
     @Override
-    public Observable<Track> fetchTrack(Observable<Track> trackObservable, final boolean lazy) {
-        return trackObservable.flatMap(track -> lazy ? fetchStartTime(track) : fetchMeasurements(track));
+    public List<UploadQueueEntry> getUploadQueue() {
+        List<UploadQueueEntry> result = new ArrayList<>();
+        Cursor cursor = briteDatabase.query(SQL_UPLOAD_QUEUE);
+        try {
+            while (cursor.moveToNext()) {
+                result.add(UploadQueueTable.fromCursor(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return result;
     }
 
     @Override
-    public Observable<Track> getActiveTrackObservable(boolean lazy) {
-        return fetchTrackObservable(
-                "SELECT * FROM " + TrackTable.TABLE_TRACK +
-                        " WHERE " + TrackTable.KEY_TRACK_STATE + "='" +
-                        Track.TrackStatus.ONGOING + "'" +
-                        " ORDER BY " + TrackTable.KEY_TRACK_ID + " DESC" +
-                        " LIMIT 1", lazy);
+    public UploadQueueEntry getUploadQueueEntry(Track.TrackId trackId) {
+        Cursor cursor = briteDatabase.query(SQL_UPLOAD_QUEUE_ENTRY, Long.toString(trackId.getId()));
+        try {
+            return cursor.moveToFirst() ? UploadQueueTable.fromCursor(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public void updateUploadQueueEntry(UploadQueueEntry entry) {
+        briteDatabase.update(UploadQueueTable.TABLE_NAME, SQLiteDatabase.CONFLICT_FAIL,
+                UploadQueueTable.toContentValues(entry),
+                UploadQueueTable.KEY_TRACK + "=?", Long.toString(entry.getTrackId().getId()));
     }
 
-    private void deleteMeasurementsOfTrack(Track.TrackId trackId) {
+    @Override
+    public void removeFromUploadQueue(Track.TrackId trackId) {
         BriteDatabase.Transaction transaction = briteDatabase.newTransaction();
         try {
-            briteDatabase.delete(MeasurementTable.TABLE_NAME,
-                    MeasurementTable.KEY_TRACK + "='" + trackId + "'");
+            executeDelete(UploadQueueTable.TABLE_NAME, SQL_DELETE_UPLOAD, trackId.getId());
             transaction.markSuccessful();
         } finally {
             transaction.end();
         }
     }
 
+    @Override
+    public Observable<Track> fetchTracks(
+            Observable<List<Track>> tracks, final boolean lazy) {
+        return fetchTrack(tracks
+                .flatMap(tracks1 -> Observable.fromIterable(tracks1)), lazy);
+    }
+
+    @Override
+    public Observable<Track> fetchTrack(Observable<Track> trackObservable, final boolean lazy) {
+        return trackObservable.flatMap(track -> lazy ? fetchStartTime(track) : fetchMeasurements(track));
+    }
+
+    @Override
+    public Observable<Track> getActiveTrackObservable(boolean lazy) {
+        return fetchTrackObservable("getActiveTrack", SQL_ACTIVE_TRACK, lazy,
+                Track.TrackStatus.ONGOING.toString());
+    }
+
     @Override
     public void automaticDeleteMeasurements(long time, Track.TrackId trackId) {
         BriteDatabase.Transaction transaction = briteDatabase.newTransaction();
         try {
-            briteDatabase.delete(MeasurementTable.TABLE_NAME,
-                    MeasurementTable.KEY_TRACK + "='" + trackId + "' AND " + MeasurementTable.KEY_TIME + " >= " + time);
+            executeDelete(MeasurementTable.TABLE_NAME, SQL_DELETE_MEASUREMENTS_AFTER,
+                    trackId.getId(), time);
+            rebuildSummary(trackId);
             transaction.markSuccessful();
         } finally {
             transaction.end();
@@ -352,11 +709,7 @@ public class EnviroCarDBImpl implements EnviroCarDB {
 
     private Observable<Track> fetchMeasurements(final Track track) {
         return briteDatabase.createQuery(
-                MeasurementTable.TABLE_NAME,
-                "SELECT * FROM " + MeasurementTable.TABLE_NAME +
-                        " WHERE " + MeasurementTable.KEY_TRACK +
-                        "=\"" + track.getTrackID() + "\"" +
-                        " ORDER BY " + MeasurementTable.KEY_TIME + " ASC")
+                MeasurementTable.TABLE_NAME, SQL_MEASUREMENTS_OF_TRACK, track.getTrackID().getId())
                 .mapToList(MeasurementTable.MAPPER)
                 .map(measurements -> {
                     track.setMeasurements(measurements);
@@ -367,24 +720,34 @@ public class EnviroCarDBImpl implements EnviroCarDB {
 
     private Observable<Track> fetchStartTime(final Track track) {
         return briteDatabase.createQuery(
-                MeasurementTable.TABLE_NAME,
-                "SELECT * FROM " + MeasurementTable.TABLE_NAME +
-                        " WHERE " + MeasurementTable.KEY_TRACK +
-                        "=\"" + track.getTrackID() + "\"" +
-                        " ORDER BY " + MeasurementTable.KEY_TIME + " ASC" +
-                        " LIMIT 1")
-                .mapToOne(MeasurementTable.MAPPER)
-                .map(measurement -> {
-                    track.setStartTime(measurement.getTime());
+                MeasurementTable.TABLE_NAME, SQL_START_TIME_OF_TRACK, track.getTrackID().getId())
+                .mapToOne(cursor -> cursor.getLong(0))
+                .map(time -> {
+                    track.setStartTime(time);
                     track.setLazyMeasurements(true);
+                    backfillStatistics(track);
                     return track;
                 });
     }
 
-    private Observable<Track> fetchTrackObservable(String sql, boolean lazy) {
+    private Observable<Track> fetchTrackObservable(String operation, String sql, boolean lazy,
+                                                   Object... args) {
         return briteDatabase
-                .createQuery(TrackTable.TABLE_TRACK, sql)
-                .mapToOne(TrackTable.MAPPER)
+                .createQuery(TrackTable.TABLE_TRACK, sql, args)
+                .flatMap(query -> {
+                    long start = queryStatistics.start();
+                    Cursor cursor = query.run();
+                    try {
+                        return cursor != null && cursor.moveToFirst() ?
+                                Observable.just(TrackTable.MAPPER.apply(cursor)) :
+                                Observable.<Track>empty();
+                    } finally {
+                        if (cursor != null) {
+                            cursor.close();
+                        }
+                        queryStatistics.record(operation, start);
+                    }
+                })
                 .take(1)
                 .timeout(100, TimeUnit.MILLISECONDS)
                 .compose(fetchTrackObservable(lazy));
@@ -400,13 +763,20 @@ public class EnviroCarDBImpl implements EnviroCarDB {
         });
     }
 
-    private Observable<List<Track>> fetchTracksObservable(String sql, boolean lazy) {
+    private Observable<List<Track>> fetchTracksObservable(String operation, String sql,
+                                                          boolean lazy, Object... args) {
         Observable<List<Track>> listObservable = Observable.create(emitter -> {
-            Cursor query = briteDatabase.getReadableDatabase().query(sql);
+            long start = queryStatistics.start();
+            Cursor query = briteDatabase.query(sql, args);
 
             ArrayList<Track> tracks = new ArrayList<>();
-            for (query.moveToFirst(); !query.isAfterLast(); query.moveToNext()) {
-                tracks.add(TrackTable.MAPPER.apply(query));
+            try {
+                for (query.moveToFirst(); !query.isAfterLast(); query.moveToNext()) {
+                    tracks.add(TrackTable.MAPPER.apply(query));
+                }
+            } finally {
+                query.close();
+                queryStatistics.record(operation, start);
             }
 
             emitter.onNext(tracks);
@@ -429,41 +799,207 @@ public class EnviroCarDBImpl implements EnviroCarDB {
     }
 
     private Track fetchMeasurementsSilent(final Track track) {
+        long start = queryStatistics.start();
         track.setMeasurements(MeasurementTable.fromCursorToList(briteDatabase.query(
-                "SELECT * FROM " + MeasurementTable.TABLE_NAME +
-                        " WHERE " + MeasurementTable.KEY_TRACK +
-                        "=\"" + track.getTrackID() + "\"" +
-                        " ORDER BY " + MeasurementTable.KEY_TIME + " ASC", (String[]) null)));
+                SQL_MEASUREMENTS_OF_TRACK, track.getTrackID().getId())));
         track.setLazyMeasurements(false);
+        queryStatistics.record("fetchMeasurements", start);
         return track;
     }
 
+    private Flowable<Measurement> streamMeasurements(String sql, Object... args) {
+        return Flowable.generate(
+                () -> briteDatabase.query(sql, args),
+                (Cursor cursor, Emitter<Measurement> emitter) -> {
+                    if (cursor.moveToNext()) {
+                        emitter.onNext(MeasurementTable.fromCursor(cursor));
+                    } else {
+                        emitter.onComplete();
+                    }
+                },
+                Cursor::close);
+    }
+
+    @Override
+    public Measurement getFirstMeasurement(Track.TrackId trackId) {
+        return queryMeasurement(SQL_FIRST_MEASUREMENT_OF_TRACK, trackId.getId());
+    }
+
+    @Override
+    public Measurement getLastMeasurement(Track.TrackId trackId) {
+        return queryMeasurement(SQL_LAST_MEASUREMENT_OF_TRACK, trackId.getId());
+    }
+
+    private Measurement queryMeasurement(long id) {
+        return queryMeasurement(SQL_MEASUREMENT_BY_ID, id);
+    }
+
+    private Measurement queryMeasurement(String sql, long id) {
+        Cursor cursor = briteDatabase.query(sql, id);
+        try {
+            return cursor.moveToFirst() ? MeasurementTable.fromCursor(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Computes the bounding box of a circle on the sphere of {@link Geodesic#haversine}.
+     *
+     * @return the minimum latitude, minimum longitude, maximum latitude and maximum longitude.
+     * The minimum longitude is greater than the maximum one if the box crosses the antimeridian.
+     */
+    private static double[] getBoundingBox(double latitude, double longitude, double radius) {
+        double angle = radius / Geodesic.EARTH_RADIUS_KM;
+        double latitudeDelta = Math.toDegrees(angle);
+        double minLatitude = latitude - latitudeDelta;
+        double maxLatitude = latitude + latitudeDelta;
+        double sinLongitudeDelta = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+        if (minLatitude <= -90 || maxLatitude >= 90 || angle >= Math.PI / 2
+                || sinLongitudeDelta >= 1) {
+            // the circle contains a pole or spans all longitudes.
+            return new double[]{Math.max(-90, minLatitude), -180, Math.min(90, maxLatitude), 180};
+        }
+
+        double longitudeDelta = Math.toDegrees(Math.asin(sinLongitudeDelta));
+        double minLongitude = longitude - longitudeDelta;
+        double maxLongitude = longitude + longitudeDelta;
+        if (minLongitude < -180) {
+            minLongitude += 360;
+        }
+        if (maxLongitude > 180) {
+            maxLongitude -= 360;
+        }
+        return new double[]{minLatitude, minLongitude, maxLatitude, maxLongitude};
+    }
+
+    private SupportSQLiteStatement getStatement(String sql) {
+        synchronized (statements) {
+            SupportSQLiteStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = briteDatabase.getWritableDatabase().compileStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+    }
+
+    private void executeInsertMeasurement(Measurement measurement) {
+        SupportSQLiteStatement statement = getStatement(MeasurementTable.INSERT);
+        synchronized (statement) {
+            MeasurementTable.bindInsert(statement, measurement);
+            briteDatabase.executeInsert(MeasurementTable.TABLE_NAME, statement);
+        }
+    }
+
+    private void executeDelete(String table, String sql, long... args) {
+        SupportSQLiteStatement statement = getStatement(sql);
+        synchronized (statement) {
+            statement.clearBindings();
+            for (int i = 0; i < args.length; i++) {
+                statement.bindLong(i + 1, args[i]);
+            }
+            briteDatabase.executeUpdateDelete(table, statement);
+        }
+    }
+
+    private TrackSummary querySummary(Track.TrackId trackId) {
+        Cursor cursor = briteDatabase.query(SQL_SUMMARY_OF_TRACK, trackId.getId());
+        try {
+            TrackSummary summary = cursor.moveToFirst() ? TrackSummaryTable.fromCursor(cursor) : null;
+            return summary != null ? summary : new TrackSummary();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void writeSummary(Track.TrackId trackId, TrackSummary summary) {
+        briteDatabase.insert(TrackSummaryTable.TABLE_NAME, SQLiteDatabase.CONFLICT_REPLACE,
+                TrackSummaryTable.toContentValues(trackId, summary));
+    }
+
+    private void rebuildSummary(Track.TrackId trackId) {
+        forgetRecentSummary();
+        TrackSummary summary = new TrackSummary();
+        Cursor cursor = briteDatabase.query(SQL_MEASUREMENTS_OF_TRACK, trackId.getId());
+        try {
+            while (cursor.moveToNext()) {
+                summary.add(MeasurementTable.fromCursor(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        writeSummary(trackId, summary);
+    }
+
+    private void forgetRecentSummary() {
+        recentSummaryTrack = null;
+        recentSummary = null;
+    }
+
+    /**
+     * Computes and persists the statistics of a finished track that has none, e.g., because it
+     * has been recorded before the statistics were stored or they have been stored in an outdated
+     * encoding. This is done once when the track is loaded lazily for the first time.
+     */
+    private void backfillStatistics(final Track track) {
+        if (track.getTrackStatus() != Track.TrackStatus.FINISHED
+                || !(track instanceof TrackImpl) || ((TrackImpl) track).hasStatistics()) {
+            return;
+        }
+
+        long start = queryStatistics.start();
+        TrackStatistics statistics = new TrackStatistics(
+                track.getCar() != null ? track.getCar().getFuelType() : null);
+        Cursor cursor = briteDatabase.query(SQL_MEASUREMENTS_OF_TRACK, track.getTrackID().getId());
+        try {
+            while (cursor.moveToNext()) {
+                statistics.add(MeasurementTable.fromCursor(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        ((TrackImpl) track).setStatistics(statistics);
+
+        if (statistics.getCount() > 0) {
+            ContentValues values = new ContentValues();
+            values.put(TrackTable.KEY_TRACK_STATISTICS, statistics.toByteArray());
+            briteDatabase.update(TrackTable.TABLE_TRACK, SQLiteDatabase.CONFLICT_FAIL, values,
+                    TrackTable.KEY_TRACK_ID + "=?", Long.toString(track.getTrackID().getId()));
+        }
+        queryStatistics.record("backfillStatistics", start);
+    }
+
     private Track fetchStartEndTimeSilent(final Track track) {
-        Cursor startTime = briteDatabase.query(
-                "SELECT " + MeasurementTable.KEY_TIME +
-                        " FROM " + MeasurementTable.TABLE_NAME +
-                        " WHERE " + MeasurementTable.KEY_TRACK +
-                        "=\"" + track.getTrackID() + "\"" +
-                        " ORDER BY " + MeasurementTable.KEY_TIME + " ASC LIMIT 1");
-
-        if (startTime.moveToFirst()) {
-            track.setStartTime(
-                    startTime.getLong(
-                            startTime.getColumnIndex(MeasurementTable.KEY_TIME)));
+        track.setLazyMeasurements(true);
+        backfillStatistics(track);
+        TrackSummary summary = track.getSummary();
+        if (summary != null && !summary.isEmpty()) {
+            // the summary already knows the time span of the track.
+            track.setStartTime(summary.getFirstTime());
+            track.setEndTime(summary.getLastTime());
+            return track;
+        }
+
+        long start = queryStatistics.start();
+        Cursor startTime = briteDatabase.query(SQL_START_TIME_OF_TRACK, track.getTrackID().getId());
+        try {
+            if (startTime.moveToFirst()) {
+                track.setStartTime(startTime.getLong(0));
+            }
+        } finally {
+            startTime.close();
         }
 
-        Cursor endTime = briteDatabase.query(
-                "SELECT " + MeasurementTable.KEY_TIME +
-                        " FROM " + MeasurementTable.TABLE_NAME +
-                        " WHERE " + MeasurementTable.KEY_TRACK +
-                        "=\"" + track.getTrackID() + "\"" +
-                        " ORDER BY " + MeasurementTable.KEY_TIME + " DESC LIMIT 1");
-
-        if (endTime.moveToFirst()) {
-            track.setEndTime(
-                    endTime.getLong(
-                            startTime.getColumnIndex(MeasurementTable.KEY_TIME)));
+        Cursor endTime = briteDatabase.query(SQL_END_TIME_OF_TRACK, track.getTrackID().getId());
+        try {
+            if (endTime.moveToFirst()) {
+                track.setEndTime(endTime.getLong(0));
+            }
+        } finally {
+            endTime.close();
         }
+        queryStatistics.record("fetchStartEndTime", start);
 
         return track;
     }
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import org.envirocar.core.entity.Measurement;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Binary codec for the property values of a {@link Measurement}.
+ * <p>
+ * The encoded form consists of a single format version byte, a 64 bit presence mask in which
+ * bit <code>i</code> denotes that the {@link Measurement.PropertyKey} with ordinal <code>i</code>
+ * is present, followed by one IEEE754 double for every set bit in ascending ordinal order.
+ * Because the ordinal is part of the persisted format, new property keys must only ever be
+ * appended to {@link Measurement.PropertyKey}.
+ *
+ * @author dewall
+ */
+class MeasurementPropertiesCodec {
+
+    static final byte FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 1 + 8;
+    private static final Measurement.PropertyKey[] KEYS = Measurement.PropertyKey.values();
+
+    private MeasurementPropertiesCodec() {
+        // no instance required.
+    }
+
+    /**
+     * Encodes the given property map. Non-finite values are skipped, just like the previous
+     * JSON based serialization did.
+     *
+     * @param properties the properties to encode.
+     * @return the encoded properties.
+     */
+    static byte[] encode(Map<Measurement.PropertyKey, Double> properties) {
+        long mask = 0L;
+        for (Map.Entry<Measurement.PropertyKey, Double> entry : properties.entrySet()) {
+            Double value = entry.getValue();
+            if (value != null && !value.isNaN() && !value.isInfinite()) {
+                mask |= entry.getKey().getMask();
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + Long.bitCount(mask) * 8);
+        buffer.put(FORMAT_VERSION);
+        buffer.putLong(mask);
+        for (long remaining = mask; remaining != 0L; remaining &= remaining - 1) {
+            buffer.putDouble(properties.get(KEYS[Long.numberOfTrailingZeros(remaining)]));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes the given encoded properties into the measurement.
+     *
+     * @param data        the encoded properties.
+     * @param measurement the measurement to set the decoded properties on.
+     */
+    static void decode(byte[] data, Measurement measurement) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        checkVersion(buffer.get());
+        long mask = buffer.getLong();
+        for (; mask != 0L; mask &= mask - 1) {
+            measurement.setProperty(KEYS[Long.numberOfTrailingZeros(mask)], buffer.getDouble());
+        }
+    }
+
+    /**
+     * Returns the presence mask of the encoded properties without decoding any value.
+     *
+     * @param data the encoded properties.
+     * @return the presence mask.
+     */
+    static long getPresenceMask(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        checkVersion(buffer.get());
+        return buffer.getLong();
+    }
+
+    private static void checkVersion(byte version) {
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported properties format version " + version);
+        }
+    }
+}
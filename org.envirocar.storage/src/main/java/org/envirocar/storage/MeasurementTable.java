@@ -20,6 +20,10 @@ package org.envirocar.storage;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
 
 import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.MeasurementImpl;
@@ -31,7 +35,6 @@ import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import io.reactivex.functions.Function;
 
@@ -50,6 +53,7 @@ class MeasurementTable {
     public static final String KEY_ROWID = "_id";
     public static final String KEY_PROPERTIES = "properties";
     public static final String KEY_TRACK = "track";
+    public static final String KEY_CELL = "cell";
 
     protected static final String CREATE =
             "create table " + TABLE_NAME + " (" +
@@ -58,11 +62,40 @@ class MeasurementTable {
                     KEY_LONGITUDE + " BLOB, " +
                     KEY_TIME + " BLOB, " +
                     KEY_PROPERTIES + " BLOB, " +
-                    KEY_TRACK + " INTEGER);";
+                    KEY_TRACK + " INTEGER, " +
+                    KEY_CELL + " INTEGER);";
+
+    protected static final String ADD_COLUMN_CELL =
+            "ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + KEY_CELL + " INTEGER;";
 
     protected static final String DELETE =
             "DROP TABLE IF EXISTS " + TABLE_NAME;
 
+    // covers all lookups of the measurements of a track ordered by time.
+    protected static final String INDEX_TRACK_TIME = "measurements_track_time";
+    protected static final String CREATE_INDEX_TRACK_TIME =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_TRACK_TIME +
+                    " ON " + TABLE_NAME + " (" + KEY_TRACK + ", " + KEY_TIME + ");";
+
+    // spatial lookups, see SpatialIndex. The coordinates and tracks are read from the index.
+    protected static final String INDEX_CELL = "measurements_cell";
+    protected static final String CREATE_INDEX_CELL =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_CELL +
+                    " ON " + TABLE_NAME + " (" + KEY_CELL + ", " + KEY_LATITUDE + ", " +
+                    KEY_LONGITUDE + ", " + KEY_TRACK + ");";
+
+    protected static final String INSERT =
+            "INSERT INTO " + TABLE_NAME + " (" +
+                    KEY_LATITUDE + ", " +
+                    KEY_LONGITUDE + ", " +
+                    KEY_TIME + ", " +
+                    KEY_TRACK + ", " +
+                    KEY_PROPERTIES + ", " +
+                    KEY_CELL + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    // number of rows read at once by the migrations.
+    static final int MIGRATION_PAGE_SIZE = 500;
+
     protected static final Function<Cursor, Measurement> MAPPER = cursor -> fromCursor(cursor);
 
     public static ContentValues toContentValues(Measurement measurement) {
@@ -71,21 +104,27 @@ class MeasurementTable {
         values.put(KEY_LONGITUDE, measurement.getLongitude());
         values.put(KEY_TIME, measurement.getTime());
         values.put(KEY_TRACK, measurement.getTrackId().getId());
-        values.put(KEY_PROPERTIES, createPropertiesString(measurement));
+        values.put(KEY_PROPERTIES, MeasurementPropertiesCodec.encode(measurement.getAllProperties()));
+        values.put(KEY_CELL, SpatialIndex.encode(
+                measurement.getLatitude(), measurement.getLongitude()));
         return values;
     }
 
-    private static String createPropertiesString(Measurement measurement) {
-        JSONObject result = new JSONObject();
-        Map<Measurement.PropertyKey, Double> properties = measurement.getAllProperties();
-        for (Measurement.PropertyKey key : properties.keySet()) {
-            try {
-                result.put(key.name(), properties.get(key));
-            } catch (JSONException e) {
-                LOG.warn("Error while parsing measurement property " + key.name() + "=" + properties.get(key) + "; " + e.getMessage());
-            }
-        }
-        return result.toString();
+    /**
+     * Binds the values of a measurement to a statement compiled from {@link #INSERT}.
+     *
+     * @param statement   the compiled insert statement.
+     * @param measurement the measurement to bind.
+     */
+    public static void bindInsert(SupportSQLiteStatement statement, Measurement measurement) {
+        statement.clearBindings();
+        statement.bindDouble(1, measurement.getLatitude());
+        statement.bindDouble(2, measurement.getLongitude());
+        statement.bindLong(3, measurement.getTime());
+        statement.bindLong(4, measurement.getTrackId().getId());
+        statement.bindBlob(5, MeasurementPropertiesCodec.encode(measurement.getAllProperties()));
+        statement.bindLong(6, SpatialIndex.encode(
+                measurement.getLatitude(), measurement.getLongitude()));
     }
 
     public static List<Measurement> fromCursorToList(Cursor c) {
@@ -107,22 +146,114 @@ class MeasurementTable {
         measurement.setTrackId(new Track.TrackId(
                 c.getLong(c.getColumnIndex(KEY_TRACK))));
 
-        String rawData = c.getString(c.getColumnIndex(KEY_PROPERTIES));
-        if (rawData != null) {
+        int propertiesIndex = c.getColumnIndex(KEY_PROPERTIES);
+        if (!c.isNull(propertiesIndex)) {
+            if (c.getType(propertiesIndex) == Cursor.FIELD_TYPE_BLOB) {
+                MeasurementPropertiesCodec.decode(c.getBlob(propertiesIndex), measurement);
+            } else {
+                // rows that have not been migrated yet still contain the legacy json string.
+                readLegacyProperties(c.getString(propertiesIndex), measurement);
+            }
+        }
+        return measurement;
+    }
+
+    /**
+     * Converts all measurement rows still holding the legacy JSON encoded properties to the
+     * binary format of {@link MeasurementPropertiesCodec}.
+     *
+     * @param db the database to migrate.
+     */
+    protected static void migrateLegacyProperties(SupportSQLiteDatabase db) {
+        LOG.info("Migrating the legacy properties of the measurements.");
+        // the rows are read page by page before they are updated. Updating the rows of an open
+        // cursor would change its result, so rows would be skipped when its window is refilled.
+        long lastId = -1;
+        List<Long> ids = new ArrayList<>(MIGRATION_PAGE_SIZE);
+        List<String> properties = new ArrayList<>(MIGRATION_PAGE_SIZE);
+        ContentValues values = new ContentValues();
+        do {
+            ids.clear();
+            properties.clear();
+            Cursor c = db.query("SELECT " + KEY_ROWID + ", " + KEY_PROPERTIES +
+                            " FROM " + TABLE_NAME +
+                            " WHERE " + KEY_ROWID + ">? AND typeof(" + KEY_PROPERTIES + ")='text'" +
+                            " ORDER BY " + KEY_ROWID + " LIMIT " + MIGRATION_PAGE_SIZE,
+                    new Object[]{lastId});
             try {
-                JSONObject json = new JSONObject(rawData);
-                JSONArray names = json.names();
-                if (names != null) {
-                    for (int j = 0; j < names.length(); j++) {
-                        String key = names.getString(j);
-                        measurement.setProperty(Measurement.PropertyKey.valueOf(key), json
-                                .getDouble(key));
-                    }
+                while (c.moveToNext()) {
+                    ids.add(c.getLong(0));
+                    properties.add(c.getString(1));
                 }
-            } catch (JSONException e) {
-                LOG.severe("could not load properties", e);
+            } finally {
+                c.close();
             }
+
+            for (int i = 0; i < ids.size(); i++) {
+                MeasurementImpl measurement = new MeasurementImpl();
+                readLegacyProperties(properties.get(i), measurement);
+
+                values.put(KEY_PROPERTIES,
+                        MeasurementPropertiesCodec.encode(measurement.getAllProperties()));
+                db.update(TABLE_NAME, SQLiteDatabase.CONFLICT_FAIL, values,
+                        KEY_ROWID + "=?", new Object[]{ids.get(i)});
+                lastId = ids.get(i);
+            }
+        } while (ids.size() == MIGRATION_PAGE_SIZE);
+    }
+
+    /**
+     * Computes the geohash of all measurement rows that do not have one yet.
+     *
+     * @param db the database to migrate.
+     */
+    protected static void backfillCells(SupportSQLiteDatabase db) {
+        LOG.info("Computing the cells of the measurements.");
+        // the rows are read page by page before they are updated, see migrateLegacyProperties.
+        long lastId = -1;
+        int count;
+        long[] ids = new long[MIGRATION_PAGE_SIZE];
+        long[] cells = new long[MIGRATION_PAGE_SIZE];
+        ContentValues values = new ContentValues();
+        do {
+            count = 0;
+            Cursor c = db.query("SELECT " + KEY_ROWID + ", " + KEY_LATITUDE + ", " +
+                            KEY_LONGITUDE + " FROM " + TABLE_NAME +
+                            " WHERE " + KEY_ROWID + ">? AND " + KEY_CELL + " IS NULL" +
+                            " ORDER BY " + KEY_ROWID + " LIMIT " + MIGRATION_PAGE_SIZE,
+                    new Object[]{lastId});
+            try {
+                while (c.moveToNext()) {
+                    ids[count] = c.getLong(0);
+                    cells[count] = SpatialIndex.encode(c.getDouble(1), c.getDouble(2));
+                    count++;
+                }
+            } finally {
+                c.close();
+            }
+
+            for (int i = 0; i < count; i++) {
+                values.put(KEY_CELL, cells[i]);
+                db.update(TABLE_NAME, SQLiteDatabase.CONFLICT_FAIL, values,
+                        KEY_ROWID + "=?", new Object[]{ids[i]});
+                lastId = ids[i];
+            }
+        } while (count == MIGRATION_PAGE_SIZE);
+    }
+
+    private static void readLegacyProperties(String rawData, Measurement measurement) {
+        try {
+            JSONObject json = new JSONObject(rawData);
+            JSONArray names = json.names();
+            if (names != null) {
+                for (int j = 0; j < names.length(); j++) {
+                    String key = names.getString(j);
+                    measurement.setProperty(Measurement.PropertyKey.valueOf(key), json
+                            .getDouble(key));
+                }
+            }
+        } catch (JSONException e) {
+            LOG.severe("could not load properties", e);
         }
-        return measurement;
     }
 }
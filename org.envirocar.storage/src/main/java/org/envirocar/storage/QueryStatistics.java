@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects the number of executions and the latency of the queries issued by
+ * {@link EnviroCarDBImpl}, keyed by the name of the operation.
+ *
+ * @author dewall
+ */
+public class QueryStatistics {
+
+    /**
+     * Latency counter of a single operation.
+     */
+    public static class Entry {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        private Entry() {
+        }
+
+        private Entry(Entry other) {
+            this.count = other.count;
+            this.totalNanos = other.totalNanos;
+            this.maxNanos = other.maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getAverageMillis() {
+            return count > 0 ? totalNanos / (count * 1e6) : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%s, avg=%.3fms, max=%.3fms",
+                    count, getAverageMillis(), maxNanos / 1e6);
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * @return the start timestamp to pass to {@link #record(String, long)}.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the execution of an operation.
+     *
+     * @param operation  the name of the operation.
+     * @param startNanos the timestamp returned by {@link #start()}.
+     */
+    public void record(String operation, long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        synchronized (entries) {
+            Entry entry = entries.get(operation);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(operation, entry);
+            }
+            entry.count++;
+            entry.totalNanos += duration;
+            entry.maxNanos = Math.max(entry.maxNanos, duration);
+        }
+    }
+
+    /**
+     * @return a copy of the current counters.
+     */
+    public Map<String, Entry> getSnapshot() {
+        Map<String, Entry> result = new HashMap<>();
+        synchronized (entries) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                result.put(entry.getKey(), new Entry(entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    public void reset() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+}
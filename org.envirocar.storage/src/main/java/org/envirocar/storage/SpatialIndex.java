@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Geohash of the measurement positions. The position is quantized to a grid of 2^26 cells per
+ * axis (about 0.3 m of latitude per cell) and the cell coordinates are interleaved bit by bit
+ * into a Z-order code. Every cell of a coarser grid then corresponds to one contiguous range of
+ * codes, so a bounding box can be looked up with a few range scans on a B-tree index of the code.
+ * <p>
+ * A bounding box is covered by the cells of the finest grid in which it spans at most
+ * {@link #MAX_CELLS_PER_AXIS} cells per axis. The cover may contain positions outside of the box,
+ * which have to be filtered by their coordinates.
+ *
+ * @author dewall
+ */
+final class SpatialIndex {
+    static final int BITS_PER_AXIS = 26;
+    static final int MAX_CELLS_PER_AXIS = 4;
+
+    private static final long MAX_CELL = (1L << BITS_PER_AXIS) - 1;
+
+    private SpatialIndex() {
+        // no instance required.
+    }
+
+    /**
+     * Encodes a position.
+     *
+     * @param latitude  the latitude in degrees.
+     * @param longitude the longitude in degrees.
+     * @return the geohash of the position.
+     */
+    static long encode(double latitude, double longitude) {
+        return interleave(quantizeLatitude(latitude), quantizeLongitude(longitude));
+    }
+
+    /**
+     * Computes the code ranges covering a bounding box. A box with a minimum longitude greater
+     * than its maximum longitude crosses the antimeridian.
+     *
+     * @return the inclusive code ranges as consecutive start and end values, ordered and without
+     * adjacent ranges.
+     */
+    static long[] cover(double minLatitude, double minLongitude,
+                        double maxLatitude, double maxLongitude) {
+        if (minLongitude > maxLongitude) {
+            long[] west = cover(minLatitude, -180, maxLatitude, maxLongitude);
+            long[] east = cover(minLatitude, minLongitude, maxLatitude, 180);
+            long[] ranges = Arrays.copyOf(west, west.length + east.length);
+            System.arraycopy(east, 0, ranges, west.length, east.length);
+            return merge(ranges);
+        }
+
+        long minY = quantizeLatitude(minLatitude);
+        long maxY = quantizeLatitude(maxLatitude);
+        long minX = quantizeLongitude(minLongitude);
+        long maxX = quantizeLongitude(maxLongitude);
+
+        // the finest grid with at most MAX_CELLS_PER_AXIS cells per axis.
+        int shift = 0;
+        while ((maxX >> shift) - (minX >> shift) >= MAX_CELLS_PER_AXIS
+                || (maxY >> shift) - (minY >> shift) >= MAX_CELLS_PER_AXIS) {
+            shift++;
+        }
+
+        long[] ranges = new long[2 * (int) (((maxX >> shift) - (minX >> shift) + 1)
+                * ((maxY >> shift) - (minY >> shift) + 1))];
+        int i = 0;
+        for (long y = minY >> shift; y <= maxY >> shift; y++) {
+            for (long x = minX >> shift; x <= maxX >> shift; x++) {
+                long start = interleave(y, x) << (2 * shift);
+                ranges[i++] = start;
+                ranges[i++] = start + (1L << (2 * shift)) - 1;
+            }
+        }
+        return merge(ranges);
+    }
+
+    /**
+     * Builds the condition selecting the positions within a bounding box and appends its
+     * arguments. See {@link #cover(double, double, double, double)}.
+     *
+     * @param args the list to append the arguments to.
+     * @return the condition.
+     */
+    static String where(double minLatitude, double minLongitude,
+                        double maxLatitude, double maxLongitude, List<Object> args) {
+        StringBuilder where = new StringBuilder("(");
+        long[] ranges = cover(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (i > 0) {
+                where.append(" OR ");
+            }
+            where.append(column(MeasurementTable.KEY_CELL)).append(" BETWEEN ? AND ?");
+            args.add(ranges[i]);
+            args.add(ranges[i + 1]);
+        }
+
+        where.append(") AND ").append(column(MeasurementTable.KEY_LATITUDE))
+                .append(" BETWEEN ? AND ?");
+        args.add(minLatitude);
+        args.add(maxLatitude);
+
+        String longitude = column(MeasurementTable.KEY_LONGITUDE);
+        where.append(" AND ");
+        if (minLongitude > maxLongitude) {
+            where.append("(").append(longitude).append(" >= ? OR ").append(longitude)
+                    .append(" <= ?)");
+        } else {
+            where.append(longitude).append(" BETWEEN ? AND ?");
+        }
+        args.add(minLongitude);
+        args.add(maxLongitude);
+        return where.toString();
+    }
+
+    private static String column(String key) {
+        return MeasurementTable.TABLE_NAME + "." + key;
+    }
+
+    private static long[] merge(long[] ranges) {
+        // sort the ranges by their start.
+        long[][] pairs = new long[ranges.length / 2][];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new long[]{ranges[2 * i], ranges[2 * i + 1]};
+        }
+        Arrays.sort(pairs, (a, b) -> Long.compare(a[0], b[0]));
+
+        long[] merged = new long[ranges.length];
+        int size = 0;
+        for (long[] pair : pairs) {
+            if (size > 0 && pair[0] <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], pair[1]);
+            } else {
+                merged[size++] = pair[0];
+                merged[size++] = pair[1];
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    private static long quantizeLatitude(double latitude) {
+        return quantize((latitude + 90) / 180);
+    }
+
+    private static long quantizeLongitude(double longitude) {
+        return quantize((longitude + 180) / 360);
+    }
+
+    private static long quantize(double fraction) {
+        return Math.max(0, Math.min(MAX_CELL, (long) (fraction * (MAX_CELL + 1))));
+    }
+
+    private static long interleave(long y, long x) {
+        return spread(x) | (spread(y) << 1);
+    }
+
+    // spreads the lower 32 bits to the even bits.
+    private static long spread(long v) {
+        v &= 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+}
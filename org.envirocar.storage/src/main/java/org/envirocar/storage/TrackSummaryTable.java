@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.TrackSummary;
+import org.envirocar.core.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table holding one {@link TrackSummary} per track. It is updated together with the measurements
+ * of a track, so that tracks can be listed without touching the measurements table.
+ *
+ * @author dewall
+ */
+class TrackSummaryTable {
+    private static final Logger LOG = Logger.getLogger(TrackSummaryTable.class);
+
+    public static final String TABLE_NAME = "track_summary";
+    public static final String KEY_TRACK = "track";
+    public static final String KEY_FIRST_TIME = "first_time";
+    public static final String KEY_LAST_TIME = "last_time";
+    public static final String KEY_MEASUREMENT_COUNT = "measurement_count";
+    public static final String KEY_DISTANCE = "distance";
+    public static final String KEY_MIN_LATITUDE = "min_latitude";
+    public static final String KEY_MAX_LATITUDE = "max_latitude";
+    public static final String KEY_MIN_LONGITUDE = "min_longitude";
+    public static final String KEY_MAX_LONGITUDE = "max_longitude";
+    public static final String KEY_LAST_LATITUDE = "last_latitude";
+    public static final String KEY_LAST_LONGITUDE = "last_longitude";
+    public static final String KEY_PROPERTY_MASK = "property_mask";
+
+    protected static final String CREATE =
+            "create table " + TABLE_NAME + " (" +
+                    KEY_TRACK + " INTEGER primary key, " +
+                    KEY_FIRST_TIME + " INTEGER, " +
+                    KEY_LAST_TIME + " INTEGER, " +
+                    KEY_MEASUREMENT_COUNT + " INTEGER, " +
+                    KEY_DISTANCE + " REAL, " +
+                    KEY_MIN_LATITUDE + " REAL, " +
+                    KEY_MAX_LATITUDE + " REAL, " +
+                    KEY_MIN_LONGITUDE + " REAL, " +
+                    KEY_MAX_LONGITUDE + " REAL, " +
+                    KEY_LAST_LATITUDE + " REAL, " +
+                    KEY_LAST_LONGITUDE + " REAL, " +
+                    KEY_PROPERTY_MASK + " INTEGER);";
+
+    protected static final String DELETE =
+            "DROP TABLE IF EXISTS " + TABLE_NAME;
+
+    public static ContentValues toContentValues(Track.TrackId trackId, TrackSummary summary) {
+        ContentValues values = new ContentValues();
+        values.put(KEY_TRACK, trackId.getId());
+        values.put(KEY_FIRST_TIME, summary.getFirstTime());
+        values.put(KEY_LAST_TIME, summary.getLastTime());
+        values.put(KEY_MEASUREMENT_COUNT, summary.getMeasurementCount());
+        values.put(KEY_DISTANCE, summary.getDistance());
+        values.put(KEY_MIN_LATITUDE, summary.getMinLatitude());
+        values.put(KEY_MAX_LATITUDE, summary.getMaxLatitude());
+        values.put(KEY_MIN_LONGITUDE, summary.getMinLongitude());
+        values.put(KEY_MAX_LONGITUDE, summary.getMaxLongitude());
+        values.put(KEY_LAST_LATITUDE, summary.getLastLatitude());
+        values.put(KEY_LAST_LONGITUDE, summary.getLastLongitude());
+        values.put(KEY_PROPERTY_MASK, summary.getPropertyMask());
+        return values;
+    }
+
+    /**
+     * Reads the summary columns of the current cursor row. The cursor may also be the result of
+     * a join with the tracks table.
+     *
+     * @param c the cursor.
+     * @return the summary or null if the row does not contain a summary.
+     */
+    public static TrackSummary fromCursor(Cursor c) {
+        int trackIndex = c.getColumnIndex(KEY_TRACK);
+        if (trackIndex == -1 || c.isNull(trackIndex)) {
+            return null;
+        }
+
+        TrackSummary summary = new TrackSummary();
+        summary.setFirstTime(c.getLong(c.getColumnIndex(KEY_FIRST_TIME)));
+        summary.setLastTime(c.getLong(c.getColumnIndex(KEY_LAST_TIME)));
+        summary.setMeasurementCount(c.getInt(c.getColumnIndex(KEY_MEASUREMENT_COUNT)));
+        summary.setDistance(c.getDouble(c.getColumnIndex(KEY_DISTANCE)));
+        summary.setMinLatitude(c.getDouble(c.getColumnIndex(KEY_MIN_LATITUDE)));
+        summary.setMaxLatitude(c.getDouble(c.getColumnIndex(KEY_MAX_LATITUDE)));
+        summary.setMinLongitude(c.getDouble(c.getColumnIndex(KEY_MIN_LONGITUDE)));
+        summary.setMaxLongitude(c.getDouble(c.getColumnIndex(KEY_MAX_LONGITUDE)));
+        summary.setLastLatitude(c.getDouble(c.getColumnIndex(KEY_LAST_LATITUDE)));
+        summary.setLastLongitude(c.getDouble(c.getColumnIndex(KEY_LAST_LONGITUDE)));
+        summary.setPropertyMask(c.getLong(c.getColumnIndex(KEY_PROPERTY_MASK)));
+        return summary;
+    }
+
+    /**
+     * Builds the condition selecting the summaries whose bounding box intersects the given one
+     * and appends its arguments. A box with a minimum longitude greater than its maximum longitude
+     * crosses the antimeridian.
+     *
+     * @param args the list to append the arguments to.
+     * @return the condition.
+     */
+    static String whereIntersects(double minLatitude, double minLongitude,
+                                  double maxLatitude, double maxLongitude, List<Object> args) {
+        args.add(minLatitude);
+        args.add(maxLatitude);
+        args.add(minLongitude);
+        args.add(maxLongitude);
+        return TABLE_NAME + "." + KEY_MAX_LATITUDE + " >= ? AND " +
+                TABLE_NAME + "." + KEY_MIN_LATITUDE + " <= ? AND " +
+                (minLongitude > maxLongitude ? "(" : "") +
+                TABLE_NAME + "." + KEY_MAX_LONGITUDE + " >= ?" +
+                (minLongitude > maxLongitude ? " OR " : " AND ") +
+                TABLE_NAME + "." + KEY_MIN_LONGITUDE + " <= ?" +
+                (minLongitude > maxLongitude ? ")" : "");
+    }
+
+    /**
+     * Computes the summaries of all existing tracks.
+     *
+     * @param db the database to backfill.
+     */
+    protected static void backfill(SupportSQLiteDatabase db) {
+        List<Long> trackIds = new ArrayList<>();
+        Cursor tracks = db.query("SELECT " + TrackTable.KEY_TRACK_ID + " FROM " + TrackTable.TABLE_TRACK);
+        try {
+            for (tracks.moveToFirst(); !tracks.isAfterLast(); tracks.moveToNext()) {
+                trackIds.add(tracks.getLong(0));
+            }
+        } finally {
+            tracks.close();
+        }
+
+        LOG.info(String.format("Computing the summaries of %s tracks.", trackIds.size()));
+        for (Long trackId : trackIds) {
+            TrackSummary summary = new TrackSummary();
+            Cursor c = db.query("SELECT * FROM " + MeasurementTable.TABLE_NAME +
+                            " WHERE " + MeasurementTable.KEY_TRACK + "=?" +
+                            " ORDER BY " + MeasurementTable.KEY_TIME + " ASC",
+                    new Object[]{trackId});
+            try {
+                for (c.moveToFirst(); !c.isAfterLast(); c.moveToNext()) {
+                    summary.add(MeasurementTable.fromCursor(c));
+                }
+            } finally {
+                c.close();
+            }
+
+            db.insert(TABLE_NAME, SQLiteDatabase.CONFLICT_REPLACE,
+                    toContentValues(new Track.TrackId(trackId), summary));
+        }
+    }
+}
@@ -22,11 +22,15 @@ import android.content.ContentValues;
 import android.database.Cursor;
 import android.util.Log;
 
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
 import org.envirocar.core.entity.Car;
 import org.envirocar.core.entity.CarImpl;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.entity.TrackImpl;
 import org.envirocar.core.logging.Logger;
+import org.envirocar.core.trackprocessing.statistics.TrackStatistics;
+import org.envirocar.core.trackprocessing.statistics.TrackStatisticsProvider;
 import org.envirocar.core.util.TrackMetadata;
 import org.json.JSONException;
 
@@ -62,6 +66,9 @@ class TrackTable {
     public static final String KEY_TRACK_CAR_VIN = "vin";
     public static final String KEY_TRACK_CAR_ID = "carId";
     public static final String KEY_TRACK_METADATA = "trackMetadata";
+    public static final String KEY_TRACK_STATISTICS = "statistics";
+    // whether the measurements of an inserted track are complete (a Track.DownloadState).
+    public static final String KEY_TRACK_DOWNLOAD_STATE = "download_state";
 
     protected static final String CREATE =
             "create table " + TABLE_TRACK + " " +
@@ -80,10 +87,37 @@ class TrackTable {
                     KEY_TRACK_CAR_ENGINE_DISPLACEMENT + " BLOB, " +
                     KEY_TRACK_CAR_YEAR + " BLOB, " +
                     KEY_TRACK_CAR_VIN + " BLOB, " +
-                    KEY_TRACK_CAR_ID + " BLOB);";
+                    KEY_TRACK_CAR_ID + " BLOB, " +
+                    KEY_TRACK_STATISTICS + " BLOB, " +
+                    KEY_TRACK_DOWNLOAD_STATE + " TEXT);";
+
+    protected static final String ADD_COLUMN_STATISTICS =
+            "ALTER TABLE " + TABLE_TRACK + " ADD COLUMN " + KEY_TRACK_STATISTICS + " BLOB;";
+
+    protected static final String ADD_COLUMN_DOWNLOAD_STATE =
+            "ALTER TABLE " + TABLE_TRACK + " ADD COLUMN " + KEY_TRACK_DOWNLOAD_STATE + " TEXT;";
+
+    // condition excluding the tracks whose measurements are still being downloaded.
+    protected static final String WHERE_COMPLETE =
+            KEY_TRACK_DOWNLOAD_STATE + " IS NOT '" + Track.DownloadState.DOWNLOADING.name() + "'";
+
+    private static final String SELECT_INCOMPLETE_DOWNLOADS =
+            "SELECT " + KEY_TRACK_ID + " FROM " + TABLE_TRACK +
+                    " WHERE " + KEY_TRACK_DOWNLOAD_STATE + "='" +
+                    Track.DownloadState.DOWNLOADING.name() + "'";
 
     protected static final String DELETE = "DROP TABLE IF EXISTS " + TABLE_TRACK;
 
+    protected static final String INDEX_REMOTE_ID = "tracks_remote_id";
+    protected static final String CREATE_INDEX_REMOTE_ID =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_REMOTE_ID +
+                    " ON " + TABLE_TRACK + " (" + KEY_REMOTE_ID + ");";
+
+    protected static final String INDEX_STATE = "tracks_state";
+    protected static final String CREATE_INDEX_STATE =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_STATE +
+                    " ON " + TABLE_TRACK + " (" + KEY_TRACK_STATE + ");";
+
     protected static final Function<Cursor, Track> MAPPER = cursor -> fromCursor(cursor);
 
     public static final Function<? super Cursor, ? extends Observable<Track.TrackId>>
@@ -138,11 +172,44 @@ class TrackTable {
             }
         }
 
+        // statistics are only persisted once the measurements of a track do not change anymore.
+        TrackStatistics statistics = null;
+        if (track.getTrackStatus() == Track.TrackStatus.FINISHED
+                && track instanceof TrackStatisticsProvider) {
+            statistics = ((TrackStatisticsProvider) track).getStatistics();
+        }
+        if (statistics != null && statistics.getCount() > 0) {
+            values.put(KEY_TRACK_STATISTICS, statistics.toByteArray());
+        } else {
+            values.putNull(KEY_TRACK_STATISTICS);
+        }
+
         return values;
     }
 
+    /**
+     * Deletes the tracks whose download has been interrupted, e.g., because the app has been
+     * killed, together with their measurements.
+     */
+    protected static void deleteIncompleteDownloads(SupportSQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM " + MeasurementTable.TABLE_NAME + " WHERE " +
+                    MeasurementTable.KEY_TRACK + " IN (" + SELECT_INCOMPLETE_DOWNLOADS + ")");
+            db.execSQL("DELETE FROM " + TrackSummaryTable.TABLE_NAME + " WHERE " +
+                    TrackSummaryTable.KEY_TRACK + " IN (" + SELECT_INCOMPLETE_DOWNLOADS + ")");
+            db.execSQL("DELETE FROM " + UploadQueueTable.TABLE_NAME + " WHERE " +
+                    UploadQueueTable.KEY_TRACK + " IN (" + SELECT_INCOMPLETE_DOWNLOADS + ")");
+            db.execSQL("DELETE FROM " + TABLE_TRACK + " WHERE " + KEY_TRACK_DOWNLOAD_STATE +
+                    "='" + Track.DownloadState.DOWNLOADING.name() + "'");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
     public static Track fromCursor(Cursor c) {
-        Track track = new TrackImpl();
+        TrackImpl track = new TrackImpl();
         track.setTrackID(new Track.TrackId(c.getLong(c.getColumnIndex(KEY_TRACK_ID))));
         track.setRemoteID(c.getString(c.getColumnIndex(KEY_REMOTE_ID)));
         track.setName(c.getString(c.getColumnIndex(KEY_TRACK_NAME)));
@@ -169,6 +236,13 @@ class TrackTable {
         }
 
         track.setCar(createCarFromCursor(c));
+        track.setSummary(TrackSummaryTable.fromCursor(c));
+
+        int statisticsColumn = c.getColumnIndex(KEY_TRACK_STATISTICS);
+        if (statisticsColumn != -1 && !c.isNull(statisticsColumn)) {
+            track.setStatistics(TrackStatistics.fromByteArray(c.getBlob(statisticsColumn),
+                    track.getCar() != null ? track.getCar().getFuelType() : null));
+        }
 
         return track;
     }
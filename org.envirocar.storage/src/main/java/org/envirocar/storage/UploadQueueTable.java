@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2013 - 2019 the enviroCar community
+ *
+ * This file is part of the enviroCar app.
+ *
+ * The enviroCar app is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The enviroCar app is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with the enviroCar app. If not, see http://www.gnu.org/licenses/.
+ */
+package org.envirocar.storage;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import org.envirocar.core.entity.Track;
+import org.envirocar.core.entity.UploadQueueEntry;
+
+/**
+ * Table holding the persistent queue of track uploads together with the checkpoint of every
+ * upload.
+ *
+ * @author dewall
+ */
+class UploadQueueTable {
+
+    public static final String TABLE_NAME = "upload_queue";
+    public static final String KEY_TRACK = "track";
+    public static final String KEY_STATE = "state";
+    public static final String KEY_REMOTE_ID = "remote_id";
+    public static final String KEY_ATTEMPTS = "attempts";
+    public static final String KEY_NEXT_ATTEMPT = "next_attempt";
+    public static final String KEY_ERROR = "error";
+
+    protected static final String CREATE =
+            "create table " + TABLE_NAME + " (" +
+                    KEY_TRACK + " INTEGER primary key, " +
+                    KEY_STATE + " TEXT, " +
+                    KEY_REMOTE_ID + " TEXT, " +
+                    KEY_ATTEMPTS + " INTEGER, " +
+                    KEY_NEXT_ATTEMPT + " INTEGER, " +
+                    KEY_ERROR + " TEXT);";
+
+    protected static final String DELETE =
+            "DROP TABLE IF EXISTS " + TABLE_NAME;
+
+    public static ContentValues toContentValues(UploadQueueEntry entry) {
+        ContentValues values = new ContentValues();
+        values.put(KEY_TRACK, entry.getTrackId().getId());
+        values.put(KEY_STATE, entry.getState().name());
+        values.put(KEY_REMOTE_ID, entry.getRemoteId());
+        values.put(KEY_ATTEMPTS, entry.getAttempts());
+        values.put(KEY_NEXT_ATTEMPT, entry.getNextAttempt());
+        values.put(KEY_ERROR, entry.getError());
+        return values;
+    }
+
+    public static UploadQueueEntry fromCursor(Cursor c) {
+        UploadQueueEntry entry = new UploadQueueEntry(
+                new Track.TrackId(c.getLong(c.getColumnIndex(KEY_TRACK))));
+        entry.setState(UploadQueueEntry.State.valueOf(c.getString(c.getColumnIndex(KEY_STATE))));
+        entry.setRemoteId(c.getString(c.getColumnIndex(KEY_REMOTE_ID)));
+        entry.setAttempts(c.getInt(c.getColumnIndex(KEY_ATTEMPTS)));
+        entry.setNextAttempt(c.getLong(c.getColumnIndex(KEY_NEXT_ATTEMPT)));
+        entry.setError(c.getString(c.getColumnIndex(KEY_ERROR)));
+        return entry;
+    }
+}
@@ -19,14 +19,17 @@
 package org.envirocar.storage.dao;
 
 import org.envirocar.core.dao.TrackDAO;
+import org.envirocar.core.entity.Measurement;
 import org.envirocar.core.entity.Track;
 import org.envirocar.core.EnviroCarDB;
+import org.envirocar.core.exception.DataRetrievalFailureException;
 
 import java.util.List;
 
 import javax.inject.Inject;
 
 import io.reactivex.Observable;
+import io.reactivex.functions.BiConsumer;
 
 
 /**
@@ -61,6 +64,19 @@ public class LocalTrackDAO implements TrackDAO {
                 .take(1);
     }
 
+    @Override
+    public void getTrackById(String id, BiConsumer<Track, Iterable<Measurement>> consumer)
+            throws DataRetrievalFailureException {
+        Track track = database.getTrack(new Track.TrackId(Long.parseLong(id)), true)
+                .take(1)
+                .blockingFirst();
+        try {
+            consumer.accept(track, database.getMeasurements(track.getTrackID()).blockingIterable());
+        } catch (Exception e) {
+            throw new DataRetrievalFailureException(e);
+        }
+    }
+
     @Override
     public List<Track> getTrackIds() {
         return null;
@@ -106,6 +122,11 @@ public class LocalTrackDAO implements TrackDAO {
         return null;
     }
 
+    @Override
+    public Track createTrack(Track track, Iterable<Measurement> measurements) {
+        return null;
+    }
+
     @Override
     public Observable<Track> createTrackObservable(Track track) {
         return database.insertTrackObservable(track);